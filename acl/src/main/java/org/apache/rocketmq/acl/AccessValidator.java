@@ -52,6 +52,17 @@ public interface AccessValidator {
      */
     void validate(AccessResource accessResource);
 
+    /**
+     * Create a session for the access key after a request asking for it is validated, the following requests are
+     * signed with the key derived from the session id and the secret key.
+     *
+     * @param accessKey
+     * @return the session id, null if the session is not supported
+     */
+    default String createSession(String accessKey) {
+        return null;
+    }
+
     /**
      * Update the access resource config
      *
@@ -19,36 +19,93 @@ package org.apache.rocketmq.acl.common;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.rocketmq.remoting.RPCHook;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
 
 import static org.apache.rocketmq.acl.common.SessionCredentials.ACCESS_KEY;
 import static org.apache.rocketmq.acl.common.SessionCredentials.SECURITY_TOKEN;
+import static org.apache.rocketmq.acl.common.SessionCredentials.SESSION_ID;
+import static org.apache.rocketmq.acl.common.SessionCredentials.SESSION_REQUEST;
 import static org.apache.rocketmq.acl.common.SessionCredentials.SIGNATURE;
 
 public class AclClientRPCHook implements RPCHook {
+    /**
+     * Separates the session key derivation from the other uses of the secret key, so that the session key of a
+     * session id is never the signature of some request content
+     */
+    private static final String SESSION_KEY_LABEL = "rocketmq-session-key:";
+
     private final SessionCredentials sessionCredentials;
 
+    /**
+     * Ask each server for a session on the first request, the following requests to the server are signed with the
+     * session key over the header fields only, instead of the secret key over the header fields and the body.
+     */
+    private final boolean enableSession;
+    private final ConcurrentMap<String /* remoteAddr */, Session> sessionTable = new ConcurrentHashMap<>();
+
     public AclClientRPCHook(SessionCredentials sessionCredentials) {
+        this(sessionCredentials, false);
+    }
+
+    public AclClientRPCHook(SessionCredentials sessionCredentials, boolean enableSession) {
         this.sessionCredentials = sessionCredentials;
+        this.enableSession = enableSession;
     }
 
     @Override
     public void doBeforeRequest(String remoteAddr, RemotingCommand request) {
+        if (enableSession && request.getExtFields() != null) {
+            // left by the first attempt of a request retried after its session expired
+            request.getExtFields().remove(SESSION_ID);
+            request.getExtFields().remove(SESSION_REQUEST);
+            request.getExtFields().remove(SIGNATURE);
+        }
         // Add AccessKey and SecurityToken into signature calculating.
         request.addExtField(ACCESS_KEY, sessionCredentials.getAccessKey());
         // The SecurityToken value is unnecessary,user can choose this one.
         if (sessionCredentials.getSecurityToken() != null) {
             request.addExtField(SECURITY_TOKEN, sessionCredentials.getSecurityToken());
         }
-        byte[] total = AclUtils.combineRequestContent(request, parseRequestContent(request));
-        String signature = AclUtils.calSignature(total, sessionCredentials.getSecretKey());
+        Session session = enableSession && remoteAddr != null ? sessionTable.get(remoteAddr) : null;
+        if (session != null) {
+            request.addExtField(SESSION_ID, session.sessionId);
+            String signature = AclUtils.calSignature(parseRequestContent(request), null, session.sessionKey);
+            request.addExtField(SIGNATURE, signature);
+            return;
+        }
+        if (enableSession && remoteAddr != null) {
+            request.addExtField(SESSION_REQUEST, Boolean.TRUE.toString());
+        }
+        String signature = AclUtils.calSignature(parseRequestContent(request), request.getBody(), sessionCredentials.getSecretKey());
         request.addExtField(SIGNATURE, signature);
     }
 
     @Override
     public void doAfterResponse(String remoteAddr, RemotingCommand request, RemotingCommand response) {
-
+        if (!enableSession || remoteAddr == null || response == null || request.getExtFields() == null) {
+            return;
+        }
+        String requestSessionId = request.getExtFields().get(SESSION_ID);
+        if (requestSessionId != null) {
+            if (response.getCode() == ResponseCode.ACL_SESSION_EXPIRED) {
+                // the session is expired or lost by the server restart, the remoting client retries the request signed
+                // in full, which asks for a new session
+                Session session = sessionTable.get(remoteAddr);
+                if (session != null && session.sessionId.equals(requestSessionId)) {
+                    sessionTable.remove(remoteAddr, session);
+                }
+            }
+            return;
+        }
+        Map<String, String> responseExtFields = response.getExtFields();
+        String sessionId = responseExtFields != null ? responseExtFields.get(SESSION_ID) : null;
+        if (sessionId != null) {
+            sessionTable.put(remoteAddr, new Session(sessionId, deriveSessionKey(sessionId, sessionCredentials.getSecretKey())));
+        }
     }
 
     protected SortedMap<String, String> parseRequestContent(RemotingCommand request) {
@@ -61,4 +118,25 @@ public class AclClientRPCHook implements RPCHook {
     public SessionCredentials getSessionCredentials() {
         return sessionCredentials;
     }
+
+    public boolean isEnableSession() {
+        return enableSession;
+    }
+
+    /**
+     * The session key is never sent, both sides derive it from the session id and the secret key.
+     */
+    public static String deriveSessionKey(String sessionId, String secretKey) {
+        return AclSigner.calSignature((SESSION_KEY_LABEL + sessionId).getBytes(SessionCredentials.CHARSET), secretKey);
+    }
+
+    private static class Session {
+        private final String sessionId;
+        private final String sessionKey;
+
+        Session(String sessionId, String sessionKey) {
+            this.sessionId = sessionId;
+            this.sessionKey = sessionKey;
+        }
+    }
 }
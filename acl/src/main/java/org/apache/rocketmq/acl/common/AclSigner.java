@@ -18,6 +18,7 @@ package org.apache.rocketmq.acl.common;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import org.apache.commons.codec.binary.Base64;
@@ -32,6 +33,11 @@ public class AclSigner {
     private static final int CAL_SIGNATURE_FAILED = 10015;
     private static final String CAL_SIGNATURE_FAILED_MSG = "[%s:signature-failed] unable to calculate a request signature. error=%s";
 
+    /**
+     * The Mac of the last key used by the thread, a client or a broker thread signs with the same key in most cases
+     */
+    private static final ThreadLocal<CachedMac> CACHED_MAC = new ThreadLocal<>();
+
     public static String calSignature(String data, String key) throws AclException {
         return calSignature(data, key, DEFAULT_ALGORITHM, DEFAULT_CHARSET);
     }
@@ -55,10 +61,10 @@ public class AclSigner {
 
     private static byte[] sign(byte[] data, byte[] key, SigningAlgorithm algorithm) throws AclException {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
-            mac.init(new SecretKeySpec(key, algorithm.toString()));
+            Mac mac = getMac(key, algorithm);
             return mac.doFinal(data);
         } catch (Exception e) {
+            CACHED_MAC.remove();
             String message = String.format(CAL_SIGNATURE_FAILED_MSG, CAL_SIGNATURE_FAILED, e.getMessage());
             log.error(message, e);
             throw new AclException("CAL_SIGNATURE_FAILED", CAL_SIGNATURE_FAILED, message, e);
@@ -86,4 +92,47 @@ public class AclSigner {
         }
     }
 
+    /**
+     * Calculate the signature of the data fed by the updater, without combining the data into one array.
+     */
+    public static String calSignature(MacUpdater updater, String key) throws AclException {
+        try {
+            Mac mac = getMac(key.getBytes(DEFAULT_CHARSET), DEFAULT_ALGORITHM);
+            updater.update(mac);
+            return new String(Base64.encodeBase64(mac.doFinal()), DEFAULT_CHARSET);
+        } catch (Exception e) {
+            CACHED_MAC.remove();
+            String message = String.format(CAL_SIGNATURE_FAILED_MSG, CAL_SIGNATURE_FAILED, e.getMessage());
+            log.error(message, e);
+            throw new AclException("CAL_SIGNATURE_FAILED", CAL_SIGNATURE_FAILED, message, e);
+        }
+    }
+
+    private static Mac getMac(byte[] key, SigningAlgorithm algorithm) throws Exception {
+        CachedMac cachedMac = CACHED_MAC.get();
+        if (cachedMac != null && cachedMac.algorithm == algorithm && Arrays.equals(cachedMac.key, key)) {
+            // doFinal has reset the mac
+            return cachedMac.mac;
+        }
+        Mac mac = Mac.getInstance(algorithm.toString());
+        mac.init(new SecretKeySpec(key, algorithm.toString()));
+        CACHED_MAC.set(new CachedMac(algorithm, key, mac));
+        return mac;
+    }
+
+    public interface MacUpdater {
+        void update(Mac mac) throws Exception;
+    }
+
+    private static class CachedMac {
+        private final SigningAlgorithm algorithm;
+        private final byte[] key;
+        private final Mac mac;
+
+        CachedMac(SigningAlgorithm algorithm, byte[] key, Mac mac) {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.mac = mac;
+        }
+    }
 }
@@ -39,6 +39,10 @@ public class AclUtils {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.COMMON_LOGGER_NAME);
 
     public static byte[] combineRequestContent(RemotingCommand request, SortedMap<String, String> fieldsMap) {
+        return combineRequestContent(fieldsMap, request.getBody());
+    }
+
+    public static byte[] combineRequestContent(SortedMap<String, String> fieldsMap, byte[] body) {
         try {
             StringBuilder sb = new StringBuilder("");
             for (Map.Entry<String, String> entry : fieldsMap.entrySet()) {
@@ -47,12 +51,32 @@ public class AclUtils {
                 }
             }
 
-            return AclUtils.combineBytes(sb.toString().getBytes(CHARSET), request.getBody());
+            return AclUtils.combineBytes(sb.toString().getBytes(CHARSET), body);
         } catch (Exception e) {
             throw new RuntimeException("Incompatible exception.", e);
         }
     }
 
+    /**
+     * Calculate the same signature as {@link #combineRequestContent(RemotingCommand, SortedMap)} does, the field
+     * values and the body are fed into the mac one by one instead of being copied into one array.
+     *
+     * @param body the request body, or null if only the fields are signed
+     */
+    public static String calSignature(SortedMap<String, String> fieldsMap, byte[] body, String secretKey) {
+        return AclSigner.calSignature(mac -> {
+            for (Map.Entry<String, String> entry : fieldsMap.entrySet()) {
+                if (!SessionCredentials.SIGNATURE.equals(entry.getKey())) {
+                    // the same as appending the value to a StringBuilder
+                    mac.update(String.valueOf(entry.getValue()).getBytes(CHARSET));
+                }
+            }
+            if (body != null) {
+                mac.update(body);
+            }
+        }, secretKey);
+    }
+
     public static byte[] combineBytes(byte[] b1, byte[] b2) {
         if (b1 == null || b1.length == 0) return b2;
         if (b2 == null || b2.length == 0) return b1;
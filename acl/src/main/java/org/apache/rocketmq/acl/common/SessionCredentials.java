@@ -29,6 +29,14 @@ public class SessionCredentials {
     public static final String SECRET_KEY = "SecretKey";
     public static final String SIGNATURE = "Signature";
     public static final String SECURITY_TOKEN = "SecurityToken";
+    /**
+     * Set by the client to ask the server for a session, the server returns the session id in the response
+     */
+    public static final String SESSION_REQUEST = "SessionRequest";
+    /**
+     * The requests signed with the session key carry the session id, and only the header fields are signed
+     */
+    public static final String SESSION_ID = "SessionId";
 
     public static final String KEY_FILE = System.getProperty("rocketmq.client.keyFile",
         System.getProperty("user.home") + File.separator + "key");
@@ -88,6 +88,14 @@ public class PlainAccessResource implements AccessResource {
     // The content to calculate the content
     private byte[] content;
 
+    // The sorted header fields and the body to calculate the signature without combining them into the content
+    private SortedMap<String, String> signatureFields;
+
+    private byte[] body;
+
+    // The requests signed with the session key carry the session id
+    private String sessionId;
+
     private String signature;
 
     private String secretToken;
@@ -115,6 +123,7 @@ public class PlainAccessResource implements AccessResource {
         accessResource.setAccessKey(request.getExtFields().get(SessionCredentials.ACCESS_KEY));
         accessResource.setSignature(request.getExtFields().get(SessionCredentials.SIGNATURE));
         accessResource.setSecretToken(request.getExtFields().get(SessionCredentials.SECURITY_TOKEN));
+        accessResource.setSessionId(request.getExtFields().get(SessionCredentials.SESSION_ID));
 
         try {
             switch (request.getCode()) {
@@ -146,7 +155,7 @@ public class PlainAccessResource implements AccessResource {
                     accessResource.addResourceAndPerm(request.getExtFields().get("topic"), Permission.SUB);
                     break;
                 case RequestCode.HEART_BEAT:
-                    HeartbeatData heartbeatData = HeartbeatData.decode(request.getBody(), HeartbeatData.class);
+                    HeartbeatData heartbeatData = HeartbeatData.decodeRequest(request);
                     for (ConsumerData data : heartbeatData.getConsumerDataSet()) {
                         accessResource.addResourceAndPerm(getRetryTopic(data.getGroupName()), Permission.SUB);
                         for (SubscriptionData subscriptionData : data.getSubscriptionDataSet()) {
@@ -192,7 +201,8 @@ public class PlainAccessResource implements AccessResource {
                 map.put(entry.getKey(), entry.getValue());
             }
         }
-        accessResource.setContent(AclUtils.combineRequestContent(request, map));
+        accessResource.setSignatureFields(map);
+        accessResource.setBody(request.getBody());
         return accessResource;
     }
 
@@ -460,10 +470,37 @@ public class PlainAccessResource implements AccessResource {
     }
 
     public byte[] getContent() {
+        if (content == null && signatureFields != null) {
+            content = AclUtils.combineRequestContent(signatureFields, body);
+        }
         return content;
     }
 
     public void setContent(byte[] content) {
         this.content = content;
     }
+
+    public SortedMap<String, String> getSignatureFields() {
+        return signatureFields;
+    }
+
+    public void setSignatureFields(SortedMap<String, String> signatureFields) {
+        this.signatureFields = signatureFields;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
 }
@@ -50,6 +50,11 @@ public class PlainAccessValidator implements AccessValidator {
         aclPlugEngine.validate((PlainAccessResource) accessResource);
     }
 
+    @Override
+    public String createSession(String accessKey) {
+        return aclPlugEngine.createSession(accessKey);
+    }
+
     @Override
     public boolean updateAccessConfig(PlainAccessConfig plainAccessConfig) {
         return aclPlugEngine.updateAccessConfig(plainAccessConfig);
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.acl.plain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorization results of the clients, grouped by the client address. The results only depend on the acl config, so
+ * the whole cache is replaced once the acl config is changed, instead of being updated in place.
+ * <p>
+ * Only the remote address matching and the passed permission checks are cached, the signature of each request is
+ * always checked. The addresses are bounded and evicted by recency, and expire some time after being cached so that
+ * the addresses of the clients gone away are dropped.
+ */
+public class PlainAuthorizationCache {
+
+    private static final int MAX_ADDRESS_NUM = 10000;
+
+    private static final long ADDRESS_EXPIRE_MINUTES = 10;
+
+    private static final int MAX_GRANTED_NUM_PER_ADDRESS = 1024;
+
+    private final Cache<String/** whiteRemoteAddress **/, AddressEntry> addressTable;
+
+    public PlainAuthorizationCache() {
+        this(MAX_ADDRESS_NUM);
+    }
+
+    PlainAuthorizationCache(int maxAddressNum) {
+        this.addressTable = Caffeine.newBuilder()
+            .maximumSize(maxAddressNum)
+            .expireAfterWrite(ADDRESS_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+    }
+
+    /**
+     * @return the authorization results of the address, or null if the address is null
+     */
+    public AddressEntry getAddressEntry(String remoteAddress) {
+        if (remoteAddress == null) {
+            return null;
+        }
+        return addressTable.get(remoteAddress, k -> new AddressEntry());
+    }
+
+    public long getAddressNum() {
+        addressTable.cleanUp();
+        return addressTable.estimatedSize();
+    }
+
+    public static class AddressEntry {
+
+        private volatile Boolean globalWhite;
+
+        private final ConcurrentMap<String/** accessKey **/, Boolean> accessWhiteTable = new ConcurrentHashMap<>(4);
+
+        private final Set<GrantedKey> grantedSet = ConcurrentHashMap.newKeySet();
+
+        public Boolean getGlobalWhite() {
+            return globalWhite;
+        }
+
+        public void setGlobalWhite(Boolean globalWhite) {
+            this.globalWhite = globalWhite;
+        }
+
+        public Boolean getAccessWhite(String accessKey) {
+            return accessWhiteTable.get(accessKey);
+        }
+
+        public void setAccessWhite(String accessKey, boolean accessWhite) {
+            if (accessWhiteTable.size() < MAX_GRANTED_NUM_PER_ADDRESS) {
+                accessWhiteTable.put(accessKey, accessWhite);
+            }
+        }
+
+        public boolean isGranted(PlainAccessResource checkedAccess) {
+            return grantedSet.contains(new GrantedKey(checkedAccess));
+        }
+
+        public void grant(PlainAccessResource checkedAccess) {
+            if (grantedSet.size() < MAX_GRANTED_NUM_PER_ADDRESS) {
+                grantedSet.add(new GrantedKey(checkedAccess));
+            }
+        }
+    }
+
+    private static class GrantedKey {
+        private final String accessKey;
+        private final int requestCode;
+        private final Map<String, Byte> resourcePermMap;
+        private final int hash;
+
+        GrantedKey(PlainAccessResource checkedAccess) {
+            this.accessKey = checkedAccess.getAccessKey();
+            this.requestCode = checkedAccess.getRequestCode();
+            this.resourcePermMap = checkedAccess.getResourcePermMap();
+            this.hash = Objects.hash(accessKey, requestCode, resourcePermMap);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GrantedKey)) {
+                return false;
+            }
+            GrantedKey key = (GrantedKey) o;
+            return requestCode == key.requestCode && Objects.equals(accessKey, key.accessKey)
+                && Objects.equals(resourcePermMap, key.resourcePermMap);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -30,9 +30,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.acl.PermissionChecker;
+import org.apache.rocketmq.acl.common.AclClientRPCHook;
 import org.apache.rocketmq.acl.common.AclConstants;
 import org.apache.rocketmq.acl.common.AclException;
 import org.apache.rocketmq.acl.common.AclUtils;
@@ -45,12 +50,17 @@ import org.apache.rocketmq.common.topic.TopicValidator;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.remoting.protocol.DataVersion;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.apache.rocketmq.srvutil.AclFileWatchService;
 
 public class PlainPermissionManager {
 
     private static final Logger log = LoggerFactory.getLogger(LoggerName.COMMON_LOGGER_NAME);
 
+    private static final long SESSION_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final int MAX_SESSION_NUM = 100000;
+
     private String fileHome = System.getProperty(MixAll.ROCKETMQ_HOME_PROPERTY,
         System.getenv(MixAll.ROCKETMQ_HOME_ENV));
 
@@ -79,6 +89,15 @@ public class PlainPermissionManager {
 
     private final PermissionChecker permissionChecker = new PlainPermissionChecker();
 
+    private final ConcurrentMap<String/** sessionId **/, AclSession> sessionTable = new ConcurrentHashMap<>();
+
+    private volatile long lastSessionCleanTime = System.currentTimeMillis();
+
+    /**
+     * Replaced once the acl config is changed
+     */
+    private volatile PlainAuthorizationCache authorizationCache = new PlainAuthorizationCache();
+
     public PlainPermissionManager() {
         this.defaultAclDir = MixAll.dealFilePath(fileHome + File.separator + "conf" + File.separator + "acl");
         this.defaultAclFile = MixAll.dealFilePath(fileHome + File.separator + System.getProperty("rocketmq.acl.plain.file", "conf" + File.separator + "plain_acl.yml"));
@@ -186,6 +205,7 @@ public class PlainPermissionManager {
         this.globalWhiteRemoteAddressStrategy = globalWhiteRemoteAddressStrategy;
         this.aclPlainAccessResourceMap = aclPlainAccessResourceMap;
         this.accessKeyTable = accessKeyTable;
+        this.authorizationCache = new PlainAuthorizationCache();
     }
 
     /**
@@ -264,6 +284,7 @@ public class PlainPermissionManager {
         if (aclFilePath.equals(defaultAclFile)) {
             this.dataVersion.assignNewOne(dataVersion);
         }
+        this.authorizationCache = new PlainAuthorizationCache();
     }
 
     @Deprecated
@@ -294,6 +315,7 @@ public class PlainPermissionManager {
         updateAclConfigMap.setDataVersion(versionElement);
 
         dataVersionMap.put(aclFileName, dataVersion);
+        this.authorizationCache = new PlainAuthorizationCache();
 
         return updateAclConfigMap;
     }
@@ -577,6 +599,7 @@ public class PlainPermissionManager {
         this.aclPlainAccessResourceMap.clear();
         this.accessKeyTable.clear();
         this.globalWhiteRemoteAddressStrategy.clear();
+        this.authorizationCache = new PlainAuthorizationCache();
     }
 
     public void checkPlainAccessConfig(PlainAccessConfig plainAccessConfig) throws AclException {
@@ -597,12 +620,13 @@ public class PlainPermissionManager {
     }
 
     public void validate(PlainAccessResource plainAccessResource) {
+        // The results computed with a config changed meanwhile are put into the replaced cache only
+        PlainAuthorizationCache.AddressEntry addressEntry =
+            authorizationCache.getAddressEntry(plainAccessResource.getWhiteRemoteAddress());
 
         // Check the global white remote addr
-        for (RemoteAddressStrategy remoteAddressStrategy : globalWhiteRemoteAddressStrategy) {
-            if (remoteAddressStrategy.match(plainAccessResource)) {
-                return;
-            }
+        if (matchGlobalWhiteRemoteAddress(plainAccessResource, addressEntry)) {
+            return;
         }
 
         if (plainAccessResource.getAccessKey() == null) {
@@ -619,12 +643,12 @@ public class PlainPermissionManager {
         if (ownedAccess == null) {
             throw new AclException(String.format("No PlainAccessResource for accessKey=%s", plainAccessResource.getAccessKey()));
         }
-        if (ownedAccess.getRemoteAddressStrategy().match(plainAccessResource)) {
+        if (matchWhiteRemoteAddress(plainAccessResource, ownedAccess, addressEntry)) {
             return;
         }
 
         // Check the signature
-        String signature = AclUtils.calSignature(plainAccessResource.getContent(), ownedAccess.getSecretKey());
+        String signature = calSignature(plainAccessResource, ownedAccess);
         if (!signature.equals(plainAccessResource.getSignature())) {
             throw new AclException(String.format("Check signature failed for accessKey=%s", plainAccessResource.getAccessKey()));
         }
@@ -639,10 +663,120 @@ public class PlainPermissionManager {
         }
 
         // Check perm of each resource
+        if (addressEntry != null && addressEntry.isGranted(plainAccessResource)) {
+            return;
+        }
         checkPerm(plainAccessResource, ownedAccess);
+        if (addressEntry != null) {
+            addressEntry.grant(plainAccessResource);
+        }
+    }
+
+    private boolean matchGlobalWhiteRemoteAddress(PlainAccessResource plainAccessResource,
+        PlainAuthorizationCache.AddressEntry addressEntry) {
+        Boolean matched = addressEntry != null ? addressEntry.getGlobalWhite() : null;
+        if (matched == null) {
+            matched = false;
+            for (RemoteAddressStrategy remoteAddressStrategy : globalWhiteRemoteAddressStrategy) {
+                if (remoteAddressStrategy.match(plainAccessResource)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (addressEntry != null) {
+                addressEntry.setGlobalWhite(matched);
+            }
+        }
+        return matched;
+    }
+
+    private boolean matchWhiteRemoteAddress(PlainAccessResource plainAccessResource, PlainAccessResource ownedAccess,
+        PlainAuthorizationCache.AddressEntry addressEntry) {
+        Boolean matched = addressEntry != null ? addressEntry.getAccessWhite(ownedAccess.getAccessKey()) : null;
+        if (matched == null) {
+            matched = ownedAccess.getRemoteAddressStrategy().match(plainAccessResource);
+            if (addressEntry != null) {
+                addressEntry.setAccessWhite(ownedAccess.getAccessKey(), matched);
+            }
+        }
+        return matched;
+    }
+
+    private String calSignature(PlainAccessResource plainAccessResource, PlainAccessResource ownedAccess) {
+        if (plainAccessResource.getSessionId() != null) {
+            AclSession session = sessionTable.get(plainAccessResource.getSessionId());
+            long now = System.currentTimeMillis();
+            // The session is dropped once the secret key of its owner is changed
+            if (session == null || session.isExpired(now)
+                || !session.accessKey.equals(plainAccessResource.getAccessKey())
+                || !session.secretKey.equals(ownedAccess.getSecretKey())) {
+                throw new AclException("SessionExpired", ResponseCode.ACL_SESSION_EXPIRED,
+                    String.format("Session %s is expired for accessKey=%s", plainAccessResource.getSessionId(),
+                        plainAccessResource.getAccessKey()));
+            }
+            session.lastAccessTime = now;
+            return AclUtils.calSignature(plainAccessResource.getSignatureFields(), null, session.sessionKey);
+        }
+        if (plainAccessResource.getSignatureFields() != null) {
+            return AclUtils.calSignature(plainAccessResource.getSignatureFields(), plainAccessResource.getBody(),
+                ownedAccess.getSecretKey());
+        }
+        return AclUtils.calSignature(plainAccessResource.getContent(), ownedAccess.getSecretKey());
+    }
+
+    /**
+     * Create a session for the access key, the requests signed with the session key skip signing the body.
+     *
+     * @return the session id, or null if there is no acl config for the access key or too many sessions
+     */
+    public String createSession(String accessKey) {
+        if (accessKey == null) {
+            return null;
+        }
+        String aclFileName = accessKeyTable.get(accessKey);
+        PlainAccessResource ownedAccess = aclFileName == null ? null
+            : aclPlainAccessResourceMap.getOrDefault(aclFileName, new HashMap<>()).get(accessKey);
+        if (ownedAccess == null || ownedAccess.getSecretKey() == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastSessionCleanTime > SESSION_IDLE_MILLIS || sessionTable.size() >= MAX_SESSION_NUM) {
+            lastSessionCleanTime = now;
+            sessionTable.values().removeIf(session -> session.isExpired(now));
+        }
+        if (sessionTable.size() >= MAX_SESSION_NUM) {
+            log.warn("Too many acl sessions, size={}", sessionTable.size());
+            return null;
+        }
+        String sessionId = UUID.randomUUID().toString();
+        String sessionKey = AclClientRPCHook.deriveSessionKey(sessionId, ownedAccess.getSecretKey());
+        sessionTable.put(sessionId, new AclSession(accessKey, ownedAccess.getSecretKey(), sessionKey, now));
+        return sessionId;
+    }
+
+    public int getSessionNum() {
+        return sessionTable.size();
     }
 
     public boolean isWatchStart() {
         return isWatchStart;
     }
+
+    private static class AclSession {
+        private final String accessKey;
+        private final String secretKey;
+        private final String sessionKey;
+        private volatile long lastAccessTime;
+
+        AclSession(String accessKey, String secretKey, String sessionKey, long lastAccessTime) {
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.sessionKey = sessionKey;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        boolean isExpired(long now) {
+            return now - lastAccessTime > SESSION_IDLE_MILLIS;
+        }
+    }
 }
@@ -123,6 +123,9 @@ public class RemoteAddressStrategyFactory {
 
         private String netAddress;
 
+        // Expanded once instead of on each match
+        private final String expandedNetAddress;
+
         public OneRemoteAddressStrategy(String netAddress) {
             this.netAddress = netAddress;
             InetAddressValidator validator = InetAddressValidator.getInstance();
@@ -131,12 +134,13 @@ public class RemoteAddressStrategyFactory {
                 throw new AclException(String.format("NetAddress examine Exception netAddress is %s",
                     netAddress));
             }
+            this.expandedNetAddress = AclUtils.expandIP(netAddress, 8).toUpperCase();
         }
 
         @Override
         public boolean match(PlainAccessResource plainAccessResource) {
             String writeRemoteAddress = AclUtils.expandIP(plainAccessResource.getWhiteRemoteAddress(), 8).toUpperCase();
-            return AclUtils.expandIP(netAddress, 8).toUpperCase().equals(writeRemoteAddress);
+            return expandedNetAddress.equals(writeRemoteAddress);
         }
 
     }
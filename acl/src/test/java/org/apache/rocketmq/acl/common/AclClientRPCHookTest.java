@@ -25,12 +25,17 @@ import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.remoting.CommandCustomHeader;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.RemotingSysResponseCode;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.apache.rocketmq.remoting.protocol.RequestType;
 import org.apache.rocketmq.remoting.protocol.header.PullMessageRequestHeader;
 import org.junit.Test;
 
 import static org.apache.rocketmq.acl.common.SessionCredentials.ACCESS_KEY;
 import static org.apache.rocketmq.acl.common.SessionCredentials.SECURITY_TOKEN;
+import static org.apache.rocketmq.acl.common.SessionCredentials.SESSION_ID;
+import static org.apache.rocketmq.acl.common.SessionCredentials.SESSION_REQUEST;
+import static org.apache.rocketmq.acl.common.SessionCredentials.SIGNATURE;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class AclClientRPCHookTest {
@@ -78,6 +83,65 @@ public class AclClientRPCHookTest {
         assertThat(content.get(MixAll.REQ_T)).isEqualTo(String.valueOf(RequestType.STREAM.getCode()));
     }
 
+    @Test
+    public void testSessionSignature() {
+        AclClientRPCHook sessionHook = new AclClientRPCHook(new SessionCredentials("ak", "sk"), true);
+        String remoteAddr = "127.0.0.1:10911";
+
+        RemotingCommand request = createSendRequest();
+        sessionHook.doBeforeRequest(remoteAddr, request);
+        assertThat(request.getExtFields().get(SESSION_REQUEST)).isEqualTo("true");
+        assertThat(request.getExtFields().get(SESSION_ID)).isNull();
+        RemotingCommand response = RemotingCommand.createResponseCommand(RemotingSysResponseCode.SUCCESS, null);
+        response.addExtField(SESSION_ID, "session");
+        sessionHook.doAfterResponse(remoteAddr, request, response);
+
+        request = createSendRequest();
+        sessionHook.doBeforeRequest(remoteAddr, request);
+        assertThat(request.getExtFields().get(SESSION_REQUEST)).isNull();
+        assertThat(request.getExtFields().get(SESSION_ID)).isEqualTo("session");
+        String sessionKey = AclClientRPCHook.deriveSessionKey("session", "sk");
+        assertThat(sessionKey).isNotEqualTo(AclSigner.calSignature("session".getBytes(SessionCredentials.CHARSET), "sk"));
+        SortedMap<String, String> fieldsMap = new TreeMap<>(request.getExtFields());
+        fieldsMap.remove(SIGNATURE);
+        assertThat(request.getExtFields().get(SIGNATURE))
+            .isEqualTo(AclUtils.calSignature(AclUtils.combineRequestContent(fieldsMap, null), sessionKey));
+
+        // other errors keep the session
+        sessionHook.doAfterResponse(remoteAddr, request,
+            RemotingCommand.createResponseCommand(RemotingSysResponseCode.SYSTEM_ERROR, "error"));
+        RemotingCommand otherRequest = createSendRequest();
+        sessionHook.doBeforeRequest(remoteAddr, otherRequest);
+        assertThat(otherRequest.getExtFields().get(SESSION_ID)).isEqualTo("session");
+
+        // the session is dropped once it is rejected, and the retried request is signed in full
+        sessionHook.doAfterResponse(remoteAddr, request,
+            RemotingCommand.createResponseCommand(ResponseCode.ACL_SESSION_EXPIRED, "expired"));
+        sessionHook.doBeforeRequest(remoteAddr, request);
+        assertThat(request.getExtFields().get(SESSION_ID)).isNull();
+        assertThat(request.getExtFields().get(SESSION_REQUEST)).isEqualTo("true");
+        fieldsMap = new TreeMap<>(request.getExtFields());
+        fieldsMap.remove(SIGNATURE);
+        assertThat(request.getExtFields().get(SIGNATURE))
+            .isEqualTo(AclUtils.calSignature(AclUtils.combineRequestContent(fieldsMap, request.getBody()), "sk"));
+    }
+
+    private RemotingCommand createSendRequest() {
+        PullMessageRequestHeader requestHeader = new PullMessageRequestHeader();
+        requestHeader.setConsumerGroup("group");
+        requestHeader.setTopic("topic");
+        requestHeader.setQueueId(1);
+        requestHeader.setQueueOffset(2L);
+        requestHeader.setMaxMsgNums(32);
+        requestHeader.setSysFlag(0);
+        requestHeader.setCommitOffset(0L);
+        requestHeader.setSuspendTimeoutMillis(15000L);
+        requestHeader.setSubVersion(0L);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.PULL_MESSAGE, requestHeader);
+        request.setBody("body".getBytes(SessionCredentials.CHARSET));
+        return request;
+    }
+
     private SortedMap<String, String> oldVersionParseRequestContent(RemotingCommand request, String ak, String securityToken) {
         CommandCustomHeader header = request.readCustomHeader();
         // Sort property
@@ -32,10 +32,31 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 
 public class AclUtilsTest {
 
+    @Test
+    public void testCalSignatureWithoutCombining() {
+        SortedMap<String, String> fieldsMap = new TreeMap<>();
+        fieldsMap.put(SessionCredentials.ACCESS_KEY, "RocketMQ");
+        fieldsMap.put("topic", "topicA");
+        fieldsMap.put("queueId", "1");
+        byte[] body = "body".getBytes(SessionCredentials.CHARSET);
+
+        Assert.assertEquals(AclUtils.calSignature(AclUtils.combineRequestContent(fieldsMap, body), "12345678"),
+            AclUtils.calSignature(fieldsMap, body, "12345678"));
+        Assert.assertEquals(AclUtils.calSignature(AclUtils.combineRequestContent(fieldsMap, null), "12345678"),
+            AclUtils.calSignature(fieldsMap, null, "12345678"));
+
+        // the signature field is never signed
+        fieldsMap.put(SessionCredentials.SIGNATURE, "signature");
+        Assert.assertEquals(AclUtils.calSignature(AclUtils.combineRequestContent(fieldsMap, body), "12345678"),
+            AclUtils.calSignature(fieldsMap, body, "12345678"));
+    }
+
     @Test
     public void testGetAddresses() {
         String address = "1.1.1.{1,2,3,4}";
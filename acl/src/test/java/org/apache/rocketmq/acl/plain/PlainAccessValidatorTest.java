@@ -41,6 +41,7 @@ import org.apache.rocketmq.remoting.exception.RemotingCommandException;
 import org.apache.rocketmq.remoting.protocol.DataVersion;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.apache.rocketmq.remoting.protocol.header.ConsumerSendMsgBackRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.GetConsumerListByGroupRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.PullMessageRequestHeader;
@@ -130,6 +131,45 @@ public class PlainAccessValidatorTest {
 
     }
 
+    @Test
+    public void validateSessionTest() throws RemotingCommandException {
+        AclClientRPCHook sessionClient = new AclClientRPCHook(sessionCredentials, true);
+        String remoteAddr = "127.0.0.1:10911";
+        SendMessageRequestHeader messageRequestHeader = new SendMessageRequestHeader();
+        messageRequestHeader.setTopic("topicB");
+        RemotingCommand remotingCommand = RemotingCommand.createRequestCommand(RequestCode.SEND_MESSAGE, messageRequestHeader);
+        remotingCommand.setBody("body".getBytes(SessionCredentials.CHARSET));
+        sessionClient.doBeforeRequest(remoteAddr, remotingCommand);
+        RemotingCommand request = decode(remotingCommand);
+        plainAccessValidator.validate(plainAccessValidator.parse(request, "123.4.5.6"));
+        Assert.assertEquals("true", request.getExtFields().get(SessionCredentials.SESSION_REQUEST));
+
+        String sessionId = plainAccessValidator.createSession(sessionCredentials.getAccessKey());
+        Assert.assertNotNull(sessionId);
+        Assert.assertNull(plainAccessValidator.createSession("unknown"));
+        RemotingCommand response = RemotingCommand.createResponseCommand(null);
+        response.addExtField(SessionCredentials.SESSION_ID, sessionId);
+        sessionClient.doAfterResponse(remoteAddr, remotingCommand, response);
+
+        remotingCommand = RemotingCommand.createRequestCommand(RequestCode.SEND_MESSAGE, messageRequestHeader);
+        remotingCommand.setBody("body".getBytes(SessionCredentials.CHARSET));
+        sessionClient.doBeforeRequest(remoteAddr, remotingCommand);
+        Assert.assertEquals(sessionId, remotingCommand.getExtFields().get(SessionCredentials.SESSION_ID));
+        plainAccessValidator.validate(plainAccessValidator.parse(decode(remotingCommand), "123.4.5.6"));
+
+        // a session id unknown to the server is rejected
+        remotingCommand.addExtField(SessionCredentials.SESSION_ID, "unknown");
+        PlainAccessResource accessResource = (PlainAccessResource) plainAccessValidator.parse(decode(remotingCommand), "123.4.5.6");
+        AclException exception = Assert.assertThrows(AclException.class, () -> plainAccessValidator.validate(accessResource));
+        Assert.assertEquals(ResponseCode.ACL_SESSION_EXPIRED, exception.getCode());
+    }
+
+    private RemotingCommand decode(RemotingCommand remotingCommand) throws RemotingCommandException {
+        ByteBuffer buf = remotingCommand.encode();
+        buf.getInt();
+        return RemotingCommand.decode(buf.slice());
+    }
+
     @Test
     public void validateSendMessageTest() {
         SendMessageRequestHeader messageRequestHeader = new SendMessageRequestHeader();
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.acl.plain;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlainAuthorizationCacheTest {
+
+    @Test
+    public void testAddressesAreBounded() {
+        PlainAuthorizationCache authorizationCache = new PlainAuthorizationCache(16);
+        assertThat(authorizationCache.getAddressEntry(null)).isNull();
+
+        PlainAuthorizationCache.AddressEntry addressEntry = authorizationCache.getAddressEntry("192.168.0.1");
+        addressEntry.setGlobalWhite(true);
+        assertThat(authorizationCache.getAddressEntry("192.168.0.1")).isSameAs(addressEntry);
+
+        for (int i = 0; i < 1000; i++) {
+            // new addresses are still cached once the bound is reached
+            assertThat(authorizationCache.getAddressEntry("10.0." + i / 256 + "." + i % 256)).isNotNull();
+        }
+        assertThat(authorizationCache.getAddressNum()).isLessThanOrEqualTo(16);
+    }
+}
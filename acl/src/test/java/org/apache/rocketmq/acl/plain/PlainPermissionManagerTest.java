@@ -22,6 +22,7 @@ import org.apache.rocketmq.acl.common.AclConstants;
 import org.apache.rocketmq.acl.common.AclException;
 import org.apache.rocketmq.acl.common.AclUtils;
 import org.apache.rocketmq.acl.common.Permission;
+import org.apache.rocketmq.acl.common.SessionCredentials;
 import org.apache.rocketmq.common.AclConfig;
 import org.apache.rocketmq.common.PlainAccessConfig;
 import org.apache.rocketmq.remoting.protocol.DataVersion;
@@ -295,6 +296,39 @@ public class PlainPermissionManagerTest {
         plainPermissionManager.updateAccessConfig(plainAccessConfig);
     }
 
+    @Test
+    public void validateWithAuthorizationCacheTest() {
+        PlainAccessConfig accessConfig = new PlainAccessConfig();
+        accessConfig.setAccessKey("cache_test");
+        accessConfig.setSecretKey("12345678");
+        accessConfig.setDefaultTopicPerm("DENY");
+        accessConfig.setTopicPerms(Lists.newArrayList("topicCache=PUB"));
+        plainPermissionManager.updateAccessConfig(accessConfig);
+
+        plainPermissionManager.validate(buildSignedAccessResource("cache_test", "topicCache"));
+        // validated by the cached result
+        plainPermissionManager.validate(buildSignedAccessResource("cache_test", "topicCache"));
+        Assert.assertThrows(AclException.class,
+            () -> plainPermissionManager.validate(buildSignedAccessResource("cache_test", "topicDeny")));
+
+        // the cached result is dropped once the acl config is changed
+        accessConfig.setTopicPerms(Lists.newArrayList("topicCache=SUB"));
+        plainPermissionManager.updateAccessConfig(accessConfig);
+        Assert.assertThrows(AclException.class,
+            () -> plainPermissionManager.validate(buildSignedAccessResource("cache_test", "topicCache")));
+    }
+
+    private PlainAccessResource buildSignedAccessResource(String accessKey, String topic) {
+        PlainAccessResource accessResource = new PlainAccessResource();
+        accessResource.setAccessKey(accessKey);
+        accessResource.setWhiteRemoteAddress("10.0.0.1");
+        accessResource.setRequestCode(10);
+        accessResource.addResourceAndPerm(topic, Permission.PUB);
+        accessResource.setContent((accessKey + topic).getBytes(SessionCredentials.CHARSET));
+        accessResource.setSignature(AclUtils.calSignature(accessResource.getContent(), "12345678"));
+        return accessResource;
+    }
+
     @Test
     public void getAllAclFilesTest() {
         final List<String> notExistList = plainPermissionManager.getAllAclFiles("aa/bb");
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.broker;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.broker.transaction.queue.TransactionalHalfMessageIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the transaction check of one pending half message and the resolving of one half message by an op message
+ * against an index holding a large number of pending transactions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TransactionalHalfMessageIndexBenchmark {
+
+    @Param({"1000000"})
+    private int pendingCount;
+
+    private TransactionalHalfMessageIndex index;
+    private long clock;
+    private long nextHalfOffset;
+    private long nextResolveOffset;
+    private long nextOpOffset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new TransactionalHalfMessageIndex();
+        index.init(0, 0);
+        for (int i = 0; i < pendingCount; i++) {
+            putHalf();
+        }
+    }
+
+    private void putHalf() {
+        long offset = nextHalfOffset++;
+        index.putHalf(offset, offset * 256, offset, 0, -1);
+        index.setHalfScanOffset(nextHalfOffset);
+    }
+
+    @Benchmark
+    public TransactionalHalfMessageIndex.PendingHalf checkExpired() {
+        TransactionalHalfMessageIndex.PendingHalf pendingHalf = index.pollExpired(clock++);
+        if (pendingHalf != null) {
+            index.reschedule(pendingHalf, clock + pendingCount);
+        }
+        return pendingHalf;
+    }
+
+    @Benchmark
+    public long resolveByOp() {
+        long halfOffset = nextResolveOffset++;
+        index.resolve(halfOffset);
+        index.putOp(nextOpOffset++, halfOffset);
+        putHalf();
+        return index.getCommitOpOffset();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.controller;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.ControllerConfig;
+import org.apache.rocketmq.controller.impl.heartbeat.DefaultBrokerHeartbeatManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the heartbeat processing and the periodic expiry check of the controller with thousands of brokers
+ * heartbeating to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class BrokerHeartbeatManagerBenchmark {
+
+    private static final String CLUSTER_NAME = "DefaultCluster";
+
+    private static final long HEARTBEAT_TIMEOUT_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"5000"})
+    private int brokerNum;
+
+    private DefaultBrokerHeartbeatManager heartbeatManager;
+    private String[] brokerNames;
+    private String[] brokerAddrs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final ControllerConfig controllerConfig = new ControllerConfig();
+        this.heartbeatManager = new DefaultBrokerHeartbeatManager(controllerConfig);
+        this.heartbeatManager.initialize();
+        this.brokerNames = new String[this.brokerNum];
+        this.brokerAddrs = new String[this.brokerNum];
+        for (int i = 0; i < this.brokerNum; i++) {
+            // three replicas in each broker-set
+            this.brokerNames[i] = "broker-" + i / 3;
+            this.brokerAddrs[i] = "127.0.0." + i % 256 + ":" + (10911 + i);
+            heartbeat(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.heartbeatManager.shutdown();
+    }
+
+    @Benchmark
+    public void onBrokerHeartbeat() {
+        heartbeat(this.next);
+        if (++this.next == this.brokerNum) {
+            this.next = 0;
+        }
+    }
+
+    @Benchmark
+    public void scanNotActiveBroker() {
+        this.heartbeatManager.scanNotActiveBroker();
+    }
+
+    private void heartbeat(int i) {
+        this.heartbeatManager.onBrokerHeartbeat(CLUSTER_NAME, this.brokerNames[i], this.brokerAddrs[i], (long) i % 3 + 1,
+            HEARTBEAT_TIMEOUT_MILLIS, null, 1, 1024L * i, 1024L * i, 0);
+    }
+}
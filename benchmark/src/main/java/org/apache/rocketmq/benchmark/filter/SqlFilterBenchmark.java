@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.filter.ExpressionType;
+import org.apache.rocketmq.filter.FilterFactory;
+import org.apache.rocketmq.filter.expression.EvaluationContext;
+import org.apache.rocketmq.filter.expression.Expression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures compiling and evaluating SQL92 filter expressions against message properties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SqlFilterBenchmark {
+
+    @Param({
+        "a > 10",
+        "a BETWEEN 1 AND 100 AND b = 'abc'",
+        "(a > 10 AND b IN ('abc', 'def', 'ghi')) OR (c IS NOT NULL AND d <> 'xyz')"
+    })
+    private String expression;
+
+    private Expression compiled;
+    private EvaluationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        compiled = compile();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("a", "50");
+        properties.put("b", "abc");
+        properties.put("c", "1");
+        properties.put("d", "def");
+        context = new MapEvaluationContext(properties);
+    }
+
+    @Benchmark
+    public Expression compile() throws Exception {
+        return FilterFactory.INSTANCE.get(ExpressionType.SQL92).compile(expression);
+    }
+
+    @Benchmark
+    public Object evaluate() throws Exception {
+        return compiled.evaluate(context);
+    }
+
+    static class MapEvaluationContext implements EvaluationContext {
+
+        private final Map<String, Object> properties;
+
+        MapEvaluationContext(Map<String, Object> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object get(String name) {
+            return properties.get(name);
+        }
+
+        @Override
+        public Map<String, Object> keyValues() {
+            return properties;
+        }
+    }
+}
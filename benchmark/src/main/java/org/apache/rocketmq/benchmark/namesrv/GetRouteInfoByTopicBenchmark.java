@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.namesrv;
+
+import io.netty.channel.Channel;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.namesrv.NamesrvConfig;
+import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.namesrv.processor.ClientRequestProcessor;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.remoting.protocol.DataVersion;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper;
+import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoRequestHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the single topic route queries answered by one name server thread, with every topic served by a few
+ * master-slave broker groups. The broker registrations are replayed as heartbeats without route changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class GetRouteInfoByTopicBenchmark {
+
+    private static final String CLUSTER_NAME = "DefaultCluster";
+
+    private static final int BROKER_NUM = 8;
+
+    @Param({"false", "true"})
+    private boolean enableTopicRouteCache;
+
+    @Param({"1000"})
+    private int topicNum;
+
+    private NamesrvController namesrvController;
+    private ClientRequestProcessor clientRequestProcessor;
+    private RemotingCommand[] requests;
+    private TopicConfigSerializeWrapper topicConfigWrapper;
+    private int next;
+    private int heartbeats;
+
+    @Setup
+    public void setup() {
+        NamesrvConfig namesrvConfig = new NamesrvConfig();
+        namesrvConfig.setEnableTopicRouteCache(this.enableTopicRouteCache);
+        this.namesrvController = new NamesrvController(namesrvConfig, new NettyServerConfig());
+        this.clientRequestProcessor = new ClientRequestProcessor(this.namesrvController);
+
+        ConcurrentHashMap<String, TopicConfig> topicConfigTable = new ConcurrentHashMap<>();
+        this.requests = new RemotingCommand[this.topicNum];
+        for (int i = 0; i < this.topicNum; i++) {
+            String topic = "topic-" + i;
+            topicConfigTable.put(topic, new TopicConfig(topic, 8, 8, 6));
+            GetRouteInfoRequestHeader requestHeader = new GetRouteInfoRequestHeader();
+            requestHeader.setTopic(topic);
+            this.requests[i] = RemotingCommand.createRequestCommand(RequestCode.GET_ROUTEINFO_BY_TOPIC, requestHeader);
+            this.requests[i].makeCustomHeaderToNet();
+        }
+        this.topicConfigWrapper = new TopicConfigSerializeWrapper();
+        this.topicConfigWrapper.setTopicConfigTable(topicConfigTable);
+        this.topicConfigWrapper.setDataVersion(new DataVersion());
+        for (int i = 0; i < BROKER_NUM * 2; i++) {
+            registerBroker(i);
+        }
+    }
+
+    @Benchmark
+    public byte[] getRouteInfoByTopic() throws RemotingCommandException {
+        RemotingCommand response = this.clientRequestProcessor.getRouteInfoByTopic(null, this.requests[this.next]);
+        if (++this.next == this.topicNum) {
+            this.next = 0;
+            // a broker heartbeats once per round of the topics
+            registerBroker(this.heartbeats++ % (BROKER_NUM * 2));
+        }
+        return response.getBody();
+    }
+
+    private void registerBroker(int i) {
+        // a master and a slave in each broker group
+        this.namesrvController.getRouteInfoManager().registerBroker(CLUSTER_NAME, "127.0.0.1:" + (10911 + i),
+            "broker-" + i % BROKER_NUM, i / BROKER_NUM, "127.0.0.1:" + (20911 + i), "", null,
+            this.topicConfigWrapper, new ArrayList<>(), (Channel) null);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.proxy;
+
+import apache.rocketmq.v2.Message;
+import apache.rocketmq.v2.ReceiveMessageResponse;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.proxy.grpc.v2.common.GrpcConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures converting a received message to the gRPC message and writing it out, run with {@code -prof gc} to see
+ * the allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class GrpcConverterBenchmark {
+
+    @Param({"1024", "262144"})
+    private int bodySize;
+
+    private MessageExt messageExt;
+    private byte[] out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] body = new byte[bodySize];
+        ThreadLocalRandom.current().nextBytes(body);
+        messageExt = new MessageExt();
+        messageExt.setTopic("BenchmarkTopic");
+        messageExt.setBody(body);
+        messageExt.setQueueId(1);
+        messageExt.setQueueOffset(1024L);
+        messageExt.setBornTimestamp(System.currentTimeMillis());
+        messageExt.setStoreTimestamp(System.currentTimeMillis());
+        messageExt.setBornHost(new InetSocketAddress("127.0.0.1", 50000));
+        messageExt.setStoreHost(new InetSocketAddress("127.0.0.1", 10911));
+        messageExt.setTags("TagA");
+        messageExt.setKeys("Key");
+        messageExt.putUserProperty("UserKey", "UserValue");
+        messageExt.getProperties().put(MessageConst.PROPERTY_UNIQ_CLIENT_MESSAGE_ID_KEYIDX, "7F00000100002A9F0000000000000000");
+        messageExt.getProperties().put(MessageConst.PROPERTY_POP_CK, "0 1700000000000 60000 0 0 broker-a 1 1024");
+        out = new byte[bodySize + 4096];
+    }
+
+    @Benchmark
+    public Message buildMessage() {
+        return GrpcConverter.getInstance().buildMessage(messageExt);
+    }
+
+    @Benchmark
+    public int buildAndWriteResponse() throws IOException {
+        ReceiveMessageResponse response = ReceiveMessageResponse.newBuilder()
+            .setMessage(GrpcConverter.getInstance().buildMessage(messageExt))
+            .build();
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        response.writeTo(output);
+        return output.getTotalBytesWritten();
+    }
+}
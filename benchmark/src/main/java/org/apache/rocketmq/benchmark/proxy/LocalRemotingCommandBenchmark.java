@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.proxy;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.proxy.service.message.LocalRemotingCommand;
+import org.apache.rocketmq.remoting.CommandCustomHeader;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+import org.apache.rocketmq.remoting.protocol.LanguageCode;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.header.PopMessageRequestHeader;
+import org.apache.rocketmq.remoting.protocol.header.SendMessageRequestHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures handing the send and pop requests of the proxy in local mode over to the broker processors, with the
+ * header flattened into the ext fields and decoded back by the processor, against the header passed as it is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class LocalRemotingCommandBenchmark {
+
+    private SendMessageRequestHeader sendHeader;
+    private PopMessageRequestHeader popHeader;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sendHeader = new SendMessageRequestHeader();
+        sendHeader.setProducerGroup("BenchmarkProducerGroup");
+        sendHeader.setTopic("BenchmarkTopic");
+        sendHeader.setDefaultTopic("TBW102");
+        sendHeader.setDefaultTopicQueueNums(4);
+        sendHeader.setQueueId(1);
+        sendHeader.setSysFlag(0);
+        sendHeader.setBornTimestamp(System.currentTimeMillis());
+        sendHeader.setFlag(0);
+        sendHeader.setProperties("KEYS\u0001Key\u0002TAGS\u0001TagA\u0002WAIT\u0001true\u0002");
+        sendHeader.setReconsumeTimes(0);
+        sendHeader.setUnitMode(false);
+        sendHeader.setBatch(false);
+
+        popHeader = new PopMessageRequestHeader();
+        popHeader.setConsumerGroup("BenchmarkConsumerGroup");
+        popHeader.setTopic("BenchmarkTopic");
+        popHeader.setQueueId(-1);
+        popHeader.setMaxMsgNums(32);
+        popHeader.setInvisibleTime(60000L);
+        popHeader.setPollTime(20000L);
+        popHeader.setBornTime(System.currentTimeMillis());
+        popHeader.setInitMode(0);
+        popHeader.setExpType("TAG");
+        popHeader.setExp("*");
+    }
+
+    @Benchmark
+    public Object sendFlattened() throws RemotingCommandException {
+        RemotingCommand request = flatten(RequestCode.SEND_MESSAGE, sendHeader);
+        return request.decodeCommandCustomHeader(SendMessageRequestHeader.class);
+    }
+
+    @Benchmark
+    public Object sendTyped() throws RemotingCommandException {
+        RemotingCommand request = LocalRemotingCommand.createRequestCommand(RequestCode.SEND_MESSAGE, sendHeader, "JAVA");
+        return request.decodeCommandCustomHeader(SendMessageRequestHeader.class);
+    }
+
+    @Benchmark
+    public Object popFlattened() throws RemotingCommandException {
+        RemotingCommand request = flatten(RequestCode.POP_MESSAGE, popHeader);
+        return request.decodeCommandCustomHeader(PopMessageRequestHeader.class, true);
+    }
+
+    @Benchmark
+    public Object popTyped() throws RemotingCommandException {
+        RemotingCommand request = LocalRemotingCommand.createRequestCommand(RequestCode.POP_MESSAGE, popHeader, "JAVA");
+        return request.decodeCommandCustomHeader(PopMessageRequestHeader.class, true);
+    }
+
+    private static RemotingCommand flatten(int code, CommandCustomHeader header) {
+        RemotingCommand request = RemotingCommand.createRequestCommand(code, header);
+        request.setLanguage(LanguageCode.JAVA);
+        request.makeCustomHeaderToNet();
+        return request;
+    }
+}
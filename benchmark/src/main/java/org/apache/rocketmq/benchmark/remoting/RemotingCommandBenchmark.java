@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.remoting;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.SerializeType;
+import org.apache.rocketmq.remoting.protocol.header.SendMessageRequestHeader;
+import org.apache.rocketmq.remoting.protocol.header.SendMessageRequestHeaderV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding of a send message request for both serialize types.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RemotingCommandBenchmark {
+
+    @Param({"JSON", "ROCKETMQ"})
+    private SerializeType serializeType;
+
+    @Param({"1024"})
+    private int bodySize;
+
+    private SendMessageRequestHeaderV2 requestHeader;
+    private byte[] body;
+    private ByteBuf out;
+    private byte[] encodedRequest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SendMessageRequestHeader v1 = new SendMessageRequestHeader();
+        v1.setProducerGroup("BenchmarkProducerGroup");
+        v1.setTopic("BenchmarkTopic");
+        v1.setDefaultTopic("TBW102");
+        v1.setDefaultTopicQueueNums(4);
+        v1.setQueueId(1);
+        v1.setSysFlag(0);
+        v1.setBornTimestamp(System.currentTimeMillis());
+        v1.setFlag(0);
+        v1.setProperties("KEYS\u0001Key\u0002TAGS\u0001TagA\u0002WAIT\u0001true\u0002");
+        v1.setReconsumeTimes(0);
+        v1.setUnitMode(false);
+        v1.setBatch(false);
+        requestHeader = SendMessageRequestHeaderV2.createSendMessageRequestHeaderV2(v1);
+        body = new byte[bodySize];
+        out = Unpooled.buffer(bodySize + 1024);
+
+        ByteBuffer encoded = newRequest().encode();
+        // the frame decoder strips the leading length field before decoding
+        encoded.getInt();
+        encodedRequest = new byte[encoded.remaining()];
+        encoded.get(encodedRequest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.release();
+    }
+
+    private RemotingCommand newRequest() {
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.SEND_MESSAGE_V2, requestHeader);
+        request.setSerializeTypeCurrentRPC(serializeType);
+        request.setBody(body);
+        return request;
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return newRequest().encode();
+    }
+
+    @Benchmark
+    public ByteBuf fastEncodeHeader() {
+        out.clear();
+        newRequest().fastEncodeHeader(out);
+        return out;
+    }
+
+    @Benchmark
+    public SendMessageRequestHeaderV2 decode() throws RemotingCommandException {
+        RemotingCommand request = RemotingCommand.decode(Unpooled.wrappedBuffer(encodedRequest));
+        return (SendMessageRequestHeaderV2) request.decodeCommandCustomHeader(SendMessageRequestHeaderV2.class);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExtBatch;
+import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.PutMessageResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the append path of the commit log, a single message per call and a batch per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CommitLogBenchmark {
+
+    private static final String TOPIC = "BenchmarkTopic";
+
+    @Param({"128", "1024", "4096"})
+    private int bodySize;
+
+    @Param({"32"})
+    private int batchSize;
+
+    private File baseDir;
+    private DefaultMessageStore messageStore;
+    private MessageExtBrokerInner message;
+    private byte[] batchBody;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-commitlog-bench");
+        messageStore = StoreBenchmarkUtil.createMessageStore(StoreBenchmarkUtil.buildStoreConfig(baseDir));
+        message = StoreBenchmarkUtil.buildMessage(TOPIC, 0, bodySize);
+
+        List<Message> messages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Message msg = new Message(TOPIC, "TagA", new byte[bodySize]);
+            messages.add(msg);
+        }
+        batchBody = MessageDecoder.encodeMessages(messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StoreBenchmarkUtil.destroyMessageStore(messageStore, baseDir);
+    }
+
+    @Benchmark
+    public PutMessageResult putMessage() {
+        return messageStore.getCommitLog().asyncPutMessage(message).join();
+    }
+
+    @Benchmark
+    public PutMessageResult putMessages() {
+        MessageExtBatch messageExtBatch = new MessageExtBatch();
+        messageExtBatch.setTopic(TOPIC);
+        messageExtBatch.setQueueId(1);
+        messageExtBatch.setBody(batchBody);
+        messageExtBatch.setBornTimestamp(System.currentTimeMillis());
+        messageExtBatch.setBornHost(StoreBenchmarkUtil.BORN_HOST);
+        messageExtBatch.setStoreHost(StoreBenchmarkUtil.STORE_HOST);
+        return messageStore.getCommitLog().asyncPutMessages(messageExtBatch).join();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.apache.rocketmq.store.config.StorePathConfigHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the startup time of a message store after an abnormal shutdown, i.e. {@code DefaultMessageStore#load}
+ * with the abort file left behind. The synthetic store is written once per trial; with {@code staleCheckpoint} the
+ * store checkpoint is removed before every startup so the whole commitlog has to be recovered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CommitLogRecoverBenchmark {
+
+    private static final String TOPIC = "BenchmarkTopic";
+
+    private static final int QUEUE_NUM = 8;
+
+    @Param({"1024"})
+    private int storeSizeMb;
+
+    @Param({"128"})
+    private int mappedFileSizeMb;
+
+    @Param({"1024"})
+    private int bodySize;
+
+    @Param({"false", "true"})
+    private boolean recoverConcurrently;
+
+    @Param({"false", "true"})
+    private boolean staleCheckpoint;
+
+    private File baseDir;
+    private MessageStoreConfig messageStoreConfig;
+    private DefaultMessageStore messageStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-recover-bench");
+        messageStoreConfig = StoreBenchmarkUtil.buildStoreConfig(baseDir);
+        messageStoreConfig.setMappedFileSizeCommitLog(mappedFileSizeMb * 1024 * 1024);
+        messageStoreConfig.setEnableRecoverCommitLogConcurrently(recoverConcurrently);
+
+        DefaultMessageStore writer = StoreBenchmarkUtil.createMessageStore(messageStoreConfig);
+        long storeSize = (long) storeSizeMb * 1024 * 1024;
+        MessageExtBrokerInner[] messages = new MessageExtBrokerInner[QUEUE_NUM];
+        for (int i = 0; i < QUEUE_NUM; i++) {
+            messages[i] = StoreBenchmarkUtil.buildMessage(TOPIC, i, bodySize);
+        }
+        for (long i = 0; writer.getMaxPhyOffset() < storeSize; i++) {
+            writer.getCommitLog().asyncPutMessage(messages[(int) (i % QUEUE_NUM)]).join();
+        }
+        writer.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void crash() throws Exception {
+        File abortFile = new File(StorePathConfigHelper.getAbortFile(baseDir.getAbsolutePath()));
+        UtilAll.ensureDirOK(abortFile.getParent());
+        abortFile.createNewFile();
+        if (staleCheckpoint) {
+            UtilAll.deleteFile(new File(StorePathConfigHelper.getStoreCheckpoint(baseDir.getAbsolutePath())));
+        }
+        messageStore = StoreBenchmarkUtil.newMessageStore(messageStoreConfig);
+    }
+
+    @TearDown(Level.Invocation)
+    public void shutdown() throws Exception {
+        messageStore.start();
+        messageStore.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StoreBenchmarkUtil.destroyMessageStore(null, baseDir);
+    }
+
+    @Benchmark
+    public boolean recoverAbnormally() {
+        return messageStore.load();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.PutMessageResult;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.apache.rocketmq.store.queue.ConsumeQueueInterface;
+import org.apache.rocketmq.store.queue.CqUnit;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
+import org.apache.rocketmq.store.queue.ReferredIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures consume queue lookups by index, by range and by store time on a pre-filled queue, with and without the
+ * sparse time index. Run with {@code -prof gc} to compare the allocation of {@code iterateFrom} and
+ * {@code readUnits}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ConsumeQueueBenchmark {
+
+    private static final String TOPIC = "BenchmarkTopic";
+    private static final int QUEUE_ID = 0;
+
+    @Param({"200000"})
+    private int messageCount;
+
+    @Param({"32"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean timeIndex;
+
+    private File baseDir;
+    private DefaultMessageStore messageStore;
+    private ConsumeQueueInterface consumeQueue;
+    private long maxOffset;
+    private long beginTimestamp;
+    private long endTimestamp;
+    private final CqUnitBatch cqUnitBatch = new CqUnitBatch();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-consumequeue-bench");
+        MessageStoreConfig storeConfig = StoreBenchmarkUtil.buildStoreConfig(baseDir);
+        storeConfig.setEnableConsumeQueueTimeIndex(timeIndex);
+        messageStore = StoreBenchmarkUtil.createMessageStore(storeConfig);
+        for (int i = 0; i < messageCount; i++) {
+            PutMessageResult result = messageStore.putMessage(StoreBenchmarkUtil.buildMessage(TOPIC, QUEUE_ID, 128));
+            if (!result.isOk()) {
+                throw new IllegalStateException("Failed to put message: " + result.getPutMessageStatus());
+            }
+        }
+        while (messageStore.dispatchBehindBytes() > 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        consumeQueue = messageStore.getConsumeQueue(TOPIC, QUEUE_ID);
+        maxOffset = consumeQueue.getMaxOffsetInQueue();
+        beginTimestamp = messageStore.getMessageStoreTimeStamp(TOPIC, QUEUE_ID, 0);
+        endTimestamp = messageStore.getMessageStoreTimeStamp(TOPIC, QUEUE_ID, maxOffset - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StoreBenchmarkUtil.destroyMessageStore(messageStore, baseDir);
+    }
+
+    @Benchmark
+    public CqUnit get() {
+        return consumeQueue.get(ThreadLocalRandom.current().nextLong(maxOffset));
+    }
+
+    @Benchmark
+    public void iterateFrom(Blackhole blackhole) throws Exception {
+        ReferredIterator<CqUnit> iterator = consumeQueue.iterateFrom(
+            ThreadLocalRandom.current().nextLong(maxOffset - batchSize), batchSize);
+        if (iterator == null) {
+            return;
+        }
+        try {
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        } finally {
+            iterator.release();
+        }
+    }
+
+    @Benchmark
+    public long readUnits() throws Exception {
+        long sum = 0;
+        if (consumeQueue.readUnits(ThreadLocalRandom.current().nextLong(maxOffset - batchSize), batchSize, cqUnitBatch)) {
+            for (int i = 0; i < cqUnitBatch.size(); i++) {
+                sum += cqUnitBatch.getPos(i) + cqUnitBatch.getSize(i) + cqUnitBatch.getTagsCode(i);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getOffsetInQueueByTime() {
+        return consumeQueue.getOffsetInQueueByTime(
+            ThreadLocalRandom.current().nextLong(beginTimestamp, endTimestamp + 1));
+    }
+}
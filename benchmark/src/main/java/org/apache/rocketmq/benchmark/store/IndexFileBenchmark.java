@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.store.index.IndexFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing keys into an index file and looking them up again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class IndexFileBenchmark {
+
+    private static final int HASH_SLOT_NUM = 500000;
+    private static final int INDEX_NUM = 2000000;
+
+    @Param({"100000"})
+    private int keyCount;
+
+    @Param({"32"})
+    private int maxNum;
+
+    private File baseDir;
+    private String[] keys;
+    private IndexFile writeFile;
+    private IndexFile readFile;
+    private long phyOffset;
+    private int writeCursor;
+    private int readCursor;
+    private int fileSequence;
+    private final List<Long> phyOffsets = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-index-bench");
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "BenchmarkTopic#Key" + i;
+        }
+
+        readFile = newIndexFile();
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < INDEX_NUM; i++) {
+            readFile.putKey(keys[i % keyCount], i * 128L, timestamp);
+        }
+        writeFile = newIndexFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        readFile.destroy(0);
+        writeFile.destroy(0);
+        UtilAll.deleteFile(baseDir);
+    }
+
+    private IndexFile newIndexFile() throws Exception {
+        String fileName = baseDir.getAbsolutePath() + File.separator + UtilAll.timeMillisToHumanString(System.currentTimeMillis()) + fileSequence++;
+        return new IndexFile(fileName, HASH_SLOT_NUM, INDEX_NUM, 0, 0);
+    }
+
+    @Benchmark
+    public boolean putKey() throws Exception {
+        if (writeFile.isWriteFull()) {
+            writeFile.destroy(0);
+            writeFile = newIndexFile();
+        }
+        phyOffset += 128;
+        return writeFile.putKey(keys[writeCursor++ % keyCount], phyOffset, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public List<Long> selectPhyOffset() {
+        phyOffsets.clear();
+        readFile.selectPhyOffset(phyOffsets, keys[readCursor++ % keyCount], maxNum, 0, Long.MAX_VALUE);
+        return phyOffsets;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.MessageExtEncoder;
+import org.apache.rocketmq.store.PutMessageResult;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the broker side encoding of a message and the decoding of stored messages, single and batched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"128", "1024", "4096"})
+    private int bodySize;
+
+    @Param({"32"})
+    private int batchSize;
+
+    private MessageExtEncoder encoder;
+    private MessageExtBrokerInner message;
+    private ByteBuffer encodedMessage;
+    private ByteBuffer encodedBatch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encoder = new MessageExtEncoder(new MessageStoreConfig());
+        message = StoreBenchmarkUtil.buildMessage("BenchmarkTopic", 0, bodySize);
+        if (encoder.encode(message) != null) {
+            throw new IllegalStateException("Failed to encode benchmark message");
+        }
+        ByteBuffer encoded = encoder.getEncoderBuffer();
+        byte[] bytes = new byte[encoded.getInt(0)];
+        encoded.get(bytes);
+
+        encodedMessage = ByteBuffer.wrap(bytes);
+        encodedBatch = ByteBuffer.allocate(bytes.length * batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            encodedBatch.put(bytes);
+        }
+        encodedBatch.flip();
+    }
+
+    @Benchmark
+    public PutMessageResult encode() {
+        return encoder.encode(message);
+    }
+
+    @Benchmark
+    public MessageExt decode() {
+        encodedMessage.rewind();
+        return MessageDecoder.decode(encodedMessage, true, false);
+    }
+
+    @Benchmark
+    public List<MessageExt> decodesBatch() {
+        encodedBatch.rewind();
+        return MessageDecoder.decodesBatch(encodedBatch, true, false, false);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.ConsumeQueue;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.DispatchRequest;
+import org.apache.rocketmq.store.PutMessageResult;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a light message queue message fanned out to a number of lmq queues, appending it to the commit log and
+ * building the consume queues of all its queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MultiDispatchBenchmark {
+
+    private static final String TOPIC = "BenchmarkTopic";
+
+    @Param({"1", "10", "100"})
+    private int fanOut;
+
+    @Param({"128"})
+    private int bodySize;
+
+    private File baseDir;
+    private DefaultMessageStore messageStore;
+    private ConsumeQueue consumeQueue;
+    private String multiDispatchQueue;
+    private long dispatchOffset;
+    private final StringBuilder offsetBuilder = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-multi-dispatch-bench");
+        MessageStoreConfig messageStoreConfig = StoreBenchmarkUtil.buildStoreConfig(baseDir);
+        messageStoreConfig.setEnableLmq(true);
+        messageStoreConfig.setEnableMultiDispatch(true);
+        messageStore = StoreBenchmarkUtil.createMessageStore(messageStoreConfig);
+
+        StringBuilder queues = new StringBuilder();
+        for (int i = 0; i < fanOut; i++) {
+            if (i > 0) {
+                queues.append(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
+            }
+            queues.append(MixAll.LMQ_PREFIX).append("BenchmarkQueue").append(i);
+        }
+        multiDispatchQueue = queues.toString();
+        consumeQueue = (ConsumeQueue) messageStore.findConsumeQueue(TOPIC + "Dispatch", 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StoreBenchmarkUtil.destroyMessageStore(messageStore, baseDir);
+    }
+
+    @Benchmark
+    public PutMessageResult putMessage() {
+        MessageExtBrokerInner message = StoreBenchmarkUtil.buildMessage(TOPIC, 0, bodySize);
+        message.putUserProperty(MessageConst.PROPERTY_INNER_MULTI_DISPATCH, multiDispatchQueue);
+        return messageStore.getCommitLog().asyncPutMessage(message).join();
+    }
+
+    @Benchmark
+    public long dispatch() {
+        long offset = dispatchOffset++;
+        offsetBuilder.setLength(0);
+        for (int i = 0; i < fanOut; i++) {
+            if (i > 0) {
+                offsetBuilder.append(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
+            }
+            offsetBuilder.append(offset);
+        }
+        // the properties are decoded from the commit log for every message
+        Map<String, String> properties = new HashMap<>(4);
+        properties.put(MessageConst.PROPERTY_INNER_MULTI_DISPATCH, new String(multiDispatchQueue));
+        properties.put(MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET, offsetBuilder.toString());
+        DispatchRequest request = new DispatchRequest(TOPIC + "Dispatch", 0, offset * bodySize, bodySize, 0,
+            System.currentTimeMillis(), offset, null, null, 0, 0, properties);
+        consumeQueue.putMessagePositionInfoWrapper(request);
+        return offset;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.PutMessageResult;
+import org.apache.rocketmq.store.StoreType;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.apache.rocketmq.store.queue.ConsumeQueueInterface;
+import org.apache.rocketmq.store.queue.CqUnit;
+import org.apache.rocketmq.store.queue.ReferredIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the rocksdb consume queue, how long a put message takes to become visible in the consume queue, and
+ * range reads of pull batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RocksDBConsumeQueueBenchmark {
+
+    private static final String TOPIC = "BenchmarkTopic";
+    private static final int QUEUE_ID = 0;
+
+    @Param({"100000"})
+    private int messageCount;
+
+    @Param({"32"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean asyncWrite;
+
+    private File baseDir;
+    private DefaultMessageStore messageStore;
+    private ConsumeQueueInterface consumeQueue;
+    private long maxOffset;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        baseDir = StoreBenchmarkUtil.createTempDir("rocketmq-rocksdb-consumequeue-bench");
+        MessageStoreConfig storeConfig = StoreBenchmarkUtil.buildStoreConfig(baseDir);
+        storeConfig.setStoreType(StoreType.DEFAULT_ROCKSDB.getStoreType());
+        storeConfig.setEnableRocksDBCQAsyncWrite(asyncWrite);
+        messageStore = StoreBenchmarkUtil.createMessageStore(storeConfig);
+        for (int i = 0; i < messageCount; i++) {
+            putMessage();
+        }
+        while (messageStore.getMaxOffsetInQueue(TOPIC, QUEUE_ID) < messageCount) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        consumeQueue = messageStore.getConsumeQueue(TOPIC, QUEUE_ID);
+        maxOffset = consumeQueue.getMaxOffsetInQueue();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StoreBenchmarkUtil.destroyMessageStore(messageStore, baseDir);
+    }
+
+    private void putMessage() {
+        PutMessageResult result = messageStore.putMessage(StoreBenchmarkUtil.buildMessage(TOPIC, QUEUE_ID, 128));
+        if (!result.isOk()) {
+            throw new IllegalStateException("Failed to put message: " + result.getPutMessageStatus());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long putAndWaitVisible() throws Exception {
+        putMessage();
+        long target = maxOffset + 1;
+        while (messageStore.getMaxOffsetInQueue(TOPIC, QUEUE_ID) < target) {
+            Thread.yield();
+        }
+        maxOffset = target;
+        return target;
+    }
+
+    @Benchmark
+    public void iterateFrom(Blackhole blackhole) throws Exception {
+        ReferredIterator<CqUnit> iterator = consumeQueue.iterateFrom(
+            ThreadLocalRandom.current().nextLong(messageCount - batchSize), batchSize);
+        if (iterator == null) {
+            return;
+        }
+        try {
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        } finally {
+            iterator.release();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.benchmark.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.RocksDBMessageStore;
+import org.apache.rocketmq.store.config.FlushDiskType;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.apache.rocketmq.store.stats.BrokerStatsManager;
+
+/**
+ * Builds message stores and messages for the store benchmarks, every store lives in its own temp directory.
+ */
+public class StoreBenchmarkUtil {
+
+    public static final InetSocketAddress BORN_HOST = new InetSocketAddress("127.0.0.1", 10911);
+    public static final InetSocketAddress STORE_HOST = new InetSocketAddress("127.0.0.1", 10912);
+
+    public static File createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    public static MessageStoreConfig buildStoreConfig(File baseDir) {
+        MessageStoreConfig messageStoreConfig = new MessageStoreConfig();
+        messageStoreConfig.setStorePathRootDir(baseDir.getAbsolutePath());
+        messageStoreConfig.setStorePathCommitLog(baseDir.getAbsolutePath() + File.separator + "commitlog");
+        messageStoreConfig.setMappedFileSizeCommitLog(256 * 1024 * 1024);
+        messageStoreConfig.setFlushDiskType(FlushDiskType.ASYNC_FLUSH);
+        messageStoreConfig.setMessageIndexEnable(false);
+        messageStoreConfig.setHaListenPort(0);
+        return messageStoreConfig;
+    }
+
+    public static DefaultMessageStore newMessageStore(MessageStoreConfig messageStoreConfig) throws Exception {
+        BrokerConfig brokerConfig = new BrokerConfig();
+        if (messageStoreConfig.isEnableRocksDBStore()) {
+            return new RocksDBMessageStore(messageStoreConfig,
+                new BrokerStatsManager(brokerConfig.getBrokerClusterName(), brokerConfig.isEnableDetailStat()),
+                (topic, queueId, logicOffset, tagsCode, msgStoreTime, filterBitMap, properties) -> { },
+                brokerConfig, new ConcurrentHashMap<>());
+        }
+        return new DefaultMessageStore(messageStoreConfig,
+            new BrokerStatsManager(brokerConfig.getBrokerClusterName(), brokerConfig.isEnableDetailStat()),
+            (topic, queueId, logicOffset, tagsCode, msgStoreTime, filterBitMap, properties) -> { },
+            brokerConfig, new ConcurrentHashMap<>());
+    }
+
+    public static DefaultMessageStore createMessageStore(MessageStoreConfig messageStoreConfig) throws Exception {
+        DefaultMessageStore messageStore = newMessageStore(messageStoreConfig);
+        if (!messageStore.load()) {
+            throw new IllegalStateException("Failed to load message store in " + messageStoreConfig.getStorePathRootDir());
+        }
+        messageStore.start();
+        return messageStore;
+    }
+
+    public static void destroyMessageStore(DefaultMessageStore messageStore, File baseDir) {
+        if (messageStore != null) {
+            messageStore.shutdown();
+            messageStore.destroy();
+        }
+        UtilAll.deleteFile(baseDir);
+    }
+
+    public static MessageExtBrokerInner buildMessage(String topic, int queueId, int bodySize) {
+        MessageExtBrokerInner msg = new MessageExtBrokerInner();
+        msg.setTopic(topic);
+        msg.setQueueId(queueId);
+        msg.setTags("TagA");
+        msg.setKeys("Key" + queueId);
+        msg.setBody(new byte[bodySize]);
+        msg.setBornTimestamp(System.currentTimeMillis());
+        msg.setBornHost(BORN_HOST);
+        msg.setStoreHost(STORE_HOST);
+        msg.setPropertiesString(MessageDecoder.messageProperties2String(msg.getProperties()));
+        msg.setTagsCode(MessageExtBrokerInner.tagsString2tagsCode(msg.getTags()));
+        return msg;
+    }
+}
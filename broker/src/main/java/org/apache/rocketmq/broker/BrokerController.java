@@ -39,13 +39,21 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 
+import org.apache.rocketmq.acl.AccessResource;
 import org.apache.rocketmq.acl.AccessValidator;
+import org.apache.rocketmq.acl.common.AclException;
+import org.apache.rocketmq.acl.common.Permission;
+import org.apache.rocketmq.acl.common.SessionCredentials;
+import org.apache.rocketmq.acl.plain.PlainAccessResource;
 import org.apache.rocketmq.acl.plain.PlainAccessValidator;
 import org.apache.rocketmq.broker.client.ClientHousekeepingService;
+import org.apache.rocketmq.broker.client.ConsumerGroupInfo;
 import org.apache.rocketmq.broker.client.ConsumerIdsChangeListener;
 import org.apache.rocketmq.broker.client.ConsumerManager;
 import org.apache.rocketmq.broker.client.DefaultConsumerIdsChangeListener;
@@ -54,12 +62,14 @@ import org.apache.rocketmq.broker.client.net.Broker2Client;
 import org.apache.rocketmq.broker.client.rebalance.RebalanceLockManager;
 import org.apache.rocketmq.broker.coldctr.ColdDataCgCtrService;
 import org.apache.rocketmq.broker.coldctr.ColdDataPullRequestHoldService;
+import org.apache.rocketmq.broker.coldctr.ColdDataReadService;
 import org.apache.rocketmq.broker.controller.ReplicasManager;
 import org.apache.rocketmq.broker.dledger.DLedgerRoleChangeHandler;
 import org.apache.rocketmq.broker.failover.EscapeBridge;
 import org.apache.rocketmq.broker.filter.CommitLogDispatcherCalcBitMap;
 import org.apache.rocketmq.broker.filter.ConsumerFilterManager;
 import org.apache.rocketmq.broker.latency.BrokerFastFailure;
+import org.apache.rocketmq.broker.latency.ShardedRequestQueue;
 import org.apache.rocketmq.broker.longpolling.LmqPullRequestHoldService;
 import org.apache.rocketmq.broker.longpolling.NotifyMessageArrivingListener;
 import org.apache.rocketmq.broker.longpolling.PullRequestHoldService;
@@ -111,6 +121,7 @@ import org.apache.rocketmq.broker.transaction.queue.DefaultTransactionalMessageC
 import org.apache.rocketmq.broker.transaction.queue.TransactionalMessageBridge;
 import org.apache.rocketmq.broker.transaction.queue.TransactionalMessageServiceImpl;
 import org.apache.rocketmq.broker.util.HookUtils;
+import org.apache.rocketmq.common.AbortProcessException;
 import org.apache.rocketmq.common.AbstractBrokerRunnable;
 import org.apache.rocketmq.common.BrokerConfig;
 import org.apache.rocketmq.common.BrokerIdentity;
@@ -131,6 +142,7 @@ import org.apache.rocketmq.remoting.Configuration;
 import org.apache.rocketmq.remoting.RPCHook;
 import org.apache.rocketmq.remoting.RemotingServer;
 import org.apache.rocketmq.remoting.common.TlsMode;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
 import org.apache.rocketmq.remoting.netty.NettyClientConfig;
 import org.apache.rocketmq.remoting.netty.NettyRemotingServer;
 import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
@@ -141,10 +153,14 @@ import org.apache.rocketmq.remoting.protocol.BrokerSyncInfo;
 import org.apache.rocketmq.remoting.protocol.DataVersion;
 import org.apache.rocketmq.remoting.protocol.NamespaceUtil;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RemotingSysResponseCode;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.apache.rocketmq.remoting.protocol.body.BrokerMemberGroup;
 import org.apache.rocketmq.remoting.protocol.body.TopicConfigAndMappingSerializeWrapper;
 import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper;
+import org.apache.rocketmq.remoting.protocol.heartbeat.ConsumerData;
+import org.apache.rocketmq.remoting.protocol.heartbeat.HeartbeatData;
 import org.apache.rocketmq.remoting.protocol.namesrv.RegisterBrokerResult;
 import org.apache.rocketmq.remoting.protocol.statictopic.TopicQueueMappingDetail;
 import org.apache.rocketmq.remoting.protocol.statictopic.TopicQueueMappingInfo;
@@ -278,6 +294,7 @@ public class BrokerController {
     private BrokerMetricsManager brokerMetricsManager;
     private ColdDataPullRequestHoldService coldDataPullRequestHoldService;
     private ColdDataCgCtrService coldDataCgCtrService;
+    private ColdDataReadService coldDataReadService;
     private TransactionMetricsFlushService transactionMetricsFlushService;
 
     public BrokerController(
@@ -343,6 +360,7 @@ public class BrokerController {
         this.scheduleMessageService = new ScheduleMessageService(this);
         this.coldDataPullRequestHoldService = new ColdDataPullRequestHoldService(this);
         this.coldDataCgCtrService = new ColdDataCgCtrService(this);
+        this.coldDataReadService = new ColdDataReadService(this);
 
         if (nettyClientConfig != null) {
             this.brokerOuterAPI = new BrokerOuterAPI(nettyClientConfig);
@@ -353,14 +371,22 @@ public class BrokerController {
         this.slaveSynchronize = new SlaveSynchronize(this);
         this.endTransactionProcessor = new EndTransactionProcessor(this);
 
-        this.sendThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getSendThreadPoolQueueCapacity());
+        this.sendThreadPoolQueue = newRequestQueue("send", this.brokerConfig.getSendThreadPoolQueueCapacity(),
+            request -> false, this.brokerConfig::getWaitTimeMillsInSendQueue);
         this.putThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getPutThreadPoolQueueCapacity());
-        this.pullThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getPullThreadPoolQueueCapacity());
-        this.litePullThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getLitePullThreadPoolQueueCapacity());
-
-        this.ackThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getAckThreadPoolQueueCapacity());
+        this.pullThreadPoolQueue = newRequestQueue("pull", this.brokerConfig.getPullThreadPoolQueueCapacity(),
+            request -> false, this.brokerConfig::getWaitTimeMillsInPullQueue);
+        this.litePullThreadPoolQueue = newRequestQueue("lite_pull", this.brokerConfig.getLitePullThreadPoolQueueCapacity(),
+            request -> false, this.brokerConfig::getWaitTimeMillsInLitePullQueue);
+
+        // a late renewal makes the message visible again, renewals go before the acks
+        this.ackThreadPoolQueue = newRequestQueue("ack", this.brokerConfig.getAckThreadPoolQueueCapacity(),
+            request -> request.getCode() == RequestCode.CHANGE_MESSAGE_INVISIBLETIME
+                || request.getCode() == RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME,
+            this.brokerConfig::getWaitTimeMillsInAckQueue);
         this.replyThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getReplyThreadPoolQueueCapacity());
-        this.queryThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getQueryThreadPoolQueueCapacity());
+        this.queryThreadPoolQueue = newRequestQueue("query_message", this.brokerConfig.getQueryThreadPoolQueueCapacity(),
+            request -> false, this.brokerConfig::getWaitTimeMillsInQueryQueue);
         this.clientManagerThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getClientManagerThreadPoolQueueCapacity());
         this.consumerManagerThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getConsumerManagerThreadPoolQueueCapacity());
         this.heartbeatThreadPoolQueue = new LinkedBlockingQueue<>(this.brokerConfig.getHeartbeatThreadPoolQueueCapacity());
@@ -428,6 +454,19 @@ public class BrokerController {
         return nettyClientConfig;
     }
 
+    /**
+     * Data plane request queues may be sharded with admission control, the admission target is half of the time a
+     * request may wait in the queue.
+     */
+    private BlockingQueue<Runnable> newRequestQueue(String name, int capacity, Predicate<RemotingCommand> urgentPredicate,
+        LongSupplier maxWaitTimeMills) {
+        if (this.brokerConfig.isEnableShardedRequestQueue()) {
+            return new ShardedRequestQueue(name, capacity, this.brokerConfig.getRequestQueueShardNums(), urgentPredicate,
+                () -> maxWaitTimeMills.getAsLong() / 2, this.brokerConfig.getRequestQueueAdmissionIntervalMills());
+        }
+        return new LinkedBlockingQueue<>(capacity);
+    }
+
     public BlockingQueue<Runnable> getPullThreadPoolQueue() {
         return pullThreadPoolQueue;
     }
@@ -971,6 +1010,35 @@ public class BrokerController {
 
     }
 
+    /**
+     * The consumer groups of a heartbeat sent without subscriptions keep the subscriptions cached by the broker, so
+     * the topics of those are authorized as if the heartbeat carried them.
+     */
+    void addCachedSubscriptionPerms(AccessResource accessResource, RemotingCommand request) {
+        if (request.getCode() != RequestCode.HEART_BEAT || !(accessResource instanceof PlainAccessResource)) {
+            return;
+        }
+        HeartbeatData heartbeatData;
+        try {
+            heartbeatData = HeartbeatData.decodeRequest(request);
+        } catch (RemotingCommandException e) {
+            throw new AclException(e.getMessage(), e);
+        }
+        PlainAccessResource plainAccessResource = (PlainAccessResource) accessResource;
+        for (ConsumerData consumerData : heartbeatData.getConsumerDataSet()) {
+            if (!heartbeatData.isWithoutSub() && !consumerData.isWithoutSub()) {
+                continue;
+            }
+            ConsumerGroupInfo consumerGroupInfo = this.consumerManager.getConsumerGroupInfo(consumerData.getGroupName());
+            if (consumerGroupInfo == null) {
+                continue;
+            }
+            for (String topic : consumerGroupInfo.getSubscriptionTable().keySet()) {
+                plainAccessResource.addResourceAndPerm(topic, Permission.SUB);
+            }
+        }
+    }
+
     private void initialAcl() {
         if (!this.brokerConfig.isAclEnable()) {
             LOG.info("The broker dose not enable acl");
@@ -991,11 +1059,30 @@ public class BrokerController {
                 @Override
                 public void doBeforeRequest(String remoteAddr, RemotingCommand request) {
                     //Do not catch the exception
-                    validator.validate(validator.parse(request, remoteAddr));
+                    AccessResource accessResource = validator.parse(request, remoteAddr);
+                    addCachedSubscriptionPerms(accessResource, request);
+                    try {
+                        validator.validate(accessResource);
+                    } catch (AclException e) {
+                        // answered with its own code, so that the client signs the request in full and retries
+                        if (e.getCode() == ResponseCode.ACL_SESSION_EXPIRED) {
+                            throw new AbortProcessException(e.getCode(), e.getMessage());
+                        }
+                        throw e;
+                    }
                 }
 
                 @Override
                 public void doAfterResponse(String remoteAddr, RemotingCommand request, RemotingCommand response) {
+                    if (!brokerConfig.isAclSessionEnable() || response == null || request.getExtFields() == null
+                        || response.getCode() == RemotingSysResponseCode.SYSTEM_ERROR
+                        || !Boolean.parseBoolean(request.getExtFields().get(SessionCredentials.SESSION_REQUEST))) {
+                        return;
+                    }
+                    String sessionId = validator.createSession(request.getExtFields().get(SessionCredentials.ACCESS_KEY));
+                    if (sessionId != null) {
+                        response.addExtField(SessionCredentials.SESSION_ID, sessionId);
+                    }
                 }
 
             });
@@ -1056,6 +1143,8 @@ public class BrokerController {
          */
         this.remotingServer.registerProcessor(RequestCode.CHANGE_MESSAGE_INVISIBLETIME, this.changeInvisibleTimeProcessor, this.ackMessageExecutor);
         this.fastRemotingServer.registerProcessor(RequestCode.CHANGE_MESSAGE_INVISIBLETIME, this.changeInvisibleTimeProcessor, this.ackMessageExecutor);
+        this.remotingServer.registerProcessor(RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME, this.changeInvisibleTimeProcessor, this.ackMessageExecutor);
+        this.fastRemotingServer.registerProcessor(RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME, this.changeInvisibleTimeProcessor, this.ackMessageExecutor);
         /**
          * notificationProcessor
          */
@@ -1216,6 +1305,10 @@ public class BrokerController {
         return broker2Client;
     }
 
+    public ClientHousekeepingService getClientHousekeepingService() {
+        return clientHousekeepingService;
+    }
+
     public ConsumerManager getConsumerManager() {
         return consumerManager;
     }
@@ -1470,6 +1563,10 @@ public class BrokerController {
             this.coldDataCgCtrService.shutdown();
         }
 
+        if (this.coldDataReadService != null) {
+            this.coldDataReadService.shutdown();
+        }
+
         shutdownScheduledExecutorService(this.syncBrokerMemberGroupExecutorService);
         shutdownScheduledExecutorService(this.brokerHeartbeatExecutorService);
 
@@ -2429,4 +2526,12 @@ public class BrokerController {
     public void setColdDataCgCtrService(ColdDataCgCtrService coldDataCgCtrService) {
         this.coldDataCgCtrService = coldDataCgCtrService;
     }
+
+    public ColdDataReadService getColdDataReadService() {
+        return coldDataReadService;
+    }
+
+    public void setColdDataReadService(ColdDataReadService coldDataReadService) {
+        this.coldDataReadService = coldDataReadService;
+    }
 }
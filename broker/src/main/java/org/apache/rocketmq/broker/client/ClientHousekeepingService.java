@@ -17,6 +17,10 @@
 package org.apache.rocketmq.broker.client;
 
 import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.apache.rocketmq.broker.BrokerController;
@@ -26,6 +30,7 @@ import org.apache.rocketmq.common.utils.ThreadUtils;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.remoting.ChannelEventListener;
+import org.apache.rocketmq.remoting.common.RemotingHelper;
 
 public class ClientHousekeepingService implements ChannelEventListener {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BROKER_LOGGER_NAME);
@@ -33,13 +38,31 @@ public class ClientHousekeepingService implements ChannelEventListener {
 
     private ScheduledExecutorService scheduledExecutorService;
 
+    /**
+     * Last heartbeat of each client channel, only used when the channels are expired by the timer wheel
+     */
+    private final ConcurrentMap<Channel, ChannelExpiry> channelExpiryTable = new ConcurrentHashMap<>(1024);
+    private final HashedWheelTimer channelExpireTimer;
+
     public ClientHousekeepingService(final BrokerController brokerController) {
         this.brokerController = brokerController;
         scheduledExecutorService = ThreadUtils.newScheduledThreadPool(1,
             new ThreadFactoryImpl("ClientHousekeepingScheduledThread", brokerController.getBrokerIdentity()));
+        if (brokerController.getBrokerConfig().isEnableChannelExpireTimerWheel()) {
+            this.channelExpireTimer = new HashedWheelTimer(
+                new ThreadFactoryImpl("ClientChannelExpireTimerThread_", brokerController.getBrokerIdentity()),
+                1, TimeUnit.SECONDS);
+        } else {
+            this.channelExpireTimer = null;
+        }
     }
 
     public void start() {
+        long scanInterval = 1000 * 10;
+        if (this.channelExpireTimer != null) {
+            // the scan is kept for the groups no longer carried by the heartbeat of a live channel
+            scanInterval = Math.max(scanInterval, this.brokerController.getBrokerConfig().getChannelExpiredTimeout());
+        }
 
         this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
             @Override
@@ -50,7 +73,72 @@ public class ClientHousekeepingService implements ChannelEventListener {
                     log.error("Error occurred when scan not active client channels.", e);
                 }
             }
-        }, 1000 * 10, 1000 * 10, TimeUnit.MILLISECONDS);
+        }, scanInterval, scanInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called on each heartbeat of the channel, the expiry is armed once and checked again by the timer wheel
+     * when it fires, so a heartbeat only refreshes the timestamp.
+     */
+    public void onHeartbeat(Channel channel) {
+        if (this.channelExpireTimer == null || channel == null) {
+            return;
+        }
+        ChannelExpiry channelExpiry = this.channelExpiryTable.get(channel);
+        if (channelExpiry != null) {
+            channelExpiry.lastHeartbeatTimestamp = System.currentTimeMillis();
+            return;
+        }
+        channelExpiry = new ChannelExpiry(channel);
+        if (this.channelExpiryTable.putIfAbsent(channel, channelExpiry) == null) {
+            armExpiry(channelExpiry, this.brokerController.getBrokerConfig().getChannelExpiredTimeout());
+        }
+    }
+
+    private void armExpiry(ChannelExpiry channelExpiry, long delayMillis) {
+        try {
+            channelExpiry.timeout = this.channelExpireTimer.newTimeout(
+                timeout -> this.scheduledExecutorService.execute(() -> this.checkExpiry(channelExpiry)),
+                delayMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // the timer is stopped
+            this.channelExpiryTable.remove(channelExpiry.channel, channelExpiry);
+        }
+    }
+
+    private void checkExpiry(ChannelExpiry channelExpiry) {
+        try {
+            long channelExpiredTimeout = this.brokerController.getBrokerConfig().getChannelExpiredTimeout();
+            long idle = System.currentTimeMillis() - channelExpiry.lastHeartbeatTimestamp;
+            if (idle < channelExpiredTimeout) {
+                armExpiry(channelExpiry, channelExpiredTimeout - idle);
+                return;
+            }
+            if (!this.channelExpiryTable.remove(channelExpiry.channel, channelExpiry)) {
+                return;
+            }
+            String remoteAddr = RemotingHelper.parseChannelRemoteAddr(channelExpiry.channel);
+            log.warn("remove expired client channel {}, no heartbeat in {}ms", remoteAddr, idle);
+            this.brokerController.getProducerManager().doChannelCloseEvent(remoteAddr, channelExpiry.channel);
+            this.brokerController.getConsumerManager().doChannelCloseEvent(remoteAddr, channelExpiry.channel);
+            RemotingHelper.closeChannel(channelExpiry.channel);
+        } catch (Throwable e) {
+            log.error("Error occurred when expire client channel.", e);
+        }
+    }
+
+    private void removeExpiry(Channel channel) {
+        if (this.channelExpireTimer == null || channel == null) {
+            return;
+        }
+        ChannelExpiry channelExpiry = this.channelExpiryTable.remove(channel);
+        if (channelExpiry != null && channelExpiry.timeout != null) {
+            channelExpiry.timeout.cancel();
+        }
+    }
+
+    public int getExpiryChannelNum() {
+        return this.channelExpiryTable.size();
     }
 
     private void scanExceptionChannel() {
@@ -59,6 +147,9 @@ public class ClientHousekeepingService implements ChannelEventListener {
     }
 
     public void shutdown() {
+        if (this.channelExpireTimer != null) {
+            this.channelExpireTimer.stop();
+        }
         this.scheduledExecutorService.shutdown();
     }
 
@@ -69,6 +160,7 @@ public class ClientHousekeepingService implements ChannelEventListener {
 
     @Override
     public void onChannelClose(String remoteAddr, Channel channel) {
+        this.removeExpiry(channel);
         this.brokerController.getProducerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getConsumerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getBrokerStatsManager().incChannelCloseNum();
@@ -76,6 +168,7 @@ public class ClientHousekeepingService implements ChannelEventListener {
 
     @Override
     public void onChannelException(String remoteAddr, Channel channel) {
+        this.removeExpiry(channel);
         this.brokerController.getProducerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getConsumerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getBrokerStatsManager().incChannelExceptionNum();
@@ -83,6 +176,7 @@ public class ClientHousekeepingService implements ChannelEventListener {
 
     @Override
     public void onChannelIdle(String remoteAddr, Channel channel) {
+        this.removeExpiry(channel);
         this.brokerController.getProducerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getConsumerManager().doChannelCloseEvent(remoteAddr, channel);
         this.brokerController.getBrokerStatsManager().incChannelIdleNum();
@@ -92,4 +186,14 @@ public class ClientHousekeepingService implements ChannelEventListener {
     public void onChannelActive(String remoteAddr, Channel channel) {
 
     }
+
+    private static class ChannelExpiry {
+        private final Channel channel;
+        private volatile long lastHeartbeatTimestamp = System.currentTimeMillis();
+        private volatile Timeout timeout;
+
+        ChannelExpiry(Channel channel) {
+            this.channel = channel;
+        }
+    }
 }
@@ -44,6 +44,11 @@ public class ConsumerGroupInfo {
     private volatile MessageModel messageModel;
     private volatile ConsumeFromWhere consumeFromWhere;
     private volatile long lastUpdateTimestamp = System.currentTimeMillis();
+    /**
+     * Fingerprint of the subscriptions in {@link #subscriptionTable}, 0 if unknown. It is reset once the
+     * subscriptions are changed, and set again by the next heartbeat carrying the subscriptions.
+     */
+    private volatile long subscriptionFingerprint;
 
     public ConsumerGroupInfo(String groupName, ConsumeType consumeType, MessageModel messageModel,
         ConsumeFromWhere consumeFromWhere) {
@@ -194,6 +199,7 @@ public class ConsumerGroupInfo {
                 }
 
                 this.subscriptionTable.put(sub.getTopic(), sub);
+                this.subscriptionFingerprint = 0;
             }
             // Add all new topics to the HashSet
             topicSet.add(sub.getTopic());
@@ -216,6 +222,9 @@ public class ConsumerGroupInfo {
             }
         }
 
+        if (updated) {
+            this.subscriptionFingerprint = 0;
+        }
         this.lastUpdateTimestamp = System.currentTimeMillis();
 
         return updated;
@@ -257,6 +266,14 @@ public class ConsumerGroupInfo {
         this.lastUpdateTimestamp = lastUpdateTimestamp;
     }
 
+    public long getSubscriptionFingerprint() {
+        return subscriptionFingerprint;
+    }
+
+    public void setSubscriptionFingerprint(long subscriptionFingerprint) {
+        this.subscriptionFingerprint = subscriptionFingerprint;
+    }
+
     public ConsumeFromWhere getConsumeFromWhere() {
         return consumeFromWhere;
     }
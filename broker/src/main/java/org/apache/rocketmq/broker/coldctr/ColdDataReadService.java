@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.broker.coldctr;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
+import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.common.utils.ThreadUtils;
+import org.apache.rocketmq.logging.org.slf4j.Logger;
+import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
+import org.apache.rocketmq.store.DefaultMessageStore;
+import org.apache.rocketmq.store.GetMessageResult;
+import org.apache.rocketmq.store.MessageFilter;
+import org.apache.rocketmq.store.MessageStore;
+
+/**
+ * read the pulls on cold data by a dedicated thread pool, so that the pull threads never wait for the page faults
+ * of cold data. the cold reads in flight of each consumer group are bounded, and the commitlog ahead of them is
+ * advised to be read into page cache asynchronously.
+ */
+public class ColdDataReadService {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_COLDCTR_LOGGER_NAME);
+
+    private final BrokerController brokerController;
+    private final BrokerConfig brokerConfig;
+    private final BlockingQueue<Runnable> coldDataReadThreadPoolQueue;
+    private final ExecutorService coldDataReadExecutor;
+    private final ConcurrentHashMap<String, GroupReadState> groupReadStateTable = new ConcurrentHashMap<>();
+
+    public ColdDataReadService(BrokerController brokerController) {
+        this.brokerController = brokerController;
+        this.brokerConfig = brokerController.getBrokerConfig();
+        this.coldDataReadThreadPoolQueue = new LinkedBlockingQueue<>(brokerConfig.getColdDataReadThreadPoolQueueCapacity());
+        this.coldDataReadExecutor = ThreadUtils.newThreadPoolExecutor(
+            brokerConfig.getColdDataReadThreadPoolNums(),
+            brokerConfig.getColdDataReadThreadPoolNums(),
+            1000 * 60,
+            TimeUnit.MILLISECONDS,
+            this.coldDataReadThreadPoolQueue,
+            new ThreadFactoryImpl("ColdDataReadThread_", brokerController.getBrokerIdentity()));
+    }
+
+    public boolean isEnable() {
+        return brokerConfig.isColdDataReadIsolationEnable()
+            && brokerController.getMessageStoreConfig().isColdDataFlowControlEnable();
+    }
+
+    /**
+     * @return null if the consumer group has too many cold reads in flight or the thread pool is full
+     */
+    public CompletableFuture<GetMessageResult> getMessageAsync(final String group, final String topic,
+        final int queueId, final long offset, final int maxMsgNums, final MessageFilter messageFilter) {
+        GroupReadState readState = groupReadStateTable.computeIfAbsent(group, k -> new GroupReadState());
+        if (readState.inflight.incrementAndGet() > brokerConfig.getColdDataReadMaxInflightPerGroup()) {
+            readState.inflight.decrementAndGet();
+            return null;
+        }
+        CompletableFuture<GetMessageResult> future = new CompletableFuture<>();
+        try {
+            this.coldDataReadExecutor.execute(() -> {
+                try {
+                    readAhead(readState, topic, queueId, offset);
+                    future.complete(brokerController.getMessageStore().getMessage(group, topic, queueId, offset,
+                        maxMsgNums, messageFilter));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    readState.inflight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            readState.inflight.decrementAndGet();
+            log.warn("cold data read rejected, group: {}, queueSize: {}", group, coldDataReadThreadPoolQueue.size());
+            return null;
+        }
+        return future;
+    }
+
+    /**
+     * advise the commitlog from the read position to be read ahead, unless it is still covered by the last advice
+     * of the group.
+     */
+    private void readAhead(GroupReadState readState, String topic, int queueId, long offset) {
+        int readAheadSize = brokerConfig.getColdDataReadAheadSize();
+        MessageStore messageStore = brokerController.getMessageStore();
+        if (readAheadSize <= 0 || !(messageStore instanceof DefaultMessageStore)) {
+            return;
+        }
+        long offsetPy = messageStore.getCommitLogOffsetInQueue(topic, queueId, offset);
+        if (offsetPy >= readState.readAheadBegin && offsetPy + readAheadSize / 2 <= readState.readAheadEnd) {
+            return;
+        }
+        if (((DefaultMessageStore) messageStore).getCommitLog().adviseWillNeed(offsetPy, readAheadSize)) {
+            readState.readAheadBegin = offsetPy;
+            readState.readAheadEnd = offsetPy + readAheadSize;
+        }
+    }
+
+    public int getInflight(String group) {
+        GroupReadState readState = groupReadStateTable.get(group);
+        return readState != null ? readState.inflight.get() : 0;
+    }
+
+    public BlockingQueue<Runnable> getColdDataReadThreadPoolQueue() {
+        return coldDataReadThreadPoolQueue;
+    }
+
+    public void shutdown() {
+        this.coldDataReadExecutor.shutdown();
+    }
+
+    private static class GroupReadState {
+        private final AtomicInteger inflight = new AtomicInteger(0);
+        private volatile long readAheadBegin = -1;
+        private volatile long readAheadEnd = -1;
+    }
+}
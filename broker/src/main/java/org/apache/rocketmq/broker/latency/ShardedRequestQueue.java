@@ -0,0 +1,498 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.broker.latency;
+
+import io.opentelemetry.api.common.Attributes;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import org.apache.rocketmq.broker.metrics.BrokerMetricsManager;
+import org.apache.rocketmq.common.future.FutureTaskExt;
+import org.apache.rocketmq.remoting.netty.RequestTask;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_PROCESSOR;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_SHARD;
+
+/**
+ * A bounded request queue split into lock-free shards, used in place of the {@link
+ * java.util.concurrent.LinkedBlockingQueue} of a request thread pool.
+ * <p>
+ * Requests carrying a topic are sharded by topic and queue id, so producers of different queues never contend on the
+ * same queue head, and there is no counter shared by all the shards. Each shard admits its share of the capacity,
+ * {@code capacity / shardNums} rounded up, and the size of the whole queue is only summed when asked for. Consumers
+ * take the oldest head among the shards, so requests leave in about the order they came in. Idle consumers park in a
+ * waiter list which producers only look at when it is not empty.
+ * <p>
+ * Urgent requests go to a lane of their own, which is always drained first and not subject to admission control.
+ * Admission is controlled CoDel-style: once the sojourn time of dequeued requests has stayed above the target for a
+ * whole interval, new requests are rejected (and answered with SYSTEM_BUSY by the remoting layer) until the sojourn
+ * time drops below the target again or the queue drains.
+ */
+public class ShardedRequestQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final String name;
+    private final int shardCapacity;
+    private final Shard urgentShard;
+    private final Shard[] shards;
+    private final Predicate<RemotingCommand> urgentPredicate;
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private final LongSupplier targetSojournMillis;
+    private final long intervalMillis;
+    private final LongSupplier clock;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private volatile long firstAboveTime = 0;
+    private volatile boolean dropping = false;
+
+    public ShardedRequestQueue(String name, int capacity, int shardNums, LongSupplier targetSojournMillis,
+        long intervalMillis) {
+        this(name, capacity, shardNums, request -> false, targetSojournMillis, intervalMillis);
+    }
+
+    public ShardedRequestQueue(String name, int capacity, int shardNums, Predicate<RemotingCommand> urgentPredicate,
+        LongSupplier targetSojournMillis, long intervalMillis) {
+        this(name, capacity, shardNums, urgentPredicate, targetSojournMillis, intervalMillis, System::currentTimeMillis);
+    }
+
+    ShardedRequestQueue(String name, int capacity, int shardNums, Predicate<RemotingCommand> urgentPredicate,
+        LongSupplier targetSojournMillis, long intervalMillis, LongSupplier clock) {
+        this.name = name;
+        this.shards = new Shard[Math.max(1, shardNums)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(String.valueOf(i));
+        }
+        this.shardCapacity = Math.max(1, (capacity + this.shards.length - 1) / this.shards.length);
+        this.urgentShard = new Shard("urgent");
+        this.urgentPredicate = urgentPredicate;
+        this.targetSojournMillis = targetSojournMillis;
+        this.intervalMillis = intervalMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        if (runnable == null) {
+            throw new NullPointerException();
+        }
+        RemotingCommand request = requestOf(runnable);
+        boolean urgent = request != null && urgentPredicate.test(request);
+        if (dropping && !urgent) {
+            if (!isEmpty()) {
+                rejectedCount.increment();
+                return false;
+            }
+            dropping = false;
+            firstAboveTime = 0;
+        }
+        Shard shard = urgent ? urgentShard : shards[shardIndex(runnable)];
+        if (shard.size.get() >= shardCapacity) {
+            rejectedCount.increment();
+            return false;
+        }
+        shard.size.incrementAndGet();
+        shard.queue.offer(new Node(runnable, clock.getAsLong()));
+        signalWaiter();
+        return true;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(runnable)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        offer(runnable, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Runnable poll() {
+        return dequeue();
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return awaitDequeue(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        return awaitDequeue(Long.MAX_VALUE);
+    }
+
+    private Runnable awaitDequeue(long deadline) throws InterruptedException {
+        final Thread current = Thread.currentThread();
+        while (true) {
+            Runnable runnable = dequeue();
+            if (runnable != null) {
+                signalWaiterIfNotEmpty();
+                return runnable;
+            }
+            // register before checking again, a producer either sees the waiter or the check sees its request
+            waiters.offer(current);
+            runnable = dequeue();
+            if (runnable != null) {
+                waiters.remove(current);
+                signalWaiterIfNotEmpty();
+                return runnable;
+            }
+            if (deadline == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    waiters.remove(current);
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            waiters.remove(current);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * A consumer signalled by a producer may have found another request, pass the signal on to the next waiter
+     */
+    private void signalWaiterIfNotEmpty() {
+        if (!waiters.isEmpty() && !isEmpty()) {
+            signalWaiter();
+        }
+    }
+
+    private void signalWaiter() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Take the head of the urgent lane, or else the oldest head among the shards scanned in a fixed order.
+     */
+    private Runnable dequeue() {
+        Node node = urgentShard.queue.poll();
+        if (node != null) {
+            urgentShard.size.decrementAndGet();
+            BrokerMetricsManager.requestQueueSojournTime.record(Math.max(0, clock.getAsLong() - node.enqueueTime),
+                urgentShard.attributes());
+            return node.runnable;
+        }
+        while (true) {
+            Shard oldest = null;
+            long oldestTime = Long.MAX_VALUE;
+            for (Shard shard : shards) {
+                Node head = shard.queue.peek();
+                if (head != null && head.enqueueTime < oldestTime) {
+                    oldest = shard;
+                    oldestTime = head.enqueueTime;
+                }
+            }
+            if (oldest == null) {
+                return null;
+            }
+            node = oldest.queue.poll();
+            if (node != null) {
+                oldest.size.decrementAndGet();
+                onDequeue(oldest, node);
+                return node.runnable;
+            }
+        }
+    }
+
+    private void onDequeue(Shard shard, Node node) {
+        long now = clock.getAsLong();
+        long sojourn = Math.max(0, now - node.enqueueTime);
+        BrokerMetricsManager.requestQueueSojournTime.record(sojourn, shard.attributes());
+
+        if (sojourn < targetSojournMillis.getAsLong() || isEmpty()) {
+            firstAboveTime = 0;
+            dropping = false;
+        } else if (firstAboveTime == 0) {
+            firstAboveTime = now + intervalMillis;
+        } else if (now >= firstAboveTime) {
+            dropping = true;
+        }
+    }
+
+    private static RemotingCommand requestOf(Runnable runnable) {
+        if (runnable instanceof FutureTaskExt && ((FutureTaskExt<?>) runnable).getRunnable() instanceof RequestTask) {
+            return ((RequestTask) ((FutureTaskExt<?>) runnable).getRunnable()).getRequest();
+        }
+        return null;
+    }
+
+    private int shardIndex(Runnable runnable) {
+        if (shards.length == 1) {
+            return 0;
+        }
+        int hash;
+        RequestTask requestTask = runnable instanceof FutureTaskExt
+            && ((FutureTaskExt<?>) runnable).getRunnable() instanceof RequestTask
+            ? (RequestTask) ((FutureTaskExt<?>) runnable).getRunnable() : null;
+        if (requestTask != null && requestTask.getRequest() != null) {
+            hash = shardHash(requestTask);
+        } else {
+            hash = ThreadLocalRandom.current().nextInt();
+        }
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    private static int shardHash(RequestTask requestTask) {
+        RemotingCommand request = requestTask.getRequest();
+        Map<String, String> extFields = request.getExtFields();
+        String topic = null;
+        String queueId = null;
+        if (extFields != null) {
+            if (request.getCode() == RequestCode.SEND_MESSAGE_V2 || request.getCode() == RequestCode.SEND_BATCH_MESSAGE) {
+                topic = extFields.get("b");
+                queueId = extFields.get("e");
+            } else {
+                topic = extFields.get("topic");
+                queueId = extFields.get("queueId");
+            }
+        }
+        if (topic == null) {
+            return requestTask.getChannel() != null ? requestTask.getChannel().hashCode() : ThreadLocalRandom.current().nextInt();
+        }
+        return 31 * topic.hashCode() + (queueId == null ? 0 : queueId.hashCode());
+    }
+
+    /**
+     * @return the head of the urgent lane, or else the oldest head among the shards
+     */
+    @Override
+    public Runnable peek() {
+        Node urgent = urgentShard.queue.peek();
+        if (urgent != null) {
+            return urgent.runnable;
+        }
+        Node oldest = null;
+        for (Shard shard : shards) {
+            Node head = shard.queue.peek();
+            if (head != null && (oldest == null || head.enqueueTime < oldest.enqueueTime)) {
+                oldest = head;
+            }
+        }
+        return oldest == null ? null : oldest.runnable;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Shard shard : allShards()) {
+            for (Node node : shard.queue) {
+                if (node.runnable == o && shard.queue.remove(node)) {
+                    shard.size.decrementAndGet();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        for (Shard shard : allShards()) {
+            for (Node node : shard.queue) {
+                snapshot.add(node.runnable);
+            }
+        }
+        Iterator<Runnable> it = snapshot.iterator();
+        return new Iterator<Runnable>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ShardedRequestQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private List<Shard> allShards() {
+        List<Shard> allShards = new ArrayList<>(shards.length + 1);
+        allShards.add(urgentShard);
+        for (Shard shard : shards) {
+            allShards.add(shard);
+        }
+        return allShards;
+    }
+
+    /**
+     * Summed over the shards on each call, the shards share no counter
+     */
+    @Override
+    public int size() {
+        int size = urgentShard.size.get();
+        for (Shard shard : shards) {
+            size += shard.size.get();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (urgentShard.size.get() > 0) {
+            return false;
+        }
+        for (Shard shard : shards) {
+            if (shard.size.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int remaining = 0;
+        for (Shard shard : shards) {
+            remaining += Math.max(0, shardCapacity - shard.size.get());
+        }
+        return remaining;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        Runnable runnable;
+        while (n < maxElements && (runnable = poll()) != null) {
+            c.add(runnable);
+            n++;
+        }
+        return n;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShardNums() {
+        return shards.length;
+    }
+
+    public int getUrgentSize() {
+        return urgentShard.size.get();
+    }
+
+    public int getShardSize(int shardIndex) {
+        if (shardIndex < 0 || shardIndex >= shards.length) {
+            throw new NoSuchElementException("shard " + shardIndex);
+        }
+        return shards[shardIndex].size.get();
+    }
+
+    public boolean isDropping() {
+        return dropping;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private static class Node {
+        private final Runnable runnable;
+        private final long enqueueTime;
+
+        Node(Runnable runnable, long enqueueTime) {
+            this.runnable = runnable;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    private class Shard {
+        private final String label;
+        private final ConcurrentLinkedQueue<Node> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile Attributes attributes;
+
+        Shard(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Built lazily, the metrics labels are only known after the metrics manager has been initialized.
+         */
+        Attributes attributes() {
+            Attributes attributes = this.attributes;
+            if (attributes == null) {
+                attributes = BrokerMetricsManager.newAttributesBuilder()
+                    .put(LABEL_PROCESSOR, name)
+                    .put(LABEL_SHARD, label)
+                    .build();
+                this.attributes = attributes;
+            }
+            return attributes;
+        }
+    }
+}
@@ -16,35 +16,127 @@
  */
 package org.apache.rocketmq.broker.longpolling;
 
+import io.netty.util.Timeout;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Suspended pull requests of one queue, ordered by the offset they pull from, so that a new max offset only takes out
+ * the requests it could satisfy. A request is handled by whoever takes it out, either the arriving message or its
+ * timeout.
+ */
 public class ManyPullRequest {
-    private final ArrayList<PullRequest> pullRequestList = new ArrayList<>();
+    private static final AtomicLong WAITER_SEQUENCE = new AtomicLong(0);
+
+    private final ConcurrentSkipListSet<Waiter> waiterSet = new ConcurrentSkipListSet<>();
+
+    public Waiter addPullRequest(final PullRequest pullRequest) {
+        Waiter waiter = new Waiter(pullRequest, pullRequest.getPullFromThisOffset(), WAITER_SEQUENCE.incrementAndGet());
+        this.waiterSet.add(waiter);
+        return waiter;
+    }
+
+    public void addPullRequest(final List<PullRequest> many) {
+        for (PullRequest pullRequest : many) {
+            addPullRequest(pullRequest);
+        }
+    }
 
-    public synchronized void addPullRequest(final PullRequest pullRequest) {
-        this.pullRequestList.add(pullRequest);
+    public void addWaiter(final Waiter waiter) {
+        this.waiterSet.add(waiter);
     }
 
-    public synchronized void addPullRequest(final List<PullRequest> many) {
-        this.pullRequestList.addAll(many);
+    public boolean removeWaiter(final Waiter waiter) {
+        return this.waiterSet.remove(waiter);
     }
 
-    public synchronized List<PullRequest> cloneListAndClear() {
-        if (!this.pullRequestList.isEmpty()) {
-            List<PullRequest> result = (ArrayList<PullRequest>) this.pullRequestList.clone();
-            this.pullRequestList.clear();
-            return result;
+    public List<PullRequest> cloneListAndClear() {
+        List<PullRequest> result = null;
+        Waiter waiter;
+        while ((waiter = this.waiterSet.pollFirst()) != null) {
+            if (result == null) {
+                result = new ArrayList<>();
+            }
+            waiter.cancelTimeout();
+            result.add(waiter.getPullRequest());
         }
+        return result;
+    }
+
+    /**
+     * Take out the requests pulling from an offset before the max offset.
+     *
+     * @return null if no request could be satisfied
+     */
+    public List<Waiter> pollReachable(final long maxOffset) {
+        if (this.waiterSet.isEmpty() || this.waiterSet.first().pullFromThisOffset >= maxOffset) {
+            return null;
+        }
+        List<Waiter> result = null;
+        Iterator<Waiter> iterator = this.waiterSet.headSet(new Waiter(null, maxOffset, Long.MIN_VALUE)).iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            // only one of the concurrent notifying and timeout removes it successfully
+            if (this.waiterSet.remove(waiter)) {
+                if (result == null) {
+                    result = new ArrayList<>();
+                }
+                result.add(waiter);
+            }
+        }
+        return result;
+    }
 
-        return null;
+    public List<PullRequest> getPullRequestList() {
+        List<PullRequest> result = new ArrayList<>();
+        for (Waiter waiter : this.waiterSet) {
+            result.add(waiter.getPullRequest());
+        }
+        return result;
     }
 
-    public ArrayList<PullRequest> getPullRequestList() {
-        return pullRequestList;
+    public boolean isEmpty() {
+        return this.waiterSet.isEmpty();
     }
 
-    public synchronized boolean isEmpty() {
-        return this.pullRequestList.isEmpty();
+    public static class Waiter implements Comparable<Waiter> {
+        private final PullRequest pullRequest;
+        private final long pullFromThisOffset;
+        private final long sequence;
+        private volatile Timeout timeout;
+
+        Waiter(PullRequest pullRequest, long pullFromThisOffset, long sequence) {
+            this.pullRequest = pullRequest;
+            this.pullFromThisOffset = pullFromThisOffset;
+            this.sequence = sequence;
+        }
+
+        public PullRequest getPullRequest() {
+            return pullRequest;
+        }
+
+        public void setTimeout(Timeout timeout) {
+            this.timeout = timeout;
+        }
+
+        public void cancelTimeout() {
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        public boolean isExpired(long now) {
+            return now >= pullRequest.getSuspendTimestamp() + pullRequest.getTimeoutMillis();
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            int result = Long.compare(this.pullFromThisOffset, o.pullFromThisOffset);
+            return result != 0 ? result : Long.compare(this.sequence, o.sequence);
+        }
     }
 }
@@ -17,17 +17,23 @@
 
 package org.apache.rocketmq.broker.longpolling;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.broker.metrics.PopLongPollingWakeUpType;
+import org.apache.rocketmq.broker.metrics.PopMetricsManager;
 import org.apache.rocketmq.common.KeyBuilder;
-import org.apache.rocketmq.common.PopAckConstants;
 import org.apache.rocketmq.common.ServiceThread;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
@@ -41,24 +47,38 @@ import static org.apache.rocketmq.broker.longpolling.PollingResult.POLLING_FULL;
 import static org.apache.rocketmq.broker.longpolling.PollingResult.POLLING_SUC;
 import static org.apache.rocketmq.broker.longpolling.PollingResult.POLLING_TIMEOUT;
 
+/**
+ * Suspended pop requests indexed by topic, consumer group and queue id, the queue id -1 stands for the requests
+ * popping from all the queues.
+ * <p>
+ * Arrived messages are counted per queue and handed out by the service thread in batch, each group gets at most as
+ * many wake-ups as the messages arrived, preferring the requests on the very queue to the ones on all queues. Each
+ * suspended request is expired by a timer wheel instead of scanning the polling table.
+ */
 public class PopLongPollingService extends ServiceThread {
     private static final Logger POP_LOGGER =
         LoggerFactory.getLogger(LoggerName.ROCKETMQ_POP_LOGGER_NAME);
+    private static final int ALL_QUEUE_ID = -1;
+    private static final long TIMER_TICK_MS = 20;
+    private static final long STAT_INTERVAL_MS = 2000;
+    private static final long CLEAN_INTERVAL_MS = 5 * 60 * 1000;
+
     private final BrokerController brokerController;
     private final NettyRequestProcessor processor;
-    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Byte>> topicCidMap;
-    private final ConcurrentLinkedHashMap<String, ConcurrentSkipListSet<PopRequest>> pollingMap;
+    private final ConcurrentHashMap<String/* topic */, TopicPolling> pollingTable;
+    private final ConcurrentLinkedQueue<TopicPolling> arrivedTopicQueue = new ConcurrentLinkedQueue<>();
+    private final HashedWheelTimer timer;
+    private long lastStatTime = 0;
     private long lastCleanTime = 0;
 
     private final AtomicLong totalPollingNum = new AtomicLong(0);
+    private final AtomicInteger pollingQueueNum = new AtomicInteger(0);
 
     public PopLongPollingService(BrokerController brokerController, NettyRequestProcessor processor) {
         this.brokerController = brokerController;
         this.processor = processor;
-        // 100000 topic default,  100000 lru topic + cid + qid
-        this.topicCidMap = new ConcurrentHashMap<>(brokerController.getBrokerConfig().getPopPollingMapSize());
-        this.pollingMap = new ConcurrentLinkedHashMap.Builder<String, ConcurrentSkipListSet<PopRequest>>()
-            .maximumWeightedCapacity(this.brokerController.getBrokerConfig().getPopPollingMapSize()).build();
+        this.pollingTable = new ConcurrentHashMap<>(1024);
+        this.timer = new HashedWheelTimer(new ThreadFactoryImpl("PopLongPollingTimer_"), TIMER_TICK_MS, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -71,60 +91,18 @@ public class PopLongPollingService extends ServiceThread {
 
     @Override
     public void run() {
-        int i = 0;
         while (!this.stopped) {
             try {
-                this.waitForRunning(20);
-                i++;
-                if (pollingMap.isEmpty()) {
-                    continue;
-                }
-                long tmpTotalPollingNum = 0;
-                for (Map.Entry<String, ConcurrentSkipListSet<PopRequest>> entry : pollingMap.entrySet()) {
-                    String key = entry.getKey();
-                    ConcurrentSkipListSet<PopRequest> popQ = entry.getValue();
-                    if (popQ == null) {
-                        continue;
-                    }
-                    PopRequest first;
-                    do {
-                        first = popQ.pollFirst();
-                        if (first == null) {
-                            break;
-                        }
-                        if (!first.isTimeout()) {
-                            if (popQ.add(first)) {
-                                break;
-                            } else {
-                                POP_LOGGER.info("polling, add fail again: {}", first);
-                            }
-                        }
-                        if (brokerController.getBrokerConfig().isEnablePopLog()) {
-                            POP_LOGGER.info("timeout , wakeUp polling : {}", first);
-                        }
-                        totalPollingNum.decrementAndGet();
-                        wakeUp(first);
-                    }
-                    while (true);
-                    if (i >= 100) {
-                        long tmpPollingNum = popQ.size();
-                        tmpTotalPollingNum = tmpTotalPollingNum + tmpPollingNum;
-                        if (tmpPollingNum > 100) {
-                            POP_LOGGER.info("polling queue {} , size={} ", key, tmpPollingNum);
-                        }
-                    }
-                }
+                this.waitForRunning(1000);
+                handOutArrivedMessages();
 
-                if (i >= 100) {
-                    POP_LOGGER.info("pollingMapSize={},tmpTotalSize={},atomicTotalSize={},diffSize={}",
-                        pollingMap.size(), tmpTotalPollingNum, totalPollingNum.get(),
-                        Math.abs(totalPollingNum.get() - tmpTotalPollingNum));
-                    totalPollingNum.set(tmpTotalPollingNum);
-                    i = 0;
+                long now = System.currentTimeMillis();
+                if (now - lastStatTime > STAT_INTERVAL_MS) {
+                    statPolling();
+                    lastStatTime = now;
                 }
-
                 // clean unused
-                if (lastCleanTime == 0 || System.currentTimeMillis() - lastCleanTime > 5 * 60 * 1000) {
+                if (lastCleanTime == 0 || now - lastCleanTime > CLEAN_INTERVAL_MS) {
                     cleanUnusedResource();
                 }
             } catch (Throwable e) {
@@ -133,17 +111,23 @@ public class PopLongPollingService extends ServiceThread {
         }
         // clean all;
         try {
-            for (Map.Entry<String, ConcurrentSkipListSet<PopRequest>> entry : pollingMap.entrySet()) {
-                ConcurrentSkipListSet<PopRequest> popQ = entry.getValue();
-                PopRequest first;
-                while ((first = popQ.pollFirst()) != null) {
-                    wakeUp(first);
+            for (TopicPolling topicPolling : pollingTable.values()) {
+                for (ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>> queueTable : topicPolling.groupTable.values()) {
+                    for (ConcurrentSkipListSet<PopRequest> requests : queueTable.values()) {
+                        wakeUp(requests, Integer.MAX_VALUE, PopLongPollingWakeUpType.SHUTDOWN);
+                    }
                 }
             }
         } catch (Throwable e) {
         }
     }
 
+    @Override
+    public void shutdown(boolean interrupt) {
+        super.shutdown(interrupt);
+        this.timer.stop();
+    }
+
     public void notifyMessageArrivingWithRetryTopic(final String topic, final int queueId) {
         String notifyTopic;
         if (KeyBuilder.isPopRetryTopicV2(topic)) {
@@ -154,39 +138,113 @@ public class PopLongPollingService extends ServiceThread {
         notifyMessageArriving(notifyTopic, queueId);
     }
 
+    /**
+     * Count one arrived message of the queue, it is handed out to the suspended requests of all the groups by the
+     * service thread later.
+     */
     public void notifyMessageArriving(final String topic, final int queueId) {
-        ConcurrentHashMap<String, Byte> cids = topicCidMap.get(topic);
-        if (cids == null) {
+        TopicPolling topicPolling = pollingTable.get(topic);
+        if (topicPolling == null) {
             return;
         }
-        for (Map.Entry<String, Byte> cid : cids.entrySet()) {
-            if (queueId >= 0) {
-                notifyMessageArriving(topic, cid.getKey(), -1);
+        AtomicInteger arrivedNum = topicPolling.arrivedTable.get(queueId);
+        if (arrivedNum == null) {
+            arrivedNum = new AtomicInteger();
+            AtomicInteger old = topicPolling.arrivedTable.putIfAbsent(queueId, arrivedNum);
+            if (old != null) {
+                arrivedNum = old;
             }
-            notifyMessageArriving(topic, cid.getKey(), queueId);
+        }
+        arrivedNum.incrementAndGet();
+        if (topicPolling.arrived.compareAndSet(false, true)) {
+            arrivedTopicQueue.offer(topicPolling);
+            this.wakeup();
         }
     }
 
     public boolean notifyMessageArriving(final String topic, final String cid, final int queueId) {
-        ConcurrentSkipListSet<PopRequest> remotingCommands = pollingMap.get(KeyBuilder.buildPollingKey(topic, cid, queueId));
-        if (remotingCommands == null || remotingCommands.isEmpty()) {
+        ConcurrentSkipListSet<PopRequest> requests = getPollingQueue(topic, cid, queueId);
+        if (requests == null || requests.isEmpty()) {
             return false;
         }
-        PopRequest popRequest = remotingCommands.pollFirst();
-        //clean inactive channel
-        while (popRequest != null && !popRequest.getChannel().isActive()) {
+        if (brokerController.getBrokerConfig().isEnablePopLog()) {
+            POP_LOGGER.info("lock release , new msg arrive , wakeUp : {}@{}@{}", topic, cid, queueId);
+        }
+        return wakeUp(requests, 1, PopLongPollingWakeUpType.MESSAGE_ARRIVING) > 0;
+    }
+
+    private void handOutArrivedMessages() {
+        TopicPolling topicPolling;
+        while ((topicPolling = arrivedTopicQueue.poll()) != null) {
+            // reset before reading the counters, so that a message arrived meanwhile enqueues the topic again
+            topicPolling.arrived.set(false);
+            for (Map.Entry<Integer, AtomicInteger> entry : topicPolling.arrivedTable.entrySet()) {
+                int arrivedNum = entry.getValue().getAndSet(0);
+                if (arrivedNum > 0) {
+                    handOut(topicPolling, entry.getKey(), arrivedNum);
+                }
+            }
+        }
+    }
+
+    private void handOut(TopicPolling topicPolling, int queueId, int arrivedNum) {
+        long wakeUpNum = 0;
+        for (ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>> queueTable : topicPolling.groupTable.values()) {
+            int remain = arrivedNum;
+            remain -= wakeUp(queueTable.get(queueId), remain, PopLongPollingWakeUpType.MESSAGE_ARRIVING);
+            if (remain > 0 && queueId != ALL_QUEUE_ID) {
+                remain -= wakeUp(queueTable.get(ALL_QUEUE_ID), remain, PopLongPollingWakeUpType.MESSAGE_ARRIVING);
+            }
+            wakeUpNum += arrivedNum - remain;
+        }
+        PopMetricsManager.incPopLongPollingArrivingCount(arrivedNum);
+        if (brokerController.getBrokerConfig().isEnablePopLog()) {
+            POP_LOGGER.info("new msg arrive, topic:{}, queueId:{}, arrived:{}, wakeUp:{}", topicPolling.topic, queueId,
+                arrivedNum, wakeUpNum);
+        }
+    }
+
+    /**
+     * Wake up at most the given number of suspended requests in expiry order, the inactive ones are dropped.
+     *
+     * @return the number of requests woken up
+     */
+    private int wakeUp(ConcurrentSkipListSet<PopRequest> requests, int maxNum, PopLongPollingWakeUpType type) {
+        if (requests == null) {
+            return 0;
+        }
+        int wakeUpNum = 0;
+        int discardNum = 0;
+        PopRequest request;
+        while (wakeUpNum < maxNum && (request = requests.pollFirst()) != null) {
             totalPollingNum.decrementAndGet();
-            popRequest = remotingCommands.pollFirst();
+            request.cancelTimeout();
+            if (wakeUp(request)) {
+                wakeUpNum++;
+            } else {
+                discardNum++;
+            }
         }
+        if (wakeUpNum > 0) {
+            PopMetricsManager.incPopLongPollingWakeUpCount(type, wakeUpNum);
+        }
+        if (discardNum > 0) {
+            PopMetricsManager.incPopLongPollingWakeUpCount(PopLongPollingWakeUpType.DISCARD, discardNum);
+        }
+        return wakeUpNum;
+    }
 
-        if (popRequest == null) {
-            return false;
+    private void onTimeout(ConcurrentSkipListSet<PopRequest> requests, PopRequest request) {
+        // whoever removes the request from the polling set wakes it up
+        if (!requests.remove(request)) {
+            return;
         }
         totalPollingNum.decrementAndGet();
         if (brokerController.getBrokerConfig().isEnablePopLog()) {
-            POP_LOGGER.info("lock release , new msg arrive , wakeUp : {}", popRequest);
+            POP_LOGGER.info("timeout , wakeUp polling : {}", request);
         }
-        return wakeUp(popRequest);
+        PopMetricsManager.incPopLongPollingWakeUpCount(wakeUp(request) ?
+            PopLongPollingWakeUpType.TIMEOUT : PopLongPollingWakeUpType.DISCARD, 1);
     }
 
     public boolean wakeUp(final PopRequest request) {
@@ -229,15 +287,6 @@ public class PopLongPollingService extends ServiceThread {
         if (requestHeader.getPollTime() <= 0 || this.isStopped()) {
             return NOT_POLLING;
         }
-        ConcurrentHashMap<String, Byte> cids = topicCidMap.get(requestHeader.getTopic());
-        if (cids == null) {
-            cids = new ConcurrentHashMap<>();
-            ConcurrentHashMap<String, Byte> old = topicCidMap.putIfAbsent(requestHeader.getTopic(), cids);
-            if (old != null) {
-                cids = old;
-            }
-        }
-        cids.putIfAbsent(requestHeader.getConsumerGroup(), Byte.MIN_VALUE);
         long expired = requestHeader.getBornTime() + requestHeader.getPollTime();
         final PopRequest request = new PopRequest(remotingCommand, ctx, expired);
         boolean isFull = totalPollingNum.get() >= this.brokerController.getBrokerConfig().getMaxPopPollingSize();
@@ -252,86 +301,139 @@ public class PopLongPollingService extends ServiceThread {
             }
             return POLLING_TIMEOUT;
         }
-        String key = KeyBuilder.buildPollingKey(requestHeader.getTopic(), requestHeader.getConsumerGroup(),
-            requestHeader.getQueueId());
-        ConcurrentSkipListSet<PopRequest> queue = pollingMap.get(key);
-        if (queue == null) {
-            queue = new ConcurrentSkipListSet<>(PopRequest.COMPARATOR);
-            ConcurrentSkipListSet<PopRequest> old = pollingMap.putIfAbsent(key, queue);
-            if (old != null) {
-                queue = old;
-            }
-        } else {
-            // check size
-            int size = queue.size();
-            if (size > brokerController.getBrokerConfig().getPopPollingSize()) {
-                POP_LOGGER.info("polling {}, result POLLING_FULL, singleSize:{}", remotingCommand, size);
-                return POLLING_FULL;
-            }
+        ConcurrentSkipListSet<PopRequest> requests = getOrCreatePollingQueue(requestHeader.getTopic(),
+            requestHeader.getConsumerGroup(), requestHeader.getQueueId());
+        if (requests == null) {
+            POP_LOGGER.info("polling {}, result POLLING_FULL, queueNum:{}", remotingCommand, pollingQueueNum.get());
+            return POLLING_FULL;
         }
-        if (queue.add(request)) {
+        // check size
+        int size = requests.size();
+        if (size > brokerController.getBrokerConfig().getPopPollingSize()) {
+            POP_LOGGER.info("polling {}, result POLLING_FULL, singleSize:{}", remotingCommand, size);
+            return POLLING_FULL;
+        }
+        if (requests.add(request)) {
             remotingCommand.setSuspended(true);
             totalPollingNum.incrementAndGet();
+            long delay = Math.max(0, request.getExpired() - 50 - System.currentTimeMillis());
+            request.setTimeout(this.timer.newTimeout(timeout -> onTimeout(requests, request), delay, TimeUnit.MILLISECONDS));
             if (brokerController.getBrokerConfig().isEnablePopLog()) {
                 POP_LOGGER.info("polling {}, result POLLING_SUC", remotingCommand);
             }
             return POLLING_SUC;
         } else {
-            POP_LOGGER.info("polling {}, result POLLING_FULL, add fail, {}", request, queue);
+            POP_LOGGER.info("polling {}, result POLLING_FULL, add fail, {}", request, requests);
             return POLLING_FULL;
         }
     }
 
-    public ConcurrentLinkedHashMap<String, ConcurrentSkipListSet<PopRequest>> getPollingMap() {
-        return pollingMap;
+    public int getPollingNum(final String topic, final String cid, final int queueId) {
+        ConcurrentSkipListSet<PopRequest> requests = getPollingQueue(topic, cid, queueId);
+        return requests != null ? requests.size() : 0;
     }
 
-    private void cleanUnusedResource() {
-        try {
-            {
-                Iterator<Map.Entry<String, ConcurrentHashMap<String, Byte>>> topicCidMapIter = topicCidMap.entrySet().iterator();
-                while (topicCidMapIter.hasNext()) {
-                    Map.Entry<String, ConcurrentHashMap<String, Byte>> entry = topicCidMapIter.next();
-                    String topic = entry.getKey();
-                    if (brokerController.getTopicConfigManager().selectTopicConfig(topic) == null) {
-                        POP_LOGGER.info("remove not exit topic {} in topicCidMap!", topic);
-                        topicCidMapIter.remove();
-                        continue;
-                    }
-                    Iterator<Map.Entry<String, Byte>> cidMapIter = entry.getValue().entrySet().iterator();
-                    while (cidMapIter.hasNext()) {
-                        Map.Entry<String, Byte> cidEntry = cidMapIter.next();
-                        String cid = cidEntry.getKey();
-                        if (!brokerController.getSubscriptionGroupManager().getSubscriptionGroupTable().containsKey(cid)) {
-                            POP_LOGGER.info("remove not exit sub {} of topic {} in topicCidMap!", cid, topic);
-                            cidMapIter.remove();
-                        }
+    public long getTotalPollingNum() {
+        return totalPollingNum.get();
+    }
+
+    private ConcurrentSkipListSet<PopRequest> getPollingQueue(final String topic, final String cid, final int queueId) {
+        TopicPolling topicPolling = pollingTable.get(topic);
+        if (topicPolling == null) {
+            return null;
+        }
+        ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>> queueTable = topicPolling.groupTable.get(cid);
+        if (queueTable == null) {
+            return null;
+        }
+        return queueTable.get(queueId);
+    }
+
+    /**
+     * @return null if there are already too many polling queues
+     */
+    private ConcurrentSkipListSet<PopRequest> getOrCreatePollingQueue(final String topic, final String cid,
+        final int queueId) {
+        TopicPolling topicPolling = pollingTable.get(topic);
+        if (topicPolling == null) {
+            topicPolling = new TopicPolling(topic);
+            TopicPolling old = pollingTable.putIfAbsent(topic, topicPolling);
+            if (old != null) {
+                topicPolling = old;
+            }
+        }
+        ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>> queueTable = topicPolling.groupTable.get(cid);
+        if (queueTable == null) {
+            queueTable = new ConcurrentHashMap<>(16);
+            ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>> old = topicPolling.groupTable.putIfAbsent(cid, queueTable);
+            if (old != null) {
+                queueTable = old;
+            }
+        }
+        ConcurrentSkipListSet<PopRequest> requests = queueTable.get(queueId);
+        if (requests == null) {
+            if (pollingQueueNum.get() >= brokerController.getBrokerConfig().getPopPollingMapSize()) {
+                return null;
+            }
+            requests = new ConcurrentSkipListSet<>(PopRequest.COMPARATOR);
+            ConcurrentSkipListSet<PopRequest> old = queueTable.putIfAbsent(queueId, requests);
+            if (old != null) {
+                requests = old;
+            } else {
+                pollingQueueNum.incrementAndGet();
+            }
+        }
+        return requests;
+    }
+
+    private void statPolling() {
+        long tmpTotalPollingNum = 0;
+        int tmpPollingQueueNum = 0;
+        for (TopicPolling topicPolling : pollingTable.values()) {
+            for (Map.Entry<String, ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>>> groupEntry : topicPolling.groupTable.entrySet()) {
+                for (Map.Entry<Integer, ConcurrentSkipListSet<PopRequest>> queueEntry : groupEntry.getValue().entrySet()) {
+                    long tmpPollingNum = queueEntry.getValue().size();
+                    tmpTotalPollingNum = tmpTotalPollingNum + tmpPollingNum;
+                    tmpPollingQueueNum++;
+                    if (tmpPollingNum > 100) {
+                        POP_LOGGER.info("polling queue {}@{}@{} , size={} ", topicPolling.topic, groupEntry.getKey(),
+                            queueEntry.getKey(), tmpPollingNum);
                     }
                 }
             }
+        }
+        if (tmpTotalPollingNum > 0 || totalPollingNum.get() != 0) {
+            POP_LOGGER.info("pollingQueueNum={},tmpTotalSize={},atomicTotalSize={},diffSize={}",
+                tmpPollingQueueNum, tmpTotalPollingNum, totalPollingNum.get(),
+                Math.abs(totalPollingNum.get() - tmpTotalPollingNum));
+        }
+        totalPollingNum.set(tmpTotalPollingNum);
+        pollingQueueNum.set(tmpPollingQueueNum);
+    }
 
-            {
-                Iterator<Map.Entry<String, ConcurrentSkipListSet<PopRequest>>> pollingMapIter = pollingMap.entrySet().iterator();
-                while (pollingMapIter.hasNext()) {
-                    Map.Entry<String, ConcurrentSkipListSet<PopRequest>> entry = pollingMapIter.next();
-                    if (entry.getKey() == null) {
-                        continue;
-                    }
-                    String[] keyArray = entry.getKey().split(PopAckConstants.SPLIT);
-                    if (keyArray.length != 3) {
-                        continue;
-                    }
-                    String topic = keyArray[0];
-                    String cid = keyArray[1];
-                    if (brokerController.getTopicConfigManager().selectTopicConfig(topic) == null) {
-                        POP_LOGGER.info("remove not exit topic {} in pollingMap!", topic);
-                        pollingMapIter.remove();
-                        continue;
-                    }
+    private void cleanUnusedResource() {
+        try {
+            Iterator<Map.Entry<String, TopicPolling>> topicIter = pollingTable.entrySet().iterator();
+            while (topicIter.hasNext()) {
+                Map.Entry<String, TopicPolling> entry = topicIter.next();
+                String topic = entry.getKey();
+                if (brokerController.getTopicConfigManager().selectTopicConfig(topic) == null) {
+                    POP_LOGGER.info("remove not exit topic {} in pollingTable!", topic);
+                    topicIter.remove();
+                    continue;
+                }
+                Iterator<Map.Entry<String, ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>>>> groupIter =
+                    entry.getValue().groupTable.entrySet().iterator();
+                while (groupIter.hasNext()) {
+                    Map.Entry<String, ConcurrentHashMap<Integer, ConcurrentSkipListSet<PopRequest>>> groupEntry = groupIter.next();
+                    String cid = groupEntry.getKey();
                     if (!brokerController.getSubscriptionGroupManager().getSubscriptionGroupTable().containsKey(cid)) {
-                        POP_LOGGER.info("remove not exit sub {} of topic {} in pollingMap!", cid, topic);
-                        pollingMapIter.remove();
+                        POP_LOGGER.info("remove not exit sub {} of topic {} in pollingTable!", cid, topic);
+                        groupIter.remove();
+                        continue;
                     }
+                    // a request added to a removed empty set concurrently is still woken up by its timeout
+                    groupEntry.getValue().values().removeIf(ConcurrentSkipListSet::isEmpty);
                 }
             }
         } catch (Throwable e) {
@@ -340,4 +442,19 @@ public class PopLongPollingService extends ServiceThread {
 
         lastCleanTime = System.currentTimeMillis();
     }
+
+    static class TopicPolling {
+        private final String topic;
+        private final ConcurrentHashMap<String/* cid */, ConcurrentHashMap<Integer/* queueId */, ConcurrentSkipListSet<PopRequest>>> groupTable =
+            new ConcurrentHashMap<>(16);
+        /**
+         * Messages arrived per queue and not handed out yet
+         */
+        private final ConcurrentHashMap<Integer, AtomicInteger> arrivedTable = new ConcurrentHashMap<>(16);
+        private final AtomicBoolean arrived = new AtomicBoolean(false);
+
+        TopicPolling(String topic) {
+            this.topic = topic;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package org.apache.rocketmq.broker.longpolling;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Timeout;
 import java.util.Comparator;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -33,6 +34,7 @@ public class PopRequest {
     private final long expired;
     private final AtomicBoolean complete = new AtomicBoolean(false);
     private final long op = COUNTER.getAndIncrement();
+    private volatile Timeout timeout;
 
     public PopRequest(RemotingCommand remotingCommand, ChannelHandlerContext ctx, long expired) {
         this.ctx = ctx;
@@ -64,6 +66,17 @@ public class PopRequest {
         return expired;
     }
 
+    public void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    public void cancelTimeout() {
+        Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("PopRequest{");
@@ -77,15 +90,11 @@ public class PopRequest {
     }
 
     public static final Comparator<PopRequest> COMPARATOR = (o1, o2) -> {
-        int ret = (int) (o1.getExpired() - o2.getExpired());
-
-        if (ret != 0) {
-            return ret;
-        }
-        ret = (int) (o1.op - o2.op);
+        int ret = Long.compare(o1.getExpired(), o2.getExpired());
         if (ret != 0) {
             return ret;
         }
-        return -1;
+        // the same request is equal to itself, so that it could be removed from the polling set on timeout
+        return Long.compare(o1.op, o2.op);
     };
 }
@@ -16,14 +16,17 @@
  */
 package org.apache.rocketmq.broker.longpolling;
 
-import java.util.ArrayList;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.common.ServiceThread;
 import org.apache.rocketmq.common.SystemClock;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
@@ -31,37 +34,53 @@ import org.apache.rocketmq.store.ConsumeQueueExt;
 
 public class PullRequestHoldService extends ServiceThread {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BROKER_LOGGER_NAME);
-    protected static final String TOPIC_QUEUEID_SEPARATOR = "@";
+    private static final int TIMER_TICK_MS = 100;
     protected final BrokerController brokerController;
     private final SystemClock systemClock = new SystemClock();
-    protected ConcurrentMap<String/* topic@queueId */, ManyPullRequest> pullRequestTable =
+    protected ConcurrentMap<String/* topic */, ConcurrentMap<Integer/* queueId */, ManyPullRequest>> pullRequestTable =
         new ConcurrentHashMap<>(1024);
+    private final Timer timer;
 
     public PullRequestHoldService(final BrokerController brokerController) {
         this.brokerController = brokerController;
+        this.timer = new HashedWheelTimer(new ThreadFactoryImpl("PullRequestHoldTimer_"), TIMER_TICK_MS, TimeUnit.MILLISECONDS);
     }
 
     public void suspendPullRequest(final String topic, final int queueId, final PullRequest pullRequest) {
-        String key = this.buildKey(topic, queueId);
-        ManyPullRequest mpr = this.pullRequestTable.get(key);
-        if (null == mpr) {
-            mpr = new ManyPullRequest();
-            ManyPullRequest prev = this.pullRequestTable.putIfAbsent(key, mpr);
-            if (prev != null) {
-                mpr = prev;
+        pullRequest.getRequestCommand().setSuspended(true);
+        final ManyPullRequest.Waiter[] added = new ManyPullRequest.Waiter[1];
+        final ManyPullRequest[] addedTo = new ManyPullRequest[1];
+        // add under the lock of the topic, so it is never added to a queue being removed when it is empty
+        this.pullRequestTable.compute(topic, (t, queueTable) -> {
+            if (queueTable == null) {
+                queueTable = new ConcurrentHashMap<>(8);
+            }
+            ManyPullRequest mpr = queueTable.computeIfAbsent(queueId, k -> new ManyPullRequest());
+            added[0] = mpr.addPullRequest(pullRequest);
+            addedTo[0] = mpr;
+            return queueTable;
+        });
+
+        final ManyPullRequest mpr = addedTo[0];
+        final ManyPullRequest.Waiter waiter = added[0];
+        long delay = pullRequest.getSuspendTimestamp() + pullRequest.getTimeoutMillis() - System.currentTimeMillis();
+        try {
+            waiter.setTimeout(this.timer.newTimeout(timeout -> {
+                if (mpr.removeWaiter(waiter)) {
+                    wakeUp(topic, queueId, pullRequest, "time's up");
+                }
+            }, Math.max(0, delay), TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            log.warn("PullRequestHoldService: add timeout of hold request failed, topic={}, queueId={}", topic, queueId, e);
+            if (mpr.removeWaiter(waiter)) {
+                wakeUp(topic, queueId, pullRequest, "adding timeout failed");
             }
         }
-
-        pullRequest.getRequestCommand().setSuspended(true);
-        mpr.addPullRequest(pullRequest);
     }
 
-    private String buildKey(final String topic, final int queueId) {
-        StringBuilder sb = new StringBuilder(topic.length() + 5);
-        sb.append(topic);
-        sb.append(TOPIC_QUEUEID_SEPARATOR);
-        sb.append(queueId);
-        return sb.toString();
+    protected ManyPullRequest getManyPullRequest(final String topic, final int queueId) {
+        ConcurrentMap<Integer, ManyPullRequest> queueTable = this.pullRequestTable.get(topic);
+        return queueTable == null ? null : queueTable.get(queueId);
     }
 
     @Override
@@ -89,6 +108,12 @@ public class PullRequestHoldService extends ServiceThread {
         log.info("{} service end", this.getServiceName());
     }
 
+    @Override
+    public void shutdown(final boolean interrupt) {
+        super.shutdown(interrupt);
+        this.timer.stop();
+    }
+
     @Override
     public String getServiceName() {
         if (brokerController != null && brokerController.getBrokerConfig().isInBrokerContainer()) {
@@ -97,101 +122,114 @@ public class PullRequestHoldService extends ServiceThread {
         return PullRequestHoldService.class.getSimpleName();
     }
 
+    /**
+     * Check the queues having suspended requests against their max offsets, in case of a message arriving between the
+     * pulling and the suspending of a request. Timeouts are handled by the timer.
+     */
     protected void checkHoldRequest() {
-        for (String key : this.pullRequestTable.keySet()) {
-            String[] kArray = key.split(TOPIC_QUEUEID_SEPARATOR);
-            if (2 == kArray.length) {
-                String topic = kArray[0];
-                int queueId = Integer.parseInt(kArray[1]);
-                final long offset = this.brokerController.getMessageStore().getMaxOffsetInQueue(topic, queueId);
-                try {
-                    this.notifyMessageArriving(topic, queueId, offset);
-                } catch (Throwable e) {
-                    log.error(
-                        "PullRequestHoldService: failed to check hold request failed, topic={}, queueId={}", topic,
-                        queueId, e);
+        for (Map.Entry<String, ConcurrentMap<Integer, ManyPullRequest>> entry : this.pullRequestTable.entrySet()) {
+            String topic = entry.getKey();
+            for (Map.Entry<Integer, ManyPullRequest> queueEntry : entry.getValue().entrySet()) {
+                int queueId = queueEntry.getKey();
+                if (!queueEntry.getValue().isEmpty()) {
+                    try {
+                        final long offset = this.brokerController.getMessageStore().getMaxOffsetInQueue(topic, queueId);
+                        this.notifyMessageArriving(topic, queueId, offset);
+                    } catch (Throwable e) {
+                        log.error(
+                            "PullRequestHoldService: failed to check hold request failed, topic={}, queueId={}", topic,
+                            queueId, e);
+                    }
+                }
+                if (isRemovedWhenEmpty(topic)) {
+                    removeIfEmpty(topic, queueId);
                 }
             }
         }
     }
 
+    /**
+     * @return whether the table entries of the topic are removed once it has no suspended request
+     */
+    protected boolean isRemovedWhenEmpty(final String topic) {
+        return false;
+    }
+
+    private void removeIfEmpty(final String topic, final int queueId) {
+        this.pullRequestTable.computeIfPresent(topic, (t, queueTable) -> {
+            queueTable.computeIfPresent(queueId, (k, mpr) -> mpr.isEmpty() ? null : mpr);
+            return queueTable.isEmpty() ? null : queueTable;
+        });
+    }
+
     public void notifyMessageArriving(final String topic, final int queueId, final long maxOffset) {
         notifyMessageArriving(topic, queueId, maxOffset, null, 0, null, null);
     }
 
     public void notifyMessageArriving(final String topic, final int queueId, final long maxOffset, final Long tagsCode,
         long msgStoreTime, byte[] filterBitMap, Map<String, String> properties) {
-        String key = this.buildKey(topic, queueId);
-        ManyPullRequest mpr = this.pullRequestTable.get(key);
-        if (mpr != null) {
-            List<PullRequest> requestList = mpr.cloneListAndClear();
-            if (requestList != null) {
-                List<PullRequest> replayList = new ArrayList<>();
-
-                for (PullRequest request : requestList) {
-                    long newestOffset = maxOffset;
-                    if (newestOffset <= request.getPullFromThisOffset()) {
-                        newestOffset = this.brokerController.getMessageStore().getMaxOffsetInQueue(topic, queueId);
-                    }
-
-                    if (newestOffset > request.getPullFromThisOffset()) {
-                        boolean match = request.getMessageFilter().isMatchedByConsumeQueue(tagsCode,
-                            new ConsumeQueueExt.CqExtUnit(tagsCode, msgStoreTime, filterBitMap));
-                        // match by bit map, need eval again when properties is not null.
-                        if (match && properties != null) {
-                            match = request.getMessageFilter().isMatchedByCommitLog(null, properties);
-                        }
-
-                        if (match) {
-                            try {
-                                this.brokerController.getPullMessageProcessor().executeRequestWhenWakeup(request.getClientChannel(),
-                                    request.getRequestCommand());
-                            } catch (Throwable e) {
-                                log.error(
-                                    "PullRequestHoldService#notifyMessageArriving: failed to execute request when "
-                                        + "message matched, topic={}, queueId={}", topic, queueId, e);
-                            }
-                            continue;
-                        }
-                    }
-
-                    if (System.currentTimeMillis() >= (request.getSuspendTimestamp() + request.getTimeoutMillis())) {
-                        try {
-                            this.brokerController.getPullMessageProcessor().executeRequestWhenWakeup(request.getClientChannel(),
-                                request.getRequestCommand());
-                        } catch (Throwable e) {
-                            log.error(
-                                "PullRequestHoldService#notifyMessageArriving: failed to execute request when time's "
-                                    + "up, topic={}, queueId={}", topic, queueId, e);
-                        }
-                        continue;
-                    }
+        ManyPullRequest mpr = this.getManyPullRequest(topic, queueId);
+        if (mpr == null) {
+            return;
+        }
+        // requests pulling from an offset not reached yet are not touched
+        List<ManyPullRequest.Waiter> waiterList = mpr.pollReachable(maxOffset);
+        if (waiterList == null) {
+            return;
+        }
+        for (ManyPullRequest.Waiter waiter : waiterList) {
+            PullRequest request = waiter.getPullRequest();
+            boolean match = request.getMessageFilter().isMatchedByConsumeQueue(tagsCode,
+                new ConsumeQueueExt.CqExtUnit(tagsCode, msgStoreTime, filterBitMap));
+            // match by bit map, need eval again when properties is not null.
+            if (match && properties != null) {
+                match = request.getMessageFilter().isMatchedByCommitLog(null, properties);
+            }
 
-                    replayList.add(request);
-                }
+            if (match) {
+                waiter.cancelTimeout();
+                wakeUp(topic, queueId, request, "message matched");
+                continue;
+            }
 
-                if (!replayList.isEmpty()) {
-                    mpr.addPullRequest(replayList);
-                }
+            mpr.addWaiter(waiter);
+            // the timeout may have fired while it was taken out
+            if (waiter.isExpired(System.currentTimeMillis()) && mpr.removeWaiter(waiter)) {
+                wakeUp(topic, queueId, request, "time's up");
             }
         }
     }
 
+    private void wakeUp(final String topic, final int queueId, final PullRequest request, final String reason) {
+        try {
+            this.brokerController.getPullMessageProcessor().executeRequestWhenWakeup(request.getClientChannel(),
+                request.getRequestCommand());
+        } catch (Throwable e) {
+            log.error("PullRequestHoldService: failed to execute request when {}, topic={}, queueId={}", reason, topic,
+                queueId, e);
+        }
+    }
+
     public void notifyMasterOnline() {
-        for (ManyPullRequest mpr : this.pullRequestTable.values()) {
-            if (mpr == null || mpr.isEmpty()) {
-                continue;
-            }
-            for (PullRequest request : mpr.cloneListAndClear()) {
-                try {
-                    log.info("notify master online, wakeup {} {}", request.getClientChannel(), request.getRequestCommand());
-                    this.brokerController.getPullMessageProcessor().executeRequestWhenWakeup(request.getClientChannel(),
-                        request.getRequestCommand());
-                } catch (Throwable e) {
-                    log.error("execute request when master online failed.", e);
+        for (ConcurrentMap<Integer, ManyPullRequest> queueTable : this.pullRequestTable.values()) {
+            for (ManyPullRequest mpr : queueTable.values()) {
+                if (mpr == null || mpr.isEmpty()) {
+                    continue;
+                }
+                List<PullRequest> requestList = mpr.cloneListAndClear();
+                if (requestList == null) {
+                    continue;
+                }
+                for (PullRequest request : requestList) {
+                    try {
+                        log.info("notify master online, wakeup {} {}", request.getClientChannel(), request.getRequestCommand());
+                        this.brokerController.getPullMessageProcessor().executeRequestWhenWakeup(request.getClientChannel(),
+                            request.getRequestCommand());
+                    } catch (Throwable e) {
+                        log.error("execute request when master online failed.", e);
+                    }
                 }
             }
         }
-
     }
 }
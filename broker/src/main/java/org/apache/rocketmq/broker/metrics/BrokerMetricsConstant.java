@@ -21,12 +21,16 @@ public class BrokerMetricsConstant {
 
     public static final String GAUGE_PROCESSOR_WATERMARK = "rocketmq_processor_watermark";
     public static final String GAUGE_BROKER_PERMISSION = "rocketmq_broker_permission";
+    public static final String GAUGE_REQUEST_QUEUE_SHARD_DEPTH = "rocketmq_request_queue_shard_depth";
+    public static final String HISTOGRAM_REQUEST_QUEUE_SOJOURN_TIME = "rocketmq_request_queue_sojourn_time";
+    public static final String COUNTER_REQUEST_QUEUE_REJECTED_TOTAL = "rocketmq_request_queue_rejected_total";
 
     public static final String COUNTER_MESSAGES_IN_TOTAL = "rocketmq_messages_in_total";
     public static final String COUNTER_MESSAGES_OUT_TOTAL = "rocketmq_messages_out_total";
     public static final String COUNTER_THROUGHPUT_IN_TOTAL = "rocketmq_throughput_in_total";
     public static final String COUNTER_THROUGHPUT_OUT_TOTAL = "rocketmq_throughput_out_total";
     public static final String HISTOGRAM_MESSAGE_SIZE = "rocketmq_message_size";
+    public static final String GAUGE_PUT_LATENCY_PERCENTILE = "rocketmq_put_latency_percentile";
 
     public static final String GAUGE_PRODUCER_CONNECTIONS = "rocketmq_producer_connections";
     public static final String GAUGE_CONSUMER_CONNECTIONS = "rocketmq_consumer_connections";
@@ -50,6 +54,7 @@ public class BrokerMetricsConstant {
     public static final String LABEL_AGGREGATION = "aggregation";
     public static final String AGGREGATION_DELTA = "delta";
     public static final String LABEL_PROCESSOR = "processor";
+    public static final String LABEL_SHARD = "shard";
 
     public static final String LABEL_TOPIC = "topic";
     public static final String LABEL_IS_RETRY = "is_retry";
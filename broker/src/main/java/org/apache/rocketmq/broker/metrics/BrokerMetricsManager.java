@@ -23,6 +23,7 @@ import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
 import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingMetricExporter;
 import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporter;
 import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporterBuilder;
@@ -43,6 +44,7 @@ import io.opentelemetry.sdk.resources.Resource;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.client.ConsumerManager;
+import org.apache.rocketmq.broker.latency.ShardedRequestQueue;
 import org.apache.rocketmq.common.BrokerConfig;
 import org.apache.rocketmq.common.MQVersion;
 import org.apache.rocketmq.common.MixAll;
@@ -55,6 +57,8 @@ import org.apache.rocketmq.common.metrics.MetricsExporterType;
 import org.apache.rocketmq.common.metrics.NopLongCounter;
 import org.apache.rocketmq.common.metrics.NopLongHistogram;
 import org.apache.rocketmq.common.metrics.NopObservableLongGauge;
+import org.apache.rocketmq.common.stats.LatencyHistogram;
+import org.apache.rocketmq.common.stats.LatencyHistogramSet;
 import org.apache.rocketmq.common.topic.TopicValidator;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
@@ -62,6 +66,7 @@ import org.apache.rocketmq.remoting.metrics.RemotingMetricsManager;
 import org.apache.rocketmq.remoting.protocol.header.SendMessageRequestHeader;
 import org.apache.rocketmq.store.MessageStore;
 import org.apache.rocketmq.store.metrics.DefaultStoreMetricsConstant;
+import org.apache.rocketmq.store.stats.BrokerStatsManager;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
 import java.util.ArrayList;
@@ -69,7 +74,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.AGGREGATION_DELTA;
@@ -77,6 +84,7 @@ import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_C
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_CONSUMER_SEND_TO_DLQ_MESSAGES_TOTAL;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_MESSAGES_IN_TOTAL;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_MESSAGES_OUT_TOTAL;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_REQUEST_QUEUE_REJECTED_TOTAL;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_ROLLBACK_MESSAGES_TOTAL;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_THROUGHPUT_IN_TOTAL;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.COUNTER_THROUGHPUT_OUT_TOTAL;
@@ -90,8 +98,11 @@ import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_CON
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_HALF_MESSAGES;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_PROCESSOR_WATERMARK;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_PRODUCER_CONNECTIONS;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_PUT_LATENCY_PERCENTILE;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.GAUGE_REQUEST_QUEUE_SHARD_DEPTH;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.HISTOGRAM_FINISH_MSG_LATENCY;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.HISTOGRAM_MESSAGE_SIZE;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.HISTOGRAM_REQUEST_QUEUE_SOJOURN_TIME;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_AGGREGATION;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_CLUSTER_NAME;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_CONSUMER_GROUP;
@@ -102,11 +113,17 @@ import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_LAN
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_NODE_ID;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_NODE_TYPE;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_PROCESSOR;
+import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_SHARD;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_TOPIC;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_VERSION;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.NODE_TYPE_BROKER;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.OPEN_TELEMETRY_METER_NAME;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.LABEL_PERCENTILE;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.LABEL_PROTOCOL_TYPE;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_MAX;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P50;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P99;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P999;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PROTOCOL_TYPE_REMOTING;
 
 public class BrokerMetricsManager {
@@ -128,6 +145,8 @@ public class BrokerMetricsManager {
     // broker stats metrics
     public static ObservableLongGauge processorWatermark = new NopObservableLongGauge();
     public static ObservableLongGauge brokerPermission = new NopObservableLongGauge();
+    public static ObservableLongGauge requestQueueShardDepth = new NopObservableLongGauge();
+    public static LongHistogram requestQueueSojournTime = new NopLongHistogram();
 
     // request metrics
     public static LongCounter messagesInTotal = new NopLongCounter();
@@ -135,6 +154,7 @@ public class BrokerMetricsManager {
     public static LongCounter throughputInTotal = new NopLongCounter();
     public static LongCounter throughputOutTotal = new NopLongCounter();
     public static LongHistogram messageSize = new NopLongHistogram();
+    public static ObservableLongGauge putLatencyPercentile = new NopObservableLongGauge();
 
     // client connection metrics
     public static ObservableLongGauge producerConnection = new NopObservableLongGauge();
@@ -362,6 +382,13 @@ public class BrokerMetricsManager {
         initOtherMetrics();
     }
 
+    private Aggregation latencyAggregation(List<Double> explicitBuckets) {
+        if (brokerConfig.isMetricsLatencyExponentialHistogram()) {
+            return Aggregation.base2ExponentialBucketHistogram();
+        }
+        return Aggregation.explicitBucketHistogram(explicitBuckets);
+    }
+
     private void registerMetricsView(SdkMeterProviderBuilder providerBuilder) {
         // message size buckets, 1k, 4k, 512k, 1M, 2M, 4M
         List<Double> messageSizeBuckets = Arrays.asList(
@@ -373,6 +400,19 @@ public class BrokerMetricsManager {
             4d * 1024 * 1024 //4MB
         );
 
+        List<Double> sojournTimeBuckets = Arrays.asList(
+            1d, //1ms
+            5d, //5ms
+            10d, //10ms
+            50d, //50ms
+            100d, //100ms
+            200d, //200ms
+            500d, //500ms
+            1d * 1000, //1s
+            3d * 1000, //3s
+            5d * 1000 //5s
+        );
+
         List<Double> commitLatencyBuckets = Arrays.asList(
                 1d * 1 * 1 * 5, //5s
                 1d * 1 * 1 * 60, //1min
@@ -391,18 +431,32 @@ public class BrokerMetricsManager {
         SdkMeterProviderUtil.setCardinalityLimit(messageSizeViewBuilder, brokerConfig.getMetricsOtelCardinalityLimit());
         providerBuilder.registerView(messageSizeSelector, messageSizeViewBuilder.build());
 
+        InstrumentSelector sojournTimeSelector = InstrumentSelector.builder()
+            .setType(InstrumentType.HISTOGRAM)
+            .setName(HISTOGRAM_REQUEST_QUEUE_SOJOURN_TIME)
+            .build();
+        ViewBuilder sojournTimeViewBuilder = View.builder()
+            .setAggregation(latencyAggregation(sojournTimeBuckets));
+        // To config the cardinalityLimit for openTelemetry metrics exporting.
+        SdkMeterProviderUtil.setCardinalityLimit(sojournTimeViewBuilder, brokerConfig.getMetricsOtelCardinalityLimit());
+        providerBuilder.registerView(sojournTimeSelector, sojournTimeViewBuilder.build());
+
         InstrumentSelector commitLatencySelector = InstrumentSelector.builder()
             .setType(InstrumentType.HISTOGRAM)
             .setName(HISTOGRAM_FINISH_MSG_LATENCY)
             .build();
         ViewBuilder commitLatencyViewBuilder = View.builder()
-            .setAggregation(Aggregation.explicitBucketHistogram(commitLatencyBuckets));
+            .setAggregation(latencyAggregation(commitLatencyBuckets));
         // To config the cardinalityLimit for openTelemetry metrics exporting.
         SdkMeterProviderUtil.setCardinalityLimit(commitLatencyViewBuilder, brokerConfig.getMetricsOtelCardinalityLimit());
         providerBuilder.registerView(commitLatencySelector, commitLatencyViewBuilder.build());
 
         for (Pair<InstrumentSelector, ViewBuilder> selectorViewPair : RemotingMetricsManager.getMetricsView()) {
             ViewBuilder viewBuilder = selectorViewPair.getObject2();
+            if (brokerConfig.isMetricsLatencyExponentialHistogram()) {
+                // remoting only exports rpc latency histograms
+                viewBuilder.setAggregation(Aggregation.base2ExponentialBucketHistogram());
+            }
             SdkMeterProviderUtil.setCardinalityLimit(viewBuilder, brokerConfig.getMetricsOtelCardinalityLimit());
             providerBuilder.registerView(selectorViewPair.getObject1(), viewBuilder.build());
         }
@@ -459,6 +513,43 @@ public class BrokerMetricsManager {
             .setDescription("Broker permission")
             .ofLongs()
             .buildWithCallback(measurement -> measurement.record(brokerConfig.getBrokerPermission(), newAttributesBuilder().build()));
+
+        requestQueueShardDepth = brokerMeter.gaugeBuilder(GAUGE_REQUEST_QUEUE_SHARD_DEPTH)
+            .setDescription("Depth of each shard of the sharded request queues")
+            .ofLongs()
+            .buildWithCallback(measurement -> forEachShardedRequestQueue(queue -> {
+                for (int i = 0; i < queue.getShardNums(); i++) {
+                    measurement.record(queue.getShardSize(i), newAttributesBuilder()
+                        .put(LABEL_PROCESSOR, queue.getName())
+                        .put(LABEL_SHARD, String.valueOf(i))
+                        .build());
+                }
+                measurement.record(queue.getUrgentSize(), newAttributesBuilder()
+                    .put(LABEL_PROCESSOR, queue.getName())
+                    .put(LABEL_SHARD, "urgent")
+                    .build());
+            }));
+
+        brokerMeter.counterBuilder(COUNTER_REQUEST_QUEUE_REJECTED_TOTAL)
+            .setDescription("Total number of requests rejected by the admission control of the sharded request queues")
+            .buildWithCallback(measurement -> forEachShardedRequestQueue(queue ->
+                measurement.record(queue.getRejectedCount(), newAttributesBuilder().put(LABEL_PROCESSOR, queue.getName()).build())));
+
+        requestQueueSojournTime = brokerMeter.histogramBuilder(HISTOGRAM_REQUEST_QUEUE_SOJOURN_TIME)
+            .setDescription("Time requests spent in the sharded request queues")
+            .setUnit("milliseconds")
+            .ofLongs()
+            .build();
+    }
+
+    private void forEachShardedRequestQueue(Consumer<ShardedRequestQueue> consumer) {
+        for (BlockingQueue<Runnable> queue : Arrays.asList(brokerController.getSendThreadPoolQueue(),
+            brokerController.getPullThreadPoolQueue(), brokerController.getLitePullThreadPoolQueue(),
+            brokerController.getAckThreadPoolQueue(), brokerController.getQueryThreadPoolQueue())) {
+            if (queue instanceof ShardedRequestQueue) {
+                consumer.accept((ShardedRequestQueue) queue);
+            }
+        }
     }
 
     private void initRequestMetrics() {
@@ -482,6 +573,33 @@ public class BrokerMetricsManager {
             .setDescription("Incoming messages size")
             .ofLongs()
             .build();
+
+        putLatencyPercentile = brokerMeter.gaugeBuilder(GAUGE_PUT_LATENCY_PERCENTILE)
+            .setDescription("Put message latency percentiles of the last minute, per topic if enabled")
+            .setUnit("milliseconds")
+            .ofLongs()
+            .buildWithCallback(measurement -> {
+                BrokerStatsManager brokerStatsManager = brokerController.getBrokerStatsManager();
+                LatencyHistogramSet topicHistograms = brokerStatsManager.getTopicPutLatencyHistograms();
+                if (topicHistograms == null) {
+                    recordPercentiles(measurement, brokerStatsManager.getBrokerPutLatencyHistogram(), newAttributesBuilder());
+                    return;
+                }
+                topicHistograms.forEach((topic, histogram) ->
+                    recordPercentiles(measurement, histogram, newAttributesBuilder().put(LABEL_TOPIC, topic)));
+            });
+    }
+
+    private static void recordPercentiles(ObservableLongMeasurement measurement, LatencyHistogram histogram,
+        AttributesBuilder attributesBuilder) {
+        LatencyHistogram.Snapshot snapshot = histogram.getIntervalSnapshot();
+        if (snapshot.getTotalCount() == 0) {
+            return;
+        }
+        measurement.record(snapshot.getValueAtPercentile(50), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P50).build());
+        measurement.record(snapshot.getValueAtPercentile(99), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P99).build());
+        measurement.record(snapshot.getValueAtPercentile(99.9), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P999).build());
+        measurement.record(snapshot.getMax(), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_MAX).build());
     }
 
     private void initConnectionMetrics() {
@@ -625,6 +743,7 @@ public class BrokerMetricsManager {
     }
 
     public void shutdown() {
+        RemotingMetricsManager.shutdown();
         if (brokerConfig.getMetricsExporterType() == MetricsExporterType.OTLP_GRPC) {
             periodicMetricReader.forceFlush();
             periodicMetricReader.shutdown();
@@ -26,8 +26,12 @@ public class PopMetricsConstant {
     public static final String GAUGE_POP_REVIVE_LATENCY = "rocketmq_pop_revive_latency";
     public static final String GAUGE_POP_OFFSET_BUFFER_SIZE = "rocketmq_pop_offset_buffer_size";
     public static final String GAUGE_POP_CHECKPOINT_BUFFER_SIZE = "rocketmq_pop_checkpoint_buffer_size";
+    public static final String GAUGE_POP_LONG_POLLING_SIZE = "rocketmq_pop_long_polling_size";
+    public static final String COUNTER_POP_LONG_POLLING_ARRIVING_TOTAL = "rocketmq_pop_long_polling_arriving_total";
+    public static final String COUNTER_POP_LONG_POLLING_WAKEUP_TOTAL = "rocketmq_pop_long_polling_wakeup_total";
 
     public static final String LABEL_REVIVE_MESSAGE_TYPE = "revive_message_type";
     public static final String LABEL_PUT_STATUS = "put_status";
+    public static final String LABEL_WAKEUP_TYPE = "wakeup_type";
     public static final String LABEL_QUEUE_ID = "queue_id";
 }
@@ -44,10 +44,13 @@ import org.apache.rocketmq.store.pop.PopCheckPoint;
 
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_CONSUMER_GROUP;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_TOPIC;
+import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.COUNTER_POP_LONG_POLLING_ARRIVING_TOTAL;
+import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.COUNTER_POP_LONG_POLLING_WAKEUP_TOTAL;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.COUNTER_POP_REVIVE_IN_MESSAGE_TOTAL;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.COUNTER_POP_REVIVE_OUT_MESSAGE_TOTAL;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.COUNTER_POP_REVIVE_RETRY_MESSAGES_TOTAL;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.GAUGE_POP_CHECKPOINT_BUFFER_SIZE;
+import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.GAUGE_POP_LONG_POLLING_SIZE;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.GAUGE_POP_OFFSET_BUFFER_SIZE;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.GAUGE_POP_REVIVE_LAG;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.GAUGE_POP_REVIVE_LATENCY;
@@ -55,6 +58,7 @@ import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.HISTOGRAM_PO
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.LABEL_PUT_STATUS;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.LABEL_QUEUE_ID;
 import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.LABEL_REVIVE_MESSAGE_TYPE;
+import static org.apache.rocketmq.broker.metrics.PopMetricsConstant.LABEL_WAKEUP_TYPE;
 
 public class PopMetricsManager {
     public static Supplier<AttributesBuilder> attributesBuilderSupplier;
@@ -63,6 +67,8 @@ public class PopMetricsManager {
     private static LongCounter popRevivePutTotal = new NopLongCounter();
     private static LongCounter popReviveGetTotal = new NopLongCounter();
     private static LongCounter popReviveRetryMessageTotal = new NopLongCounter();
+    private static LongCounter popLongPollingArrivingTotal = new NopLongCounter();
+    private static LongCounter popLongPollingWakeUpTotal = new NopLongCounter();
 
     public static List<Pair<InstrumentSelector, ViewBuilder>> getMetricsView() {
         List<Double> rpcCostTimeBuckets = Arrays.asList(
@@ -101,6 +107,12 @@ public class PopMetricsManager {
         popReviveRetryMessageTotal = meter.counterBuilder(COUNTER_POP_REVIVE_RETRY_MESSAGES_TOTAL)
             .setDescription("Total number of put message to pop retry topic")
             .build();
+        popLongPollingArrivingTotal = meter.counterBuilder(COUNTER_POP_LONG_POLLING_ARRIVING_TOTAL)
+            .setDescription("Total number of arrived message handed out to pop long polling requests")
+            .build();
+        popLongPollingWakeUpTotal = meter.counterBuilder(COUNTER_POP_LONG_POLLING_WAKEUP_TOTAL)
+            .setDescription("Total number of woken up pop long polling requests")
+            .build();
 
         meter.gaugeBuilder(GAUGE_POP_OFFSET_BUFFER_SIZE)
             .setDescription("Time number of buffered offset")
@@ -120,6 +132,10 @@ public class PopMetricsManager {
             .setUnit("milliseconds")
             .ofLongs()
             .buildWithCallback(measurement -> calculatePopReviveLatency(brokerController, measurement));
+        meter.gaugeBuilder(GAUGE_POP_LONG_POLLING_SIZE)
+            .setDescription("The number of suspended pop long polling requests")
+            .ofLongs()
+            .buildWithCallback(measurement -> calculatePopLongPollingSize(brokerController, measurement));
     }
 
     private static void calculatePopBufferOffsetSize(BrokerController brokerController,
@@ -134,6 +150,13 @@ public class PopMetricsManager {
         measurement.record(popBufferMergeService.getBufferedCKSize(), newAttributesBuilder().build());
     }
 
+    private static void calculatePopLongPollingSize(BrokerController brokerController,
+        ObservableLongMeasurement measurement) {
+        long pollingNum = brokerController.getPopMessageProcessor().getPopLongPollingService().getTotalPollingNum()
+            + brokerController.getNotificationProcessor().getPopLongPollingService().getTotalPollingNum();
+        measurement.record(pollingNum, newAttributesBuilder().build());
+    }
+
     private static void calculatePopReviveLatency(BrokerController brokerController,
         ObservableLongMeasurement measurement) {
         PopReviveService[] popReviveServices = brokerController.getAckMessageProcessor().getPopReviveServices();
@@ -203,6 +226,17 @@ public class PopMetricsManager {
         popReviveRetryMessageTotal.add(1, attributes);
     }
 
+    public static void incPopLongPollingArrivingCount(int num) {
+        popLongPollingArrivingTotal.add(num, newAttributesBuilder().build());
+    }
+
+    public static void incPopLongPollingWakeUpCount(PopLongPollingWakeUpType type, int num) {
+        Attributes attributes = newAttributesBuilder()
+            .put(LABEL_WAKEUP_TYPE, type.name())
+            .build();
+        popLongPollingWakeUpTotal.add(num, attributes);
+    }
+
     public static void recordPopBufferScanTimeConsume(long time) {
         popBufferScanTimeConsume.record(time, newAttributesBuilder().build());
     }
@@ -149,13 +149,7 @@ public class AckMessageProcessor implements NettyRequestProcessor {
             if (request.getBody() != null) {
                 reqBody = BatchAckMessageRequestBody.decode(request.getBody(), BatchAckMessageRequestBody.class);
             }
-            if (reqBody == null || reqBody.getAcks() == null || reqBody.getAcks().isEmpty()) {
-                response.setCode(ResponseCode.NO_MESSAGE);
-                return response;
-            }
-            for (BatchAck bAck : reqBody.getAcks()) {
-                appendAck(null, bAck, response, channel, reqBody.getBrokerName());
-            }
+            batchAck(channel, reqBody, response);
         } else {
             POP_LOGGER.error("AckMessageProcessor failed to process RequestCode: {}, consumer: {} ", request.getCode(), RemotingHelper.parseChannelRemoteAddr(channel));
             response.setCode(ResponseCode.MESSAGE_ILLEGAL);
@@ -165,6 +159,25 @@ public class AckMessageProcessor implements NettyRequestProcessor {
         return response;
     }
 
+    /**
+     * Ack in batch with the request body as it is, used by the callers in the same process to skip encoding the body.
+     */
+    public RemotingCommand batchAckMessage(final Channel channel, final BatchAckMessageRequestBody reqBody) {
+        final RemotingCommand response = RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+        batchAck(channel, reqBody, response);
+        return response;
+    }
+
+    private void batchAck(final Channel channel, final BatchAckMessageRequestBody reqBody, final RemotingCommand response) {
+        if (reqBody == null || reqBody.getAcks() == null || reqBody.getAcks().isEmpty()) {
+            response.setCode(ResponseCode.NO_MESSAGE);
+            return;
+        }
+        for (BatchAck bAck : reqBody.getAcks()) {
+            appendAck(null, bAck, response, channel, reqBody.getBrokerName());
+        }
+    }
+
     private void appendAck(final AckMessageRequestHeader requestHeader, final BatchAck batchAck, final RemotingCommand response, final Channel channel, String brokerName) {
         String[] extraInfo;
         String consumeGroup, topic;
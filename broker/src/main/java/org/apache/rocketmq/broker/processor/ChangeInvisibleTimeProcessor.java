@@ -19,6 +19,8 @@ package org.apache.rocketmq.broker.processor;
 import com.alibaba.fastjson.JSON;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.metrics.PopMetricsManager;
 import org.apache.rocketmq.common.PopAckConstants;
@@ -35,7 +37,12 @@ import org.apache.rocketmq.remoting.common.RemotingHelper;
 import org.apache.rocketmq.remoting.exception.RemotingCommandException;
 import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeResponseBody;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeEntry;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeResult;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeResponseHeader;
 import org.apache.rocketmq.remoting.protocol.header.ExtraInfoUtil;
@@ -67,34 +74,110 @@ public class ChangeInvisibleTimeProcessor implements NettyRequestProcessor {
 
     private RemotingCommand processRequest(final Channel channel, RemotingCommand request,
         boolean brokerAllowSuspend) throws RemotingCommandException {
+        if (request.getCode() == RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME) {
+            if (request.getBody() == null) {
+                RemotingCommand response = RemotingCommand.createResponseCommand(ResponseCode.SYSTEM_ERROR, "request body is null");
+                response.setOpaque(request.getOpaque());
+                return response;
+            }
+            BatchChangeInvisibleTimeRequestBody requestBody = BatchChangeInvisibleTimeRequestBody.decode(request.getBody(), BatchChangeInvisibleTimeRequestBody.class);
+            RemotingCommand response = batchChangeInvisibleTime(channel, requestBody);
+            response.setOpaque(request.getOpaque());
+            return response;
+        }
         final ChangeInvisibleTimeRequestHeader requestHeader = (ChangeInvisibleTimeRequestHeader) request.decodeCommandCustomHeader(ChangeInvisibleTimeRequestHeader.class);
         RemotingCommand response = RemotingCommand.createResponseCommand(ChangeInvisibleTimeResponseHeader.class);
         response.setCode(ResponseCode.SUCCESS);
         response.setOpaque(request.getOpaque());
-        final ChangeInvisibleTimeResponseHeader responseHeader = (ChangeInvisibleTimeResponseHeader) response.readCustomHeader();
-        TopicConfig topicConfig = this.brokerController.getTopicConfigManager().selectTopicConfig(requestHeader.getTopic());
+        if (!checkQueue(channel, requestHeader.getTopic(), requestHeader.getQueueId(), response)) {
+            return response;
+        }
+        long minOffset = this.brokerController.getMessageStore().getMinOffsetInQueue(requestHeader.getTopic(), requestHeader.getQueueId());
+        long maxOffset = this.brokerController.getMessageStore().getMaxOffsetInQueue(requestHeader.getTopic(), requestHeader.getQueueId());
+        if (requestHeader.getOffset() < minOffset || requestHeader.getOffset() > maxOffset) {
+            response.setCode(ResponseCode.NO_MESSAGE);
+            return response;
+        }
+        return changeInvisibleTime(requestHeader, response);
+    }
+
+    /**
+     * Change the invisible time of the messages popped from the same queue, the topic config and the offset range of
+     * the queue are only checked once for the whole batch.
+     *
+     * @return response with a {@link BatchChangeInvisibleTimeResponseBody} holding one result per entry in order
+     */
+    public RemotingCommand batchChangeInvisibleTime(final Channel channel, BatchChangeInvisibleTimeRequestBody requestBody) {
+        RemotingCommand response = RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+        if (!checkQueue(channel, requestBody.getTopic(), requestBody.getQueueId(), response)) {
+            return response;
+        }
+        BatchChangeInvisibleTimeResponseBody responseBody = new BatchChangeInvisibleTimeResponseBody();
+        if (requestBody.getEntries() == null || requestBody.getEntries().isEmpty()) {
+            response.setBody(responseBody.encode());
+            return response;
+        }
+        long minOffset = this.brokerController.getMessageStore().getMinOffsetInQueue(requestBody.getTopic(), requestBody.getQueueId());
+        long maxOffset = this.brokerController.getMessageStore().getMaxOffsetInQueue(requestBody.getTopic(), requestBody.getQueueId());
+        List<ChangeInvisibleTimeResult> results = new ArrayList<>(requestBody.getEntries().size());
+        for (ChangeInvisibleTimeEntry entry : requestBody.getEntries()) {
+            ChangeInvisibleTimeResult result = new ChangeInvisibleTimeResult();
+            results.add(result);
+            if (entry.getOffset() < minOffset || entry.getOffset() > maxOffset) {
+                result.setCode(ResponseCode.NO_MESSAGE);
+                continue;
+            }
+            ChangeInvisibleTimeRequestHeader requestHeader = new ChangeInvisibleTimeRequestHeader();
+            requestHeader.setConsumerGroup(requestBody.getConsumerGroup());
+            requestHeader.setTopic(requestBody.getTopic());
+            requestHeader.setQueueId(requestBody.getQueueId());
+            requestHeader.setExtraInfo(entry.getExtraInfo());
+            requestHeader.setOffset(entry.getOffset());
+            requestHeader.setInvisibleTime(entry.getInvisibleTime());
+            RemotingCommand itemResponse = RemotingCommand.createResponseCommand(ChangeInvisibleTimeResponseHeader.class);
+            itemResponse.setCode(ResponseCode.SUCCESS);
+            try {
+                changeInvisibleTime(requestHeader, itemResponse);
+            } catch (Throwable e) {
+                POP_LOGGER.error("batch change Invisible error: {}", entry, e);
+                itemResponse.setCode(ResponseCode.SYSTEM_ERROR);
+            }
+            ChangeInvisibleTimeResponseHeader itemResponseHeader = (ChangeInvisibleTimeResponseHeader) itemResponse.readCustomHeader();
+            result.setCode(itemResponse.getCode());
+            if (itemResponse.getCode() == ResponseCode.SUCCESS) {
+                result.setInvisibleTime(itemResponseHeader.getInvisibleTime());
+                result.setPopTime(itemResponseHeader.getPopTime());
+                result.setReviveQid(itemResponseHeader.getReviveQid());
+            }
+        }
+        responseBody.setResults(results);
+        response.setBody(responseBody.encode());
+        return response;
+    }
+
+    private boolean checkQueue(final Channel channel, String topic, int queueId, RemotingCommand response) {
+        TopicConfig topicConfig = this.brokerController.getTopicConfigManager().selectTopicConfig(topic);
         if (null == topicConfig) {
-            POP_LOGGER.error("The topic {} not exist, consumer: {} ", requestHeader.getTopic(), RemotingHelper.parseChannelRemoteAddr(channel));
+            POP_LOGGER.error("The topic {} not exist, consumer: {} ", topic, RemotingHelper.parseChannelRemoteAddr(channel));
             response.setCode(ResponseCode.TOPIC_NOT_EXIST);
-            response.setRemark(String.format("topic[%s] not exist, apply first please! %s", requestHeader.getTopic(), FAQUrl.suggestTodo(FAQUrl.APPLY_TOPIC_URL)));
-            return response;
+            response.setRemark(String.format("topic[%s] not exist, apply first please! %s", topic, FAQUrl.suggestTodo(FAQUrl.APPLY_TOPIC_URL)));
+            return false;
         }
 
-        if (requestHeader.getQueueId() >= topicConfig.getReadQueueNums() || requestHeader.getQueueId() < 0) {
+        if (queueId >= topicConfig.getReadQueueNums() || queueId < 0) {
             String errorInfo = String.format("queueId[%d] is illegal, topic:[%s] topicConfig.readQueueNums:[%d] consumer:[%s]",
-                requestHeader.getQueueId(), requestHeader.getTopic(), topicConfig.getReadQueueNums(), channel.remoteAddress());
+                queueId, topic, topicConfig.getReadQueueNums(), channel.remoteAddress());
             POP_LOGGER.warn(errorInfo);
             response.setCode(ResponseCode.MESSAGE_ILLEGAL);
             response.setRemark(errorInfo);
-            return response;
-        }
-        long minOffset = this.brokerController.getMessageStore().getMinOffsetInQueue(requestHeader.getTopic(), requestHeader.getQueueId());
-        long maxOffset = this.brokerController.getMessageStore().getMaxOffsetInQueue(requestHeader.getTopic(), requestHeader.getQueueId());
-        if (requestHeader.getOffset() < minOffset || requestHeader.getOffset() > maxOffset) {
-            response.setCode(ResponseCode.NO_MESSAGE);
-            return response;
+            return false;
         }
+        return true;
+    }
 
+    private RemotingCommand changeInvisibleTime(final ChangeInvisibleTimeRequestHeader requestHeader,
+        RemotingCommand response) {
+        final ChangeInvisibleTimeResponseHeader responseHeader = (ChangeInvisibleTimeResponseHeader) response.readCustomHeader();
         String[] extraInfo = ExtraInfoUtil.split(requestHeader.getExtraInfo());
 
         if (ExtraInfoUtil.isOrder(extraInfo)) {
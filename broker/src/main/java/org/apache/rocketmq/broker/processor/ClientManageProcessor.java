@@ -16,11 +16,14 @@
  */
 package org.apache.rocketmq.broker.processor;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.client.ClientChannelInfo;
+import org.apache.rocketmq.broker.client.ConsumerGroupInfo;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.constant.PermName;
@@ -75,15 +78,26 @@ public class ClientManageProcessor implements NettyRequestProcessor {
         return false;
     }
 
-    public RemotingCommand heartBeat(ChannelHandlerContext ctx, RemotingCommand request) {
+    public RemotingCommand heartBeat(ChannelHandlerContext ctx, RemotingCommand request) throws RemotingCommandException {
         RemotingCommand response = RemotingCommand.createResponseCommand(null);
-        HeartbeatData heartbeatData = HeartbeatData.decode(request.getBody(), HeartbeatData.class);
+        boolean compact = request.getExtFields() != null
+            && Boolean.parseBoolean(request.getExtFields().get(MixAll.HEART_BEAT_COMPACT));
+        if (compact && !brokerController.getBrokerConfig().isEnableHeartbeatDelta()) {
+            response.setCode(ResponseCode.SYSTEM_ERROR);
+            response.setRemark("the compact heartbeat is disabled");
+            return response;
+        }
+        HeartbeatData heartbeatData = HeartbeatData.decodeRequest(request);
         ClientChannelInfo clientChannelInfo = new ClientChannelInfo(
             ctx.channel(),
             heartbeatData.getClientID(),
             request.getLanguage(),
             request.getVersion()
         );
+        this.brokerController.getClientHousekeepingService().onHeartbeat(ctx.channel());
+        if (compact) {
+            return heartBeatDelta(ctx, heartbeatData, clientChannelInfo, response);
+        }
         int heartbeatFingerprint = heartbeatData.getHeartbeatFingerprint();
         if (heartbeatFingerprint != 0) {
             return heartBeatV2(ctx, heartbeatData, clientChannelInfo, response);
@@ -146,6 +160,7 @@ public class ClientManageProcessor implements NettyRequestProcessor {
         response.setRemark(null);
         response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_V2, Boolean.TRUE.toString());
         response.addExtField(MixAll.IS_SUB_CHANGE, Boolean.TRUE.toString());
+        response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_DELTA, String.valueOf(brokerController.getBrokerConfig().isEnableHeartbeatDelta()));
         return response;
     }
 
@@ -201,6 +216,87 @@ public class ClientManageProcessor implements NettyRequestProcessor {
         response.setRemark(null);
         response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_V2, Boolean.TRUE.toString());
         response.addExtField(MixAll.IS_SUB_CHANGE, Boolean.valueOf(isSubChange).toString());
+        response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_DELTA, String.valueOf(brokerController.getBrokerConfig().isEnableHeartbeatDelta()));
+        return response;
+    }
+
+    /**
+     * Handle the compact heartbeat. The consumer groups whose subscription fingerprint is known by the broker only
+     * refresh the channel, their subscriptions are neither carried nor compared.
+     */
+    private RemotingCommand heartBeatDelta(ChannelHandlerContext ctx, HeartbeatData heartbeatData,
+        ClientChannelInfo clientChannelInfo, RemotingCommand response) {
+        Set<String> subChangeGroupSet = new HashSet<>();
+        for (ConsumerData consumerData : heartbeatData.getConsumerDataSet()) {
+            //Reject the PullConsumer
+            if (brokerController.getBrokerConfig().isRejectPullConsumerEnable()) {
+                if (ConsumeType.CONSUME_ACTIVELY == consumerData.getConsumeType()) {
+                    continue;
+                }
+            }
+            SubscriptionGroupConfig subscriptionGroupConfig =
+                this.brokerController.getSubscriptionGroupManager().findSubscriptionGroupConfig(consumerData.getGroupName());
+            if (null == subscriptionGroupConfig) {
+                continue;
+            }
+            boolean isNotifyConsumerIdsChangedEnable = subscriptionGroupConfig.isNotifyConsumerIdsChangedEnable();
+
+            ConsumerGroupInfo consumerGroupInfo =
+                this.brokerController.getConsumerManager().getConsumerGroupInfo(consumerData.getGroupName());
+            boolean subscriptionKnown = consumerGroupInfo != null && consumerData.getSubscriptionFingerprint() != 0
+                && consumerGroupInfo.getSubscriptionFingerprint() == consumerData.getSubscriptionFingerprint();
+            if (subscriptionKnown || consumerData.isWithoutSub()) {
+                if (!subscriptionKnown) {
+                    // ask the client to carry the subscriptions of the group in the next heartbeat
+                    subChangeGroupSet.add(consumerData.getGroupName());
+                }
+                boolean changed = this.brokerController.getConsumerManager().registerConsumerWithoutSub(
+                    consumerData.getGroupName(), clientChannelInfo, consumerData.getConsumeType(),
+                    consumerData.getMessageModel(), consumerData.getConsumeFromWhere(), isNotifyConsumerIdsChangedEnable);
+                if (changed) {
+                    LOGGER.info("heartBeatDelta ClientManageProcessor: registerConsumer info changed, SDK address={}, consumerData={}",
+                        RemotingHelper.parseChannelRemoteAddr(ctx.channel()), consumerData.toString());
+                }
+                continue;
+            }
+
+            boolean hasOrderTopicSub = false;
+            for (final SubscriptionData subscriptionData : consumerData.getSubscriptionDataSet()) {
+                if (this.brokerController.getTopicConfigManager().isOrderTopic(subscriptionData.getTopic())) {
+                    hasOrderTopicSub = true;
+                    break;
+                }
+            }
+            int topicSysFlag = 0;
+            if (consumerData.isUnitMode()) {
+                topicSysFlag = TopicSysFlag.buildSysFlag(false, true);
+            }
+            String newTopic = MixAll.getRetryTopic(consumerData.getGroupName());
+            this.brokerController.getTopicConfigManager().createTopicInSendMessageBackMethod(newTopic, subscriptionGroupConfig.getRetryQueueNums(),
+                PermName.PERM_WRITE | PermName.PERM_READ, hasOrderTopicSub, topicSysFlag);
+            boolean changed = this.brokerController.getConsumerManager().registerConsumer(consumerData.getGroupName(),
+                clientChannelInfo, consumerData.getConsumeType(), consumerData.getMessageModel(),
+                consumerData.getConsumeFromWhere(), consumerData.getSubscriptionDataSet(), isNotifyConsumerIdsChangedEnable);
+            consumerGroupInfo = this.brokerController.getConsumerManager().getConsumerGroupInfo(consumerData.getGroupName());
+            if (consumerGroupInfo != null) {
+                consumerGroupInfo.setSubscriptionFingerprint(consumerData.getSubscriptionFingerprint());
+            }
+            if (changed) {
+                LOGGER.info("heartBeatDelta ClientManageProcessor: registerConsumer info changed, SDK address={}, consumerData={}",
+                    RemotingHelper.parseChannelRemoteAddr(ctx.channel()), consumerData.toString());
+            }
+        }
+        for (ProducerData data : heartbeatData.getProducerDataSet()) {
+            this.brokerController.getProducerManager().registerProducer(data.getGroupName(), clientChannelInfo);
+        }
+        response.setCode(ResponseCode.SUCCESS);
+        response.setRemark(null);
+        response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_V2, Boolean.TRUE.toString());
+        response.addExtField(MixAll.IS_SUPPORT_HEART_BEAT_DELTA, Boolean.TRUE.toString());
+        response.addExtField(MixAll.IS_SUB_CHANGE, Boolean.valueOf(!subChangeGroupSet.isEmpty()).toString());
+        if (!subChangeGroupSet.isEmpty()) {
+            response.addExtField(MixAll.SUB_CHANGE_GROUPS, String.join(MixAll.SUB_CHANGE_GROUP_SEPARATOR, subChangeGroupSet));
+        }
         return response;
     }
 
@@ -20,11 +20,13 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.client.ClientChannelInfo;
 import org.apache.rocketmq.broker.client.ConsumerGroupInfo;
 import org.apache.rocketmq.broker.client.ConsumerManager;
 import org.apache.rocketmq.broker.coldctr.ColdDataPullRequestHoldService;
+import org.apache.rocketmq.broker.coldctr.ColdDataReadService;
 import org.apache.rocketmq.broker.filter.ConsumerFilterData;
 import org.apache.rocketmq.broker.filter.ConsumerFilterManager;
 import org.apache.rocketmq.broker.filter.ExpressionForRetryMessageFilter;
@@ -488,14 +490,17 @@ public class PullMessageProcessor implements NettyRequestProcessor {
         }
 
         final MessageStore messageStore = brokerController.getMessageStore();
+        final ColdDataReadService coldDataReadService = brokerController.getColdDataReadService();
+        final boolean coldDataReadIsolation = coldDataReadService != null && coldDataReadService.isEnable();
+        boolean isMsgLogicCold = false;
         if (this.brokerController.getMessageStore() instanceof DefaultMessageStore) {
             DefaultMessageStore defaultMessageStore = (DefaultMessageStore)this.brokerController.getMessageStore();
             boolean cgNeedColdDataFlowCtr = brokerController.getColdDataCgCtrService().isCgNeedColdDataFlowCtr(requestHeader.getConsumerGroup());
-            if (cgNeedColdDataFlowCtr) {
-                boolean isMsgLogicCold = defaultMessageStore.getCommitLog()
+            if (cgNeedColdDataFlowCtr || coldDataReadIsolation) {
+                isMsgLogicCold = defaultMessageStore.getCommitLog()
                     .getColdDataCheckService().isMsgInColdArea(requestHeader.getConsumerGroup(),
                         requestHeader.getTopic(), requestHeader.getQueueId(), requestHeader.getQueueOffset());
-                if (isMsgLogicCold) {
+                if (cgNeedColdDataFlowCtr && isMsgLogicCold) {
                     ConsumeType consumeType = this.brokerController.getConsumerManager().getConsumerGroupInfo(requestHeader.getConsumerGroup()).getConsumeType();
                     if (consumeType == ConsumeType.CONSUME_PASSIVELY) {
                         response.setCode(ResponseCode.SYSTEM_BUSY);
@@ -535,10 +540,23 @@ public class PullMessageProcessor implements NettyRequestProcessor {
                 getMessageResult.setStatus(GetMessageStatus.OFFSET_RESET);
                 getMessageResult.setNextBeginOffset(broadcastInitOffset);
             } else {
+                CompletableFuture<GetMessageResult> getMessageFuture;
+                if (coldDataReadIsolation && isMsgLogicCold) {
+                    // keep the page faults of cold data away from the pull threads
+                    getMessageFuture = coldDataReadService.getMessageAsync(group, topic, queueId,
+                        requestHeader.getQueueOffset(), requestHeader.getMaxMsgNums(), messageFilter);
+                    if (getMessageFuture == null) {
+                        response.setCode(ResponseCode.SYSTEM_BUSY);
+                        response.setRemark("This consumer group is reading too much cold data. It has been flow control");
+                        return response;
+                    }
+                } else {
+                    getMessageFuture = messageStore.getMessageAsync(group, topic, queueId, requestHeader.getQueueOffset(),
+                        requestHeader.getMaxMsgNums(), messageFilter);
+                }
                 SubscriptionData finalSubscriptionData = subscriptionData;
                 RemotingCommand finalResponse = response;
-                messageStore.getMessageAsync(group, topic, queueId, requestHeader.getQueueOffset(),
-                        requestHeader.getMaxMsgNums(), messageFilter)
+                getMessageFuture
                     .thenApply(result -> {
                         if (null == result) {
                             finalResponse.setCode(ResponseCode.SYSTEM_ERROR);
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.broker.transaction.queue;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In memory index of the pending half messages of one half queue, built by reading the half queue and the op queue
+ * only once, so that each check only touches the half messages whose check time is up.
+ * <p>
+ * It is only accessed by the check thread. Nothing is persisted, the consume offsets of the half queue and the op
+ * queue are committed so that the index could be rebuilt from them after restart.
+ */
+public class TransactionalHalfMessageIndex {
+
+    /**
+     * Pending half messages in queue offset order, the first one is the committable half queue offset
+     */
+    private final LinkedHashMap<Long, PendingHalf> pendingMap = new LinkedHashMap<>(1024);
+
+    /**
+     * Pending half messages ordered by the next check time, resolved ones are removed lazily
+     */
+    private final PriorityQueue<PendingHalf> checkQueue = new PriorityQueue<>(1024,
+        (o1, o2) -> Long.compare(o1.nextCheckTime, o2.nextCheckTime));
+
+    /**
+     * Original half queue offset of the half messages put back by the legacy check
+     */
+    private final Map<Long, PendingHalf> preparedOffsetMap = new HashMap<>();
+
+    /**
+     * Half queue offsets resolved by op messages before they are indexed
+     */
+    private final Set<Long> resolvedAheadSet = new HashSet<>();
+
+    /**
+     * Op queue offset and the max half queue offset it refers to, in op queue offset order
+     */
+    private final ArrayDeque<long[]> opRefQueue = new ArrayDeque<>();
+
+    private long halfScanOffset = -1;
+    private long opScanOffset = -1;
+    private long committedHalfOffset = -1;
+    private long committedOpOffset = -1;
+
+    public boolean isInitialized() {
+        return halfScanOffset >= 0 && opScanOffset >= 0;
+    }
+
+    public void init(long halfOffset, long opOffset) {
+        clear();
+        this.halfScanOffset = halfOffset;
+        this.opScanOffset = opOffset;
+        this.committedHalfOffset = halfOffset;
+        this.committedOpOffset = opOffset;
+    }
+
+    public void clear() {
+        pendingMap.clear();
+        checkQueue.clear();
+        preparedOffsetMap.clear();
+        resolvedAheadSet.clear();
+        opRefQueue.clear();
+        halfScanOffset = -1;
+        opScanOffset = -1;
+        committedHalfOffset = -1;
+        committedOpOffset = -1;
+    }
+
+    /**
+     * Index a half message read from the half queue.
+     *
+     * @param preparedOffset the original half queue offset if it was put back, otherwise -1
+     * @return false if it has already been resolved by an op message
+     */
+    public boolean putHalf(long offset, long commitLogOffset, long nextCheckTime, int checkTimes,
+        long preparedOffset) {
+        if (resolvedAheadSet.remove(offset) || preparedOffset >= 0 && resolvedAheadSet.remove(preparedOffset)) {
+            return false;
+        }
+        PendingHalf pendingHalf = new PendingHalf(offset, commitLogOffset, nextCheckTime, checkTimes);
+        pendingMap.put(offset, pendingHalf);
+        checkQueue.offer(pendingHalf);
+        if (preparedOffset >= 0 && preparedOffset != offset) {
+            pendingHalf.preparedOffset = preparedOffset;
+            preparedOffsetMap.put(preparedOffset, pendingHalf);
+        }
+        return true;
+    }
+
+    /**
+     * Mark the half message at the offset as committed or rolled back.
+     *
+     * @return true if a pending half message is resolved
+     */
+    public boolean resolve(long halfOffset) {
+        PendingHalf pendingHalf = pendingMap.get(halfOffset);
+        if (pendingHalf == null) {
+            pendingHalf = preparedOffsetMap.get(halfOffset);
+        }
+        if (pendingHalf != null) {
+            remove(pendingHalf);
+            return true;
+        }
+        if (halfOffset >= halfScanOffset) {
+            resolvedAheadSet.add(halfOffset);
+        }
+        return false;
+    }
+
+    /**
+     * Record an op message read from the op queue, so the op queue offset could be committed once all the half
+     * messages it refers to are behind the committed half queue offset.
+     */
+    public void putOp(long opOffset, long maxHalfOffset) {
+        opRefQueue.addLast(new long[] {opOffset, maxHalfOffset});
+    }
+
+    /**
+     * @return the pending half message with the earliest check time if it is not later than now, it is taken out of
+     * the check order until it is rescheduled
+     */
+    public PendingHalf pollExpired(long now) {
+        PendingHalf head;
+        while ((head = checkQueue.peek()) != null) {
+            if (head.removed) {
+                checkQueue.poll();
+                continue;
+            }
+            if (head.nextCheckTime > now) {
+                return null;
+            }
+            return checkQueue.poll();
+        }
+        return null;
+    }
+
+    public void reschedule(PendingHalf pendingHalf, long nextCheckTime) {
+        if (pendingHalf.removed) {
+            return;
+        }
+        pendingHalf.checkTimes++;
+        pendingHalf.nextCheckTime = nextCheckTime;
+        checkQueue.offer(pendingHalf);
+    }
+
+    public void remove(PendingHalf pendingHalf) {
+        if (pendingHalf.removed) {
+            return;
+        }
+        pendingHalf.removed = true;
+        pendingMap.remove(pendingHalf.offset);
+        if (pendingHalf.preparedOffset >= 0) {
+            preparedOffsetMap.remove(pendingHalf.preparedOffset);
+        }
+    }
+
+    /**
+     * @return the half queue offset before which all the half messages are resolved
+     */
+    public long getCommitHalfOffset() {
+        Iterator<Long> iterator = pendingMap.keySet().iterator();
+        return iterator.hasNext() ? iterator.next() : halfScanOffset;
+    }
+
+    /**
+     * @return the op queue offset before which all the op messages refer to resolved half messages only
+     */
+    public long getCommitOpOffset() {
+        long commitHalfOffset = getCommitHalfOffset();
+        long[] head;
+        while ((head = opRefQueue.peekFirst()) != null && head[1] < commitHalfOffset) {
+            opRefQueue.pollFirst();
+        }
+        // an op message behind the committed half offset refers to nothing to rebuild
+        resolvedAheadSet.removeIf(offset -> offset < commitHalfOffset);
+        return head != null ? head[0] : opScanOffset;
+    }
+
+    public int getPendingSize() {
+        return pendingMap.size();
+    }
+
+    public long getHalfScanOffset() {
+        return halfScanOffset;
+    }
+
+    public void setHalfScanOffset(long halfScanOffset) {
+        this.halfScanOffset = halfScanOffset;
+    }
+
+    public long getOpScanOffset() {
+        return opScanOffset;
+    }
+
+    public void setOpScanOffset(long opScanOffset) {
+        this.opScanOffset = opScanOffset;
+    }
+
+    public long getCommittedHalfOffset() {
+        return committedHalfOffset;
+    }
+
+    public void setCommittedHalfOffset(long committedHalfOffset) {
+        this.committedHalfOffset = committedHalfOffset;
+    }
+
+    public long getCommittedOpOffset() {
+        return committedOpOffset;
+    }
+
+    public void setCommittedOpOffset(long committedOpOffset) {
+        this.committedOpOffset = committedOpOffset;
+    }
+
+    public static class PendingHalf {
+        private final long offset;
+        private final long commitLogOffset;
+        private long preparedOffset = -1;
+        private long nextCheckTime;
+        private int checkTimes;
+        private boolean removed;
+
+        PendingHalf(long offset, long commitLogOffset, long nextCheckTime, int checkTimes) {
+            this.offset = offset;
+            this.commitLogOffset = commitLogOffset;
+            this.nextCheckTime = nextCheckTime;
+            this.checkTimes = checkTimes;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getCommitLogOffset() {
+            return commitLogOffset;
+        }
+
+        public long getNextCheckTime() {
+            return nextCheckTime;
+        }
+
+        public int getCheckTimes() {
+            return checkTimes;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.BrokerPathConfigHelper;
 import org.apache.rocketmq.broker.transaction.AbstractTransactionalMessageCheckListener;
 import org.apache.rocketmq.broker.transaction.OperationResult;
@@ -75,6 +76,8 @@ public class TransactionalMessageServiceImpl implements TransactionalMessageServ
 
     private TransactionMetrics transactionMetrics;
 
+    private final ConcurrentHashMap<MessageQueue, TransactionalHalfMessageIndex> halfMessageIndexMap = new ConcurrentHashMap<>();
+
     public TransactionalMessageServiceImpl(TransactionalMessageBridge transactionBridge) {
         this.transactionalMessageBridge = transactionBridge;
         transactionalOpBatchService = new TransactionalOpBatchService(transactionalMessageBridge.getBrokerController(), this);
@@ -174,8 +177,16 @@ public class TransactionalMessageServiceImpl implements TransactionalMessageServ
                 return;
             }
             log.debug("Check topic={}, queues={}", topic, msgQueues);
+            boolean checkByIndex = isCheckByIndex();
+            if (!checkByIndex) {
+                halfMessageIndexMap.clear();
+            }
             // 2) 遍历所有的 messageQueue
             for (MessageQueue messageQueue : msgQueues) {
+                if (checkByIndex) {
+                    checkByIndex(messageQueue, transactionTimeout, transactionCheckMax, listener);
+                    continue;
+                }
                 long startTime = System.currentTimeMillis();
                 // 3) 获取 messageQueue 对应的 opQueue
                 MessageQueue opQueue = getOpQueue(messageQueue);
@@ -357,6 +368,158 @@ public class TransactionalMessageServiceImpl implements TransactionalMessageServ
 
     }
 
+    private boolean isCheckByIndex() {
+        BrokerController brokerController = this.transactionalMessageBridge.getBrokerController();
+        if (!brokerController.getBrokerConfig().isTransactionCheckByIndex()) {
+            return false;
+        }
+        // the half messages are escaped to the master one by one when slave is acting master
+        return !(brokerController.getBrokerConfig().isEnableSlaveActingMaster()
+            && brokerController.getMinBrokerIdInGroup() == brokerController.getBrokerIdentity().getBrokerId()
+            && BrokerRole.SLAVE.equals(brokerController.getMessageStoreConfig().getBrokerRole()));
+    }
+
+    /**
+     * Check the half messages of the queue by the pending index. New half messages and op messages are read only once
+     * into the index, then only the pending half messages whose check time is up are checked, without putting them
+     * back to the half queue.
+     */
+    private void checkByIndex(MessageQueue messageQueue, long transactionTimeout, int transactionCheckMax,
+        AbstractTransactionalMessageCheckListener listener) {
+        long startTime = System.currentTimeMillis();
+        MessageQueue opQueue = getOpQueue(messageQueue);
+        long halfOffset = transactionalMessageBridge.fetchConsumeOffset(messageQueue);
+        long opOffset = transactionalMessageBridge.fetchConsumeOffset(opQueue);
+        if (halfOffset < 0 || opOffset < 0) {
+            log.error("MessageQueue: {} illegal offset read: {}, op offset: {},skip this queue", messageQueue, halfOffset, opOffset);
+            return;
+        }
+        TransactionalHalfMessageIndex index = halfMessageIndexMap.computeIfAbsent(messageQueue, k -> new TransactionalHalfMessageIndex());
+        // rebuild the index if the offsets were changed by others, e.g. the legacy check or a slave acting master
+        if (!index.isInitialized() || index.getCommittedHalfOffset() != halfOffset || index.getCommittedOpOffset() != opOffset) {
+            log.info("Build half message index, queue={} msgOffset={} opOffset={}", messageQueue, halfOffset, opOffset);
+            index.init(halfOffset, opOffset);
+        }
+
+        indexHalfMessages(messageQueue, index, transactionTimeout, startTime);
+        indexOpMessages(opQueue, index, startTime);
+
+        long checkInterval = transactionalMessageBridge.getBrokerController().getBrokerConfig().getTransactionCheckInterval();
+        int checkCount = 0;
+        int discardCount = 0;
+        TransactionalHalfMessageIndex.PendingHalf pendingHalf;
+        while (System.currentTimeMillis() - startTime <= MAX_PROCESS_TIME_LIMIT
+            && (pendingHalf = index.pollExpired(System.currentTimeMillis())) != null) {
+            MessageExt msgExt = transactionalMessageBridge.lookMessageByOffset(pendingHalf.getCommitLogOffset());
+            if (msgExt == null) {
+                log.warn("Half message of offset={} commitLogOffset={} in {} not found, skip it",
+                    pendingHalf.getOffset(), pendingHalf.getCommitLogOffset(), messageQueue);
+                index.remove(pendingHalf);
+                continue;
+            }
+            if (pendingHalf.getCheckTimes() >= transactionCheckMax || needSkip(msgExt)) {
+                msgExt.putUserProperty(MessageConst.PROPERTY_TRANSACTION_CHECK_TIMES, String.valueOf(pendingHalf.getCheckTimes()));
+                listener.resolveDiscardMsg(msgExt);
+                index.remove(pendingHalf);
+                discardCount++;
+                continue;
+            }
+            msgExt.putUserProperty(MessageConst.PROPERTY_TRANSACTION_CHECK_TIMES, String.valueOf(pendingHalf.getCheckTimes() + 1));
+            index.reschedule(pendingHalf, System.currentTimeMillis() + checkInterval);
+            checkCount++;
+            log.info("Check transaction. real_topic={}, uniqKey={}, offset={}, commitLogOffset={}",
+                msgExt.getUserProperty(MessageConst.PROPERTY_REAL_TOPIC),
+                msgExt.getUserProperty(MessageConst.PROPERTY_UNIQ_CLIENT_MESSAGE_ID_KEYIDX),
+                msgExt.getQueueOffset(),
+                msgExt.getCommitLogOffset());
+            listener.resolveHalfMsg(msgExt);
+        }
+
+        long newOffset = index.getCommitHalfOffset();
+        if (newOffset != halfOffset) {
+            transactionalMessageBridge.updateConsumeOffset(messageQueue, newOffset);
+            index.setCommittedHalfOffset(newOffset);
+        }
+        long newOpOffset = index.getCommitOpOffset();
+        if (newOpOffset != opOffset) {
+            transactionalMessageBridge.updateConsumeOffset(opQueue, newOpOffset);
+            index.setCommittedOpOffset(newOpOffset);
+        }
+        log.info("After check by index, {} opOffset={} msgOffset={} pending={} checkCount={} discardCount={} cost={}ms",
+            messageQueue, newOpOffset, newOffset, index.getPendingSize(), checkCount, discardCount,
+            System.currentTimeMillis() - startTime);
+    }
+
+    private void indexHalfMessages(MessageQueue messageQueue, TransactionalHalfMessageIndex index,
+        long transactionTimeout, long startTime) {
+        while (System.currentTimeMillis() - startTime <= MAX_PROCESS_TIME_LIMIT) {
+            PullResult pullResult = pullHalfMsg(messageQueue, index.getHalfScanOffset(), OP_MSG_PULL_NUMS);
+            if (pullResult == null) {
+                return;
+            }
+            if (pullResult.getPullStatus() == PullStatus.OFFSET_ILLEGAL || pullResult.getPullStatus() == PullStatus.NO_MATCHED_MSG) {
+                log.info("Illegal offset, the miss offset={} in={}, pull result={}", index.getHalfScanOffset(), messageQueue, pullResult);
+                index.setHalfScanOffset(pullResult.getNextBeginOffset());
+                continue;
+            }
+            if (pullResult.getPullStatus() != PullStatus.FOUND || pullResult.getMsgFoundList() == null) {
+                return;
+            }
+            for (MessageExt msgExt : pullResult.getMsgFoundList()) {
+                long checkImmunityTime = transactionTimeout;
+                String checkImmunityTimeStr = msgExt.getUserProperty(MessageConst.PROPERTY_CHECK_IMMUNITY_TIME_IN_SECONDS);
+                if (null != checkImmunityTimeStr) {
+                    checkImmunityTime = getImmunityTime(checkImmunityTimeStr, transactionTimeout);
+                }
+                // check at once if the born time is ahead of the broker
+                long nextCheckTime = Math.min(msgExt.getBornTimestamp() + checkImmunityTime, System.currentTimeMillis() + checkImmunityTime);
+                String checkTimes = msgExt.getProperty(MessageConst.PROPERTY_TRANSACTION_CHECK_TIMES);
+                String preparedQueueOffset = msgExt.getUserProperty(MessageConst.PROPERTY_TRANSACTION_PREPARED_QUEUE_OFFSET);
+                index.putHalf(msgExt.getQueueOffset(), msgExt.getCommitLogOffset(), nextCheckTime,
+                    checkTimes == null ? 0 : Math.max(0, getInt(checkTimes)),
+                    preparedQueueOffset == null ? -1 : getLong(preparedQueueOffset));
+            }
+            index.setHalfScanOffset(pullResult.getNextBeginOffset());
+        }
+    }
+
+    private void indexOpMessages(MessageQueue opQueue, TransactionalHalfMessageIndex index, long startTime) {
+        while (System.currentTimeMillis() - startTime <= MAX_PROCESS_TIME_LIMIT) {
+            PullResult pullResult = pullOpMsg(opQueue, index.getOpScanOffset(), OP_MSG_PULL_NUMS);
+            if (pullResult == null) {
+                return;
+            }
+            if (pullResult.getPullStatus() == PullStatus.OFFSET_ILLEGAL || pullResult.getPullStatus() == PullStatus.NO_MATCHED_MSG) {
+                log.warn("The miss op offset={} in queue={} is illegal, pullResult={}", index.getOpScanOffset(), opQueue, pullResult);
+                index.setOpScanOffset(pullResult.getNextBeginOffset());
+                continue;
+            }
+            if (pullResult.getPullStatus() != PullStatus.FOUND || pullResult.getMsgFoundList() == null) {
+                return;
+            }
+            for (MessageExt opMessageExt : pullResult.getMsgFoundList()) {
+                long maxHalfOffset = -1;
+                if (opMessageExt.getBody() == null) {
+                    log.error("op message body is null. queueId={}, offset={}", opMessageExt.getQueueId(), opMessageExt.getQueueOffset());
+                } else if (TransactionalMessageUtil.REMOVE_TAG.equals(opMessageExt.getTags())) {
+                    String queueOffsetBody = new String(opMessageExt.getBody(), TransactionalMessageUtil.CHARSET);
+                    for (String offset : queueOffsetBody.split(TransactionalMessageUtil.OFFSET_SEPARATOR)) {
+                        long offsetValue = getLong(offset);
+                        if (offsetValue < 0) {
+                            continue;
+                        }
+                        index.resolve(offsetValue);
+                        maxHalfOffset = Math.max(maxHalfOffset, offsetValue);
+                    }
+                } else {
+                    log.error("Found a illegal tag in opMessageExt= {} ", opMessageExt);
+                }
+                index.putOp(opMessageExt.getQueueOffset(), maxHalfOffset);
+            }
+            index.setOpScanOffset(pullResult.getNextBeginOffset());
+        }
+    }
+
     private long getImmunityTime(String checkImmunityTimeStr, long transactionTimeout) {
         long checkImmunityTime;
 
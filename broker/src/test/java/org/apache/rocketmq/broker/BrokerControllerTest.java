@@ -17,24 +17,39 @@
 
 package org.apache.rocketmq.broker;
 
+import io.netty.channel.Channel;
 import java.io.File;
+import java.util.Collections;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.rocketmq.acl.common.Permission;
+import org.apache.rocketmq.acl.plain.PlainAccessResource;
+import org.apache.rocketmq.broker.client.ClientChannelInfo;
 import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
 import org.apache.rocketmq.common.future.FutureTaskExt;
 import org.apache.rocketmq.remoting.netty.NettyClientConfig;
 import org.apache.rocketmq.remoting.netty.NettyServerConfig;
 import org.apache.rocketmq.remoting.netty.RequestTask;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.heartbeat.ConsumeType;
+import org.apache.rocketmq.remoting.protocol.heartbeat.ConsumerData;
+import org.apache.rocketmq.remoting.protocol.heartbeat.HeartbeatData;
+import org.apache.rocketmq.remoting.protocol.heartbeat.MessageModel;
+import org.apache.rocketmq.remoting.protocol.heartbeat.SubscriptionData;
 import org.apache.rocketmq.store.config.MessageStoreConfig;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 public class BrokerControllerTest {
 
@@ -94,4 +109,33 @@ public class BrokerControllerTest {
         TimeUnit.MILLISECONDS.sleep(headSlowTimeMills);
         assertThat(brokerController.headSlowTimeMills(queue)).isGreaterThanOrEqualTo(headSlowTimeMills);
     }
+
+    @Test
+    public void testAddCachedSubscriptionPerms() {
+        BrokerController brokerController = new BrokerController(brokerConfig, nettyServerConfig, new NettyClientConfig(), messageStoreConfig);
+        brokerController.getConsumerManager().registerConsumer("group", new ClientChannelInfo(mock(Channel.class)),
+            ConsumeType.CONSUME_PASSIVELY, MessageModel.CLUSTERING, ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET,
+            Collections.singleton(new SubscriptionData("topicA", "*")), false);
+
+        HeartbeatData heartbeatData = new HeartbeatData();
+        heartbeatData.setClientID("127.0.0.1@1");
+        ConsumerData consumerData = new ConsumerData();
+        consumerData.setGroupName("group");
+        consumerData.setWithoutSub(true);
+        heartbeatData.getConsumerDataSet().add(consumerData);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.HEART_BEAT, null);
+        request.addExtField(MixAll.HEART_BEAT_COMPACT, Boolean.TRUE.toString());
+        request.setBody(heartbeatData.encodeCompact());
+
+        PlainAccessResource accessResource = new PlainAccessResource();
+        brokerController.addCachedSubscriptionPerms(accessResource, request);
+        assertThat(accessResource.getResourcePermMap()).containsEntry("topicA", Permission.SUB);
+
+        // the subscriptions carried by the heartbeat are authorized by the parse already
+        consumerData.setWithoutSub(false);
+        request.setBody(heartbeatData.encodeCompact());
+        accessResource = new PlainAccessResource();
+        brokerController.addCachedSubscriptionPerms(accessResource, request);
+        assertThat(accessResource.getResourcePermMap()).isNull();
+    }
 }
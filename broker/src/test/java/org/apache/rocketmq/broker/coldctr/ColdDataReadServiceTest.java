@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.broker.coldctr;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.BrokerIdentity;
+import org.apache.rocketmq.store.GetMessageResult;
+import org.apache.rocketmq.store.GetMessageStatus;
+import org.apache.rocketmq.store.MessageStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ColdDataReadServiceTest {
+
+    private static final String TEST_GROUP = "TEST_GROUP";
+    private static final String TEST_TOPIC = "TEST_TOPIC";
+
+    @Mock
+    private BrokerController brokerController;
+
+    @Mock
+    private MessageStore messageStore;
+
+    private final BrokerConfig brokerConfig = new BrokerConfig();
+
+    private ColdDataReadService coldDataReadService;
+
+    @Before
+    public void before() {
+        brokerConfig.setColdDataReadMaxInflightPerGroup(1);
+        when(brokerController.getBrokerConfig()).thenReturn(brokerConfig);
+        when(brokerController.getBrokerIdentity()).thenReturn(new BrokerIdentity());
+        when(brokerController.getMessageStore()).thenReturn(messageStore);
+        coldDataReadService = new ColdDataReadService(brokerController);
+    }
+
+    @After
+    public void after() {
+        coldDataReadService.shutdown();
+    }
+
+    @Test
+    public void getMessageAsyncBoundedPerGroupTest() throws Exception {
+        CountDownLatch readLatch = new CountDownLatch(1);
+        GetMessageResult getMessageResult = new GetMessageResult();
+        getMessageResult.setStatus(GetMessageStatus.FOUND);
+        when(messageStore.getMessage(anyString(), anyString(), anyInt(), anyLong(), anyInt(), any())).thenAnswer(invocation -> {
+            readLatch.await(3, TimeUnit.SECONDS);
+            return getMessageResult;
+        });
+
+        CompletableFuture<GetMessageResult> future = coldDataReadService.getMessageAsync(TEST_GROUP, TEST_TOPIC, 0, 0, 32, null);
+        assertThat(future).isNotNull();
+        assertThat(coldDataReadService.getInflight(TEST_GROUP)).isEqualTo(1);
+        // the group is flow controlled while its cold read is in flight, the others are not
+        assertThat(coldDataReadService.getMessageAsync(TEST_GROUP, TEST_TOPIC, 1, 0, 32, null)).isNull();
+        CompletableFuture<GetMessageResult> otherFuture = coldDataReadService.getMessageAsync("OTHER_GROUP", TEST_TOPIC, 0, 0, 32, null);
+        assertThat(otherFuture).isNotNull();
+
+        readLatch.countDown();
+        assertThat(future.get(3, TimeUnit.SECONDS)).isSameAs(getMessageResult);
+        assertThat(otherFuture.get(3, TimeUnit.SECONDS)).isSameAs(getMessageResult);
+        await().atMost(3, TimeUnit.SECONDS).until(() -> coldDataReadService.getInflight(TEST_GROUP) == 0);
+        assertThat(coldDataReadService.getMessageAsync(TEST_GROUP, TEST_TOPIC, 1, 0, 32, null)).isNotNull();
+    }
+}
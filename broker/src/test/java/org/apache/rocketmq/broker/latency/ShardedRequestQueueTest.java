@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.broker.latency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
+import org.apache.rocketmq.common.future.FutureTaskExt;
+import org.apache.rocketmq.common.utils.ThreadUtils;
+import org.apache.rocketmq.remoting.netty.RequestTask;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class ShardedRequestQueueTest {
+
+    private final AtomicLong clock = new AtomicLong(1000L);
+
+    private static FutureTaskExt<Void> newRequest(String topic, int queueId) {
+        return newRequest(RequestCode.PULL_MESSAGE, topic, queueId);
+    }
+
+    private static FutureTaskExt<Void> newRequest(int requestCode, String topic, int queueId) {
+        RemotingCommand request = RemotingCommand.createRequestCommand(requestCode, null);
+        request.addExtField("topic", topic);
+        request.addExtField("queueId", String.valueOf(queueId));
+        return new FutureTaskExt<>(new RequestTask(() -> { }, null, request), null);
+    }
+
+    private ShardedRequestQueue newQueue(int capacity, int shardNums, long targetSojournMillis, long intervalMillis) {
+        return new ShardedRequestQueue("test", capacity, shardNums,
+            request -> request.getCode() == RequestCode.CHANGE_MESSAGE_INVISIBLETIME,
+            () -> targetSojournMillis, intervalMillis, clock::get);
+    }
+
+    @Test
+    public void testOfferAndPoll() throws Exception {
+        ShardedRequestQueue queue = newQueue(100, 4, 1000L, 100);
+        List<Runnable> offered = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            clock.incrementAndGet();
+            Runnable runnable = newRequest("topic", i);
+            offered.add(runnable);
+            assertThat(queue.offer(runnable)).isTrue();
+        }
+        assertThat(queue.size()).isEqualTo(10);
+        int shardTotal = 0;
+        for (int i = 0; i < queue.getShardNums(); i++) {
+            shardTotal += queue.getShardSize(i);
+        }
+        assertThat(shardTotal).isEqualTo(10);
+        assertThat(queue.peek()).isEqualTo(offered.get(0));
+
+        assertThat(queue.remove(offered.get(3))).isTrue();
+        assertThat(queue.remove(offered.get(3))).isFalse();
+
+        // the oldest head among the shards leaves first
+        List<Runnable> polled = new ArrayList<>();
+        queue.drainTo(polled);
+        offered.remove(3);
+        assertThat(polled).containsExactlyElementsOf(offered);
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.poll(10, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void testCapacity() {
+        ShardedRequestQueue queue = newQueue(1, 1, 1000L, 100);
+        assertThat(queue.offer(newRequest("topic", 0))).isTrue();
+        assertThat(queue.offer(newRequest("topic", 1))).isFalse();
+        assertThat(queue.getRejectedCount()).isEqualTo(1);
+
+        // each shard admits its own share of the capacity
+        queue = newQueue(4, 2, 1000L, 100);
+        assertThat(queue.offer(newRequest("topic", 0))).isTrue();
+        assertThat(queue.offer(newRequest("topic", 0))).isTrue();
+        assertThat(queue.offer(newRequest("topic", 0))).isFalse();
+        assertThat(queue.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAdmissionControl() {
+        ShardedRequestQueue queue = newQueue(100, 2, 5L, 10);
+        for (int i = 0; i < 5; i++) {
+            assertThat(queue.offer(newRequest("topic", i))).isTrue();
+        }
+        // first slow dequeue starts the interval, a slow dequeue after the interval starts dropping
+        clock.addAndGet(20);
+        assertThat(queue.poll()).isNotNull();
+        assertThat(queue.isDropping()).isFalse();
+        clock.addAndGet(20);
+        assertThat(queue.poll()).isNotNull();
+        assertThat(queue.isDropping()).isTrue();
+        assertThat(queue.offer(newRequest("topic", 0))).isFalse();
+        // urgent requests are still admitted
+        assertThat(queue.offer(newRequest(RequestCode.CHANGE_MESSAGE_INVISIBLETIME, "topic", 0))).isTrue();
+
+        // draining the queue ends dropping
+        queue.clear();
+        assertThat(queue.offer(newRequest("topic", 0))).isTrue();
+        assertThat(queue.isDropping()).isFalse();
+    }
+
+    @Test
+    public void testUrgentFirst() {
+        ShardedRequestQueue queue = newQueue(100, 2, 1000L, 100);
+        Runnable normal = newRequest("topic", 0);
+        Runnable urgent = newRequest(RequestCode.CHANGE_MESSAGE_INVISIBLETIME, "topic", 0);
+        assertThat(queue.offer(normal)).isTrue();
+        clock.incrementAndGet();
+        assertThat(queue.offer(urgent)).isTrue();
+        assertThat(queue.getUrgentSize()).isEqualTo(1);
+        assertThat(queue.peek()).isEqualTo(urgent);
+        assertThat(queue.poll()).isEqualTo(urgent);
+        assertThat(queue.poll()).isEqualTo(normal);
+    }
+
+    @Test
+    public void testTakeWokenByOffer() throws Exception {
+        ShardedRequestQueue queue = newQueue(100, 4, 1000L, 100);
+        CompletableFuture<Runnable> taken = new CompletableFuture<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.complete(queue.take());
+            } catch (InterruptedException e) {
+                taken.completeExceptionally(e);
+            }
+        });
+        consumer.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> consumer.getState() == Thread.State.WAITING);
+        Runnable runnable = newRequest("topic", 0);
+        assertThat(queue.offer(runnable)).isTrue();
+        assertThat(taken.get(5, TimeUnit.SECONDS)).isEqualTo(runnable);
+        consumer.join();
+    }
+
+    @Test
+    public void testWithThreadPool() throws Exception {
+        ShardedRequestQueue queue = new ShardedRequestQueue("test", 1000, 4, () -> 1000L, 100);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ThreadUtils.newThreadPoolExecutor(4, 4, 1000 * 60,
+            TimeUnit.MILLISECONDS, queue, new ThreadFactoryImpl("ShardedRequestQueueTest_"));
+        int requestNums = 500;
+        CountDownLatch latch = new CountDownLatch(requestNums);
+        for (int i = 0; i < requestNums; i++) {
+            RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.SEND_MESSAGE_V2, null);
+            request.addExtField("b", "topic" + i % 7);
+            request.addExtField("e", String.valueOf(i % 4));
+            executor.submit(new RequestTask(latch::countDown, null, request));
+        }
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    public void testRejectedByThreadPool() {
+        ShardedRequestQueue queue = new ShardedRequestQueue("test", 1, 1, () -> 1000L, 100);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ThreadUtils.newThreadPoolExecutor(1, 1, 1000 * 60,
+            TimeUnit.MILLISECONDS, queue, new ThreadFactoryImpl("ShardedRequestQueueTest_"));
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.submit(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        executor.submit(() -> { });
+        assertThatThrownBy(() -> executor.submit(() -> { })).isInstanceOf(RejectedExecutionException.class);
+        blocker.countDown();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.broker.longpolling;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
+import org.apache.rocketmq.remoting.netty.RequestTask;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.header.PopMessageRequestHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PopLongPollingServiceTest {
+
+    private static final String TEST_TOPIC = "TEST_TOPIC";
+    private static final String GROUP_A = "GROUP_A";
+    private static final String GROUP_B = "GROUP_B";
+
+    @Mock
+    private BrokerController brokerController;
+
+    @Mock
+    private NettyRequestProcessor processor;
+
+    @Mock
+    private ExecutorService pullMessageExecutor;
+
+    @Mock
+    private ChannelHandlerContext ctx;
+
+    @Mock
+    private Channel channel;
+
+    private final BrokerConfig brokerConfig = new BrokerConfig();
+
+    private PopLongPollingService popLongPollingService;
+
+    @Before
+    public void before() {
+        when(brokerController.getBrokerConfig()).thenReturn(brokerConfig);
+        when(brokerController.getPullMessageExecutor()).thenReturn(pullMessageExecutor);
+        when(ctx.channel()).thenReturn(channel);
+        when(channel.isActive()).thenReturn(true);
+        popLongPollingService = new PopLongPollingService(brokerController, processor);
+        popLongPollingService.start();
+    }
+
+    @After
+    public void after() {
+        popLongPollingService.shutdown();
+    }
+
+    @Test
+    public void notifyMessageArrivingHandOutToEachGroupTest() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(polling(GROUP_A, 0, 10000)).isEqualTo(PollingResult.POLLING_SUC);
+        }
+        for (int i = 0; i < 2; i++) {
+            assertThat(polling(GROUP_A, -1, 10000)).isEqualTo(PollingResult.POLLING_SUC);
+        }
+        assertThat(polling(GROUP_B, -1, 10000)).isEqualTo(PollingResult.POLLING_SUC);
+
+        popLongPollingService.notifyMessageArriving(TEST_TOPIC, 0);
+        popLongPollingService.notifyMessageArriving(TEST_TOPIC, 0);
+
+        // the requests on the very queue are preferred, each group gets at most one wake-up per arrived message
+        await().atMost(3, TimeUnit.SECONDS).until(() -> popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, 0) == 1
+            && popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_B, -1) == 0);
+        assertThat(popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, -1)).isEqualTo(2);
+        verify(pullMessageExecutor, times(3)).submit(any(RequestTask.class));
+
+        popLongPollingService.notifyMessageArriving(TEST_TOPIC, 1);
+        popLongPollingService.notifyMessageArriving(TEST_TOPIC, 1);
+        popLongPollingService.notifyMessageArriving(TEST_TOPIC, 1);
+        await().atMost(3, TimeUnit.SECONDS).until(() -> popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, -1) == 0);
+        assertThat(popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, 0)).isEqualTo(1);
+        assertThat(popLongPollingService.getTotalPollingNum()).isEqualTo(1);
+        verify(pullMessageExecutor, times(5)).submit(any(RequestTask.class));
+    }
+
+    @Test
+    public void notifyMessageArrivingSkipInactiveChannelTest() {
+        assertThat(polling(GROUP_A, 0, 10000)).isEqualTo(PollingResult.POLLING_SUC);
+        assertThat(polling(GROUP_A, 0, 10000)).isEqualTo(PollingResult.POLLING_SUC);
+        when(channel.isActive()).thenReturn(false);
+
+        assertThat(popLongPollingService.notifyMessageArriving(TEST_TOPIC, GROUP_A, 0)).isFalse();
+        assertThat(popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, 0)).isZero();
+        verify(pullMessageExecutor, times(0)).submit(any(RequestTask.class));
+    }
+
+    @Test
+    public void pollingTimeoutTest() {
+        assertThat(polling(GROUP_A, 0, 500)).isEqualTo(PollingResult.POLLING_SUC);
+        assertThat(polling(GROUP_A, 0, 30)).isEqualTo(PollingResult.POLLING_TIMEOUT);
+        assertThat(popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, 0)).isEqualTo(1);
+
+        await().atMost(3, TimeUnit.SECONDS).until(() -> popLongPollingService.getPollingNum(TEST_TOPIC, GROUP_A, 0) == 0);
+        verify(pullMessageExecutor, times(1)).submit(any(RequestTask.class));
+    }
+
+    private PollingResult polling(String group, int queueId, long pollTime) {
+        PopMessageRequestHeader requestHeader = new PopMessageRequestHeader();
+        requestHeader.setTopic(TEST_TOPIC);
+        requestHeader.setConsumerGroup(group);
+        requestHeader.setQueueId(queueId);
+        requestHeader.setBornTime(System.currentTimeMillis());
+        requestHeader.setPollTime(pollTime);
+        RemotingCommand request = RemotingCommand.createRequestCommand(0, requestHeader);
+        return popLongPollingService.polling(ctx, request, new PollingHeader(requestHeader));
+    }
+}
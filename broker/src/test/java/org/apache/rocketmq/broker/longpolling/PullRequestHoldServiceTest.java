@@ -20,6 +20,7 @@ package org.apache.rocketmq.broker.longpolling;
 import io.netty.channel.Channel;
 import java.util.HashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.broker.BrokerController;
 import org.apache.rocketmq.broker.processor.PullMessageProcessor;
@@ -36,6 +37,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -113,6 +116,33 @@ public class PullRequestHoldServiceTest {
             1L, System.currentTimeMillis(), new byte[10], new HashMap<>())).doesNotThrowAnyException();
     }
 
+    @Test
+    public void notifyMessageArrivingOnlyReachableTest() {
+        when(defaultMessageFilter.isMatchedByConsumeQueue(any(), any())).thenReturn(true);
+        long now = System.currentTimeMillis();
+        PullRequest reachable = new PullRequest(remotingCommand, channel, 60000, now, 10L, subscriptionData, defaultMessageFilter);
+        PullRequest unreachable = new PullRequest(remotingCommand, channel, 60000, now, MAX_OFFSET, subscriptionData, defaultMessageFilter);
+        pullRequestHoldService.suspendPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID, unreachable);
+        pullRequestHoldService.suspendPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID, reachable);
+
+        pullRequestHoldService.notifyMessageArriving(TEST_TOPIC, DEFAULT_QUEUE_ID, MAX_OFFSET);
+        Assertions.assertThat(pullRequestHoldService.getManyPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID).getPullRequestList())
+            .containsExactly(unreachable);
+
+        pullRequestHoldService.notifyMessageArriving(TEST_TOPIC, DEFAULT_QUEUE_ID, MAX_OFFSET + 1);
+        Assertions.assertThat(pullRequestHoldService.getManyPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void suspendPullRequestTimeoutTest() {
+        PullRequest request = new PullRequest(remotingCommand, channel, 200, System.currentTimeMillis(), MAX_OFFSET,
+            subscriptionData, defaultMessageFilter);
+        pullRequestHoldService.suspendPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID, request);
+        Assertions.assertThat(pullRequestHoldService.getManyPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID).isEmpty()).isFalse();
+        await().atMost(5, TimeUnit.SECONDS)
+            .until(() -> pullRequestHoldService.getManyPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID).isEmpty());
+    }
+
     @Test
     public void notifyMasterOnlineTest() {
         Assertions.assertThatCode(() -> pullRequestHoldService.suspendPullRequest(TEST_TOPIC, DEFAULT_QUEUE_ID, pullRequest)).doesNotThrowAnyException();
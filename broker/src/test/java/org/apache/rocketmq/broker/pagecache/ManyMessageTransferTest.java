@@ -17,8 +17,13 @@
 
 package org.apache.rocketmq.broker.pagecache;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import org.apache.rocketmq.store.GetMessageResult;
+import org.apache.rocketmq.store.SelectMappedBufferWindow;
+import org.apache.rocketmq.store.SelectMappedBufferResult;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -61,4 +66,32 @@ public class ManyMessageTransferTest {
         manyMessageTransfer.close();
         manyMessageTransfer.deallocate();
     }
+
+    @Test
+    public void ManyMessageTransferAdjacentMessagesTest() throws Exception {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(20);
+        byteBuffer.putInt(20);
+        byteBuffer.flip();
+        ByteBuffer data = ByteBuffer.allocate(64);
+        for (int i = 0; i < 64; i++) {
+            data.put((byte) i);
+        }
+        data.flip();
+        SelectMappedBufferWindow window = new SelectMappedBufferWindow(new SelectMappedBufferResult(0, data, 64, null));
+        GetMessageResult getMessageResult = new GetMessageResult();
+        for (int i = 0; i < 4; i++) {
+            getMessageResult.addMessage(window.slice(i * 16, 16), i);
+        }
+        ManyMessageTransfer manyMessageTransfer = new ManyMessageTransfer(byteBuffer, getMessageResult);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        // one write for the header and one for all the adjacent messages
+        manyMessageTransfer.transferTo(channel, 0);
+        manyMessageTransfer.transferTo(channel, 0);
+        Assert.assertEquals(manyMessageTransfer.count(), manyMessageTransfer.transferred());
+        Assert.assertEquals(manyMessageTransfer.count(), manyMessageTransfer.position());
+        Assert.assertEquals(4 + 64, out.size());
+        Assert.assertEquals(63, out.toByteArray()[out.size() - 1]);
+    }
 }
@@ -36,6 +36,9 @@ import org.apache.rocketmq.remoting.protocol.LanguageCode;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeResponseBody;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeEntry;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ExtraInfoUtil;
 import org.apache.rocketmq.remoting.protocol.heartbeat.ConsumerData;
@@ -132,4 +135,50 @@ public class ChangeInvisibleTimeProcessorTest {
         assertThat(responseToReturn.getCode()).isEqualTo(ResponseCode.SUCCESS);
         assertThat(responseToReturn.getOpaque()).isEqualTo(request.getOpaque());
     }
+
+    @Test
+    public void testProcessRequest_batch() throws RemotingCommandException {
+        when(escapeBridge.putMessageToSpecificQueue(any(MessageExtBrokerInner.class))).thenReturn(new PutMessageResult(PutMessageStatus.PUT_OK, new AppendMessageResult(AppendMessageStatus.PUT_OK)));
+        when(messageStore.getMinOffsetInQueue(topic, 0)).thenReturn(0L);
+        when(messageStore.getMaxOffsetInQueue(topic, 0)).thenReturn(10L);
+        long popTime = System.currentTimeMillis() - 1_000;
+        long invisibleTime = 30_000;
+        String brokerName = "test_broker";
+
+        BatchChangeInvisibleTimeRequestBody requestBody = new BatchChangeInvisibleTimeRequestBody();
+        requestBody.setConsumerGroup(group);
+        requestBody.setTopic(topic);
+        requestBody.setQueueId(0);
+        for (long queueOffset : new long[] {1, 20, 3}) {
+            String extraInfo = ExtraInfoUtil.buildExtraInfo(queueOffset, popTime, invisibleTime, 0,
+                topic, brokerName, 0) + MessageConst.KEY_SEPARATOR + queueOffset;
+            requestBody.getEntries().add(new ChangeInvisibleTimeEntry(extraInfo, queueOffset, invisibleTime));
+        }
+
+        final RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME, null);
+        request.setBody(requestBody.encode());
+        RemotingCommand responseToReturn = changeInvisibleTimeProcessor.processRequest(handlerContext, request);
+        assertThat(responseToReturn.getCode()).isEqualTo(ResponseCode.SUCCESS);
+        assertThat(responseToReturn.getOpaque()).isEqualTo(request.getOpaque());
+
+        BatchChangeInvisibleTimeResponseBody responseBody = BatchChangeInvisibleTimeResponseBody.decode(responseToReturn.getBody(), BatchChangeInvisibleTimeResponseBody.class);
+        assertThat(responseBody.getResults()).hasSize(3);
+        assertThat(responseBody.getResults().get(0).getCode()).isEqualTo(ResponseCode.SUCCESS);
+        assertThat(responseBody.getResults().get(0).getInvisibleTime()).isEqualTo(invisibleTime);
+        assertThat(responseBody.getResults().get(1).getCode()).isEqualTo(ResponseCode.NO_MESSAGE);
+        assertThat(responseBody.getResults().get(2).getCode()).isEqualTo(ResponseCode.SUCCESS);
+    }
+
+    @Test
+    public void testProcessRequest_batchTopicNotExist() throws RemotingCommandException {
+        BatchChangeInvisibleTimeRequestBody requestBody = new BatchChangeInvisibleTimeRequestBody();
+        requestBody.setConsumerGroup(group);
+        requestBody.setTopic("NotExist");
+        requestBody.setQueueId(0);
+
+        final RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME, null);
+        request.setBody(requestBody.encode());
+        RemotingCommand responseToReturn = changeInvisibleTimeProcessor.processRequest(handlerContext, request);
+        assertThat(responseToReturn.getCode()).isEqualTo(ResponseCode.TOPIC_NOT_EXIST);
+    }
 }
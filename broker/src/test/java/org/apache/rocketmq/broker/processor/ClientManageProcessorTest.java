@@ -146,6 +146,46 @@ public class ClientManageProcessorTest {
         assertThat(consumerGroupInfoSimple).isEqualTo(consumerGroupInfo);
     }
 
+    @Test
+    public void processRequest_heartbeatDelta() throws RemotingCommandException {
+        HeartbeatData heartbeatData = prepareHeartbeatData(false, "topicA");
+        ConsumerData consumerData = heartbeatData.getConsumerDataSet().iterator().next();
+        long subscriptionFingerprint = consumerData.computeSubscriptionFingerprint();
+        consumerData.setSubscriptionFingerprint(subscriptionFingerprint);
+        RemotingCommand response = clientManageProcessor.processRequest(handlerContext, createCompactHeartbeatCommand(heartbeatData));
+        assertThat(response.getCode()).isEqualTo(ResponseCode.SUCCESS);
+        assertThat(Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUPPORT_HEART_BEAT_DELTA))).isTrue();
+        assertThat(Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUB_CHANGE))).isFalse();
+        ConsumerGroupInfo consumerGroupInfo = brokerController.getConsumerManager().getConsumerGroupInfo(group);
+        assertThat(consumerGroupInfo.getSubscriptionFingerprint()).isEqualTo(subscriptionFingerprint);
+        assertThat(consumerGroupInfo.findSubscriptionData("topicA")).isNotNull();
+
+        // the subscriptions are skipped once the fingerprint is acknowledged
+        HeartbeatData heartbeatDelta = prepareHeartbeatData(true, "topicA");
+        ConsumerData consumerDelta = heartbeatDelta.getConsumerDataSet().iterator().next();
+        consumerDelta.setSubscriptionFingerprint(subscriptionFingerprint);
+        consumerDelta.setWithoutSub(true);
+        response = clientManageProcessor.processRequest(handlerContext, createCompactHeartbeatCommand(heartbeatDelta));
+        assertThat(response.getCode()).isEqualTo(ResponseCode.SUCCESS);
+        assertThat(Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUB_CHANGE))).isFalse();
+        assertThat(brokerController.getConsumerManager().getConsumerGroupInfo(group).findSubscriptionData("topicA")).isNotNull();
+
+        // an unknown fingerprint without subscriptions asks the client for the full subscriptions
+        consumerDelta.setSubscriptionFingerprint(subscriptionFingerprint + 1);
+        response = clientManageProcessor.processRequest(handlerContext, createCompactHeartbeatCommand(heartbeatDelta));
+        assertThat(response.getCode()).isEqualTo(ResponseCode.SUCCESS);
+        assertThat(Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUB_CHANGE))).isTrue();
+        assertThat(response.getExtFields().get(MixAll.SUB_CHANGE_GROUPS)).isEqualTo(group);
+    }
+
+    @Test
+    public void processRequest_heartbeatDeltaDisabled() throws RemotingCommandException {
+        brokerController.getBrokerConfig().setEnableHeartbeatDelta(false);
+        RemotingCommand response = clientManageProcessor.processRequest(handlerContext,
+            createCompactHeartbeatCommand(prepareHeartbeatData(false, "topicA")));
+        assertThat(response.getCode()).isEqualTo(ResponseCode.SYSTEM_ERROR);
+    }
+
     @Test
     public void test_heartbeat_costTime() {
         String topic = "TOPIC_TEST";
@@ -192,6 +232,14 @@ public class ClientManageProcessorTest {
         return request;
     }
 
+    private RemotingCommand createCompactHeartbeatCommand(HeartbeatData heartbeatData) {
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.HEART_BEAT, null);
+        request.setLanguage(LanguageCode.JAVA);
+        request.addExtField(MixAll.HEART_BEAT_COMPACT, Boolean.TRUE.toString());
+        request.setBody(heartbeatData.encodeCompact());
+        return request;
+    }
+
     private HeartbeatData prepareHeartbeatData(boolean isWithoutSub, String topic) {
         List<String> list = new ArrayList<>();
         list.add(topic);
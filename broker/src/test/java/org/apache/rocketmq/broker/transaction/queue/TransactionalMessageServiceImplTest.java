@@ -57,8 +57,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -152,6 +156,42 @@ public class TransactionalMessageServiceImplTest {
         assertThat(checkMessage.get()).isEqualTo(1);
     }
 
+    @Test
+    public void testCheck_byIndex() {
+        brokerController.getBrokerConfig().setTransactionCheckByIndex(true);
+        Set<MessageQueue> halfQueues = createMessageQueueSet(TopicValidator.RMQ_SYS_TRANS_HALF_TOPIC);
+        MessageQueue halfQueue = halfQueues.iterator().next();
+        when(bridge.fetchMessageQueues(TopicValidator.RMQ_SYS_TRANS_HALF_TOPIC)).thenReturn(halfQueues);
+        List<MessageExt> halfMsgs = new ArrayList<>();
+        halfMsgs.addAll(getMessageList(0, TopicValidator.RMQ_SYS_TRANS_HALF_TOPIC, "hello", 1));
+        halfMsgs.addAll(getMessageList(1, TopicValidator.RMQ_SYS_TRANS_HALF_TOPIC, "hellp", 1));
+        halfMsgs.get(0).setCommitLogOffset(100);
+        halfMsgs.get(1).setCommitLogOffset(101);
+        when(bridge.getHalfMessage(0, 0, 32)).thenReturn(new PullResult(PullStatus.FOUND, 2, 0, 2, halfMsgs));
+        when(bridge.getHalfMessage(0, 2, 32)).thenReturn(new PullResult(PullStatus.NO_NEW_MSG, 2, 0, 2, null));
+        // the second half message is resolved by the first op message, the first one by the second op message
+        when(bridge.getOpMessage(0, 0, 32)).thenReturn(createOpPullResult(0, "1", 1));
+        when(bridge.getOpMessage(0, 1, 32)).thenReturn(new PullResult(PullStatus.NO_NEW_MSG, 1, 0, 1, null))
+            .thenReturn(createOpPullResult(1, "0", 2));
+        when(bridge.getOpMessage(0, 2, 32)).thenReturn(new PullResult(PullStatus.NO_NEW_MSG, 2, 0, 2, null));
+        when(bridge.lookMessageByOffset(100)).thenReturn(halfMsgs.get(0));
+        long timeOut = this.brokerController.getBrokerConfig().getTransactionTimeOut();
+        int checkMax = this.brokerController.getBrokerConfig().getTransactionCheckMax();
+
+        queueTransactionMsgService.check(timeOut, checkMax, listener);
+        verify(listener, times(1)).resolveHalfMsg(halfMsgs.get(0));
+        assertThat(halfMsgs.get(0).getUserProperty(MessageConst.PROPERTY_TRANSACTION_CHECK_TIMES)).isEqualTo("1");
+        verify(bridge, never()).updateConsumeOffset(any(MessageQueue.class), anyLong());
+
+        // checked one is not checked again before the check interval, and nothing is put back to the half queue
+        queueTransactionMsgService.check(timeOut, checkMax, listener);
+        verify(listener, times(1)).resolveHalfMsg(any(MessageExt.class));
+        verify(bridge, times(1)).getHalfMessage(0, 0, 32);
+        verify(bridge, never()).putMessageReturnResult(any(MessageExtBrokerInner.class));
+        verify(bridge).updateConsumeOffset(halfQueue, 2);
+        verify(bridge).updateConsumeOffset(argThat(mq -> TransactionalMessageUtil.buildOpTopic().equals(mq.getTopic())), eq(2L));
+    }
+
     @Test
     public void testDeletePrepareMessage_queueFull() throws InterruptedException {
         ((TransactionalMessageServiceImpl)queueTransactionMsgService).getDeleteContext().put(0, new MessageQueueOpContext(0, 1));
@@ -210,6 +250,12 @@ public class TransactionalMessageServiceImplTest {
         return result;
     }
 
+    private PullResult createOpPullResult(long queueOffset, String body, long nextBeginOffset) {
+        List<MessageExt> msgs = getMessageList(queueOffset, TopicValidator.RMQ_SYS_TRANS_OP_HALF_TOPIC, body, 1);
+        msgs.get(0).setTags(TransactionalMessageUtil.REMOVE_TAG);
+        return new PullResult(PullStatus.FOUND, nextBeginOffset, 0, nextBeginOffset, msgs);
+    }
+
     private PullResult createImmunityPulResult(String topic, long queueOffset, String body, int size) {
         PullResult result = createPullResult(topic, queueOffset, body, size);
         List<MessageExt> msgs = result.getMsgFoundList();
@@ -98,6 +98,23 @@ public class ClientConfig {
 
     private boolean enableHeartbeatChannelEventListener = true;
 
+    /**
+     * Query the routes of all the topics in one request, only the changed routes are answered by the name server.
+     */
+    private boolean enableBatchRouteQuery = false;
+
+    /**
+     * Send the heartbeat in the compact encoding to the brokers supporting it, and only carry the subscriptions of
+     * the consumer groups changed since the last heartbeat. Only works when useHeartbeatV2 is on.
+     */
+    private boolean enableHeartbeatDelta = false;
+
+    /**
+     * Ask the name server to notify the route changes of the topics queried in batch, so the routes are updated
+     * without waiting for the next poll. Only works when enableBatchRouteQuery is on.
+     */
+    private boolean enableRouteChangeNotify = false;
+
     public String buildMQClientId() {
         StringBuilder sb = new StringBuilder();
         sb.append(this.getClientIP());
@@ -212,6 +229,9 @@ public class ClientConfig {
         this.startDetectorEnable = cc.startDetectorEnable;
         this.sendLatencyEnable = cc.sendLatencyEnable;
         this.enableHeartbeatChannelEventListener = cc.enableHeartbeatChannelEventListener;
+        this.enableBatchRouteQuery = cc.enableBatchRouteQuery;
+        this.enableHeartbeatDelta = cc.enableHeartbeatDelta;
+        this.enableRouteChangeNotify = cc.enableRouteChangeNotify;
         this.detectInterval = cc.detectInterval;
         this.detectTimeout = cc.detectTimeout;
         this.namespaceV2 = cc.namespaceV2;
@@ -241,6 +261,9 @@ public class ClientConfig {
         cc.useHeartbeatV2 = useHeartbeatV2;
         cc.startDetectorEnable = startDetectorEnable;
         cc.enableHeartbeatChannelEventListener = enableHeartbeatChannelEventListener;
+        cc.enableBatchRouteQuery = enableBatchRouteQuery;
+        cc.enableHeartbeatDelta = enableHeartbeatDelta;
+        cc.enableRouteChangeNotify = enableRouteChangeNotify;
         cc.sendLatencyEnable = sendLatencyEnable;
         cc.detectInterval = detectInterval;
         cc.detectTimeout = detectTimeout;
@@ -450,6 +473,30 @@ public class ClientConfig {
         this.enableHeartbeatChannelEventListener = enableHeartbeatChannelEventListener;
     }
 
+    public boolean isEnableBatchRouteQuery() {
+        return enableBatchRouteQuery;
+    }
+
+    public void setEnableBatchRouteQuery(boolean enableBatchRouteQuery) {
+        this.enableBatchRouteQuery = enableBatchRouteQuery;
+    }
+
+    public boolean isEnableHeartbeatDelta() {
+        return enableHeartbeatDelta;
+    }
+
+    public void setEnableHeartbeatDelta(boolean enableHeartbeatDelta) {
+        this.enableHeartbeatDelta = enableHeartbeatDelta;
+    }
+
+    public boolean isEnableRouteChangeNotify() {
+        return enableRouteChangeNotify;
+    }
+
+    public void setEnableRouteChangeNotify(boolean enableRouteChangeNotify) {
+        this.enableRouteChangeNotify = enableRouteChangeNotify;
+    }
+
     public int getDetectTimeout() {
         return this.detectTimeout;
     }
@@ -505,6 +552,9 @@ public class ClientConfig {
             ", sendLatencyEnable=" + sendLatencyEnable +
             ", startDetectorEnable=" + startDetectorEnable +
             ", enableHeartbeatChannelEventListener=" + enableHeartbeatChannelEventListener +
+            ", enableBatchRouteQuery=" + enableBatchRouteQuery +
+            ", enableHeartbeatDelta=" + enableHeartbeatDelta +
+            ", enableRouteChangeNotify=" + enableRouteChangeNotify +
             '}';
     }
 }
@@ -47,6 +47,7 @@ import org.apache.rocketmq.remoting.protocol.body.ConsumeMessageDirectlyResult;
 import org.apache.rocketmq.remoting.protocol.body.ConsumerRunningInfo;
 import org.apache.rocketmq.remoting.protocol.body.GetConsumerStatusBody;
 import org.apache.rocketmq.remoting.protocol.body.ResetOffsetBody;
+import org.apache.rocketmq.remoting.protocol.body.TopicList;
 import org.apache.rocketmq.remoting.protocol.header.CheckTransactionStateRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ConsumeMessageDirectlyResultRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.GetConsumerRunningInfoRequestHeader;
@@ -86,6 +87,9 @@ public class ClientRemotingProcessor implements NettyRequestProcessor {
 
             case RequestCode.PUSH_REPLY_MESSAGE_TO_CLIENT:
                 return this.receiveReplyMessage(ctx, request);
+
+            case RequestCode.NOTIFY_TOPIC_ROUTE_CHANGED:
+                return this.notifyTopicRouteChanged(ctx, request);
             default:
                 break;
         }
@@ -146,6 +150,22 @@ public class ClientRemotingProcessor implements NettyRequestProcessor {
         return null;
     }
 
+    public RemotingCommand notifyTopicRouteChanged(ChannelHandlerContext ctx,
+        RemotingCommand request) throws RemotingCommandException {
+        try {
+            if (request.getBody() == null) {
+                return null;
+            }
+            TopicList topicList = TopicList.decode(request.getBody(), TopicList.class);
+            logger.info("receive name server's notification[{}], the route of topics: {} changed, update immediately",
+                RemotingHelper.parseChannelRemoteAddr(ctx.channel()), topicList.getTopicList());
+            this.mqClientFactory.onTopicRouteChanged(topicList.getTopicList());
+        } catch (Exception e) {
+            logger.error("notifyTopicRouteChanged exception", UtilAll.exceptionSimpleDesc(e));
+        }
+        return null;
+    }
+
     public RemotingCommand resetOffset(ChannelHandlerContext ctx,
         RemotingCommand request) throws RemotingCommandException {
         final ResetOffsetRequestHeader requestHeader =
@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -118,6 +119,8 @@ import org.apache.rocketmq.remoting.protocol.body.ConsumerConnection;
 import org.apache.rocketmq.remoting.protocol.body.ConsumerRunningInfo;
 import org.apache.rocketmq.remoting.protocol.body.EpochEntryCache;
 import org.apache.rocketmq.remoting.protocol.body.GetConsumerStatusBody;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsResponseBody;
 import org.apache.rocketmq.remoting.protocol.body.GroupList;
 import org.apache.rocketmq.remoting.protocol.body.HARuntimeInfo;
 import org.apache.rocketmq.remoting.protocol.body.KVTable;
@@ -214,6 +217,7 @@ import org.apache.rocketmq.remoting.protocol.header.namesrv.DeleteTopicFromNames
 import org.apache.rocketmq.remoting.protocol.header.namesrv.GetKVConfigRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.GetKVConfigResponseHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.GetKVListByNamespaceRequestHeader;
+import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoByTopicsRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.PutKVConfigRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.WipeWritePermOfBrokerRequestHeader;
@@ -281,6 +285,8 @@ public class MQClientAPIImpl implements NameServerUpdateCallback {
         this.remotingClient.registerProcessor(RequestCode.CONSUME_MESSAGE_DIRECTLY, this.clientRemotingProcessor, null);
 
         this.remotingClient.registerProcessor(RequestCode.PUSH_REPLY_MESSAGE_TO_CLIENT, this.clientRemotingProcessor, null);
+
+        this.remotingClient.registerProcessor(RequestCode.NOTIFY_TOPIC_ROUTE_CHANGED, this.clientRemotingProcessor, null);
     }
 
     public List<String> getNameServerAddressList() {
@@ -1496,10 +1502,32 @@ public class MQClientAPIImpl implements NameServerUpdateCallback {
         assert response != null;
         switch (response.getCode()) {
             case ResponseCode.SUCCESS: {
-                if (response.getExtFields() != null) {
-                    return new HeartbeatV2Result(response.getVersion(), Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUB_CHANGE)), Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUPPORT_HEART_BEAT_V2)));
-                }
-                return new HeartbeatV2Result(response.getVersion(), false, false);
+                return toHeartbeatV2Result(response);
+            }
+            default:
+                break;
+        }
+
+        throw new MQBrokerException(response.getCode(), response.getRemark());
+    }
+
+    /**
+     * Send the heartbeat in the compact encoding, only to the brokers answering {@link MixAll#IS_SUPPORT_HEART_BEAT_DELTA}.
+     */
+    public HeartbeatV2Result sendHeartbeatCompact(
+        final String addr,
+        final HeartbeatData heartbeatData,
+        final long timeoutMillis
+    ) throws RemotingException, MQBrokerException, InterruptedException {
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.HEART_BEAT, new HeartbeatRequestHeader());
+        request.setLanguage(clientConfig.getLanguage());
+        request.addExtField(MixAll.HEART_BEAT_COMPACT, Boolean.TRUE.toString());
+        request.setBody(heartbeatData.encodeCompact());
+        RemotingCommand response = this.remotingClient.invokeSync(addr, request, timeoutMillis);
+        assert response != null;
+        switch (response.getCode()) {
+            case ResponseCode.SUCCESS: {
+                return toHeartbeatV2Result(response);
             }
             default:
                 break;
@@ -1508,6 +1536,21 @@ public class MQClientAPIImpl implements NameServerUpdateCallback {
         throw new MQBrokerException(response.getCode(), response.getRemark());
     }
 
+    private HeartbeatV2Result toHeartbeatV2Result(RemotingCommand response) {
+        if (response.getExtFields() != null) {
+            HeartbeatV2Result heartbeatV2Result = new HeartbeatV2Result(response.getVersion(),
+                Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUB_CHANGE)),
+                Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUPPORT_HEART_BEAT_V2)),
+                Boolean.parseBoolean(response.getExtFields().get(MixAll.IS_SUPPORT_HEART_BEAT_DELTA)));
+            String subChangeGroups = response.getExtFields().get(MixAll.SUB_CHANGE_GROUPS);
+            if (subChangeGroups != null) {
+                heartbeatV2Result.setSubChangeGroups(new HashSet<>(Arrays.asList(subChangeGroups.split(MixAll.SUB_CHANGE_GROUP_SEPARATOR))));
+            }
+            return heartbeatV2Result;
+        }
+        return new HeartbeatV2Result(response.getVersion(), false, false);
+    }
+
     public void unregisterClient(
         final String addr,
         final String clientID,
@@ -2000,6 +2043,40 @@ public class MQClientAPIImpl implements NameServerUpdateCallback {
         throw new MQClientException(response.getCode(), response.getRemark());
     }
 
+    /**
+     * Query the routes of the topics in one request, the routes whose version is the same as the known one are not
+     * answered.
+     *
+     * @param topicVersionTable the route versions known by the client
+     * @param subscribeRouteChange whether to be notified by the name server once the routes change
+     */
+    public GetRouteInfoByTopicsResponseBody getTopicRouteInfoFromNameServerInBatch(final Set<String> topics,
+        final Map<String, Long> topicVersionTable, final boolean subscribeRouteChange, final long timeoutMillis)
+        throws RemotingException, MQClientException, InterruptedException {
+        GetRouteInfoByTopicsRequestHeader requestHeader = new GetRouteInfoByTopicsRequestHeader();
+        requestHeader.setSubscribeRouteChange(subscribeRouteChange);
+        GetRouteInfoByTopicsRequestBody requestBody = new GetRouteInfoByTopicsRequestBody();
+        requestBody.setTopics(topics);
+        requestBody.setTopicVersionTable(topicVersionTable);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.GET_ROUTEINFO_BY_TOPICS, requestHeader);
+        request.setBody(requestBody.encode());
+
+        RemotingCommand response = this.remotingClient.invokeSync(null, request, timeoutMillis);
+        assert response != null;
+        switch (response.getCode()) {
+            case ResponseCode.SUCCESS: {
+                byte[] body = response.getBody();
+                if (body != null) {
+                    return GetRouteInfoByTopicsResponseBody.decode(body, GetRouteInfoByTopicsResponseBody.class);
+                }
+            }
+            default:
+                break;
+        }
+
+        throw new MQClientException(response.getCode(), response.getRemark());
+    }
+
     public TopicList getTopicListFromNameServer(final long timeoutMillis)
         throws RemotingException, MQClientException, InterruptedException {
         RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.GET_ALL_TOPIC_LIST_FROM_NAMESERVER, null);
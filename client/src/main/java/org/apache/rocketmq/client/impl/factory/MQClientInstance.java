@@ -75,6 +75,7 @@ import org.apache.rocketmq.remoting.protocol.NamespaceUtil;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.body.ConsumeMessageDirectlyResult;
 import org.apache.rocketmq.remoting.protocol.body.ConsumerRunningInfo;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsResponseBody;
 import org.apache.rocketmq.remoting.protocol.heartbeat.ConsumerData;
 import org.apache.rocketmq.remoting.protocol.heartbeat.HeartbeatData;
 import org.apache.rocketmq.remoting.protocol.heartbeat.MessageModel;
@@ -116,6 +117,10 @@ public class MQClientInstance {
     private final MQClientAPIImpl mQClientAPIImpl;
     private final MQAdminImpl mQAdminImpl;
     private final ConcurrentMap<String/*Topic*/, TopicRouteData> topicRouteTable = new ConcurrentHashMap<>();
+    /**
+     * The route versions answered by the batch route query, only meaningful to the name server
+     */
+    private final ConcurrentMap<String/*Topic*/, Long> topicRouteVersionTable = new ConcurrentHashMap<>();
     private final ConcurrentMap<String/*Topic*/, ConcurrentMap<MessageQueue, String/*brokerName*/>> topicEndPointsTable = new ConcurrentHashMap<>();
     private final Lock lockNamesrv = new ReentrantLock();
     private final Lock lockHeartbeat = new ReentrantLock();
@@ -135,6 +140,9 @@ public class MQClientInstance {
     private final ConcurrentMap<String/* Broker Name */, HashMap<String/* address */, Integer>> brokerVersionTable = new ConcurrentHashMap<>();
     private final Set<String/* Broker address */> brokerSupportV2HeartbeatSet = new HashSet();
     private final ConcurrentMap<String, Integer> brokerAddrHeartbeatFingerprintTable = new ConcurrentHashMap();
+    private final Set<String/* Broker address */> brokerSupportHeartbeatDeltaSet = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String/* Broker address */, Map<String/* group */, Long/* subscription fingerprint */>>
+        brokerAddrGroupFingerprintTable = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "MQClientFactoryScheduledThread"));
     private final ScheduledExecutorService fetchRemoteConfigExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
         @Override
@@ -425,11 +433,79 @@ public class MQClientInstance {
             }
         }
 
+        if (this.clientConfig.isEnableBatchRouteQuery()
+            && this.updateTopicRouteInfoFromNameServerInBatch(topicList, this.clientConfig.isEnableRouteChangeNotify())) {
+            return;
+        }
+
         for (String topic : topicList) {
             this.updateTopicRouteInfoFromNameServer(topic);
         }
     }
 
+    /**
+     * Called once the name server notifies that the routes of the topics change.
+     */
+    public void onTopicRouteChanged(final Set<String> topics) {
+        if (this.updateTopicRouteInfoFromNameServerInBatch(topics, false)) {
+            return;
+        }
+        for (String topic : topics) {
+            this.updateTopicRouteInfoFromNameServer(topic);
+        }
+    }
+
+    /**
+     * Query the routes of the topics in one request, the topics whose route is known are sent with the route version,
+     * so that only the changed routes are answered.
+     *
+     * @return false if the batch query fails, e.g. not supported by the name server
+     */
+    public boolean updateTopicRouteInfoFromNameServerInBatch(final Set<String> topics, boolean subscribeRouteChange) {
+        if (topics.isEmpty()) {
+            return true;
+        }
+        try {
+            if (this.lockNamesrv.tryLock(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                try {
+                    Map<String, Long> knownVersionTable = new HashMap<>(topics.size());
+                    for (String topic : topics) {
+                        Long version = this.topicRouteVersionTable.get(topic);
+                        if (version != null && this.topicRouteTable.containsKey(topic) && !this.isNeedUpdateTopicRouteInfo(topic)) {
+                            knownVersionTable.put(topic, version);
+                        }
+                    }
+                    GetRouteInfoByTopicsResponseBody responseBody = this.mQClientAPIImpl.getTopicRouteInfoFromNameServerInBatch(
+                        topics, knownVersionTable, subscribeRouteChange, clientConfig.getMqClientApiTimeout());
+                    for (Entry<String, TopicRouteData> entry : responseBody.getTopicRouteTable().entrySet()) {
+                        String topic = entry.getKey();
+                        this.updateTopicRouteInfo(topic, entry.getValue());
+                        Long version = responseBody.getTopicVersionTable().get(topic);
+                        if (version != null) {
+                            this.topicRouteVersionTable.put(topic, version);
+                        }
+                    }
+                    // the route is deleted, forget its version so that it is queried in full once it comes back
+                    for (String topic : topics) {
+                        if (!responseBody.getTopicVersionTable().containsKey(topic)) {
+                            this.topicRouteVersionTable.remove(topic);
+                        }
+                    }
+                    return true;
+                } catch (MQClientException | RemotingException e) {
+                    log.warn("updateTopicRouteInfoFromNameServerInBatch Exception, query the routes one by one", e);
+                } finally {
+                    this.lockNamesrv.unlock();
+                }
+            } else {
+                log.warn("updateTopicRouteInfoFromNameServerInBatch tryLock timeout {}ms. [{}]", LOCK_TIMEOUT_MILLIS, this.clientId);
+            }
+        } catch (InterruptedException e) {
+            log.warn("updateTopicRouteInfoFromNameServerInBatch Exception", e);
+        }
+        return false;
+    }
+
     public Map<MessageQueue, Long> parseOffsetTableFromBroker(Map<MessageQueue, Long> offsetTable, String namespace) {
         HashMap<MessageQueue, Long> newOffsetTable = new HashMap<>(offsetTable.size(), 1);
         if (StringUtils.isNotEmpty(namespace)) {
@@ -714,7 +790,9 @@ public class MQClientInstance {
             int version = 0;
             boolean isBrokerSupportV2 = brokerSupportV2HeartbeatSet.contains(addr);
             HeartbeatV2Result heartbeatV2Result = null;
-            if (isBrokerSupportV2 && null != brokerAddrHeartbeatFingerprintTable.get(addr) && brokerAddrHeartbeatFingerprintTable.get(addr) == currentHeartbeatFingerprint) {
+            if (clientConfig.isEnableHeartbeatDelta() && brokerSupportHeartbeatDeltaSet.contains(addr)) {
+                heartbeatV2Result = sendHeartbeatDelta(addr, heartbeatDataWithSub);
+            } else if (isBrokerSupportV2 && null != brokerAddrHeartbeatFingerprintTable.get(addr) && brokerAddrHeartbeatFingerprintTable.get(addr) == currentHeartbeatFingerprint) {
                 heartbeatV2Result = this.mQClientAPIImpl.sendHeartbeatV2(addr, heartbeatDataWithoutSub, clientConfig.getMqClientApiTimeout());
                 if (heartbeatV2Result.isSubChange()) {
                     brokerAddrHeartbeatFingerprintTable.remove(addr);
@@ -724,6 +802,9 @@ public class MQClientInstance {
                 heartbeatV2Result = this.mQClientAPIImpl.sendHeartbeatV2(addr, heartbeatDataWithSub, clientConfig.getMqClientApiTimeout());
                 if (heartbeatV2Result.isSupportV2()) {
                     brokerSupportV2HeartbeatSet.add(addr);
+                    if (heartbeatV2Result.isSupportDelta()) {
+                        brokerSupportHeartbeatDeltaSet.add(addr);
+                    }
                     if (heartbeatV2Result.isSubChange()) {
                         brokerAddrHeartbeatFingerprintTable.remove(addr);
                     } else if (!brokerAddrHeartbeatFingerprintTable.containsKey(addr) || brokerAddrHeartbeatFingerprintTable.get(addr) != currentHeartbeatFingerprint) {
@@ -744,6 +825,9 @@ public class MQClientInstance {
             }
             return true;
         } catch (Exception e) {
+            // fall back to the full heartbeat, the support of delta is renewed by the next response
+            brokerSupportHeartbeatDeltaSet.remove(addr);
+            brokerAddrGroupFingerprintTable.remove(addr);
             if (this.isBrokerInNameServer(addr)) {
                 log.warn("sendHeartbeatToAllBrokerV2 send heart beat to broker[{} {} {}] failed", brokerName, id, addr, e);
             } else {
@@ -753,6 +837,54 @@ public class MQClientInstance {
         return false;
     }
 
+    /**
+     * Send the heartbeat in the compact encoding, the subscriptions of a consumer group are only carried when its
+     * fingerprint is not acknowledged by the broker yet.
+     */
+    private HeartbeatV2Result sendHeartbeatDelta(String addr, HeartbeatData heartbeatDataWithSub) throws Exception {
+        Map<String, Long> ackedFingerprintMap = brokerAddrGroupFingerprintTable.computeIfAbsent(addr, k -> new ConcurrentHashMap<>());
+        HeartbeatData heartbeatDelta = new HeartbeatData();
+        heartbeatDelta.setClientID(heartbeatDataWithSub.getClientID());
+        heartbeatDelta.setHeartbeatFingerprint(heartbeatDataWithSub.getHeartbeatFingerprint());
+        heartbeatDelta.getProducerDataSet().addAll(heartbeatDataWithSub.getProducerDataSet());
+        Map<String, Long> sentFingerprintMap = new HashMap<>(heartbeatDataWithSub.getConsumerDataSet().size());
+        for (ConsumerData consumerData : heartbeatDataWithSub.getConsumerDataSet()) {
+            long subscriptionFingerprint = consumerData.computeSubscriptionFingerprint();
+            ConsumerData delta = new ConsumerData();
+            delta.setGroupName(consumerData.getGroupName());
+            delta.setConsumeType(consumerData.getConsumeType());
+            delta.setMessageModel(consumerData.getMessageModel());
+            delta.setConsumeFromWhere(consumerData.getConsumeFromWhere());
+            delta.setUnitMode(consumerData.isUnitMode());
+            delta.setSubscriptionFingerprint(subscriptionFingerprint);
+            Long ackedFingerprint = ackedFingerprintMap.get(consumerData.getGroupName());
+            if (ackedFingerprint != null && ackedFingerprint == subscriptionFingerprint) {
+                delta.setWithoutSub(true);
+            } else {
+                delta.getSubscriptionDataSet().addAll(consumerData.getSubscriptionDataSet());
+                sentFingerprintMap.put(consumerData.getGroupName(), subscriptionFingerprint);
+            }
+            heartbeatDelta.getConsumerDataSet().add(delta);
+        }
+
+        HeartbeatV2Result heartbeatV2Result = this.mQClientAPIImpl.sendHeartbeatCompact(addr, heartbeatDelta, clientConfig.getMqClientApiTimeout());
+        ackedFingerprintMap.putAll(sentFingerprintMap);
+        ackedFingerprintMap.keySet().removeIf(group -> !this.consumerTable.containsKey(group));
+        if (heartbeatV2Result.isSubChange()) {
+            // the broker lost the subscriptions of some groups, carry them in the next heartbeat
+            if (heartbeatV2Result.getSubChangeGroups() != null) {
+                ackedFingerprintMap.keySet().removeAll(heartbeatV2Result.getSubChangeGroups());
+            } else {
+                ackedFingerprintMap.clear();
+            }
+        }
+        if (!heartbeatV2Result.isSupportDelta()) {
+            brokerSupportHeartbeatDeltaSet.remove(addr);
+        }
+        log.debug("sendHeartbeatDelta addr: {} subChange: {} sentGroups: {}", addr, heartbeatV2Result.isSubChange(), sentFingerprintMap.keySet());
+        return heartbeatV2Result;
+    }
+
     private boolean sendHeartbeatToAllBrokerV2(boolean isRebalance) {
         final HeartbeatData heartbeatDataWithSub = this.prepareHeartbeatData(false);
         final boolean producerEmpty = heartbeatDataWithSub.getProducerDataSet().isEmpty();
@@ -814,53 +946,8 @@ public class MQClientInstance {
                         topicRouteData = this.mQClientAPIImpl.getTopicRouteInfoFromNameServer(topic, clientConfig.getMqClientApiTimeout());
                     }
                     if (topicRouteData != null) {
-                        TopicRouteData old = this.topicRouteTable.get(topic);
-                        boolean changed = topicRouteData.topicRouteDataChanged(old);
-                        if (!changed) {
-                            changed = this.isNeedUpdateTopicRouteInfo(topic);
-                        } else {
-                            log.info("the topic[{}] route info changed, old[{}], new[{}]", topic, old, topicRouteData);
-                        }
-
-                        if (changed) {
-
-                            for (BrokerData bd : topicRouteData.getBrokerDatas()) {
-                                this.brokerAddrTable.put(bd.getBrokerName(), bd.getBrokerAddrs());
-                            }
-
-                            // Update endpoint map
-                            {
-                                ConcurrentMap<MessageQueue, String> mqEndPoints = topicRouteData2EndpointsForStaticTopic(topic, topicRouteData);
-                                if (!mqEndPoints.isEmpty()) {
-                                    topicEndPointsTable.put(topic, mqEndPoints);
-                                }
-                            }
-
-                            // Update Pub info
-                            {
-                                TopicPublishInfo publishInfo = topicRouteData2TopicPublishInfo(topic, topicRouteData);
-                                publishInfo.setHaveTopicRouterInfo(true);
-                                for (Entry<String, MQProducerInner> entry : this.producerTable.entrySet()) {
-                                    MQProducerInner impl = entry.getValue();
-                                    if (impl != null) {
-                                        impl.updateTopicPublishInfo(topic, publishInfo);
-                                    }
-                                }
-                            }
-
-                            // Update sub info
-                            if (!consumerTable.isEmpty()) {
-                                Set<MessageQueue> subscribeInfo = topicRouteData2TopicSubscribeInfo(topic, topicRouteData);
-                                for (Entry<String, MQConsumerInner> entry : this.consumerTable.entrySet()) {
-                                    MQConsumerInner impl = entry.getValue();
-                                    if (impl != null) {
-                                        impl.updateTopicSubscribeInfo(topic, subscribeInfo);
-                                    }
-                                }
-                            }
-                            TopicRouteData cloneTopicRouteData = new TopicRouteData(topicRouteData);
-                            log.info("topicRouteTable.put. Topic = {}, TopicRouteData[{}]", topic, cloneTopicRouteData);
-                            this.topicRouteTable.put(topic, cloneTopicRouteData);
+                        this.topicRouteVersionTable.remove(topic);
+                        if (this.updateTopicRouteInfo(topic, topicRouteData)) {
                             return true;
                         }
                     } else {
@@ -886,6 +973,64 @@ public class MQClientInstance {
         return false;
     }
 
+    /**
+     * Apply the route fetched from the name server if it changes.
+     *
+     * @return true if the route is applied
+     */
+    private boolean updateTopicRouteInfo(final String topic, final TopicRouteData topicRouteData) {
+        TopicRouteData old = this.topicRouteTable.get(topic);
+        boolean changed = topicRouteData.topicRouteDataChanged(old);
+        if (!changed) {
+            changed = this.isNeedUpdateTopicRouteInfo(topic);
+        } else {
+            log.info("the topic[{}] route info changed, old[{}], new[{}]", topic, old, topicRouteData);
+        }
+
+        if (changed) {
+
+            for (BrokerData bd : topicRouteData.getBrokerDatas()) {
+                this.brokerAddrTable.put(bd.getBrokerName(), bd.getBrokerAddrs());
+            }
+
+            // Update endpoint map
+            {
+                ConcurrentMap<MessageQueue, String> mqEndPoints = topicRouteData2EndpointsForStaticTopic(topic, topicRouteData);
+                if (!mqEndPoints.isEmpty()) {
+                    topicEndPointsTable.put(topic, mqEndPoints);
+                }
+            }
+
+            // Update Pub info
+            {
+                TopicPublishInfo publishInfo = topicRouteData2TopicPublishInfo(topic, topicRouteData);
+                publishInfo.setHaveTopicRouterInfo(true);
+                for (Entry<String, MQProducerInner> entry : this.producerTable.entrySet()) {
+                    MQProducerInner impl = entry.getValue();
+                    if (impl != null) {
+                        impl.updateTopicPublishInfo(topic, publishInfo);
+                    }
+                }
+            }
+
+            // Update sub info
+            if (!consumerTable.isEmpty()) {
+                Set<MessageQueue> subscribeInfo = topicRouteData2TopicSubscribeInfo(topic, topicRouteData);
+                for (Entry<String, MQConsumerInner> entry : this.consumerTable.entrySet()) {
+                    MQConsumerInner impl = entry.getValue();
+                    if (impl != null) {
+                        impl.updateTopicSubscribeInfo(topic, subscribeInfo);
+                    }
+                }
+            }
+            TopicRouteData cloneTopicRouteData = new TopicRouteData(topicRouteData);
+            log.info("topicRouteTable.put. Topic = {}, TopicRouteData[{}]", topic, cloneTopicRouteData);
+            this.topicRouteTable.put(topic, cloneTopicRouteData);
+            return true;
+        }
+        return false;
+    }
+
     private HeartbeatData prepareHeartbeatData(boolean isWithoutSub) {
         HeartbeatData heartbeatData = new HeartbeatData();
 
@@ -1400,6 +1545,7 @@ public class MQClientInstance {
 
     private void resetBrokerAddrHeartbeatFingerprintMap() {
         brokerAddrHeartbeatFingerprintTable.clear();
+        brokerAddrGroupFingerprintTable.clear();
     }
 
     public ConsumerStatsManager getConsumerStatsManager() {
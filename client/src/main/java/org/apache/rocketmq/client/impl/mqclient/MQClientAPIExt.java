@@ -17,6 +17,7 @@
 package org.apache.rocketmq.client.impl.mqclient;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -24,6 +25,7 @@ import java.util.concurrent.CompletableFuture;
 import org.apache.rocketmq.client.ClientConfig;
 import org.apache.rocketmq.client.consumer.AckCallback;
 import org.apache.rocketmq.client.consumer.AckResult;
+import org.apache.rocketmq.client.consumer.AckStatus;
 import org.apache.rocketmq.client.consumer.PopCallback;
 import org.apache.rocketmq.client.consumer.PopResult;
 import org.apache.rocketmq.client.consumer.PullCallback;
@@ -41,6 +43,7 @@ import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.common.message.MessageBatch;
 import org.apache.rocketmq.common.message.MessageClientIDSetter;
+import org.apache.rocketmq.common.message.MessageConst;
 import org.apache.rocketmq.common.message.MessageDecoder;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.common.message.MessageQueue;
@@ -54,12 +57,17 @@ import org.apache.rocketmq.remoting.netty.ResponseFuture;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeResponseBody;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeEntry;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeResult;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchResponseBody;
 import org.apache.rocketmq.remoting.protocol.body.UnlockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ConsumerSendMsgBackRequestHeader;
+import org.apache.rocketmq.remoting.protocol.header.ExtraInfoUtil;
 import org.apache.rocketmq.remoting.protocol.header.GetConsumerListByGroupRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.GetConsumerListByGroupResponseBody;
 import org.apache.rocketmq.remoting.protocol.header.GetMaxOffsetRequestHeader;
@@ -314,6 +322,53 @@ public class MQClientAPIExt extends MQClientAPIImpl {
         return future;
     }
 
+    /**
+     * Change the invisible time of the messages popped from the same queue in one request.
+     *
+     * @return the ack results in the order of the request entries
+     */
+    public CompletableFuture<List<AckResult>> batchChangeInvisibleTimeAsync(
+        String brokerAddr,
+        String brokerName,
+        BatchChangeInvisibleTimeRequestBody requestBody,
+        long timeoutMillis
+    ) {
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.BATCH_CHANGE_MESSAGE_INVISIBLETIME, null);
+        request.setBody(requestBody.encode());
+        return this.getRemotingClient().invoke(brokerAddr, request, timeoutMillis).thenCompose(response -> {
+            CompletableFuture<List<AckResult>> future0 = new CompletableFuture<>();
+            if (response.getCode() != ResponseCode.SUCCESS) {
+                future0.completeExceptionally(new MQBrokerException(response.getCode(), response.getRemark(), brokerAddr));
+                return future0;
+            }
+            try {
+                List<ChangeInvisibleTimeResult> resultList = BatchChangeInvisibleTimeResponseBody
+                    .decode(response.getBody(), BatchChangeInvisibleTimeResponseBody.class).getResults();
+                List<AckResult> ackResultList = new ArrayList<>(resultList.size());
+                for (int i = 0; i < resultList.size(); i++) {
+                    ChangeInvisibleTimeResult result = resultList.get(i);
+                    ChangeInvisibleTimeEntry entry = requestBody.getEntries().get(i);
+                    AckResult ackResult = new AckResult();
+                    if (ResponseCode.SUCCESS == result.getCode()) {
+                        ackResult.setStatus(AckStatus.OK);
+                        ackResult.setPopTime(result.getPopTime());
+                        ackResult.setExtraInfo(ExtraInfoUtil
+                            .buildExtraInfo(entry.getOffset(), result.getPopTime(), result.getInvisibleTime(),
+                                result.getReviveQid(), requestBody.getTopic(), brokerName, requestBody.getQueueId()) + MessageConst.KEY_SEPARATOR
+                            + entry.getOffset());
+                    } else {
+                        ackResult.setStatus(AckStatus.NO_EXIST);
+                    }
+                    ackResultList.add(ackResult);
+                }
+                future0.complete(ackResultList);
+            } catch (Throwable t) {
+                future0.completeExceptionally(t);
+            }
+            return future0;
+        });
+    }
+
     public CompletableFuture<PullResult> pullMessageAsync(
         String brokerAddr,
         PullMessageRequestHeader requestHeader,
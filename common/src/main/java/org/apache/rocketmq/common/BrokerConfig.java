@@ -148,6 +148,19 @@ public class BrokerConfig extends BrokerIdentity {
     private long waitTimeMillsInHeartbeatQueue = 31 * 1000;
     private long waitTimeMillsInTransactionQueue = 3 * 1000;
     private long waitTimeMillsInAckQueue = 3000;
+    private long waitTimeMillsInQueryQueue = 3000;
+
+    /**
+     * Replace the send, pull, lite pull, ack and query thread pool queues by sharded queues with CoDel-style
+     * admission control. Control plane queues such as heartbeat and admin always keep a plain FIFO queue.
+     */
+    private boolean enableShardedRequestQueue = false;
+    private int requestQueueShardNums = 8;
+    /**
+     * New requests are rejected once the queueing time stayed above half of the matching waitTimeMillsInXxxQueue
+     * for this interval
+     */
+    private long requestQueueAdmissionIntervalMills = 100;
 
     private long startAcceptSendRequestTimeStamp = 0L;
 
@@ -269,6 +282,12 @@ public class BrokerConfig extends BrokerIdentity {
     @ImportantField
     private long transactionCheckInterval = 30 * 1000;
 
+    /**
+     * Check the pending half messages by an in memory index built from the half and op queues, instead of scanning
+     * the op queue and putting the unresolved half messages back to the half queue in every check.
+     */
+    private boolean transactionCheckByIndex = false;
+
     private long transactionMetricFlushInterval = 3 * 1000;
 
     /**
@@ -284,6 +303,11 @@ public class BrokerConfig extends BrokerIdentity {
     @ImportantField
     private boolean aclEnable = false;
 
+    /**
+     * Hand out a session to the clients asking for it, the requests signed with the session key skip signing the body
+     */
+    private boolean aclSessionEnable = false;
+
     private boolean storeReplyMessageEnable = true;
 
     private boolean enableDetailStat = true;
@@ -373,9 +397,39 @@ public class BrokerConfig extends BrokerIdentity {
 
     private boolean metricsInDelta = false;
 
+    /**
+     * Use base2 exponential buckets instead of the fixed explicit buckets for latency histograms, which keeps the
+     * relative error bounded for every percentile. Not every exporter supports exponential histograms.
+     */
+    private boolean metricsLatencyExponentialHistogram = false;
+
+    /**
+     * Keep put latency histograms per topic, topics beyond topicLatencyHistogramMaxNum share one histogram.
+     */
+    private boolean enableTopicLatencyHistogram = false;
+    private int topicLatencyHistogramMaxNum = 1000;
+
+    /**
+     * Cardinality control of the topic and group keyed stats items, idle items are evicted after
+     * statsItemIdleTimeoutMillis and each stats set keeps at most statsItemMaxNumPerSet items, 0 disables either.
+     */
+    private long statsItemIdleTimeoutMillis = 60 * 60 * 1000;
+    private int statsItemMaxNumPerSet = 100000;
+
     private long channelExpiredTimeout = 1000 * 120;
     private long subscriptionExpiredTimeout = 1000 * 60 * 10;
 
+    /**
+     * Accept the compact heartbeat which only carries the subscriptions of the changed consumer groups.
+     */
+    private boolean enableHeartbeatDelta = true;
+
+    /**
+     * Expire the client channels without heartbeat by a timer wheel, the full scan of client channels is then only
+     * done once per channelExpiredTimeout as a fallback.
+     */
+    private boolean enableChannelExpireTimerWheel = false;
+
     /**
      * Estimate accumulation or not when subscription filter type is tag and is not SUB_ALL.
      */
@@ -385,6 +439,24 @@ public class BrokerConfig extends BrokerIdentity {
     private boolean usePIDColdCtrStrategy = true;
     private long cgColdReadThreshold = 3 * 1024 * 1024;
     private long globalColdReadThreshold = 100 * 1024 * 1024;
+
+    /**
+     * Read the pulls on cold data by a dedicated thread pool instead of the pull threads, so that the page faults of
+     * a backlog consumer never block the others.
+     */
+    private boolean coldDataReadIsolationEnable = false;
+    private int coldDataReadThreadPoolNums = 8;
+    private int coldDataReadThreadPoolQueueCapacity = 10000;
+
+    /**
+     * Max cold data reads of one consumer group in flight, the others are flow controlled.
+     */
+    private int coldDataReadMaxInflightPerGroup = 2;
+
+    /**
+     * Size of commitlog advised to be read ahead for the cold data reads of one consumer group, 0 to disable.
+     */
+    private int coldDataReadAheadSize = 1024 * 1024;
     
     /**
      * The interval to fetch namesrv addr, default value is 10 second
@@ -590,6 +662,30 @@ public class BrokerConfig extends BrokerIdentity {
         this.consumerFallbehindThreshold = consumerFallbehindThreshold;
     }
 
+    public boolean isEnableShardedRequestQueue() {
+        return enableShardedRequestQueue;
+    }
+
+    public void setEnableShardedRequestQueue(boolean enableShardedRequestQueue) {
+        this.enableShardedRequestQueue = enableShardedRequestQueue;
+    }
+
+    public int getRequestQueueShardNums() {
+        return requestQueueShardNums;
+    }
+
+    public void setRequestQueueShardNums(int requestQueueShardNums) {
+        this.requestQueueShardNums = requestQueueShardNums;
+    }
+
+    public long getRequestQueueAdmissionIntervalMills() {
+        return requestQueueAdmissionIntervalMills;
+    }
+
+    public void setRequestQueueAdmissionIntervalMills(long requestQueueAdmissionIntervalMills) {
+        this.requestQueueAdmissionIntervalMills = requestQueueAdmissionIntervalMills;
+    }
+
     public boolean isBrokerFastFailureEnable() {
         return brokerFastFailureEnable;
     }
@@ -1142,6 +1238,14 @@ public class BrokerConfig extends BrokerIdentity {
         this.transactionCheckInterval = transactionCheckInterval;
     }
 
+    public boolean isTransactionCheckByIndex() {
+        return transactionCheckByIndex;
+    }
+
+    public void setTransactionCheckByIndex(boolean transactionCheckByIndex) {
+        this.transactionCheckByIndex = transactionCheckByIndex;
+    }
+
     public int getEndTransactionThreadPoolNums() {
         return endTransactionThreadPoolNums;
     }
@@ -1190,6 +1294,14 @@ public class BrokerConfig extends BrokerIdentity {
         this.aclEnable = aclEnable;
     }
 
+    public boolean isAclSessionEnable() {
+        return aclSessionEnable;
+    }
+
+    public void setAclSessionEnable(boolean aclSessionEnable) {
+        this.aclSessionEnable = aclSessionEnable;
+    }
+
     public boolean isStoreReplyMessageEnable() {
         return storeReplyMessageEnable;
     }
@@ -1398,6 +1510,14 @@ public class BrokerConfig extends BrokerIdentity {
         this.waitTimeMillsInAckQueue = waitTimeMillsInAckQueue;
     }
 
+    public long getWaitTimeMillsInQueryQueue() {
+        return waitTimeMillsInQueryQueue;
+    }
+
+    public void setWaitTimeMillsInQueryQueue(long waitTimeMillsInQueryQueue) {
+        this.waitTimeMillsInQueryQueue = waitTimeMillsInQueryQueue;
+    }
+
     public boolean isRejectPullConsumerEnable() {
         return rejectPullConsumerEnable;
     }
@@ -1646,6 +1766,46 @@ public class BrokerConfig extends BrokerIdentity {
         this.metricsInDelta = metricsInDelta;
     }
 
+    public boolean isMetricsLatencyExponentialHistogram() {
+        return metricsLatencyExponentialHistogram;
+    }
+
+    public void setMetricsLatencyExponentialHistogram(boolean metricsLatencyExponentialHistogram) {
+        this.metricsLatencyExponentialHistogram = metricsLatencyExponentialHistogram;
+    }
+
+    public boolean isEnableTopicLatencyHistogram() {
+        return enableTopicLatencyHistogram;
+    }
+
+    public void setEnableTopicLatencyHistogram(boolean enableTopicLatencyHistogram) {
+        this.enableTopicLatencyHistogram = enableTopicLatencyHistogram;
+    }
+
+    public int getTopicLatencyHistogramMaxNum() {
+        return topicLatencyHistogramMaxNum;
+    }
+
+    public void setTopicLatencyHistogramMaxNum(int topicLatencyHistogramMaxNum) {
+        this.topicLatencyHistogramMaxNum = topicLatencyHistogramMaxNum;
+    }
+
+    public long getStatsItemIdleTimeoutMillis() {
+        return statsItemIdleTimeoutMillis;
+    }
+
+    public void setStatsItemIdleTimeoutMillis(long statsItemIdleTimeoutMillis) {
+        this.statsItemIdleTimeoutMillis = statsItemIdleTimeoutMillis;
+    }
+
+    public int getStatsItemMaxNumPerSet() {
+        return statsItemMaxNumPerSet;
+    }
+
+    public void setStatsItemMaxNumPerSet(int statsItemMaxNumPerSet) {
+        this.statsItemMaxNumPerSet = statsItemMaxNumPerSet;
+    }
+
     public int getMetricsPromExporterPort() {
         return metricsPromExporterPort;
     }
@@ -1686,6 +1846,22 @@ public class BrokerConfig extends BrokerIdentity {
         this.channelExpiredTimeout = channelExpiredTimeout;
     }
 
+    public boolean isEnableHeartbeatDelta() {
+        return enableHeartbeatDelta;
+    }
+
+    public void setEnableHeartbeatDelta(boolean enableHeartbeatDelta) {
+        this.enableHeartbeatDelta = enableHeartbeatDelta;
+    }
+
+    public boolean isEnableChannelExpireTimerWheel() {
+        return enableChannelExpireTimerWheel;
+    }
+
+    public void setEnableChannelExpireTimerWheel(boolean enableChannelExpireTimerWheel) {
+        this.enableChannelExpireTimerWheel = enableChannelExpireTimerWheel;
+    }
+
     public long getSubscriptionExpiredTimeout() {
         return subscriptionExpiredTimeout;
     }
@@ -1742,6 +1918,46 @@ public class BrokerConfig extends BrokerIdentity {
         this.globalColdReadThreshold = globalColdReadThreshold;
     }
 
+    public boolean isColdDataReadIsolationEnable() {
+        return coldDataReadIsolationEnable;
+    }
+
+    public void setColdDataReadIsolationEnable(boolean coldDataReadIsolationEnable) {
+        this.coldDataReadIsolationEnable = coldDataReadIsolationEnable;
+    }
+
+    public int getColdDataReadThreadPoolNums() {
+        return coldDataReadThreadPoolNums;
+    }
+
+    public void setColdDataReadThreadPoolNums(int coldDataReadThreadPoolNums) {
+        this.coldDataReadThreadPoolNums = coldDataReadThreadPoolNums;
+    }
+
+    public int getColdDataReadThreadPoolQueueCapacity() {
+        return coldDataReadThreadPoolQueueCapacity;
+    }
+
+    public void setColdDataReadThreadPoolQueueCapacity(int coldDataReadThreadPoolQueueCapacity) {
+        this.coldDataReadThreadPoolQueueCapacity = coldDataReadThreadPoolQueueCapacity;
+    }
+
+    public int getColdDataReadMaxInflightPerGroup() {
+        return coldDataReadMaxInflightPerGroup;
+    }
+
+    public void setColdDataReadMaxInflightPerGroup(int coldDataReadMaxInflightPerGroup) {
+        this.coldDataReadMaxInflightPerGroup = coldDataReadMaxInflightPerGroup;
+    }
+
+    public int getColdDataReadAheadSize() {
+        return coldDataReadAheadSize;
+    }
+
+    public void setColdDataReadAheadSize(int coldDataReadAheadSize) {
+        this.coldDataReadAheadSize = coldDataReadAheadSize;
+    }
+
     public boolean isUseStaticSubscription() {
         return useStaticSubscription;
     }
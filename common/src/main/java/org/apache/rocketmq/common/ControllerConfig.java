@@ -77,6 +77,24 @@ public class ControllerConfig {
      */
     private long scanInactiveMasterInterval = 5 * 1000;
 
+    /**
+     * Whether the DLedger controller appends events in the binary format instead of json.
+     * All the controllers should be able to read the binary format before it is enabled.
+     */
+    private boolean enableBinaryEventSerialization = false;
+
+    /**
+     * Max number of write requests on different broker-sets proposed to DLedger in one batch,
+     * 1 means proposing them one by one
+     */
+    private int maxEventBatchSize = 1;
+
+    /**
+     * Take a snapshot of the DLedger controller state machine every this number of applied entries,
+     * so that a restart only applies the entries after the snapshot, 0 means never
+     */
+    private int stateMachineSnapshotThreshold = 0;
+
     private MetricsExporterType metricsExporterType = MetricsExporterType.DISABLE;
 
     private String metricsGrpcExporterTarget = "";
@@ -215,6 +233,30 @@ public class ControllerConfig {
         this.notifyBrokerRoleChanged = notifyBrokerRoleChanged;
     }
 
+    public boolean isEnableBinaryEventSerialization() {
+        return enableBinaryEventSerialization;
+    }
+
+    public void setEnableBinaryEventSerialization(boolean enableBinaryEventSerialization) {
+        this.enableBinaryEventSerialization = enableBinaryEventSerialization;
+    }
+
+    public int getMaxEventBatchSize() {
+        return maxEventBatchSize;
+    }
+
+    public void setMaxEventBatchSize(int maxEventBatchSize) {
+        this.maxEventBatchSize = maxEventBatchSize;
+    }
+
+    public int getStateMachineSnapshotThreshold() {
+        return stateMachineSnapshotThreshold;
+    }
+
+    public void setStateMachineSnapshotThreshold(int stateMachineSnapshotThreshold) {
+        this.stateMachineSnapshotThreshold = stateMachineSnapshotThreshold;
+    }
+
     public long getScanInactiveMasterInterval() {
         return scanInactiveMasterInterval;
     }
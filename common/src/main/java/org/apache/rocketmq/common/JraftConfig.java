@@ -26,6 +26,12 @@ public class JraftConfig {
     private String jRaftInitConf = "localhost:9880,localhost:9881,localhost:9882";
     private String jRaftControllerRPCAddr = "localhost:9770,localhost:9771,localhost:9772";
 
+    /**
+     * Whether the leader tracks the broker heartbeats locally and only replicates the liveness transitions and
+     * the changes of broker state instead of every heartbeat. All the controllers must use the same value.
+     */
+    private boolean jRaftReplicateLivenessTransitionOnly = false;
+
     public int getjRaftElectionTimeoutMs() {
         return jRaftElectionTimeoutMs;
     }
@@ -85,4 +91,12 @@ public class JraftConfig {
     public void setjRaftScanWaitTimeoutMs(int jRaftScanWaitTimeoutMs) {
         this.jRaftScanWaitTimeoutMs = jRaftScanWaitTimeoutMs;
     }
-}
\ No newline at end of file
+
+    public boolean isjRaftReplicateLivenessTransitionOnly() {
+        return jRaftReplicateLivenessTransitionOnly;
+    }
+
+    public void setjRaftReplicateLivenessTransitionOnly(boolean jRaftReplicateLivenessTransitionOnly) {
+        this.jRaftReplicateLivenessTransitionOnly = jRaftReplicateLivenessTransitionOnly;
+    }
+}
@@ -78,6 +78,10 @@ public class MixAll {
     public static final String CID_RMQ_SYS_PREFIX = "CID_RMQ_SYS_";
     public static final String IS_SUPPORT_HEART_BEAT_V2 = "IS_SUPPORT_HEART_BEAT_V2";
     public static final String IS_SUB_CHANGE = "IS_SUB_CHANGE";
+    public static final String SUB_CHANGE_GROUPS = "SUB_CHANGE_GROUPS";
+    public static final String SUB_CHANGE_GROUP_SEPARATOR = ";";
+    public static final String IS_SUPPORT_HEART_BEAT_DELTA = "IS_SUPPORT_HEART_BEAT_DELTA";
+    public static final String HEART_BEAT_COMPACT = "HEART_BEAT_COMPACT";
     public static final List<String> LOCAL_INET_ADDRESS = getLocalInetAddress();
     public static final String LOCALHOST = localhost();
     public static final String DEFAULT_CHARSET = "UTF-8";
@@ -90,6 +90,21 @@ public class NamesrvConfig {
      * 2. This flag does not support static topic currently.
      */
     private boolean deleteTopicWithBrokerRegistration = false;
+
+    /**
+     * If enable this flag, the clients subscribing route changes by the batch route query are notified once the
+     * routes of their topics change.
+     */
+    private boolean enableRouteChangeNotify = false;
+
+    private long routeChangeNotifyInterval = 1000;
+
+    /**
+     * If enable this flag, the encoded route bodies of the topics are cached and shared by the route queries until a
+     * route update changes them.
+     */
+    private boolean enableTopicRouteCache = false;
+
     /**
      * Config in this black list will be not allowed to update by command.
      * Try to update this config black list by restart process.
@@ -272,4 +287,28 @@ public class NamesrvConfig {
     public void setDeleteTopicWithBrokerRegistration(boolean deleteTopicWithBrokerRegistration) {
         this.deleteTopicWithBrokerRegistration = deleteTopicWithBrokerRegistration;
     }
+
+    public boolean isEnableRouteChangeNotify() {
+        return enableRouteChangeNotify;
+    }
+
+    public void setEnableRouteChangeNotify(boolean enableRouteChangeNotify) {
+        this.enableRouteChangeNotify = enableRouteChangeNotify;
+    }
+
+    public long getRouteChangeNotifyInterval() {
+        return routeChangeNotifyInterval;
+    }
+
+    public void setRouteChangeNotifyInterval(long routeChangeNotifyInterval) {
+        this.routeChangeNotifyInterval = routeChangeNotifyInterval;
+    }
+
+    public boolean isEnableTopicRouteCache() {
+        return enableTopicRouteCache;
+    }
+
+    public void setEnableTopicRouteCache(boolean enableTopicRouteCache) {
+        this.enableTopicRouteCache = enableTopicRouteCache;
+    }
 }
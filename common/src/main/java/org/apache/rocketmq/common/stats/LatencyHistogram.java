@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.common.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A HDR style latency histogram with log-linear buckets.
+ *
+ * <p>Values below {@code 2^significantBits} get one bucket each, every following power of two is split into
+ * {@code 2^significantBits} linear sub buckets, so the relative error of a recorded value is bounded by
+ * {@code 1 / 2^significantBits} whatever its magnitude. Values above the highest trackable value are clamped into
+ * the last bucket.
+ *
+ * <p>The values are recorded into padded stripes picked by the recording thread, like the cells of a
+ * {@link java.util.concurrent.atomic.LongAdder}. It starts with a single stripe and doubles them up to
+ * {@link #MAX_STRIPES} once recording threads are seen to contend, a stripe costs about {@code 8 * bucketCount}
+ * bytes. Nothing is kept per thread, so a histogram dropped by its owner is garbage at once. The stripes are merged
+ * without blocking the recording threads when a {@link Snapshot} is taken.
+ *
+ * <p>{@link #snapshot()} and {@link #getIntervalSnapshot()} could be called by any number of readers. The interval is
+ * only moved forward by {@link #rollInterval()}, which is left to the single task reporting the histogram.
+ */
+public class LatencyHistogram {
+
+    public static final int DEFAULT_SIGNIFICANT_BITS = 5;
+
+    static final int MAX_STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    /**
+     * Longs left unused around the counters of a stripe, a cache line at least
+     */
+    private static final int PADDING = 8;
+
+    private final int significantBits;
+    private final int subBucketCount;
+    private final long highestTrackableValue;
+    private final int bucketCount;
+    private final int sumIndex;
+    private final int maxIndex;
+
+    private volatile AtomicLongArray[] stripes;
+
+    private Snapshot lastRolledSnapshot;
+    private volatile Snapshot intervalSnapshot;
+
+    public LatencyHistogram(long highestTrackableValue) {
+        this(highestTrackableValue, DEFAULT_SIGNIFICANT_BITS);
+    }
+
+    public LatencyHistogram(long highestTrackableValue, int significantBits) {
+        if (significantBits < 1 || significantBits > 10) {
+            throw new IllegalArgumentException("significantBits must be in [1, 10], but is " + significantBits);
+        }
+        if (highestTrackableValue < (2L << significantBits)) {
+            throw new IllegalArgumentException("highestTrackableValue is too small: " + highestTrackableValue);
+        }
+        this.significantBits = significantBits;
+        this.subBucketCount = 1 << significantBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.bucketCount = bucketIndex(highestTrackableValue) + 1;
+        this.sumIndex = PADDING + bucketCount;
+        this.maxIndex = sumIndex + 1;
+        this.stripes = new AtomicLongArray[] {newStripe()};
+        this.lastRolledSnapshot = new Snapshot(new long[bucketCount], 0, 0, 0);
+        this.intervalSnapshot = lastRolledSnapshot;
+    }
+
+    /**
+     * Record a value, negative values are recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > highestTrackableValue) {
+            value = highestTrackableValue;
+        }
+        final AtomicLongArray[] current = this.stripes;
+        final AtomicLongArray stripe = current[stripeIndex(current.length)];
+        final int index = PADDING + bucketIndex(value);
+        final long count = stripe.get(index);
+        if (!stripe.compareAndSet(index, count, count + 1)) {
+            stripe.getAndIncrement(index);
+            growStripes(current);
+        }
+        stripe.getAndAdd(sumIndex, value);
+        long max = stripe.get(maxIndex);
+        while (value > max && !stripe.compareAndSet(maxIndex, max, value)) {
+            max = stripe.get(maxIndex);
+        }
+    }
+
+    private static int stripeIndex(int stripeCount) {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ id >>> 16) & (stripeCount - 1);
+    }
+
+    private synchronized void growStripes(AtomicLongArray[] seen) {
+        if (this.stripes != seen || seen.length >= MAX_STRIPES) {
+            return;
+        }
+        final AtomicLongArray[] grown = new AtomicLongArray[seen.length << 1];
+        System.arraycopy(seen, 0, grown, 0, seen.length);
+        for (int i = seen.length; i < grown.length; i++) {
+            grown[i] = newStripe();
+        }
+        this.stripes = grown;
+    }
+
+    private AtomicLongArray newStripe() {
+        return new AtomicLongArray(maxIndex + 1 + PADDING);
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return all values recorded since this histogram was created
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[bucketCount];
+        long totalCount = 0;
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < bucketCount; i++) {
+                long count = stripe.get(PADDING + i);
+                counts[i] += count;
+                totalCount += count;
+            }
+            sum += stripe.get(sumIndex);
+            max = Math.max(max, stripe.get(maxIndex));
+        }
+        return new Snapshot(counts, totalCount, sum, max);
+    }
+
+    /**
+     * Publish the values recorded since the previous roll as the interval snapshot. Meant for the single task which
+     * reports this histogram periodically, other readers get the published interval by
+     * {@link #getIntervalSnapshot()}.
+     *
+     * @return the interval snapshot just published
+     */
+    public synchronized Snapshot rollInterval() {
+        Snapshot current = snapshot();
+        Snapshot interval = current.minus(lastRolledSnapshot);
+        this.lastRolledSnapshot = current;
+        this.intervalSnapshot = interval;
+        return interval;
+    }
+
+    /**
+     * @return the values recorded between the last two rolls, empty before the first roll
+     */
+    public Snapshot getIntervalSnapshot() {
+        return intervalSnapshot;
+    }
+
+    int bucketIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - significantBits;
+        return (shift + 1) * subBucketCount + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    long highestEquivalentValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketCount - 1;
+        long lowest = (long) (subBucketCount + index % subBucketCount) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long totalCount, long sum, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        private Snapshot minus(Snapshot previous) {
+            long[] delta = new long[counts.length];
+            long deltaCount = 0;
+            long deltaMax = 0;
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+                if (delta[i] > 0) {
+                    deltaCount += delta[i];
+                    deltaMax = Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return new Snapshot(delta, deltaCount, sum - previous.sum, deltaMax);
+        }
+
+        /**
+         * @param percentile in the range [0, 100]
+         * @return the highest value equivalent to the bucket holding the given percentile, never above the max
+         * recorded value
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            double p = Math.min(Math.max(percentile, 0), 100);
+            long countAtPercentile = Math.max(1, (long) Math.ceil(p / 100 * totalCount));
+            long passed = 0;
+            for (int i = 0; i < counts.length; i++) {
+                passed += counts[i];
+                if (passed >= countAtPercentile) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return totalCount == 0 ? 0 : (double) sum / totalCount;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.common.stats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Latency histograms keyed by topic, request code and so on. The number of keys is bounded, once the limit is
+ * reached values of new keys are recorded into the shared {@link #OTHERS_KEY} histogram so that memory stays
+ * predictable whatever the key cardinality is.
+ */
+public class LatencyHistogramSet {
+
+    public static final String OTHERS_KEY = "__OTHERS__";
+
+    private final String name;
+    private final int maxKeys;
+    private final long highestTrackableValue;
+    private final int significantBits;
+    private final ConcurrentMap<String, LatencyHistogram> histogramTable = new ConcurrentHashMap<>();
+    private final LatencyHistogram othersHistogram;
+    private volatile boolean othersRecorded = false;
+
+    public LatencyHistogramSet(String name, int maxKeys, long highestTrackableValue) {
+        this(name, maxKeys, highestTrackableValue, LatencyHistogram.DEFAULT_SIGNIFICANT_BITS);
+    }
+
+    public LatencyHistogramSet(String name, int maxKeys, long highestTrackableValue, int significantBits) {
+        this.name = name;
+        this.maxKeys = maxKeys;
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantBits = significantBits;
+        this.othersHistogram = new LatencyHistogram(highestTrackableValue, significantBits);
+    }
+
+    public void record(String key, long value) {
+        getOrCreateHistogram(key).record(value);
+    }
+
+    public LatencyHistogram getOrCreateHistogram(String key) {
+        LatencyHistogram histogram = histogramTable.get(key);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (histogramTable.size() >= maxKeys) {
+            if (!othersRecorded) {
+                othersRecorded = true;
+            }
+            return othersHistogram;
+        }
+        return histogramTable.computeIfAbsent(key,
+            k -> new LatencyHistogram(highestTrackableValue, significantBits));
+    }
+
+    /**
+     * @return the histogram of the key, or null if the key was never recorded or was folded into
+     * {@link #OTHERS_KEY}
+     */
+    public LatencyHistogram getHistogram(String key) {
+        if (OTHERS_KEY.equals(key)) {
+            return othersHistogram;
+        }
+        return histogramTable.get(key);
+    }
+
+    public void removeHistogram(String key) {
+        histogramTable.remove(key);
+    }
+
+    /**
+     * Visit every histogram, {@link #OTHERS_KEY} is visited last and only when something was recorded into it.
+     */
+    public void forEach(BiConsumer<String, LatencyHistogram> consumer) {
+        for (Map.Entry<String, LatencyHistogram> entry : histogramTable.entrySet()) {
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+        if (othersRecorded) {
+            consumer.accept(OTHERS_KEY, othersHistogram);
+        }
+    }
+
+    /**
+     * Roll the interval of every histogram, see {@link LatencyHistogram#rollInterval()}.
+     */
+    public void rollInterval() {
+        for (LatencyHistogram histogram : histogramTable.values()) {
+            histogram.rollInterval();
+        }
+        othersHistogram.rollInterval();
+    }
+
+    public int size() {
+        return histogramTable.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+}
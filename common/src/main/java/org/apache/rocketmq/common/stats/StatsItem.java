@@ -42,6 +42,14 @@ public class StatsItem {
 
     private final Logger logger;
 
+    /**
+     * Refreshed by the sampling in seconds when value or times changed, so idle items can be found without touching
+     * the update path
+     */
+    private volatile long lastActiveTimestamp = System.currentTimeMillis();
+    private long lastSampledValue;
+    private long lastSampledTimes;
+
     public StatsItem(String statsName, String statsKey, ScheduledExecutorService scheduledExecutorService, Logger logger) {
         this.statsName = statsName;
         this.statsKey = statsKey;
@@ -157,8 +165,14 @@ public class StatsItem {
             if (this.csListMinute.size() == 0) {
                 this.csListMinute.add(new CallSnapshot(System.currentTimeMillis() - 10 * 1000, 0, 0));
             }
-            this.csListMinute.add(new CallSnapshot(System.currentTimeMillis(), this.times.sum(), this.value
-                .sum()));
+            long currentTimes = this.times.sum();
+            long currentValue = this.value.sum();
+            if (currentTimes != this.lastSampledTimes || currentValue != this.lastSampledValue) {
+                this.lastSampledTimes = currentTimes;
+                this.lastSampledValue = currentValue;
+                this.lastActiveTimestamp = System.currentTimeMillis();
+            }
+            this.csListMinute.add(new CallSnapshot(System.currentTimeMillis(), currentTimes, currentValue));
             if (this.csListMinute.size() > 7) {
                 this.csListMinute.removeFirst();
             }
@@ -229,6 +243,10 @@ public class StatsItem {
     public LongAdder getTimes() {
         return times;
     }
+
+    public long getLastActiveTimestamp() {
+        return lastActiveTimestamp;
+    }
 }
 
 class CallSnapshot {
@@ -17,7 +17,10 @@
 
 package org.apache.rocketmq.common.stats;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -27,7 +30,11 @@ import org.apache.rocketmq.common.UtilAll;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 
 public class StatsItemSet {
-    private final ConcurrentMap<String/* key */, StatsItem> statsItemTable =
+    /**
+     * Keyed by the parsed form of the stats key, so that hot paths can find the item of "prefix@suffix" or
+     * "queueId@topic@group" without building the key string
+     */
+    private final ConcurrentMap<StatsKey, StatsItem> statsItemTable =
         new ConcurrentHashMap<>(128);
 
     private final String statsName;
@@ -35,11 +42,31 @@ public class StatsItemSet {
 
     private final Logger logger;
 
+    /**
+     * Items not updated for this long are evicted, 0 means never
+     */
+    private volatile long itemIdleTimeoutMillis = 0;
+    /**
+     * When there are more items, the least recently active ones are evicted, 0 means unlimited
+     */
+    private volatile int maxItemNum = 0;
+
     public StatsItemSet(String statsName, ScheduledExecutorService scheduledExecutorService, Logger logger) {
+        this(statsName, scheduledExecutorService, logger, true);
+    }
+
+    /**
+     * @param selfSampling whether to schedule sampling and printing tasks for this set, pass false when the set is
+     * registered to a {@link StatsItemSetSampler}
+     */
+    public StatsItemSet(String statsName, ScheduledExecutorService scheduledExecutorService, Logger logger,
+        boolean selfSampling) {
         this.logger = logger;
         this.statsName = statsName;
         this.scheduledExecutorService = scheduledExecutorService;
-        this.init();
+        if (selfSampling) {
+            this.init();
+        }
     }
 
     public void init() {
@@ -49,6 +76,7 @@ public class StatsItemSet {
             public void run() {
                 try {
                     samplingInSeconds();
+                    evictInactiveItems();
                 } catch (Throwable ignored) {
                 }
             }
@@ -105,54 +133,80 @@ public class StatsItemSet {
         }, Math.abs(UtilAll.computeNextMorningTimeMillis() - System.currentTimeMillis()), 1000 * 60 * 60 * 24, TimeUnit.MILLISECONDS);
     }
 
-    private void samplingInSeconds() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void samplingInSeconds() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().samplingInSeconds();
         }
     }
 
-    private void samplingInMinutes() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void samplingInMinutes() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().samplingInMinutes();
         }
     }
 
-    private void samplingInHour() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void samplingInHour() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().samplingInHour();
         }
     }
 
-    private void printAtMinutes() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void printAtMinutes() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().printAtMinutes();
         }
     }
 
-    private void printAtHour() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void printAtHour() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().printAtHour();
         }
     }
 
-    private void printAtDay() {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+    public void printAtDay() {
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
+            Entry<StatsKey, StatsItem> next = it.next();
             next.getValue().printAtDay();
         }
     }
 
+    /**
+     * Evict items idle longer than itemIdleTimeoutMillis, then the least recently active ones beyond maxItemNum.
+     * Activity is refreshed by {@link #samplingInSeconds()}, so the eviction works at the sampling granularity.
+     */
+    public void evictInactiveItems() {
+        long idleTimeout = this.itemIdleTimeoutMillis;
+        if (idleTimeout > 0) {
+            long now = System.currentTimeMillis();
+            this.statsItemTable.values().removeIf(item -> now - item.getLastActiveTimestamp() > idleTimeout);
+        }
+
+        int maxNum = this.maxItemNum;
+        if (maxNum > 0 && this.statsItemTable.size() > maxNum) {
+            List<Entry<StatsKey, StatsItem>> items = new ArrayList<>(this.statsItemTable.entrySet());
+            items.sort(Comparator.comparingLong(entry -> entry.getValue().getLastActiveTimestamp()));
+            int evictNum = items.size() - maxNum;
+            for (int i = 0; i < evictNum; i++) {
+                Entry<StatsKey, StatsItem> entry = items.get(i);
+                this.statsItemTable.remove(entry.getKey(), entry.getValue());
+            }
+            if (logger != null && evictNum > 0) {
+                logger.info("[{}] evict {} least recently active stats items, limit {}", this.statsName, evictNum, maxNum);
+            }
+        }
+    }
+
     public void addValue(final String statsKey, final int incValue, final int incTimes) {
         StatsItem statsItem = this.getAndCreateStatsItem(statsKey);
         statsItem.getValue().add(incValue);
@@ -165,38 +219,72 @@ public class StatsItemSet {
         statsItem.getTimes().add(incTimes);
     }
 
+    /**
+     * Same as {@link #addValue(String, int, int)} with key "keyPrefix@keySuffix", without building the key once the
+     * item exists.
+     */
+    public void addValue(final String keyPrefix, final String keySuffix, final int incValue, final int incTimes) {
+        StatsItem statsItem = this.getAndCreateItem(keyPrefix, keySuffix, false);
+        statsItem.getValue().add(incValue);
+        statsItem.getTimes().add(incTimes);
+    }
+
+    public void addRTValue(final String keyPrefix, final String keySuffix, final int incValue, final int incTimes) {
+        StatsItem statsItem = this.getAndCreateItem(keyPrefix, keySuffix, true);
+        statsItem.getValue().add(incValue);
+        statsItem.getTimes().add(incTimes);
+    }
+
+    /**
+     * Same as {@link #addValue(String, int, int)} with key "queueId@topic", without building the key once the item
+     * exists.
+     */
+    public void addValue(final int queueId, final String topic, final int incValue, final int incTimes) {
+        StatsItem statsItem = this.getAndCreateItem(queueId, topic);
+        statsItem.getValue().add(incValue);
+        statsItem.getTimes().add(incTimes);
+    }
+
+    /**
+     * Same as {@link #addRTValue(String, int, int)} with key "queueId@topic@group", without building the key once the
+     * item exists.
+     */
+    public void addRTValue(final int queueId, final String topic, final String group, final int incValue,
+        final int incTimes) {
+        StatsItem statsItem = this.getAndCreateItem(queueId, topic, group, true);
+        statsItem.getValue().add(incValue);
+        statsItem.getTimes().add(incTimes);
+    }
+
     public void delValue(final String statsKey) {
-        StatsItem statsItem = this.statsItemTable.get(statsKey);
-        if (null != statsItem) {
-            this.statsItemTable.remove(statsKey);
-        }
+        this.statsItemTable.remove(StatsKey.of(statsKey));
     }
 
     public void delValueByPrefixKey(final String statsKey, String separator) {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
-            if (next.getKey().startsWith(statsKey + separator)) {
+            Entry<StatsKey, StatsItem> next = it.next();
+            if (next.getValue().getStatsKey().startsWith(statsKey + separator)) {
                 it.remove();
             }
         }
     }
 
     public void delValueByInfixKey(final String statsKey, String separator) {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
-            if (next.getKey().contains(separator + statsKey + separator)) {
+            Entry<StatsKey, StatsItem> next = it.next();
+            if (next.getValue().getStatsKey().contains(separator + statsKey + separator)) {
                 it.remove();
             }
         }
     }
 
     public void delValueBySuffixKey(final String statsKey, String separator) {
-        Iterator<Entry<String, StatsItem>> it = this.statsItemTable.entrySet().iterator();
+        Iterator<Entry<StatsKey, StatsItem>> it = this.statsItemTable.entrySet().iterator();
         while (it.hasNext()) {
-            Entry<String, StatsItem> next = it.next();
-            if (next.getKey().endsWith(separator + statsKey)) {
+            Entry<StatsKey, StatsItem> next = it.next();
+            if (next.getValue().getStatsKey().endsWith(separator + statsKey)) {
                 it.remove();
             }
         }
@@ -211,14 +299,31 @@ public class StatsItemSet {
     }
 
     public StatsItem getAndCreateItem(final String statsKey, boolean rtItem) {
-        StatsItem statsItem = this.statsItemTable.get(statsKey);
+        return getAndCreateItem(StatsKey.of(statsKey), rtItem);
+    }
+
+    public StatsItem getAndCreateItem(final String keyPrefix, final String keySuffix, boolean rtItem) {
+        return getAndCreateItem(StatsKey.of(keyPrefix, keySuffix), rtItem);
+    }
+
+    public StatsItem getAndCreateItem(final int queueId, final String topic) {
+        return getAndCreateItem(StatsKey.of(queueId, topic), false);
+    }
+
+    public StatsItem getAndCreateItem(final int queueId, final String topic, final String group, boolean rtItem) {
+        return getAndCreateItem(StatsKey.of(queueId, topic, group), rtItem);
+    }
+
+    private StatsItem getAndCreateItem(final StatsKey key, boolean rtItem) {
+        StatsItem statsItem = this.statsItemTable.get(key);
         if (null == statsItem) {
+            String statsKey = key.toString();
             if (rtItem) {
                 statsItem = new RTStatsItem(this.statsName, statsKey, this.scheduledExecutorService, logger);
             } else {
                 statsItem = new StatsItem(this.statsName, statsKey, this.scheduledExecutorService, logger);
             }
-            StatsItem prev = this.statsItemTable.putIfAbsent(statsKey, statsItem);
+            StatsItem prev = this.statsItemTable.putIfAbsent(key, statsItem);
 
             if (null != prev) {
                 statsItem = prev;
@@ -230,7 +335,7 @@ public class StatsItemSet {
     }
 
     public StatsSnapshot getStatsDataInMinute(final String statsKey) {
-        StatsItem statsItem = this.statsItemTable.get(statsKey);
+        StatsItem statsItem = this.statsItemTable.get(StatsKey.of(statsKey));
         if (null != statsItem) {
             return statsItem.getStatsDataInMinute();
         }
@@ -238,7 +343,7 @@ public class StatsItemSet {
     }
 
     public StatsSnapshot getStatsDataInHour(final String statsKey) {
-        StatsItem statsItem = this.statsItemTable.get(statsKey);
+        StatsItem statsItem = this.statsItemTable.get(StatsKey.of(statsKey));
         if (null != statsItem) {
             return statsItem.getStatsDataInHour();
         }
@@ -246,7 +351,7 @@ public class StatsItemSet {
     }
 
     public StatsSnapshot getStatsDataInDay(final String statsKey) {
-        StatsItem statsItem = this.statsItemTable.get(statsKey);
+        StatsItem statsItem = this.statsItemTable.get(StatsKey.of(statsKey));
         if (null != statsItem) {
             return statsItem.getStatsDataInDay();
         }
@@ -254,6 +359,30 @@ public class StatsItemSet {
     }
 
     public StatsItem getStatsItem(final String statsKey) {
-        return this.statsItemTable.get(statsKey);
+        return this.statsItemTable.get(StatsKey.of(statsKey));
+    }
+
+    public int getStatsItemNum() {
+        return this.statsItemTable.size();
+    }
+
+    public String getStatsName() {
+        return statsName;
+    }
+
+    public long getItemIdleTimeoutMillis() {
+        return itemIdleTimeoutMillis;
+    }
+
+    public void setItemIdleTimeoutMillis(long itemIdleTimeoutMillis) {
+        this.itemIdleTimeoutMillis = itemIdleTimeoutMillis;
+    }
+
+    public int getMaxItemNum() {
+        return maxItemNum;
+    }
+
+    public void setMaxItemNum(int maxItemNum) {
+        this.maxItemNum = maxItemNum;
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.common.stats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.rocketmq.common.UtilAll;
+
+/**
+ * Drives sampling, printing and eviction of many {@link StatsItemSet}s with one set of scheduled tasks, instead of
+ * every set scheduling its own.
+ */
+public class StatsItemSetSampler {
+
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final List<StatsItemSet> statsItemSets = new CopyOnWriteArrayList<>();
+
+    public StatsItemSetSampler(ScheduledExecutorService scheduledExecutorService) {
+        this.scheduledExecutorService = scheduledExecutorService;
+    }
+
+    public void register(StatsItemSet statsItemSet) {
+        this.statsItemSets.add(statsItemSet);
+    }
+
+    public void start() {
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(set -> {
+            set.samplingInSeconds();
+            set.evictInactiveItems();
+        }), 0, 10, TimeUnit.SECONDS);
+
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(StatsItemSet::samplingInMinutes),
+            0, 10, TimeUnit.MINUTES);
+
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(StatsItemSet::samplingInHour),
+            0, 1, TimeUnit.HOURS);
+
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(StatsItemSet::printAtMinutes),
+            Math.abs(UtilAll.computeNextMinutesTimeMillis() - System.currentTimeMillis()), 1000 * 60, TimeUnit.MILLISECONDS);
+
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(StatsItemSet::printAtHour),
+            Math.abs(UtilAll.computeNextHourTimeMillis() - System.currentTimeMillis()), 1000 * 60 * 60, TimeUnit.MILLISECONDS);
+
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> forEach(StatsItemSet::printAtDay),
+            Math.abs(UtilAll.computeNextMorningTimeMillis() - System.currentTimeMillis()), 1000 * 60 * 60 * 24, TimeUnit.MILLISECONDS);
+    }
+
+    private void forEach(Consumer<StatsItemSet> action) {
+        for (StatsItemSet statsItemSet : this.statsItemSets) {
+            try {
+                action.accept(statsItemSet);
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+}
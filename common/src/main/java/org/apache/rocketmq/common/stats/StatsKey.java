@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.common.stats;
+
+/**
+ * Key of a {@link StatsItem} in a {@link StatsItemSet}, the parsed form of "[queueId@]first[@second]".
+ * <p>
+ * A leading non-negative number is kept as the queue id, the rest is split at the first '@'. Every way of building a
+ * key ends in the same form as parsing its string, so "1@topic@group" and {@code of(1, "topic", "group")} are equal,
+ * while the hot paths only build the string when their parts contain '@' themselves.
+ */
+final class StatsKey {
+    private static final int NO_QUEUE_ID = -1;
+    private static final char SEPARATOR = '@';
+
+    private final int queueId;
+    private final String first;
+    private final String second;
+    private final int hash;
+
+    private StatsKey(int queueId, String first, String second) {
+        this.queueId = queueId;
+        this.first = first;
+        this.second = second;
+        this.hash = 31 * (31 * queueId + first.hashCode()) + (second == null ? 0 : second.hashCode());
+    }
+
+    static StatsKey of(String statsKey) {
+        String key = String.valueOf(statsKey);
+        int index = key.indexOf(SEPARATOR);
+        int queueId = index > 0 ? parseQueueId(key, index) : NO_QUEUE_ID;
+        if (queueId != NO_QUEUE_ID) {
+            key = key.substring(index + 1);
+            index = key.indexOf(SEPARATOR);
+        }
+        if (index < 0) {
+            return new StatsKey(queueId, key, null);
+        }
+        return new StatsKey(queueId, key.substring(0, index), key.substring(index + 1));
+    }
+
+    /**
+     * Key of "prefix@suffix"
+     */
+    static StatsKey of(String prefix, String suffix) {
+        if (prefix == null || suffix == null || prefix.indexOf(SEPARATOR) >= 0
+            || parseQueueId(prefix, prefix.length()) != NO_QUEUE_ID) {
+            return of(prefix + SEPARATOR + suffix);
+        }
+        return new StatsKey(NO_QUEUE_ID, prefix, suffix);
+    }
+
+    /**
+     * Key of "queueId@topic"
+     */
+    static StatsKey of(int queueId, String topic) {
+        if (queueId < 0 || topic == null || topic.indexOf(SEPARATOR) >= 0) {
+            return of(String.valueOf(queueId) + SEPARATOR + topic);
+        }
+        return new StatsKey(queueId, topic, null);
+    }
+
+    /**
+     * Key of "queueId@topic@group"
+     */
+    static StatsKey of(int queueId, String topic, String group) {
+        if (queueId < 0 || topic == null || group == null || topic.indexOf(SEPARATOR) >= 0) {
+            return of(String.valueOf(queueId) + SEPARATOR + topic + SEPARATOR + group);
+        }
+        return new StatsKey(queueId, topic, group);
+    }
+
+    /**
+     * @return the number before end if it is written without sign or leading zeros and fits in an int, otherwise
+     * NO_QUEUE_ID
+     */
+    private static int parseQueueId(String key, int end) {
+        if (end == 0 || end > 9 || end > 1 && key.charAt(0) == '0') {
+            return NO_QUEUE_ID;
+        }
+        int queueId = 0;
+        for (int i = 0; i < end; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_QUEUE_ID;
+            }
+            queueId = queueId * 10 + c - '0';
+        }
+        return queueId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatsKey)) {
+            return false;
+        }
+        StatsKey other = (StatsKey) o;
+        return queueId == other.queueId && hash == other.hash && first.equals(other.first)
+            && (second == null ? other.second == null : second.equals(other.second));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (queueId != NO_QUEUE_ID) {
+            sb.append(queueId).append(SEPARATOR);
+        }
+        sb.append(first);
+        if (second != null) {
+            sb.append(SEPARATOR).append(second);
+        }
+        return sb.toString();
+    }
+}
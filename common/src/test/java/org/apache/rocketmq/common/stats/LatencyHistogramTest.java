@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.common.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram(1L << 30, 5);
+        for (long value = 0; value < 100000; value++) {
+            int index = histogram.bucketIndex(value);
+            long highest = histogram.highestEquivalentValue(index);
+            assertThat(highest).isGreaterThanOrEqualTo(value);
+            // relative error is bounded by 1 / 2^significantBits
+            assertThat(highest - value).isLessThanOrEqualTo(Math.max(0, value / 32));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(100000);
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getTotalCount()).isEqualTo(10000);
+        assertThat(snapshot.getMax()).isEqualTo(10000);
+        assertThat(snapshot.getMean()).isEqualTo(5000.5);
+        assertThat(snapshot.getValueAtPercentile(50)).isBetween(5000L, 5000L + 5000 / 32);
+        assertThat(snapshot.getValueAtPercentile(99)).isBetween(9900L, 9900L + 9900 / 32);
+        assertThat(snapshot.getValueAtPercentile(99.9)).isBetween(9990L, 10000L);
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(10000);
+    }
+
+    @Test
+    public void testClampAndEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        assertThat(histogram.snapshot().getValueAtPercentile(99)).isEqualTo(0);
+        histogram.record(-1);
+        histogram.record(5000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getTotalCount()).isEqualTo(2);
+        assertThat(snapshot.getMax()).isEqualTo(1000);
+        assertThat(snapshot.getValueAtPercentile(0)).isEqualTo(0);
+    }
+
+    @Test
+    public void testIntervalSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram(100000);
+        assertThat(histogram.getIntervalSnapshot().getTotalCount()).isEqualTo(0);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(10000);
+        }
+        assertThat(histogram.getIntervalSnapshot().getTotalCount()).isEqualTo(0);
+        assertThat(histogram.rollInterval().getValueAtPercentile(99)).isBetween(10000L, 10000L + 10000 / 32);
+
+        for (int i = 0; i < 100; i++) {
+            histogram.record(10);
+        }
+        histogram.rollInterval();
+        // every reader sees the same interval until the next roll
+        for (int i = 0; i < 2; i++) {
+            LatencyHistogram.Snapshot interval = histogram.getIntervalSnapshot();
+            assertThat(interval.getTotalCount()).isEqualTo(100);
+            assertThat(interval.getValueAtPercentile(99)).isEqualTo(10);
+            assertThat(interval.getMax()).isEqualTo(10);
+        }
+        assertThat(histogram.rollInterval().getTotalCount()).isEqualTo(0);
+        assertThat(histogram.snapshot().getTotalCount()).isEqualTo(200);
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(100000);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(histogram.getStripeCount()).isBetween(1, LatencyHistogram.MAX_STRIPES);
+        // the values are kept once the recording threads have exited
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getTotalCount()).isEqualTo(80000);
+        assertThat(snapshot.getSum()).isEqualTo(8L * 9999 * 10000 / 2);
+        assertThat(snapshot.getMax()).isEqualTo(9999);
+
+        histogram.record(100);
+        assertThat(histogram.snapshot().getTotalCount()).isEqualTo(80001);
+    }
+
+    @Test
+    public void testHistogramSetBoundsKeys() {
+        LatencyHistogramSet histogramSet = new LatencyHistogramSet("test", 2, 1000);
+        histogramSet.record("a", 1);
+        histogramSet.record("b", 2);
+        histogramSet.record("c", 3);
+        histogramSet.record("d", 4);
+        assertThat(histogramSet.size()).isEqualTo(2);
+        assertThat(histogramSet.getHistogram("c")).isNull();
+        assertThat(histogramSet.getHistogram(LatencyHistogramSet.OTHERS_KEY).snapshot().getTotalCount()).isEqualTo(2);
+
+        List<String> keys = new ArrayList<>();
+        histogramSet.forEach((key, histogram) -> keys.add(key));
+        assertThat(keys).containsExactlyInAnyOrder("a", "b", LatencyHistogramSet.OTHERS_KEY);
+
+        histogramSet.removeHistogram("a");
+        histogramSet.record("e", 5);
+        assertThat(histogramSet.getHistogram("e")).isNotNull();
+    }
+}
@@ -30,6 +30,8 @@ import org.junit.After;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class StatsItemSetTest {
 
@@ -139,8 +141,64 @@ public class StatsItemSetTest {
         return statsItemSet.getAndCreateStatsItem("test").getValue();
     }
 
+    @Test
+    public void test_compositeKey() {
+        final StatsItemSet statsItemSet = new StatsItemSet("compositeTest", scheduler, null, false);
+        statsItemSet.addValue("topic", "group", 2, 1);
+        statsItemSet.addValue("topic", "group", 3, 1);
+        statsItemSet.addValue(1, "topic", 4, 1);
+
+        StatsItem statsItem = statsItemSet.getStatsItem("topic@group");
+        assertEquals(5L, statsItem.getValue().longValue());
+        assertEquals(2L, statsItem.getTimes().longValue());
+        assertEquals(4L, statsItemSet.getStatsItem("1@topic").getValue().longValue());
+
+        // the structured keys and the key strings address the same items
+        statsItemSet.addRTValue(1, "topic", "group", 6, 1);
+        statsItemSet.addValue("1@topic@group", 1, 1);
+        assertEquals(7L, statsItemSet.getStatsItem("1@topic@group").getValue().longValue());
+        assertEquals("1@topic@group", statsItemSet.getStatsItem("1@topic@group").getStatsKey());
+        statsItemSet.addValue("2", "topic", 1, 1);
+        statsItemSet.addValue(2, "topic", 1, 1);
+        assertEquals(2L, statsItemSet.getStatsItem("2@topic").getValue().longValue());
+        statsItemSet.addValue("a@b", "c", 1, 1);
+        statsItemSet.addValue("a", "b@c", 1, 1);
+        assertEquals(2L, statsItemSet.getStatsItem("a@b@c").getValue().longValue());
+
+        // a deleted item is recreated instead of being updated through the stale index
+        statsItemSet.delValueByPrefixKey("topic", "@");
+        statsItemSet.addValue("topic", "group", 1, 1);
+        assertEquals(1L, statsItemSet.getStatsItem("topic@group").getValue().longValue());
+    }
+
+    @Test
+    public void test_evictInactiveItems() throws InterruptedException {
+        final StatsItemSet statsItemSet = new StatsItemSet("evictTest", scheduler, null, false);
+        statsItemSet.setMaxItemNum(2);
+        statsItemSet.addValue("a", 1, 1);
+        Thread.sleep(5);
+        statsItemSet.addValue("b", 1, 1);
+        Thread.sleep(5);
+        statsItemSet.addValue("c", 1, 1);
+        statsItemSet.evictInactiveItems();
+        assertEquals(2, statsItemSet.getStatsItemNum());
+        assertNull(statsItemSet.getStatsItem("a"));
+
+        statsItemSet.setMaxItemNum(0);
+        statsItemSet.setItemIdleTimeoutMillis(500);
+        statsItemSet.samplingInSeconds();
+        Thread.sleep(600);
+        statsItemSet.addValue("d", 1, 1);
+        statsItemSet.samplingInSeconds();
+        statsItemSet.evictInactiveItems();
+        assertNull(statsItemSet.getStatsItem("b"));
+        assertNotNull(statsItemSet.getStatsItem("d"));
+    }
+
     @After
     public void shutdown() {
-        executor.shutdown();
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 }
\ No newline at end of file
@@ -109,6 +109,7 @@ public class ControllerManager {
             try {
                 this.controller = new JRaftController(controllerConfig, this.brokerHousekeepingService);
                 ((RaftBrokerHeartBeatManager) this.heartbeatManager).setController((JRaftController) this.controller);
+                ((JRaftController) this.controller).setBrokerHeartbeatManager((RaftBrokerHeartBeatManager) this.heartbeatManager);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
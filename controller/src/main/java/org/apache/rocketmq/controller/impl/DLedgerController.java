@@ -26,9 +26,13 @@ import io.openmessaging.storage.dledger.protocol.AppendEntryRequest;
 import io.openmessaging.storage.dledger.protocol.AppendEntryResponse;
 import io.openmessaging.storage.dledger.protocol.BatchAppendEntryRequest;
 import io.opentelemetry.api.common.AttributesBuilder;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -117,7 +121,7 @@ public class DLedgerController implements Controller {
         final NettyClientConfig nettyClientConfig, final ChannelEventListener channelEventListener,
         final ElectPolicy electPolicy) {
         this.controllerConfig = controllerConfig;
-        this.eventSerializer = new EventSerializer();
+        this.eventSerializer = new EventSerializer(controllerConfig.isEnableBinaryEventSerialization());
         this.scheduler = new EventScheduler();
         this.brokerAlivePredicate = brokerAlivePredicate;
         this.electPolicy = electPolicy == null ? new DefaultElectPolicy() : electPolicy;
@@ -130,7 +134,10 @@ public class DLedgerController implements Controller {
 
         this.roleHandler = new RoleChangeHandler(dLedgerConfig.getSelfId());
         this.replicasInfoManager = new ReplicasInfoManager(controllerConfig);
-        this.statemachine = new DLedgerControllerStateMachine(replicasInfoManager, this.eventSerializer, dLedgerConfig.getGroup(), dLedgerConfig.getSelfId());
+        this.statemachine = new DLedgerControllerStateMachine(replicasInfoManager, this.eventSerializer, dLedgerConfig.getGroup(), dLedgerConfig.getSelfId(),
+            controllerConfig.getControllerStorePath() + File.separator + "statemachine" + File.separator + "snapshot",
+            controllerConfig.getStateMachineSnapshotThreshold());
+        this.statemachine.loadSnapshot();
 
         // Register statemachine and role handler.
         this.dLedgerServer = new DLedgerServer(dLedgerConfig, nettyServerConfig, nettyClientConfig, channelEventListener);
@@ -180,7 +187,8 @@ public class DLedgerController implements Controller {
     public CompletableFuture<RemotingCommand> alterSyncStateSet(AlterSyncStateSetRequestHeader request,
         final SyncStateSet syncStateSet) {
         return this.scheduler.appendEvent("alterSyncStateSet",
-            () -> this.replicasInfoManager.alterSyncStateSet(request, syncStateSet, this.brokerAlivePredicate), true);
+            () -> this.replicasInfoManager.alterSyncStateSet(request, syncStateSet, this.brokerAlivePredicate), true,
+            request.getBrokerName());
     }
 
     @Override
@@ -209,7 +217,7 @@ public class DLedgerController implements Controller {
                         break;
                 }
                 return electResult;
-            }, true);
+            }, true, request.getBrokerName());
     }
 
     @Override
@@ -219,12 +227,14 @@ public class DLedgerController implements Controller {
 
     @Override
     public CompletableFuture<RemotingCommand> applyBrokerId(ApplyBrokerIdRequestHeader request) {
-        return this.scheduler.appendEvent("applyBrokerId", () -> this.replicasInfoManager.applyBrokerId(request), true);
+        return this.scheduler.appendEvent("applyBrokerId", () -> this.replicasInfoManager.applyBrokerId(request), true,
+            request.getBrokerName());
     }
 
     @Override
     public CompletableFuture<RemotingCommand> registerBroker(RegisterBrokerToControllerRequestHeader request) {
-        return this.scheduler.appendEvent("registerSuccess", () -> this.replicasInfoManager.registerBroker(request, brokerAlivePredicate), true);
+        return this.scheduler.appendEvent("registerSuccess", () -> this.replicasInfoManager.registerBroker(request, brokerAlivePredicate), true,
+            request.getBrokerName());
     }
 
     @Override
@@ -324,6 +334,27 @@ public class DLedgerController implements Controller {
         return false;
     }
 
+    /**
+     * Append the serialized events to DLedger in one batch, or an empty entry if there is no event but the read event
+     * should be processed.
+     */
+    private boolean appendEvents(final List<byte[]> eventBytes) {
+        if (eventBytes.isEmpty()) {
+            if (this.controllerConfig.isProcessReadEvent()) {
+                // Now the DLedger don't have the function of Read-Index or Lease-Read,
+                // So we still need to propose an empty request to DLedger.
+                final AppendEntryRequest request = new AppendEntryRequest();
+                request.setBody(new byte[0]);
+                return appendToDLedgerAndWait(request);
+            }
+            return true;
+        }
+        // batch append events
+        final BatchAppendEntryRequest request = new BatchAppendEntryRequest();
+        request.setBatchMsgs(eventBytes);
+        return appendToDLedgerAndWait(request);
+    }
+
     // Only for test
     public MemberState getMemberState() {
         return this.dLedgerServer.getMemberState();
@@ -362,6 +393,22 @@ public class DLedgerController implements Controller {
          * Handle Exception.
          */
         void handleException(final Throwable t);
+
+        /**
+         * Return the broker-set the event writes, the write events on different broker-sets could be proposed in
+         * one batch, null if the event could not be batched
+         */
+        String batchKey();
+
+        /**
+         * Get the result of the event, and return the serialized events to append.
+         */
+        List<byte[]> prepare() throws Throwable;
+
+        /**
+         * Complete the future after the serialized events are appended.
+         */
+        void complete(boolean appendSuccess);
     }
 
     /**
@@ -382,6 +429,7 @@ public class DLedgerController implements Controller {
         @Override
         public void run() {
             log.info("Start event scheduler.");
+            final int maxBatchSize = DLedgerController.this.controllerConfig.getMaxEventBatchSize();
             while (!isStopped()) {
                 EventHandler handler;
                 try {
@@ -389,6 +437,10 @@ public class DLedgerController implements Controller {
                 } catch (final InterruptedException e) {
                     continue;
                 }
+                if (handler != null && maxBatchSize > 1 && handler.batchKey() != null) {
+                    runBatch(pollBatch(handler, maxBatchSize));
+                    continue;
+                }
                 try {
                     if (handler != null) {
                         handler.run();
@@ -399,8 +451,52 @@ public class DLedgerController implements Controller {
             }
         }
 
+        /**
+         * Poll the queued write events following the first one until an event on a broker-set already in the batch.
+         * The events on different broker-sets do not depend on the state changed by each other, so that they could be
+         * prepared before any of them is applied.
+         */
+        private List<EventHandler> pollBatch(final EventHandler first, final int maxBatchSize) {
+            final List<EventHandler> batch = new ArrayList<>();
+            final Set<String> batchKeys = new HashSet<>();
+            batch.add(first);
+            batchKeys.add(first.batchKey());
+            EventHandler next;
+            while (batch.size() < maxBatchSize && (next = this.eventQueue.peek()) != null
+                && next.batchKey() != null && batchKeys.add(next.batchKey())) {
+                batch.add(this.eventQueue.poll());
+            }
+            return batch;
+        }
+
+        private void runBatch(final List<EventHandler> batch) {
+            final List<EventHandler> prepared = new ArrayList<>(batch.size());
+            final List<byte[]> eventBytes = new ArrayList<>();
+            for (final EventHandler handler : batch) {
+                try {
+                    eventBytes.addAll(handler.prepare());
+                    prepared.add(handler);
+                } catch (final Throwable e) {
+                    handler.handleException(e);
+                }
+            }
+            if (prepared.isEmpty()) {
+                return;
+            }
+            final boolean appendSuccess = appendEvents(eventBytes);
+            ControllerMetricsManager.eventBatchSize.record(prepared.size(), ControllerMetricsManager.newAttributesBuilder().build());
+            for (final EventHandler handler : prepared) {
+                handler.complete(appendSuccess);
+            }
+        }
+
         public <T> CompletableFuture<RemotingCommand> appendEvent(final String name,
             final Supplier<ControllerResult<T>> supplier, boolean isWriteEvent) {
+            return appendEvent(name, supplier, isWriteEvent, null);
+        }
+
+        public <T> CompletableFuture<RemotingCommand> appendEvent(final String name,
+            final Supplier<ControllerResult<T>> supplier, boolean isWriteEvent, final String batchKey) {
             if (isStopped() || !DLedgerController.this.roleHandler.isLeaderState()) {
                 final RemotingCommand command = RemotingCommand.createResponseCommand(ResponseCode.CONTROLLER_NOT_LEADER, "The controller is not in leader state");
                 final CompletableFuture<RemotingCommand> future = new CompletableFuture<>();
@@ -408,7 +504,7 @@ public class DLedgerController implements Controller {
                 return future;
             }
 
-            final EventHandler<T> event = new ControllerEventHandler<>(name, supplier, isWriteEvent);
+            final EventHandler<T> event = new ControllerEventHandler<>(name, supplier, isWriteEvent, isWriteEvent ? batchKey : null);
             int tryTimes = 0;
             while (true) {
                 try {
@@ -435,66 +531,67 @@ public class DLedgerController implements Controller {
         private final Supplier<ControllerResult<T>> supplier;
         private final CompletableFuture<RemotingCommand> future;
         private final boolean isWriteEvent;
+        private final String batchKey;
+        private ControllerResult<T> result;
 
         ControllerEventHandler(final String name, final Supplier<ControllerResult<T>> supplier,
-            final boolean isWriteEvent) {
+            final boolean isWriteEvent, final String batchKey) {
             this.name = name;
             this.supplier = supplier;
             this.future = new CompletableFuture<>();
             this.isWriteEvent = isWriteEvent;
+            this.batchKey = batchKey;
         }
 
         @Override
         public void run() throws Throwable {
-            final ControllerResult<T> result = this.supplier.get();
-            log.info("Event queue run event {}, get the result {}", this.name, result);
-            boolean appendSuccess = true;
+            complete(appendEvents(prepare()));
+        }
 
-            if (!this.isWriteEvent || result.getEvents() == null || result.getEvents().isEmpty()) {
+        @Override
+        public List<byte[]> prepare() {
+            this.result = this.supplier.get();
+            log.info("Event queue run event {}, get the result {}", this.name, this.result);
+            if (!this.isWriteEvent || this.result.getEvents() == null || this.result.getEvents().isEmpty()) {
                 // read event, or write event with empty events in response which also equals to read event
-                if (DLedgerController.this.controllerConfig.isProcessReadEvent()) {
-                    // Now the DLedger don't have the function of Read-Index or Lease-Read,
-                    // So we still need to propose an empty request to DLedger.
-                    final AppendEntryRequest request = new AppendEntryRequest();
-                    request.setBody(new byte[0]);
-                    appendSuccess = appendToDLedgerAndWait(request);
-                }
-            } else {
-                // write event
-                final List<EventMessage> events = result.getEvents();
-                final List<byte[]> eventBytes = new ArrayList<>(events.size());
-                for (final EventMessage event : events) {
-                    if (event != null) {
-                        final byte[] data = DLedgerController.this.eventSerializer.serialize(event);
-                        if (data != null && data.length > 0) {
-                            eventBytes.add(data);
-                        }
+                return Collections.emptyList();
+            }
+            // write event
+            final List<EventMessage> events = this.result.getEvents();
+            final List<byte[]> eventBytes = new ArrayList<>(events.size());
+            for (final EventMessage event : events) {
+                if (event != null) {
+                    final byte[] data = DLedgerController.this.eventSerializer.serialize(event);
+                    if (data != null && data.length > 0) {
+                        eventBytes.add(data);
                     }
                 }
-                // Append events to DLedger
-                if (!eventBytes.isEmpty()) {
-                    // batch append events
-                    final BatchAppendEntryRequest request = new BatchAppendEntryRequest();
-                    request.setBatchMsgs(eventBytes);
-                    appendSuccess = appendToDLedgerAndWait(request);
-                }
             }
+            return eventBytes;
+        }
 
+        @Override
+        public void complete(final boolean appendSuccess) {
             if (appendSuccess) {
-                final RemotingCommand response = RemotingCommand.createResponseCommandWithHeader(result.getResponseCode(), (CommandCustomHeader) result.getResponse());
-                if (result.getBody() != null) {
-                    response.setBody(result.getBody());
+                final RemotingCommand response = RemotingCommand.createResponseCommandWithHeader(this.result.getResponseCode(), (CommandCustomHeader) this.result.getResponse());
+                if (this.result.getBody() != null) {
+                    response.setBody(this.result.getBody());
                 }
-                if (result.getRemark() != null) {
-                    response.setRemark(result.getRemark());
+                if (this.result.getRemark() != null) {
+                    response.setRemark(this.result.getRemark());
                 }
                 this.future.complete(response);
             } else {
-                log.error("Failed to append event to DLedger, the response is {}, try cancel the future", result.getResponse());
+                log.error("Failed to append event to DLedger, the response is {}, try cancel the future", this.result.getResponse());
                 this.future.cancel(true);
             }
         }
 
+        @Override
+        public String batchKey() {
+            return this.batchKey;
+        }
+
         @Override
         public CompletableFuture<RemotingCommand> future() {
             return this.future;
@@ -28,31 +28,61 @@ import org.apache.rocketmq.controller.impl.manager.ReplicasInfoManager;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
 
 /**
  * The state machine implementation of the dledger controller
+ * <p>
+ * DLedger does not take snapshots itself, so the state machine saves the state to a local snapshot file every
+ * snapshotThreshold applied entries. A restart loads the snapshot and only applies the entries after it, the entries
+ * covered by the snapshot are still read from the log but skipped.
  */
 public class DLedgerControllerStateMachine implements StateMachine {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.CONTROLLER_LOGGER_NAME);
+    private static final int SNAPSHOT_MAGIC = 0xC0DE5A7E;
+    // magic, applied index, data length, data crc
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 8 + 4 + 4;
     private final ReplicasInfoManager replicasInfoManager;
     private final EventSerializer eventSerializer;
     private final String dLedgerId;
+    private final String snapshotPath;
+    private final int snapshotThreshold;
+    // The index of the last entry covered by the snapshot
+    private volatile long snapshotIndex = -1;
+    private int appliedSinceSnapshot = 0;
 
     public DLedgerControllerStateMachine(final ReplicasInfoManager replicasInfoManager,
         final EventSerializer eventSerializer, final String dLedgerGroupId, final String dLedgerSelfId) {
+        this(replicasInfoManager, eventSerializer, dLedgerGroupId, dLedgerSelfId, null, 0);
+    }
+
+    public DLedgerControllerStateMachine(final ReplicasInfoManager replicasInfoManager,
+        final EventSerializer eventSerializer, final String dLedgerGroupId, final String dLedgerSelfId,
+        final String snapshotPath, final int snapshotThreshold) {
         this.replicasInfoManager = replicasInfoManager;
         this.eventSerializer = eventSerializer;
         this.dLedgerId = generateDLedgerId(dLedgerGroupId, dLedgerSelfId);
+        this.snapshotPath = snapshotPath;
+        this.snapshotThreshold = snapshotThreshold;
     }
 
     @Override
     public void onApply(CommittedEntryIterator iterator) {
         int applyingSize = 0;
+        int skippedSize = 0;
         long firstApplyIndex = -1;
         long lastApplyIndex = -1;
         while (iterator.hasNext()) {
             final DLedgerEntry entry = iterator.next();
+            if (entry.getIndex() <= this.snapshotIndex) {
+                skippedSize++;
+                continue;
+            }
             final byte[] body = entry.getBody();
             if (body != null && body.length > 0) {
                 final EventMessage event = this.eventSerializer.deserialize(body);
@@ -61,10 +91,92 @@ public class DLedgerControllerStateMachine implements StateMachine {
             firstApplyIndex = firstApplyIndex == -1 ? entry.getIndex() : firstApplyIndex;
             lastApplyIndex = entry.getIndex();
             applyingSize++;
+            if (this.snapshotThreshold > 0 && ++this.appliedSinceSnapshot >= this.snapshotThreshold) {
+                saveSnapshot(entry.getIndex());
+            }
+        }
+        if (skippedSize > 0) {
+            log.info("Skip {} events covered by the snapshot at index {} on controller {}", skippedSize, this.snapshotIndex, this.dLedgerId);
         }
         log.info("Apply {} events index from {} to {} on controller {}", applyingSize, firstApplyIndex, lastApplyIndex, this.dLedgerId);
     }
 
+    /**
+     * Load the snapshot before the DLedger server starts to apply the committed entries.
+     *
+     * @return true if a snapshot is loaded
+     */
+    public boolean loadSnapshot() {
+        if (this.snapshotPath == null) {
+            return false;
+        }
+        final File file = new File(this.snapshotPath);
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignore the invalid snapshot {} on controller {}", this.snapshotPath, this.dLedgerId);
+                return false;
+            }
+            final long index = buffer.getLong();
+            final int length = buffer.getInt();
+            final int crc = buffer.getInt();
+            if (length != buffer.remaining()) {
+                log.warn("Ignore the incomplete snapshot {} on controller {}", this.snapshotPath, this.dLedgerId);
+                return false;
+            }
+            final byte[] data = new byte[length];
+            buffer.get(data);
+            final CRC32 crc32 = new CRC32();
+            crc32.update(data);
+            if ((int) crc32.getValue() != crc) {
+                log.warn("Ignore the corrupted snapshot {} on controller {}", this.snapshotPath, this.dLedgerId);
+                return false;
+            }
+            this.replicasInfoManager.deserializeFrom(data);
+            this.snapshotIndex = index;
+            log.info("Load snapshot at index {} from {} on controller {}", index, this.snapshotPath, this.dLedgerId);
+            return true;
+        } catch (Throwable e) {
+            log.error("Fail to load snapshot from {} on controller {}", this.snapshotPath, this.dLedgerId, e);
+            return false;
+        }
+    }
+
+    private void saveSnapshot(final long index) {
+        this.appliedSinceSnapshot = 0;
+        if (this.snapshotPath == null) {
+            return;
+        }
+        try {
+            final byte[] data = this.replicasInfoManager.serialize();
+            final CRC32 crc32 = new CRC32();
+            crc32.update(data);
+            final ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + data.length);
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putLong(index);
+            buffer.putInt(data.length);
+            buffer.putInt((int) crc32.getValue());
+            buffer.put(data);
+
+            final File file = new File(this.snapshotPath);
+            final File tmpFile = new File(this.snapshotPath + ".tmp");
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            Files.write(tmpFile.toPath(), buffer.array());
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.snapshotIndex = index;
+            log.info("Save snapshot at index {} to {} on controller {}", index, this.snapshotPath, this.dLedgerId);
+        } catch (Throwable e) {
+            log.error("Fail to save snapshot at index {} to {} on controller {}", index, this.snapshotPath, this.dLedgerId, e);
+        }
+    }
+
+    public long getSnapshotIndex() {
+        return snapshotIndex;
+    }
+
     @Override
     public void onSnapshotSave(SnapshotWriter writer, CompletableFuture<Boolean> future) {
     }
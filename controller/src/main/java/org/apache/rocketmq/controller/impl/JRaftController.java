@@ -30,6 +30,8 @@ import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.controller.Controller;
 import org.apache.rocketmq.controller.helper.BrokerLifecycleListener;
 import org.apache.rocketmq.controller.impl.closure.ControllerClosure;
+import org.apache.rocketmq.controller.impl.heartbeat.BrokerLiveInfo;
+import org.apache.rocketmq.controller.impl.heartbeat.RaftBrokerHeartBeatManager;
 import org.apache.rocketmq.controller.impl.task.BrokerCloseChannelRequest;
 import org.apache.rocketmq.controller.impl.task.CheckNotActiveBrokerRequest;
 import org.apache.rocketmq.controller.impl.task.GetBrokerLiveInfoRequest;
@@ -73,6 +75,7 @@ public class JRaftController implements Controller {
     private final List<BrokerLifecycleListener> brokerLifecycleListeners;
     private final Map<PeerId/* jRaft peerId */, String/* Controller RPC Server Addr */> peerIdToAddr;
     private final NettyRemotingServer remotingServer;
+    private RaftBrokerHeartBeatManager brokerHeartbeatManager;
 
     public JRaftController(ControllerConfig controllerConfig,
         final ChannelEventListener channelEventListener) throws IOException {
@@ -179,9 +182,20 @@ public class JRaftController implements Controller {
         return applyToJRaft(requestCommand);
     }
 
+    public void setBrokerHeartbeatManager(RaftBrokerHeartBeatManager brokerHeartbeatManager) {
+        this.brokerHeartbeatManager = brokerHeartbeatManager;
+    }
+
     @Override
     public CompletableFuture<RemotingCommand> electMaster(ElectMasterRequestHeader request) {
         final RemotingCommand requestCommand = RemotingCommand.createRequestCommand(RequestCode.CONTROLLER_ELECT_MASTER, request);
+        if (this.brokerHeartbeatManager != null) {
+            // the offsets tracked by the leader are not replicated, attach them for the election
+            final Map<Long, BrokerLiveInfo> liveInfoMap = this.brokerHeartbeatManager.getLocalBrokerLiveInfo(request.getClusterName(), request.getBrokerName());
+            if (!liveInfoMap.isEmpty()) {
+                requestCommand.setBody(RemotingSerializable.encode(liveInfoMap));
+            }
+        }
         return applyToJRaft(requestCommand);
     }
 
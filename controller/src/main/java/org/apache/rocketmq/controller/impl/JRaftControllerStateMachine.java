@@ -16,6 +16,8 @@
  */
 package org.apache.rocketmq.controller.impl;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
 import com.alipay.sofa.jraft.Closure;
 import com.alipay.sofa.jraft.Iterator;
 import com.alipay.sofa.jraft.StateMachine;
@@ -35,6 +37,7 @@ import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.controller.elect.impl.DefaultElectPolicy;
 import org.apache.rocketmq.controller.impl.closure.ControllerClosure;
 import org.apache.rocketmq.controller.impl.event.ControllerResult;
+import org.apache.rocketmq.controller.impl.heartbeat.BrokerLiveInfo;
 import org.apache.rocketmq.controller.impl.manager.RaftReplicasInfoManager;
 import org.apache.rocketmq.controller.impl.task.BrokerCloseChannelRequest;
 import org.apache.rocketmq.controller.impl.task.CheckNotActiveBrokerRequest;
@@ -68,7 +71,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_BROKER_SET;
@@ -118,7 +123,7 @@ public class JRaftControllerStateMachine implements StateMachine {
                     break;
                 case RequestCode.CONTROLLER_ELECT_MASTER:
                     ElectMasterRequestHeader electMasterRequestHeader = (ElectMasterRequestHeader) request.decodeCommandCustomHeader(ElectMasterRequestHeader.class);
-                    result = electMaster(electMasterRequestHeader);
+                    result = electMaster(electMasterRequestHeader, request.getBody());
                     break;
                 case RequestCode.CONTROLLER_GET_NEXT_BROKER_ID:
                     GetNextBrokerIdRequestHeader getNextBrokerIdRequestHeader = (GetNextBrokerIdRequestHeader) request.decodeCommandCustomHeader(GetNextBrokerIdRequestHeader.class);
@@ -184,10 +189,21 @@ public class JRaftControllerStateMachine implements StateMachine {
         return replicasInfoManager.alterSyncStateSet(requestHeader, syncStateSet, new RaftReplicasInfoManager.BrokerValidPredicateWithInvokeTime(requestHeader.getInvokeTime(), this.replicasInfoManager));
     }
 
-    private ControllerResult<ElectMasterResponseHeader> electMaster(ElectMasterRequestHeader request) {
+    /**
+     * @param leaderLiveInfoBody the live info of the broker set tracked by the leader, the candidates are ranked by the
+     * offsets in it as they are not replicated with every heartbeat
+     */
+    private ControllerResult<ElectMasterResponseHeader> electMaster(ElectMasterRequestHeader request, byte[] leaderLiveInfoBody) {
+        final Map<Long, BrokerLiveInfo> leaderLiveInfoMap = leaderLiveInfoBody == null ? Collections.emptyMap()
+            : JSON.parseObject(leaderLiveInfoBody, new TypeReference<Map<Long, BrokerLiveInfo>>() {
+            }.getType());
         ControllerResult<ElectMasterResponseHeader> electResult = this.replicasInfoManager.electMaster(request, new DefaultElectPolicy(
             (clusterName, brokerName, brokerId) -> replicasInfoManager.isBrokerActive(clusterName, brokerName, brokerId, request.getInvokeTime()),
-            replicasInfoManager::getBrokerLiveInfo
+            (clusterName, brokerName, brokerId) -> {
+                final BrokerLiveInfo liveInfo = replicasInfoManager.getBrokerLiveInfo(clusterName, brokerName, brokerId);
+                final BrokerLiveInfo leaderLiveInfo = leaderLiveInfoMap.get(brokerId);
+                return liveInfo != null && leaderLiveInfo != null ? leaderLiveInfo : liveInfo;
+            }
         ));
         log.info("elect master, request :{}, result: {}", request.toString(), electResult.toString());
         AttributesBuilder attributesBuilder = ControllerMetricsManager.newAttributesBuilder()
@@ -16,17 +16,37 @@
  */
 package org.apache.rocketmq.controller.impl.event;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
 import org.apache.commons.lang3.SerializationException;
 import org.apache.rocketmq.common.utils.FastJsonSerializer;
 
 /**
  * EventMessage serializer
+ * <p>
+ * Each event starts with the short event type id. The id of an event in the binary format is marked with
+ * {@link #BINARY_FLAG}, followed by the fields in order, otherwise it is followed by the json of the event.
+ * Both formats could always be deserialized.
  */
 public class EventSerializer {
+    private static final short BINARY_FLAG = 0x4000;
+
     private final FastJsonSerializer serializer;
+    private final boolean binary;
 
     public EventSerializer() {
+        this(false);
+    }
+
+    public EventSerializer(boolean binary) {
         this.serializer = new FastJsonSerializer();
+        this.binary = binary;
     }
 
     private void putShort(byte[] memory, int index, int value) {
@@ -39,6 +59,9 @@ public class EventSerializer {
     }
 
     public byte[] serialize(EventMessage message) throws SerializationException {
+        if (this.binary) {
+            return serializeBinary(message);
+        }
         final short eventType = message.getEventType().getId();
         final byte[] data = this.serializer.serialize(message);
         if (data != null && data.length > 0) {
@@ -55,6 +78,9 @@ public class EventSerializer {
             return null;
         }
         final short eventId = getShort(bytes, 0);
+        if ((eventId & BINARY_FLAG) != 0) {
+            return deserializeBinary((short) (eventId & ~BINARY_FLAG), bytes);
+        }
         if (eventId > 0) {
             final byte[] data = new byte[bytes.length - 2];
             System.arraycopy(bytes, 2, data, 0, data.length);
@@ -78,4 +104,140 @@ public class EventSerializer {
         }
         return null;
     }
+
+    private byte[] serializeBinary(EventMessage message) throws SerializationException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(outputStream)) {
+            out.writeShort(message.getEventType().getId() | BINARY_FLAG);
+            switch (message.getEventType()) {
+                case ALTER_SYNC_STATE_SET_EVENT: {
+                    final AlterSyncStateSetEvent event = (AlterSyncStateSetEvent) message;
+                    writeString(out, event.getBrokerName());
+                    writeLongSet(out, event.getNewSyncStateSet());
+                    break;
+                }
+                case APPLY_BROKER_ID_EVENT: {
+                    final ApplyBrokerIdEvent event = (ApplyBrokerIdEvent) message;
+                    writeString(out, event.getClusterName());
+                    writeString(out, event.getBrokerName());
+                    writeString(out, event.getBrokerAddress());
+                    out.writeLong(event.getNewBrokerId());
+                    writeString(out, event.getRegisterCheckCode());
+                    break;
+                }
+                case ELECT_MASTER_EVENT: {
+                    final ElectMasterEvent event = (ElectMasterEvent) message;
+                    out.writeBoolean(event.getNewMasterElected());
+                    writeString(out, event.getBrokerName());
+                    writeLong(out, event.getNewMasterBrokerId());
+                    break;
+                }
+                case CLEAN_BROKER_DATA_EVENT: {
+                    final CleanBrokerDataEvent event = (CleanBrokerDataEvent) message;
+                    writeString(out, event.getBrokerName());
+                    writeLongSet(out, event.getBrokerIdSetToClean());
+                    break;
+                }
+                case UPDATE_BROKER_ADDRESS: {
+                    final UpdateBrokerAddressEvent event = (UpdateBrokerAddressEvent) message;
+                    writeString(out, event.getClusterName());
+                    writeString(out, event.getBrokerName());
+                    writeString(out, event.getBrokerAddress());
+                    writeLong(out, event.getBrokerId());
+                    break;
+                }
+                default:
+                    return null;
+            }
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private EventMessage deserializeBinary(short eventId, byte[] bytes) throws SerializationException {
+        final EventType eventType = EventType.from(eventId);
+        if (eventType == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            switch (eventType) {
+                case ALTER_SYNC_STATE_SET_EVENT:
+                    return new AlterSyncStateSetEvent(readString(in), readLongSet(in));
+                case APPLY_BROKER_ID_EVENT: {
+                    final String clusterName = readString(in);
+                    final String brokerName = readString(in);
+                    final String brokerAddress = readString(in);
+                    final long newBrokerId = in.readLong();
+                    return new ApplyBrokerIdEvent(clusterName, brokerName, brokerAddress, newBrokerId, readString(in));
+                }
+                case ELECT_MASTER_EVENT: {
+                    final boolean newMasterElected = in.readBoolean();
+                    return new ElectMasterEvent(newMasterElected, readString(in), readLong(in));
+                }
+                case CLEAN_BROKER_DATA_EVENT:
+                    return new CleanBrokerDataEvent(readString(in), readLongSet(in));
+                case UPDATE_BROKER_ADDRESS:
+                    return new UpdateBrokerAddressEvent(readString(in), readString(in), readString(in), readLong(in));
+                default:
+                    return null;
+            }
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] data = new byte[length];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeLongSet(DataOutputStream out, Set<Long> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (Long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Set<Long> readLongSet(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        final Set<Long> values = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readLong());
+        }
+        return values;
+    }
 }
@@ -27,7 +27,7 @@ public class BrokerLiveInfo implements Serializable {
     private long heartbeatTimeoutMillis;
     private Channel channel;
     private long brokerId;
-    private long lastUpdateTimestamp;
+    private volatile long lastUpdateTimestamp;
     private int epoch;
     private long maxOffset;
     private long confirmOffset;
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.controller.impl.heartbeat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel over the heartbeat deadlines of the brokers in a live table.
+ * <p>
+ * A heartbeat only refreshes the timestamp of its {@link BrokerLiveInfo}, the wheel is not touched. Each broker is
+ * checked once its deadline bucket is due and put back to the bucket of its new deadline if it heartbeated in the
+ * meantime, so an expiry check costs the number of brokers due in the elapsed ticks instead of the whole table.
+ * <p>
+ * {@link #add} could be called by any thread, {@link #expire} must be called by one thread only.
+ */
+public class BrokerLiveTimeWheel {
+
+    private final Map<BrokerIdentityInfo, BrokerLiveInfo> brokerLiveTable;
+    private final long tickMillis;
+    private final int mask;
+    private final List<TimeWheelEntry>[] buckets;
+    private final Queue<TimeWheelEntry> pendingQueue = new ConcurrentLinkedQueue<>();
+    private long currentTick = -1;
+
+    public BrokerLiveTimeWheel(Map<BrokerIdentityInfo, BrokerLiveInfo> brokerLiveTable, long tickMillis,
+        int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2, but is " + wheelSize);
+        }
+        this.brokerLiveTable = brokerLiveTable;
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Track a broker newly put into the live table.
+     */
+    public void add(BrokerIdentityInfo brokerIdentityInfo, BrokerLiveInfo brokerLiveInfo) {
+        this.pendingQueue.offer(new TimeWheelEntry(brokerIdentityInfo, brokerLiveInfo));
+    }
+
+    /**
+     * Remove the brokers whose heartbeat timed out before now from the live table.
+     *
+     * @return the removed brokers
+     */
+    public Map<BrokerIdentityInfo, BrokerLiveInfo> expire(long now) {
+        final long nowTick = now / this.tickMillis;
+        if (this.currentTick < 0) {
+            this.currentTick = nowTick;
+        }
+        TimeWheelEntry pending;
+        while ((pending = this.pendingQueue.poll()) != null) {
+            schedule(pending);
+        }
+
+        final Map<BrokerIdentityInfo, BrokerLiveInfo> expiredMap = new LinkedHashMap<>();
+        // each bucket is visited at most once even if the check is late for more than a round
+        for (long tick = Math.max(this.currentTick, nowTick - this.mask); tick <= nowTick; tick++) {
+            final List<TimeWheelEntry> bucket = this.buckets[(int) (tick & this.mask)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            final List<TimeWheelEntry> dueEntries = new ArrayList<>(bucket);
+            bucket.clear();
+            for (TimeWheelEntry entry : dueEntries) {
+                final BrokerLiveInfo liveInfo = entry.brokerLiveInfo;
+                if (this.brokerLiveTable.get(entry.brokerIdentityInfo) != liveInfo) {
+                    // removed or registered again, the new one is tracked by its own entry
+                    continue;
+                }
+                final long deadline = liveInfo.getLastUpdateTimestamp() + liveInfo.getHeartbeatTimeoutMillis();
+                if (now > deadline) {
+                    if (this.brokerLiveTable.remove(entry.brokerIdentityInfo, liveInfo)) {
+                        expiredMap.put(entry.brokerIdentityInfo, liveInfo);
+                    }
+                } else {
+                    schedule(entry);
+                }
+            }
+        }
+        this.currentTick = nowTick + 1;
+        return expiredMap;
+    }
+
+    public int size() {
+        int size = this.pendingQueue.size();
+        for (List<TimeWheelEntry> bucket : this.buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    private void schedule(TimeWheelEntry entry) {
+        final BrokerLiveInfo liveInfo = entry.brokerLiveInfo;
+        // the first tick after the deadline, a deadline beyond the wheel is checked again when the bucket comes round
+        final long tick = Math.max((liveInfo.getLastUpdateTimestamp() + liveInfo.getHeartbeatTimeoutMillis()) / this.tickMillis + 1, this.currentTick);
+        this.buckets[(int) (tick & this.mask)].add(entry);
+    }
+
+    private static class TimeWheelEntry {
+        private final BrokerIdentityInfo brokerIdentityInfo;
+        private final BrokerLiveInfo brokerLiveInfo;
+
+        TimeWheelEntry(BrokerIdentityInfo brokerIdentityInfo, BrokerLiveInfo brokerLiveInfo) {
+            this.brokerIdentityInfo = brokerIdentityInfo;
+            this.brokerLiveInfo = brokerLiveInfo;
+        }
+    }
+}
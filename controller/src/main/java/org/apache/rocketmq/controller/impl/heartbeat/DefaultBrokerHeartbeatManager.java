@@ -19,7 +19,6 @@ package org.apache.rocketmq.controller.impl.heartbeat;
 import io.netty.channel.Channel;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,23 +33,28 @@ import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.utils.ThreadUtils;
 import org.apache.rocketmq.controller.BrokerHeartbeatManager;
 import org.apache.rocketmq.controller.helper.BrokerLifecycleListener;
+import org.apache.rocketmq.controller.metrics.ControllerMetricsManager;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.remoting.common.RemotingHelper;
 
 public class DefaultBrokerHeartbeatManager implements BrokerHeartbeatManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.CONTROLLER_LOGGER_NAME);
+    private static final long TIME_WHEEL_TICK_MILLIS = 1000;
+    private static final int TIME_WHEEL_SIZE = 512;
 
     private ScheduledExecutorService scheduledService;
     private ExecutorService executor;
 
     private final ControllerConfig controllerConfig;
     private final Map<BrokerIdentityInfo/* brokerIdentity*/, BrokerLiveInfo> brokerLiveTable;
+    private final BrokerLiveTimeWheel brokerLiveTimeWheel;
     private final List<BrokerLifecycleListener> brokerLifecycleListeners;
 
     public DefaultBrokerHeartbeatManager(final ControllerConfig controllerConfig) {
         this.controllerConfig = controllerConfig;
         this.brokerLiveTable = new ConcurrentHashMap<>(256);
+        this.brokerLiveTimeWheel = new BrokerLiveTimeWheel(this.brokerLiveTable, TIME_WHEEL_TICK_MILLIS, TIME_WHEEL_SIZE);
         this.brokerLifecycleListeners = new ArrayList<>();
     }
 
@@ -74,21 +78,15 @@ public class DefaultBrokerHeartbeatManager implements BrokerHeartbeatManager {
     public void scanNotActiveBroker() {
         try {
             log.info("start scanNotActiveBroker");
-            final Iterator<Map.Entry<BrokerIdentityInfo, BrokerLiveInfo>> iterator = this.brokerLiveTable.entrySet().iterator();
-            while (iterator.hasNext()) {
-                final Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> next = iterator.next();
-                long last = next.getValue().getLastUpdateTimestamp();
-                long timeoutMillis = next.getValue().getHeartbeatTimeoutMillis();
-                if (System.currentTimeMillis() - last > timeoutMillis) {
-                    final Channel channel = next.getValue().getChannel();
-                    iterator.remove();
-                    if (channel != null) {
-                        RemotingHelper.closeChannel(channel);
-                    }
-                    this.executor.submit(() ->
-                        notifyBrokerInActive(next.getKey().getClusterName(), next.getValue().getBrokerName(), next.getValue().getBrokerId()));
-                    log.warn("The broker channel {} expired, brokerInfo {}, expired {}ms", next.getValue().getChannel(), next.getKey(), timeoutMillis);
+            final Map<BrokerIdentityInfo, BrokerLiveInfo> expiredMap = this.brokerLiveTimeWheel.expire(System.currentTimeMillis());
+            for (Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> next : expiredMap.entrySet()) {
+                final Channel channel = next.getValue().getChannel();
+                if (channel != null) {
+                    RemotingHelper.closeChannel(channel);
                 }
+                this.executor.submit(() ->
+                    notifyBrokerInActive(next.getKey().getClusterName(), next.getValue().getBrokerName(), next.getValue().getBrokerId()));
+                log.warn("The broker channel {} expired, brokerInfo {}, expired {}ms", channel, next.getKey(), next.getValue().getHeartbeatTimeoutMillis());
             }
         } catch (Exception e) {
             log.error("scanNotActiveBroker exception", e);
@@ -110,6 +108,7 @@ public class DefaultBrokerHeartbeatManager implements BrokerHeartbeatManager {
     public void onBrokerHeartbeat(String clusterName, String brokerName, String brokerAddr, Long brokerId,
         Long timeoutMillis, Channel channel, Integer epoch, Long maxOffset, Long confirmOffset,
         Integer electionPriority) {
+        final long startTime = System.nanoTime();
         BrokerIdentityInfo brokerIdentityInfo = new BrokerIdentityInfo(clusterName, brokerName, brokerId);
         BrokerLiveInfo prev = this.brokerLiveTable.get(brokerIdentityInfo);
         int realEpoch = Optional.ofNullable(epoch).orElse(-1);
@@ -119,16 +118,17 @@ public class DefaultBrokerHeartbeatManager implements BrokerHeartbeatManager {
         long realTimeoutMillis = Optional.ofNullable(timeoutMillis).orElse(DEFAULT_BROKER_CHANNEL_EXPIRED_TIME);
         int realElectionPriority = Optional.ofNullable(electionPriority).orElse(Integer.MAX_VALUE);
         if (null == prev) {
-            this.brokerLiveTable.put(brokerIdentityInfo,
-                new BrokerLiveInfo(brokerName,
-                    brokerAddr,
-                    realBrokerId,
-                    System.currentTimeMillis(),
-                    realTimeoutMillis,
-                    channel,
-                    realEpoch,
-                    realMaxOffset,
-                    realElectionPriority));
+            final BrokerLiveInfo liveInfo = new BrokerLiveInfo(brokerName,
+                brokerAddr,
+                realBrokerId,
+                System.currentTimeMillis(),
+                realTimeoutMillis,
+                channel,
+                realEpoch,
+                realMaxOffset,
+                realElectionPriority);
+            this.brokerLiveTable.put(brokerIdentityInfo, liveInfo);
+            this.brokerLiveTimeWheel.add(brokerIdentityInfo, liveInfo);
             log.info("new broker registered, {}, brokerId:{}", brokerIdentityInfo, realBrokerId);
         } else {
             prev.setLastUpdateTimestamp(System.currentTimeMillis());
@@ -140,7 +140,7 @@ public class DefaultBrokerHeartbeatManager implements BrokerHeartbeatManager {
                 prev.setConfirmOffset(realConfirmOffset);
             }
         }
-
+        ControllerMetricsManager.recordHeartbeatLatency(System.nanoTime() - startTime, false);
     }
 
     @Override
@@ -30,6 +30,7 @@ import org.apache.rocketmq.controller.impl.task.CheckNotActiveBrokerRequest;
 import org.apache.rocketmq.controller.impl.task.GetBrokerLiveInfoRequest;
 import org.apache.rocketmq.controller.impl.task.GetBrokerLiveInfoResponse;
 import org.apache.rocketmq.controller.impl.task.RaftBrokerHeartBeatEventRequest;
+import org.apache.rocketmq.controller.metrics.ControllerMetricsManager;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.remoting.common.RemotingHelper;
@@ -41,8 +42,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -52,6 +55,8 @@ import java.util.concurrent.TimeoutException;
 
 public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.CONTROLLER_LOGGER_NAME);
+    private static final long TIME_WHEEL_TICK_MILLIS = 1000;
+    private static final int TIME_WHEEL_SIZE = 512;
     private JRaftController controller;
     private final List<BrokerLifecycleListener> brokerLifecycleListeners = new ArrayList<>();
     private final ScheduledExecutorService scheduledService;
@@ -60,6 +65,15 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
 
     private final Map<Channel, BrokerIdentityInfo> brokerChannelIdentityInfoMap = new HashMap<>();
 
+    // Only used when replicating the liveness transitions only, the heartbeats are tracked by the leader locally
+    private final boolean replicateTransitionOnly;
+    private final Map<BrokerIdentityInfo, BrokerLiveInfo> localBrokerLiveTable = new ConcurrentHashMap<>(256);
+    private final Map<BrokerIdentityInfo, BrokerLiveInfo> replicatedBrokerLiveTable = new ConcurrentHashMap<>(256);
+    private final BrokerLiveTimeWheel brokerLiveTimeWheel = new BrokerLiveTimeWheel(this.localBrokerLiveTable, TIME_WHEEL_TICK_MILLIS, TIME_WHEEL_SIZE);
+    // The time the scan task finds this node to be the leader, -1 means not the leader
+    private volatile long leaderSinceTime = -1;
+    private boolean reconciled = false;
+
 
     // resolve the scene
     // when controller all down and startup again, we wait for some time to avoid electing a new leader,which is not necessary
@@ -69,6 +83,7 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
         this.scheduledService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("RaftBrokerHeartbeatManager_scheduledService_"));
         this.executor = Executors.newFixedThreadPool(2, new ThreadFactoryImpl("RaftBrokerHeartbeatManager_executorService_"));
         this.controllerConfig = controllerConfig;
+        this.replicateTransitionOnly = controllerConfig.getJraftConfig().isjRaftReplicateLivenessTransitionOnly();
     }
 
     public void setController(JRaftController controller) {
@@ -101,6 +116,7 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
         Long timeoutMillis, Channel channel, Integer epoch, Long maxOffset, Long confirmOffset,
         Integer electionPriority) {
 
+        final long startTime = System.nanoTime();
         if (firstReceivedHeartbeatTime == -1) {
             firstReceivedHeartbeatTime = System.currentTimeMillis();
         }
@@ -122,18 +138,73 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
             realMaxOffset,
             realElectionPriority,
             realConfirmOffset);
-        log.info("broker {} heart beat", brokerIdentityInfo);
-        RaftBrokerHeartBeatEventRequest requestHeader = new RaftBrokerHeartBeatEventRequest(brokerIdentityInfo, liveInfo);
-        CompletableFuture<RemotingCommand> future = controller.onBrokerHeartBeat(requestHeader);
-        try {
-            RemotingCommand remotingCommand = future.get(5, java.util.concurrent.TimeUnit.SECONDS);
-            if (remotingCommand.getCode() != ResponseCode.SUCCESS && remotingCommand.getCode() != ResponseCode.CONTROLLER_NOT_LEADER) {
-                throw new RuntimeException("on broker heartbeat return invalid code, code: " + remotingCommand.getCode());
+        boolean replicate = true;
+        if (isTrackingLocally()) {
+            liveInfo = updateLocalBrokerLiveInfo(brokerIdentityInfo, liveInfo, channel);
+            replicate = needReplicate(brokerIdentityInfo, liveInfo);
+        }
+        if (replicate) {
+            log.info("broker {} heart beat", brokerIdentityInfo);
+            RaftBrokerHeartBeatEventRequest requestHeader = new RaftBrokerHeartBeatEventRequest(brokerIdentityInfo, liveInfo);
+            CompletableFuture<RemotingCommand> future = controller.onBrokerHeartBeat(requestHeader);
+            try {
+                RemotingCommand remotingCommand = future.get(5, java.util.concurrent.TimeUnit.SECONDS);
+                if (remotingCommand.getCode() != ResponseCode.SUCCESS && remotingCommand.getCode() != ResponseCode.CONTROLLER_NOT_LEADER) {
+                    throw new RuntimeException("on broker heartbeat return invalid code, code: " + remotingCommand.getCode());
+                }
+                if (this.replicateTransitionOnly && remotingCommand.getCode() == ResponseCode.SUCCESS) {
+                    this.replicatedBrokerLiveTable.put(brokerIdentityInfo, requestHeader.getBrokerLiveInfo());
+                }
+            } catch (ExecutionException | InterruptedException | TimeoutException | RuntimeException e) {
+                log.error("on broker heartbeat through raft failed", e);
             }
-        } catch (ExecutionException | InterruptedException | TimeoutException | RuntimeException e) {
-            log.error("on broker heartbeat through raft failed", e);
         }
         brokerChannelIdentityInfoMap.put(channel, brokerIdentityInfo);
+        ControllerMetricsManager.recordHeartbeatLatency(System.nanoTime() - startTime, replicate);
+    }
+
+    private boolean isTrackingLocally() {
+        return this.replicateTransitionOnly && this.leaderSinceTime >= 0 && this.controller.isLeaderState();
+    }
+
+    /**
+     * @return the local live info of the broker merged with the heartbeat
+     */
+    private BrokerLiveInfo updateLocalBrokerLiveInfo(BrokerIdentityInfo brokerIdentityInfo, BrokerLiveInfo liveInfo,
+        Channel channel) {
+        final BrokerLiveInfo prev = this.localBrokerLiveTable.get(brokerIdentityInfo);
+        if (prev == null) {
+            liveInfo.setChannel(channel);
+            this.localBrokerLiveTable.put(brokerIdentityInfo, liveInfo);
+            this.brokerLiveTimeWheel.add(brokerIdentityInfo, liveInfo);
+            return liveInfo;
+        }
+        prev.setLastUpdateTimestamp(liveInfo.getLastUpdateTimestamp());
+        prev.setHeartbeatTimeoutMillis(liveInfo.getHeartbeatTimeoutMillis());
+        prev.setElectionPriority(liveInfo.getElectionPriority());
+        prev.setBrokerAddr(liveInfo.getBrokerAddr());
+        prev.setChannel(channel);
+        if (liveInfo.getEpoch() > prev.getEpoch() || liveInfo.getEpoch() == prev.getEpoch() && liveInfo.getMaxOffset() > prev.getMaxOffset()) {
+            prev.setEpoch(liveInfo.getEpoch());
+            prev.setMaxOffset(liveInfo.getMaxOffset());
+            prev.setConfirmOffset(liveInfo.getConfirmOffset());
+        }
+        return prev;
+    }
+
+    /**
+     * A heartbeat is replicated if the broker becomes alive or its epoch, election priority, timeout or address
+     * changes. The offsets stay on the leader and are attached to the elect master requests, the heartbeat timestamp
+     * is refreshed every half heartbeat timeout so that the replicated one keeps the broker active.
+     */
+    private boolean needReplicate(BrokerIdentityInfo brokerIdentityInfo, BrokerLiveInfo liveInfo) {
+        final BrokerLiveInfo replicated = this.replicatedBrokerLiveTable.get(brokerIdentityInfo);
+        return replicated == null
+            || replicated.getEpoch() != liveInfo.getEpoch()
+            || !Objects.equals(replicated.getElectionPriority(), liveInfo.getElectionPriority())
+            || replicated.getHeartbeatTimeoutMillis() != liveInfo.getHeartbeatTimeoutMillis()
+            || !Objects.equals(replicated.getBrokerAddr(), liveInfo.getBrokerAddr())
+            || liveInfo.getLastUpdateTimestamp() - replicated.getLastUpdateTimestamp() >= liveInfo.getHeartbeatTimeoutMillis() / 2;
     }
 
     @Override
@@ -150,6 +221,8 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
                 }
                 this.executor.submit(() -> notifyBrokerInActive(brokerIdentityInfo.getClusterName(), brokerIdentityInfo.getBrokerName(), brokerIdentityInfo.getBrokerId()));
                 brokerChannelIdentityInfoMap.remove(channel);
+                this.localBrokerLiveTable.remove(brokerIdentityInfo);
+                this.replicatedBrokerLiveTable.remove(brokerIdentityInfo);
             } catch (ExecutionException | InterruptedException | TimeoutException | RuntimeException e) {
                 log.error("on broker close channel through raft failed", e);
             }
@@ -184,9 +257,18 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
     private void scanNotActiveBroker() {
         if (!controller.isLeaderState()) {
             log.info("current node is not leader, skip scan not active broker");
+            if (this.leaderSinceTime >= 0) {
+                this.leaderSinceTime = -1;
+                this.localBrokerLiveTable.clear();
+                this.replicatedBrokerLiveTable.clear();
+            }
             return;
         }
 
+        if (this.replicateTransitionOnly) {
+            expireLocalBrokers();
+        }
+
         // if has not received any heartbeat from broker, we do not need to scan
         if (this.firstReceivedHeartbeatTime + controllerConfig.getJraftConfig().getjRaftScanWaitTimeoutMs() < System.currentTimeMillis()) {
             log.info("has not received any heartbeat from broker, skip scan not active broker");
@@ -228,8 +310,86 @@ public class RaftBrokerHeartBeatManager implements BrokerHeartbeatManager {
         }
     }
 
+    /**
+     * Expire the brokers tracked locally and replicate their removal, the brokers replicated by the previous leader
+     * which never heartbeat to this one are expired as well once their heartbeat timeout has passed.
+     */
+    private void expireLocalBrokers() {
+        final long now = System.currentTimeMillis();
+        if (this.leaderSinceTime < 0) {
+            this.localBrokerLiveTable.clear();
+            this.replicatedBrokerLiveTable.clear();
+            this.reconciled = false;
+            this.leaderSinceTime = now;
+            log.info("start tracking broker heartbeats locally");
+            return;
+        }
+        final Map<BrokerIdentityInfo, BrokerLiveInfo> expiredMap = this.brokerLiveTimeWheel.expire(now);
+        if (!this.reconciled) {
+            boolean allTracked = true;
+            for (Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> entry : getBrokerLiveInfo(null).entrySet()) {
+                if (this.localBrokerLiveTable.containsKey(entry.getKey())) {
+                    continue;
+                }
+                if (now - this.leaderSinceTime > entry.getValue().getHeartbeatTimeoutMillis()) {
+                    expiredMap.put(entry.getKey(), entry.getValue());
+                } else {
+                    allTracked = false;
+                }
+            }
+            this.reconciled = allTracked;
+        }
+        for (Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> entry : expiredMap.entrySet()) {
+            final BrokerIdentityInfo brokerIdentityInfo = entry.getKey();
+            this.replicatedBrokerLiveTable.remove(brokerIdentityInfo);
+            CompletableFuture<RemotingCommand> future = controller.onBrokerCloseChannel(new BrokerCloseChannelRequest(brokerIdentityInfo));
+            try {
+                RemotingCommand remotingCommand = future.get(5, java.util.concurrent.TimeUnit.SECONDS);
+                if (remotingCommand.getCode() != ResponseCode.SUCCESS) {
+                    throw new RuntimeException("on broker expired return invalid code, code: " + remotingCommand.getCode());
+                }
+            } catch (ExecutionException | InterruptedException | TimeoutException | RuntimeException e) {
+                log.error("replicate broker {} expired through raft failed", brokerIdentityInfo, e);
+            }
+            final Channel channel = entry.getValue().getChannel();
+            if (channel != null) {
+                RemotingHelper.closeChannel(channel);
+                brokerChannelIdentityInfoMap.remove(channel);
+            }
+            this.executor.submit(() -> notifyBrokerInActive(brokerIdentityInfo.getClusterName(), brokerIdentityInfo.getBrokerName(), brokerIdentityInfo.getBrokerId()));
+            log.warn("The broker channel {} expired, brokerInfo {}, expired {}ms", channel, brokerIdentityInfo, entry.getValue().getHeartbeatTimeoutMillis());
+        }
+    }
+
+    /**
+     * @return the copies of the live info tracked by this leader for the brokers of the broker set keyed by the broker
+     * id, empty if the heartbeats are not tracked locally
+     */
+    public Map<Long, BrokerLiveInfo> getLocalBrokerLiveInfo(String clusterName, String brokerName) {
+        final Map<Long, BrokerLiveInfo> liveInfoMap = new HashMap<>();
+        if (!isTrackingLocally()) {
+            return liveInfoMap;
+        }
+        for (Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> entry : this.localBrokerLiveTable.entrySet()) {
+            final BrokerIdentityInfo brokerIdentityInfo = entry.getKey();
+            if (Objects.equals(clusterName, brokerIdentityInfo.getClusterName()) && Objects.equals(brokerName, brokerIdentityInfo.getBrokerName())) {
+                final BrokerLiveInfo info = entry.getValue();
+                liveInfoMap.put(brokerIdentityInfo.getBrokerId(), new BrokerLiveInfo(info.getBrokerName(), info.getBrokerAddr(),
+                    info.getBrokerId(), info.getLastUpdateTimestamp(), info.getHeartbeatTimeoutMillis(), null, info.getEpoch(),
+                    info.getMaxOffset(), info.getElectionPriority(), info.getConfirmOffset()));
+            }
+        }
+        return liveInfoMap;
+    }
+
     @Override
     public BrokerLiveInfo getBrokerLiveInfo(String clusterName, String brokerName, Long brokerId) {
+        if (isTrackingLocally()) {
+            final BrokerLiveInfo liveInfo = this.localBrokerLiveTable.get(new BrokerIdentityInfo(clusterName, brokerName, brokerId));
+            if (liveInfo != null) {
+                return liveInfo;
+            }
+        }
         log.info("get broker live info, clusterName: {}, brokerName: {}, brokerId: {}", clusterName, brokerName, brokerId);
         BrokerIdentityInfo brokerIdentityInfo = new BrokerIdentityInfo(clusterName, brokerName, brokerId);
         Map<BrokerIdentityInfo, BrokerLiveInfo> brokerLiveInfoMap = getBrokerLiveInfo(brokerIdentityInfo);
@@ -113,7 +113,8 @@ public class RaftReplicasInfoManager extends ReplicasInfoManager {
         List<BrokerIdentityInfo> notActiveBrokerIdentityInfoList = new ArrayList<>();
         long checkTime = request.getCheckTimeMillis();
         final Iterator<Map.Entry<BrokerIdentityInfo, BrokerLiveInfo>> iterator = this.brokerLiveTable.entrySet().iterator();
-        while (iterator.hasNext()) {
+        // the expired brokers are removed by the leader through BrokerCloseChannelRequest
+        while (!isReplicateLivenessTransitionOnly() && iterator.hasNext()) {
             final Map.Entry<BrokerIdentityInfo, BrokerLiveInfo> next = iterator.next();
             long last = next.getValue().getLastUpdateTimestamp();
             long timeoutMillis = next.getValue().getHeartbeatTimeoutMillis();
@@ -158,6 +159,10 @@ public class RaftReplicasInfoManager extends ReplicasInfoManager {
         return false;
     }
 
+    private boolean isReplicateLivenessTransitionOnly() {
+        return this.controllerConfig.getJraftConfig().isjRaftReplicateLivenessTransitionOnly();
+    }
+
     public BrokerLiveInfo getBrokerLiveInfo(String clusterName, String brokerName, Long brokerId) {
         return this.brokerLiveTable.get(new BrokerIdentityInfo(clusterName, brokerName, brokerId));
     }
@@ -48,6 +48,11 @@ public class ControllerMetricsConstant {
     // unit: us
     public static final String HISTOGRAM_DLEDGER_OP_LATENCY = "dledger_op_latency";
 
+    public static final String HISTOGRAM_EVENT_BATCH_SIZE = "event_batch_size";
+
+    // unit: us
+    public static final String HISTOGRAM_HEARTBEAT_LATENCY = "heartbeat_latency";
+
     public static final String LABEL_CLUSTER_NAME = "cluster";
 
     public static final String LABEL_BROKER_SET = "broker_set";
@@ -62,6 +67,8 @@ public class ControllerMetricsConstant {
 
     public static final String LABEL_ELECTION_RESULT = "election_result";
 
+    public static final String LABEL_HEARTBEAT_REPLICATED = "heartbeat_replicated";
+
     public enum RequestType {
         CONTROLLER_ALTER_SYNC_STATE_SET(RequestCode.CONTROLLER_ALTER_SYNC_STATE_SET),
 
@@ -70,12 +70,15 @@ import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.G
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.GAUGE_DLEDGER_DISK_USAGE;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.GAUGE_ROLE;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.HISTOGRAM_DLEDGER_OP_LATENCY;
+import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.HISTOGRAM_EVENT_BATCH_SIZE;
+import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.HISTOGRAM_HEARTBEAT_LATENCY;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.HISTOGRAM_REQUEST_LATENCY;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_ADDRESS;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_AGGREGATION;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_BROKER_SET;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_CLUSTER_NAME;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_GROUP;
+import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_HEARTBEAT_REPLICATED;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.LABEL_PEER_ID;
 import static org.apache.rocketmq.controller.metrics.ControllerMetricsConstant.OPEN_TELEMETRY_METER_NAME;
 
@@ -105,6 +108,15 @@ public class ControllerMetricsManager {
 
     public static LongHistogram dLedgerOpLatency = new NopLongHistogram();
 
+    public static LongHistogram eventBatchSize = new NopLongHistogram();
+
+    public static LongHistogram heartbeatLatency = new NopLongHistogram();
+
+    // built once, the broker heartbeat is the most frequent request of the controller
+    private static Attributes heartbeatReplicatedAttributes = Attributes.empty();
+
+    private static Attributes heartbeatNotReplicatedAttributes = Attributes.empty();
+
     private static double us = 1d;
 
     private static double ms = 1000 * us;
@@ -136,6 +148,11 @@ public class ControllerMetricsManager {
         return instance;
     }
 
+    public static void recordHeartbeatLatency(long costNanos, boolean replicated) {
+        heartbeatLatency.record(TimeUnit.NANOSECONDS.toMicros(costNanos),
+            replicated ? heartbeatReplicatedAttributes : heartbeatNotReplicatedAttributes);
+    }
+
     public static AttributesBuilder newAttributesBuilder() {
         AttributesBuilder builder = Attributes.builder();
         LABEL_MAP.forEach(builder::put);
@@ -225,8 +242,25 @@ public class ControllerMetricsManager {
             .setName(HISTOGRAM_DLEDGER_OP_LATENCY)
             .build();
 
+        InstrumentSelector heartbeatLatencySelector = InstrumentSelector.builder()
+            .setType(InstrumentType.HISTOGRAM)
+            .setName(HISTOGRAM_HEARTBEAT_LATENCY)
+            .build();
+
         providerBuilder.registerView(requestLatencySelector, latencyView);
         providerBuilder.registerView(dLedgerOpLatencySelector, latencyView);
+        providerBuilder.registerView(heartbeatLatencySelector, latencyView);
+
+        View batchSizeView = View.builder()
+            .setAggregation(Aggregation.explicitBucketHistogram(Arrays.asList(1d, 2d, 4d, 8d, 16d, 32d, 64d, 128d)))
+            .build();
+
+        InstrumentSelector eventBatchSizeSelector = InstrumentSelector.builder()
+            .setType(InstrumentType.HISTOGRAM)
+            .setName(HISTOGRAM_EVENT_BATCH_SIZE)
+            .build();
+
+        providerBuilder.registerView(eventBatchSizeSelector, batchSizeView);
     }
 
     private void initMetric(Meter meter) {
@@ -287,6 +321,19 @@ public class ControllerMetricsManager {
             .ofLongs()
             .build();
 
+        eventBatchSize = meter.histogramBuilder(HISTOGRAM_EVENT_BATCH_SIZE)
+            .setDescription("number of requests proposed to dledger in one batch")
+            .ofLongs()
+            .build();
+
+        heartbeatLatency = meter.histogramBuilder(HISTOGRAM_HEARTBEAT_LATENCY)
+            .setDescription("broker heartbeat processing latency")
+            .setUnit("us")
+            .ofLongs()
+            .build();
+        heartbeatReplicatedAttributes = newAttributesBuilder().put(LABEL_HEARTBEAT_REPLICATED, true).build();
+        heartbeatNotReplicatedAttributes = newAttributesBuilder().put(LABEL_HEARTBEAT_REPLICATED, false).build();
+
     }
 
     public void init() {
@@ -47,6 +47,7 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.apache.rocketmq.controller.ControllerTestBase.DEFAULT_BROKER_NAME;
@@ -65,6 +66,11 @@ public class DLedgerControllerTest {
 
     public DLedgerController launchController(final String group, final String peers, final String selfId,
         final boolean isEnableElectUncleanMaster) {
+        return launchController(group, peers, selfId, isEnableElectUncleanMaster, config -> { });
+    }
+
+    public DLedgerController launchController(final String group, final String peers, final String selfId,
+        final boolean isEnableElectUncleanMaster, final Consumer<ControllerConfig> configCustomizer) {
         String tmpdir = System.getProperty("java.io.tmpdir");
         final String path = (StringUtils.endsWith(tmpdir, File.separator) ? tmpdir : tmpdir + File.separator) + group + File.separator + selfId;
         baseDirs.add(path);
@@ -77,6 +83,7 @@ public class DLedgerControllerTest {
         config.setMappedFileSize(10 * 1024 * 1024);
         config.setEnableElectUncleanMaster(isEnableElectUncleanMaster);
         config.setScanInactiveMasterInterval(1000);
+        configCustomizer.accept(config);
         final DLedgerController controller = new DLedgerController(config, (str1, str2, str3) -> true);
 
         controller.startup();
@@ -391,4 +398,42 @@ public class DLedgerControllerTest {
         syncStateSet.add(3L);
         assertEquals(syncStateSetResult.getSyncStateSet(), syncStateSet);
     }
+
+    @Test
+    public void testRestartFromSnapshotWithBinaryEventsAndBatch() throws Exception {
+        String group = UUID.randomUUID().toString();
+        String peers = String.format("n0-localhost:%d;n1-localhost:%d;n2-localhost:%d", 30000, 30001, 30002);
+        final Consumer<ControllerConfig> configCustomizer = config -> {
+            config.setEnableBinaryEventSerialization(true);
+            config.setMaxEventBatchSize(16);
+            config.setStateMachineSnapshotThreshold(2);
+        };
+        for (String selfId : new String[] {"n0", "n1", "n2"}) {
+            controllers.add(launchController(group, peers, selfId, false, configCustomizer));
+        }
+        DLedgerController leader = waitLeader(controllers);
+        registerNewBroker(leader, DEFAULT_CLUSTER_NAME, DEFAULT_BROKER_NAME, DEFAULT_IP[0], 1L);
+        registerNewBroker(leader, DEFAULT_CLUSTER_NAME, DEFAULT_BROKER_NAME, DEFAULT_IP[1], 2L);
+        brokerTryElectMaster(leader, DEFAULT_CLUSTER_NAME, DEFAULT_BROKER_NAME, DEFAULT_IP[0], 1L, true);
+
+        // Restart all the controllers, the state is loaded from the snapshot and the log after it
+        for (DLedgerController controller : controllers) {
+            controller.shutdown();
+        }
+        controllers.clear();
+        for (String selfId : new String[] {"n0", "n1", "n2"}) {
+            controllers.add(launchController(group, peers, selfId, false, configCustomizer));
+        }
+        final DLedgerController newLeader = waitLeader(controllers);
+        RemotingCommand response = await().atMost(Duration.ofSeconds(10)).until(() -> {
+            final RemotingCommand resp = newLeader.getReplicaInfo(new GetReplicaInfoRequestHeader(DEFAULT_BROKER_NAME)).get(10, TimeUnit.SECONDS);
+            return resp.getCode() == ResponseCode.SUCCESS ? resp : null;
+        }, item -> item != null);
+        final GetReplicaInfoResponseHeader replicaInfo = (GetReplicaInfoResponseHeader) response.readCustomHeader();
+        assertEquals(DEFAULT_IP[0], replicaInfo.getMasterAddress());
+        assertEquals(1, replicaInfo.getMasterEpoch().intValue());
+        for (DLedgerController controller : controllers) {
+            assertTrue(new File(controller.getControllerConfig().getControllerStorePath(), "statemachine" + File.separator + "snapshot").exists());
+        }
+    }
 }
@@ -25,6 +25,7 @@ import org.junit.Test;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class DefaultBrokerHeartbeatManagerTest {
@@ -51,4 +52,22 @@ public class DefaultBrokerHeartbeatManagerTest {
         this.heartbeatManager.shutdown();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testKeepBrokerAliveByHeartbeat() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.heartbeatManager.registerBrokerLifecycleListener((clusterName, brokerName, brokerId) -> {
+            latch.countDown();
+        });
+        for (int i = 0; i < 6; i++) {
+            this.heartbeatManager.onBrokerHeartbeat("cluster1", "broker1", "127.0.0.1:7000", 1L, 2000L, null,
+                1, 1L, -1L, 0);
+            Thread.sleep(1000);
+        }
+        assertTrue(this.heartbeatManager.isBrokerActive("cluster1", "broker1", 1L));
+        assertFalse(latch.await(0, TimeUnit.MILLISECONDS));
+
+        assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+        assertFalse(this.heartbeatManager.isBrokerActive("cluster1", "broker1", 1L));
+        this.heartbeatManager.shutdown();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.controller.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import org.apache.rocketmq.common.ControllerConfig;
+import org.apache.rocketmq.controller.impl.heartbeat.BrokerLiveInfo;
+import org.apache.rocketmq.controller.impl.heartbeat.RaftBrokerHeartBeatManager;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RemotingSerializable;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RaftBrokerHeartBeatManagerTest {
+    private RaftBrokerHeartBeatManager heartbeatManager;
+    private JRaftController controller;
+
+    @Before
+    public void init() {
+        final ControllerConfig config = new ControllerConfig();
+        config.setControllerType(ControllerConfig.JRAFT_CONTROLLER);
+        config.setScanNotActiveBrokerInterval(200);
+        config.getJraftConfig().setjRaftReplicateLivenessTransitionOnly(true);
+        this.controller = mock(JRaftController.class);
+        when(this.controller.isLeaderState()).thenReturn(true);
+        when(this.controller.onBrokerHeartBeat(any())).thenAnswer(invocation -> success());
+        when(this.controller.onBrokerCloseChannel(any())).thenAnswer(invocation -> success());
+        when(this.controller.checkNotActiveBroker(any())).thenAnswer(invocation -> {
+            final RemotingCommand response = RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+            response.setBody("[]".getBytes(StandardCharsets.UTF_8));
+            return CompletableFuture.completedFuture(response);
+        });
+        when(this.controller.getBrokerLiveInfo(any())).thenAnswer(invocation ->
+            CompletableFuture.completedFuture(RemotingCommand.createResponseCommand(ResponseCode.CONTROLLER_BROKER_LIVE_INFO_NOT_EXISTS, null)));
+        this.heartbeatManager = new RaftBrokerHeartBeatManager(config);
+        this.heartbeatManager.setController(this.controller);
+        this.heartbeatManager.initialize();
+        this.heartbeatManager.start();
+    }
+
+    @After
+    public void shutdown() {
+        this.heartbeatManager.shutdown();
+    }
+
+    @Test
+    public void testReplicateLivenessTransitionOnly() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.heartbeatManager.registerBrokerLifecycleListener((clusterName, brokerName, brokerId) -> latch.countDown());
+        // wait for the scan task to find the leader
+        Thread.sleep(2500);
+
+        for (int i = 0; i < 5; i++) {
+            this.heartbeatManager.onBrokerHeartbeat("cluster1", "broker1", "127.0.0.1:7000", 1L, 3000L, null,
+                1, 100L + i, -1L, 0);
+        }
+        // only the alive transition is replicated, the offsets are kept by the leader for the election
+        verify(this.controller, times(1)).onBrokerHeartBeat(any());
+        assertTrue(this.heartbeatManager.isBrokerActive("cluster1", "broker1", 1L));
+        Map<Long, BrokerLiveInfo> liveInfoMap = this.heartbeatManager.getLocalBrokerLiveInfo("cluster1", "broker1");
+        assertEquals(1, liveInfoMap.size());
+        assertEquals(104L, liveInfoMap.get(1L).getMaxOffset());
+        assertNull(liveInfoMap.get(1L).getChannel());
+        // attached to the elect master request
+        Map<Long, BrokerLiveInfo> attachedMap = JSON.parseObject(RemotingSerializable.encode(liveInfoMap),
+            new TypeReference<Map<Long, BrokerLiveInfo>>() {
+            }.getType());
+        assertEquals(104L, attachedMap.get(1L).getMaxOffset());
+        assertEquals(1, attachedMap.get(1L).getEpoch());
+
+        // a new epoch is replicated at once
+        this.heartbeatManager.onBrokerHeartbeat("cluster1", "broker1", "127.0.0.1:7000", 1L, 3000L, null,
+            2, 200L, -1L, 0);
+        verify(this.controller, times(2)).onBrokerHeartBeat(any());
+
+        assertFalse(latch.await(2000, TimeUnit.MILLISECONDS));
+        // the dead transition is replicated once the heartbeat timed out
+        assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+        verify(this.controller, times(1)).onBrokerCloseChannel(any());
+        assertFalse(this.heartbeatManager.isBrokerActive("cluster1", "broker1", 1L));
+    }
+
+    private static CompletableFuture<RemotingCommand> success() {
+        return CompletableFuture.completedFuture(RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.controller.impl.event;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventSerializerTest {
+
+    private final EventSerializer binarySerializer = new EventSerializer(true);
+
+    private final EventSerializer jsonSerializer = new EventSerializer();
+
+    @Test
+    public void testAlterSyncStateSetEvent() {
+        final Set<Long> syncStateSet = new HashSet<>();
+        syncStateSet.add(1L);
+        syncStateSet.add(2L);
+        final AlterSyncStateSetEvent event = (AlterSyncStateSetEvent) roundTrip(new AlterSyncStateSetEvent("broker-a", syncStateSet));
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals(syncStateSet, event.getNewSyncStateSet());
+    }
+
+    @Test
+    public void testApplyBrokerIdEvent() {
+        final ApplyBrokerIdEvent event = (ApplyBrokerIdEvent) roundTrip(new ApplyBrokerIdEvent("cluster", "broker-a", "127.0.0.1:10911", 3L, "code"));
+        assertEquals("cluster", event.getClusterName());
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals("127.0.0.1:10911", event.getBrokerAddress());
+        assertEquals(3L, event.getNewBrokerId());
+        assertEquals("code", event.getRegisterCheckCode());
+    }
+
+    @Test
+    public void testElectMasterEvent() {
+        ElectMasterEvent event = (ElectMasterEvent) roundTrip(new ElectMasterEvent(true, "broker-a", 2L));
+        assertTrue(event.getNewMasterElected());
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals(Long.valueOf(2L), event.getNewMasterBrokerId());
+
+        event = (ElectMasterEvent) roundTrip(new ElectMasterEvent(false, "broker-a"));
+        assertFalse(event.getNewMasterElected());
+        assertNull(event.getNewMasterBrokerId());
+    }
+
+    @Test
+    public void testCleanBrokerDataEvent() {
+        final Set<Long> brokerIdSet = new HashSet<>();
+        brokerIdSet.add(1L);
+        CleanBrokerDataEvent event = (CleanBrokerDataEvent) roundTrip(new CleanBrokerDataEvent("broker-a", brokerIdSet));
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals(brokerIdSet, event.getBrokerIdSetToClean());
+
+        event = (CleanBrokerDataEvent) roundTrip(new CleanBrokerDataEvent("broker-a", null));
+        assertNull(event.getBrokerIdSetToClean());
+    }
+
+    @Test
+    public void testUpdateBrokerAddressEvent() {
+        final UpdateBrokerAddressEvent event = (UpdateBrokerAddressEvent) roundTrip(new UpdateBrokerAddressEvent("cluster", "broker-a", "127.0.0.1:10911", 1L));
+        assertEquals("cluster", event.getClusterName());
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals("127.0.0.1:10911", event.getBrokerAddress());
+        assertEquals(Long.valueOf(1L), event.getBrokerId());
+    }
+
+    @Test
+    public void testDeserializeJsonWithBinarySerializer() {
+        final byte[] data = jsonSerializer.serialize(new ElectMasterEvent(true, "broker-a", 1L));
+        final ElectMasterEvent event = (ElectMasterEvent) binarySerializer.deserialize(data);
+        assertEquals("broker-a", event.getBrokerName());
+        assertEquals(Long.valueOf(1L), event.getNewMasterBrokerId());
+    }
+
+    private EventMessage roundTrip(EventMessage event) {
+        final byte[] data = binarySerializer.serialize(event);
+        assertTrue(data.length < jsonSerializer.serialize(event).length);
+        // the binary format is decoded by the json serializer as well, so the flag could be switched on a running group
+        final EventMessage decoded = jsonSerializer.deserialize(data);
+        assertEquals(event.getEventType(), decoded.getEventType());
+        return decoded;
+    }
+}
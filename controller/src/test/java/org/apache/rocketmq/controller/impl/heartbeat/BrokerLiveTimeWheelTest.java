@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.controller.impl.heartbeat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BrokerLiveTimeWheelTest {
+
+    private Map<BrokerIdentityInfo, BrokerLiveInfo> brokerLiveTable;
+    private BrokerLiveTimeWheel timeWheel;
+
+    @Before
+    public void init() {
+        this.brokerLiveTable = new ConcurrentHashMap<>();
+        this.timeWheel = new BrokerLiveTimeWheel(this.brokerLiveTable, 1000, 8);
+    }
+
+    @Test
+    public void testExpire() {
+        final BrokerIdentityInfo broker1 = new BrokerIdentityInfo("cluster", "broker-a", 1L);
+        final BrokerIdentityInfo broker2 = new BrokerIdentityInfo("cluster", "broker-a", 2L);
+        final BrokerLiveInfo liveInfo1 = register(broker1, 10_000, 3000);
+        register(broker2, 10_000, 3000);
+
+        assertTrue(this.timeWheel.expire(10_000).isEmpty());
+        // broker1 heartbeats again before the deadline
+        liveInfo1.setLastUpdateTimestamp(12_000);
+        assertTrue(this.timeWheel.expire(13_000).isEmpty());
+
+        Map<BrokerIdentityInfo, BrokerLiveInfo> expiredMap = this.timeWheel.expire(14_000);
+        assertEquals(1, expiredMap.size());
+        assertTrue(expiredMap.containsKey(broker2));
+        assertEquals(1, this.brokerLiveTable.size());
+
+        expiredMap = this.timeWheel.expire(16_000);
+        assertEquals(1, expiredMap.size());
+        assertTrue(expiredMap.containsKey(broker1));
+        assertTrue(this.brokerLiveTable.isEmpty());
+        assertEquals(0, this.timeWheel.size());
+    }
+
+    @Test
+    public void testExpireBeyondWheel() {
+        final BrokerIdentityInfo broker = new BrokerIdentityInfo("cluster", "broker-a", 1L);
+        register(broker, 10_000, 20_000);
+
+        // the wheel spans 8 seconds only, the broker is checked again on each round
+        for (long now = 10_000; now <= 30_000; now += 1000) {
+            assertTrue(this.timeWheel.expire(now).isEmpty());
+        }
+        assertEquals(1, this.timeWheel.expire(31_000).size());
+    }
+
+    @Test
+    public void testExpireLate() {
+        final BrokerIdentityInfo broker = new BrokerIdentityInfo("cluster", "broker-a", 1L);
+        register(broker, 10_000, 3000);
+        assertTrue(this.timeWheel.expire(10_000).isEmpty());
+        // the check is later than a round of the wheel
+        assertEquals(1, this.timeWheel.expire(100_000).size());
+    }
+
+    @Test
+    public void testRemovedOrRegisteredAgain() {
+        final BrokerIdentityInfo broker = new BrokerIdentityInfo("cluster", "broker-a", 1L);
+        register(broker, 10_000, 3000);
+        assertTrue(this.timeWheel.expire(10_000).isEmpty());
+
+        // the channel is closed and the broker registers again later
+        this.brokerLiveTable.remove(broker);
+        final BrokerLiveInfo liveInfo = register(broker, 15_000, 3000);
+        assertTrue(this.timeWheel.expire(15_000).isEmpty());
+        assertEquals(1, this.timeWheel.size());
+
+        final Map<BrokerIdentityInfo, BrokerLiveInfo> expiredMap = this.timeWheel.expire(19_000);
+        assertEquals(1, expiredMap.size());
+        assertTrue(expiredMap.get(broker) == liveInfo);
+    }
+
+    private BrokerLiveInfo register(BrokerIdentityInfo brokerIdentityInfo, long timestamp, long timeoutMillis) {
+        final BrokerLiveInfo liveInfo = new BrokerLiveInfo(brokerIdentityInfo.getBrokerName(), "127.0.0.1:10911",
+            brokerIdentityInfo.getBrokerId(), timestamp, timeoutMillis, null, 1, 0, 0);
+        this.brokerLiveTable.put(brokerIdentityInfo, liveInfo);
+        this.timeWheel.add(brokerIdentityInfo, liveInfo);
+        return liveInfo;
+    }
+}
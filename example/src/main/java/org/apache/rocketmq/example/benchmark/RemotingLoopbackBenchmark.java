@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.example.benchmark;
+
+import io.netty.channel.ChannelHandlerContext;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
+import org.apache.rocketmq.remoting.metrics.RemotingMetricsManager;
+import org.apache.rocketmq.remoting.netty.NettyClientConfig;
+import org.apache.rocketmq.remoting.netty.NettyRemotingClient;
+import org.apache.rocketmq.remoting.netty.NettyRemotingServer;
+import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.srvutil.ServerUtil;
+
+/**
+ * Loopback throughput of small RPCs through a real {@link NettyRemotingServer} and {@link NettyRemotingClient},
+ * useful to compare NIO/epoll transports and flush consolidation without a running broker.
+ */
+public class RemotingLoopbackBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Options options = ServerUtil.buildCommandlineOptions(new Options());
+        CommandLine commandLine = ServerUtil.parseCmdLine("benchmarkRemotingLoopback", args, buildCommandlineOptions(options), new DefaultParser());
+        if (null == commandLine) {
+            System.exit(-1);
+        }
+
+        final int threadCount = commandLine.hasOption('w') ? Integer.parseInt(commandLine.getOptionValue('w')) : 64;
+        final int bodySize = commandLine.hasOption('s') ? Integer.parseInt(commandLine.getOptionValue('s')) : 128;
+        final int durationSeconds = commandLine.hasOption('d') ? Integer.parseInt(commandLine.getOptionValue('d')) : 30;
+        final String rpcType = commandLine.hasOption('r') ? commandLine.getOptionValue('r').trim() : "send";
+        final boolean useEpoll = commandLine.hasOption('e') && Boolean.parseBoolean(commandLine.getOptionValue('e'));
+        final boolean flushConsolidation = commandLine.hasOption('f') && Boolean.parseBoolean(commandLine.getOptionValue('f'));
+
+        final int requestCode;
+        switch (rpcType) {
+            case "heartbeat":
+                requestCode = RequestCode.HEART_BEAT;
+                break;
+            case "pull":
+                requestCode = RequestCode.PULL_MESSAGE;
+                break;
+            default:
+                requestCode = RequestCode.SEND_MESSAGE;
+                break;
+        }
+        final byte[] body = requestCode == RequestCode.PULL_MESSAGE ? null : new byte[bodySize];
+
+        System.out.printf("rpcType: %s, threadCount: %d, bodySize: %d, duration: %ds, epoll: %s, flushConsolidation: %s%n",
+            rpcType, threadCount, bodySize, durationSeconds, useEpoll, flushConsolidation);
+
+        NettyServerConfig serverConfig = new NettyServerConfig();
+        serverConfig.setBindAddress("127.0.0.1");
+        serverConfig.setListenPort(0);
+        serverConfig.setUseEpollNativeSelector(useEpoll);
+        serverConfig.setEnableFlushConsolidation(flushConsolidation);
+        serverConfig.setEnableFlushStats(true);
+        NettyRemotingServer server = new NettyRemotingServer(serverConfig);
+        ExecutorService processorExecutor = Executors.newFixedThreadPool(16, new ThreadFactoryImpl("BenchmarkProcessor_"));
+        server.registerDefaultProcessor(new NettyRequestProcessor() {
+            @Override
+            public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request) {
+                if (request.getCode() == RequestCode.PULL_MESSAGE) {
+                    return RemotingCommand.createResponseCommand(ResponseCode.PULL_NOT_FOUND, null);
+                }
+                return RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+            }
+
+            @Override
+            public boolean rejectRequest() {
+                return false;
+            }
+        }, processorExecutor);
+        server.start();
+
+        NettyClientConfig clientConfig = new NettyClientConfig();
+        clientConfig.setUseEpollNativeSelector(useEpoll);
+        clientConfig.setEnableFlushConsolidation(flushConsolidation);
+        clientConfig.setEnableFlushStats(true);
+        NettyRemotingClient client = new NettyRemotingClient(clientConfig);
+        client.start();
+
+        final String addr = "127.0.0.1:" + server.localListenPort();
+        final LongAdder successCount = new LongAdder();
+        final LongAdder failureCount = new LongAdder();
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(durationSeconds);
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        ExecutorService sendThreadPool = Executors.newFixedThreadPool(threadCount, new ThreadFactoryImpl("BenchmarkInvoker_"));
+        for (int i = 0; i < threadCount; i++) {
+            sendThreadPool.execute(() -> {
+                try {
+                    while (System.currentTimeMillis() < deadline) {
+                        RemotingCommand request = RemotingCommand.createRequestCommand(requestCode, null);
+                        request.setBody(body);
+                        try {
+                            client.invokeSync(addr, request, 3000);
+                            successCount.increment();
+                        } catch (Exception e) {
+                            failureCount.increment();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        long lastSuccess = 0;
+        while (!latch.await(1, TimeUnit.SECONDS)) {
+            long currentSuccess = successCount.sum();
+            System.out.printf("TPS: %d, failed: %d%n", currentSuccess - lastSuccess, failureCount.sum());
+            lastSuccess = currentSuccess;
+        }
+
+        long writes = RemotingMetricsManager.CHANNEL_WRITE_COUNT.sum();
+        long flushes = RemotingMetricsManager.CHANNEL_FLUSH_COUNT.sum();
+        System.out.printf("Average TPS: %d, failed: %d, writes: %d, flushes: %d, writes per flush: %.2f%n",
+            successCount.sum() / durationSeconds, failureCount.sum(), writes, flushes,
+            flushes == 0 ? 0.0 : (double) writes / flushes);
+
+        sendThreadPool.shutdown();
+        client.shutdown();
+        server.shutdown();
+        processorExecutor.shutdown();
+    }
+
+    public static Options buildCommandlineOptions(final Options options) {
+        Option opt = new Option("w", "threadCount", true, "Thread count, Default: 64");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        opt = new Option("s", "bodySize", true, "Request body size, Default: 128");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        opt = new Option("d", "duration", true, "Duration in seconds, Default: 30");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        opt = new Option("r", "rpcType", true, "Rpc type, heartbeat|send|pull, Default: send");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        opt = new Option("e", "useEpoll", true, "Use epoll native transport if available, Default: false");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        opt = new Option("f", "flushConsolidation", true, "Enable flush consolidation, Default: false");
+        opt.setRequired(false);
+        options.addOption(opt);
+
+        return options;
+    }
+}
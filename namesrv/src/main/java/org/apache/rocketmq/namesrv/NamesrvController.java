@@ -37,6 +37,7 @@ import org.apache.rocketmq.namesrv.processor.ClusterTestRequestProcessor;
 import org.apache.rocketmq.namesrv.processor.DefaultRequestProcessor;
 import org.apache.rocketmq.namesrv.route.ZoneRouteRPCHook;
 import org.apache.rocketmq.namesrv.routeinfo.BrokerHousekeepingService;
+import org.apache.rocketmq.namesrv.routeinfo.RouteChangeNotifyService;
 import org.apache.rocketmq.namesrv.routeinfo.RouteInfoManager;
 import org.apache.rocketmq.remoting.Configuration;
 import org.apache.rocketmq.remoting.RemotingClient;
@@ -73,6 +74,7 @@ public class NamesrvController {
     private RemotingServer remotingServer;
 
     private final BrokerHousekeepingService brokerHousekeepingService;
+    private final RouteChangeNotifyService routeChangeNotifyService;
 
     private ExecutorService defaultExecutor;
     private ExecutorService clientRequestExecutor;
@@ -99,6 +101,7 @@ public class NamesrvController {
         this.kvConfigManager = new KVConfigManager(this);
         this.brokerHousekeepingService = new BrokerHousekeepingService(this);
         this.routeInfoManager = new RouteInfoManager(namesrvConfig, this);
+        this.routeChangeNotifyService = new RouteChangeNotifyService(this);
         this.configuration = new Configuration(LOGGER, this.namesrvConfig, this.nettyServerConfig);
         this.configuration.setStorePathFromConfig(this.namesrvConfig, "configStorePath");
     }
@@ -142,6 +145,14 @@ public class NamesrvController {
                 LOGGER.error("printWaterMark error.", e);
             }
         }, 10, 1, TimeUnit.SECONDS);
+
+        if (this.namesrvConfig.isEnableRouteChangeNotify()) {
+            this.scheduledExecutorService.scheduleAtFixedRate(
+                    NamesrvController.this.routeChangeNotifyService::checkRouteChange,
+                    1000,
+                    this.namesrvConfig.getRouteChangeNotifyInterval(),
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     private void initiateNetworkComponents() {
@@ -232,13 +243,15 @@ public class NamesrvController {
                     new ClusterTestRequestProcessor(this, namesrvConfig.getProductEnvName()), this.defaultExecutor);
         } else {
             // ClientRequestProcessor : 通过 topic 获取 route info
-            this.remotingServer.registerProcessor(RequestCode.GET_ROUTEINFO_BY_TOPIC, new ClientRequestProcessor(this), this.clientRequestExecutor);
+            ClientRequestProcessor clientRequestProcessor = new ClientRequestProcessor(this);
+            this.remotingServer.registerProcessor(RequestCode.GET_ROUTEINFO_BY_TOPIC, clientRequestProcessor, this.clientRequestExecutor);
+            this.remotingServer.registerProcessor(RequestCode.GET_ROUTEINFO_BY_TOPICS, clientRequestProcessor, this.clientRequestExecutor);
             this.remotingServer.registerDefaultProcessor(new DefaultRequestProcessor(this), this.defaultExecutor);
         }
     }
 
     private void initiateRpcHooks() {
-        this.remotingServer.registerRPCHook(new ZoneRouteRPCHook());
+        this.remotingServer.registerRPCHook(new ZoneRouteRPCHook(this.namesrvConfig));
     }
 
     public void start() throws Exception {
@@ -294,6 +307,10 @@ public class NamesrvController {
         return routeInfoManager;
     }
 
+    public RouteChangeNotifyService getRouteChangeNotifyService() {
+        return routeChangeNotifyService;
+    }
+
     public RemotingServer getRemotingServer() {
         return remotingServer;
     }
@@ -23,6 +23,7 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.common.namesrv.NamesrvUtil;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.namesrv.NamesrvController;
@@ -83,6 +84,7 @@ public class KVConfigManager {
             log.error("putKVConfig InterruptedException", e);
         }
 
+        this.invalidateTopicRoute(namespace, key);
         this.persist();
     }
 
@@ -127,9 +129,20 @@ public class KVConfigManager {
             log.error("deleteKVConfig InterruptedException", e);
         }
 
+        this.invalidateTopicRoute(namespace, key);
         this.persist();
     }
 
+    /**
+     * The order topic config is a part of the cached topic route.
+     */
+    private void invalidateTopicRoute(final String namespace, final String key) {
+        if (NamesrvUtil.NAMESPACE_ORDER_TOPIC_CONFIG.equals(namespace)
+            && this.namesrvController.getRouteInfoManager() != null) {
+            this.namesrvController.getRouteInfoManager().getTopicRouteCache().invalidateTopic(key);
+        }
+    }
+
     public byte[] getKVListByNamespace(final String namespace) {
         try {
             this.lock.readLock().lockInterruptibly();
@@ -19,6 +19,8 @@ package org.apache.rocketmq.namesrv.processor;
 
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import io.netty.channel.ChannelHandlerContext;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -29,10 +31,18 @@ import org.apache.rocketmq.common.namesrv.NamesrvUtil;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.namesrv.route.ZoneRouteRPCHook;
+import org.apache.rocketmq.namesrv.routeinfo.RouteChangeNotifyService;
+import org.apache.rocketmq.namesrv.routeinfo.TopicRouteCache;
+import org.apache.rocketmq.namesrv.routeinfo.TopicRouteCache.VersionedRoute;
 import org.apache.rocketmq.remoting.exception.RemotingCommandException;
 import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsResponseBody;
+import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoByTopicsRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoRequestHeader;
 import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
 
@@ -43,6 +53,10 @@ public class ClientRequestProcessor implements NettyRequestProcessor {
     protected NamesrvController namesrvController;
     private long startupTimeMillis;
 
+    private static final String STANDARD_JSON_VARIANT = "standard";
+    private static final String LEGACY_JSON_VARIANT = "legacy";
+    private static final String ZONE_VARIANT_PREFIX = "zone:";
+
     private AtomicBoolean needCheckNamesrvReady = new AtomicBoolean(true);
 
     public ClientRequestProcessor(final NamesrvController namesrvController) {
@@ -54,6 +68,9 @@ public class ClientRequestProcessor implements NettyRequestProcessor {
     public RemotingCommand processRequest(final ChannelHandlerContext ctx,
                                           final RemotingCommand request) throws Exception {
 
+        if (request.getCode() == RequestCode.GET_ROUTEINFO_BY_TOPICS) {
+            return this.getRouteInfoByTopics(ctx, request);
+        }
         return this.getRouteInfoByTopic(ctx, request);
     }
 
@@ -74,6 +91,10 @@ public class ClientRequestProcessor implements NettyRequestProcessor {
             return response;
         }
 
+        if (this.namesrvController.getNamesrvConfig().isEnableTopicRouteCache()) {
+            return this.getCachedRouteInfoByTopic(request, requestHeader, response);
+        }
+
         TopicRouteData topicRouteData = this.namesrvController.getRouteInfoManager().pickupTopicRouteData(requestHeader.getTopic());
 
         if (topicRouteData != null) {
@@ -111,6 +132,127 @@ public class ClientRequestProcessor implements NettyRequestProcessor {
         return response;
     }
 
+    /**
+     * Answer the route body cached for the topic and the encoding the request accepts, it is only picked up and
+     * encoded again after a route update invalidates it. The zone filtering of {@link ZoneRouteRPCHook} is done
+     * before caching as well, so each zone has its own cached body.
+     */
+    private RemotingCommand getCachedRouteInfoByTopic(RemotingCommand request,
+        GetRouteInfoRequestHeader requestHeader, RemotingCommand response) {
+        final String topic = requestHeader.getTopic();
+        String zoneName = ZoneRouteRPCHook.filterZoneName(request);
+        boolean standardJsonOnly = Optional.ofNullable(requestHeader.getAcceptStandardJsonOnly()).orElse(false);
+        boolean standardJson = request.getVersion() >= MQVersion.Version.V4_9_4.ordinal() || standardJsonOnly;
+        String variant;
+        if (zoneName != null) {
+            variant = ZONE_VARIANT_PREFIX + zoneName;
+        } else {
+            variant = standardJson ? STANDARD_JSON_VARIANT : LEGACY_JSON_VARIANT;
+        }
+
+        TopicRouteCache topicRouteCache = this.namesrvController.getRouteInfoManager().getTopicRouteCache();
+        byte[] content = topicRouteCache.get(topic, variant);
+        if (content == null) {
+            long invalidateEpoch = topicRouteCache.getInvalidateEpoch();
+            TopicRouteData topicRouteData = this.namesrvController.getRouteChangeNotifyService().pickupTopicRouteData(topic);
+            if (topicRouteData != null) {
+                if (zoneName != null) {
+                    content = ZoneRouteRPCHook.filterByZoneName(new TopicRouteData(topicRouteData), zoneName).encode();
+                } else if (standardJson) {
+                    content = topicRouteData.encode(SerializerFeature.BrowserCompatible,
+                        SerializerFeature.QuoteFieldNames, SerializerFeature.SkipTransientField,
+                        SerializerFeature.MapSortField);
+                } else {
+                    content = topicRouteData.encode();
+                }
+                topicRouteCache.put(topic, variant, topicRouteData, content, invalidateEpoch);
+            }
+        }
+
+        if (content != null) {
+            // topic route info register success ,so disable namesrvReady check
+            if (needCheckNamesrvReady.get()) {
+                needCheckNamesrvReady.set(false);
+            }
+            response.setBody(content);
+            response.setCode(ResponseCode.SUCCESS);
+            response.setRemark(null);
+            return response;
+        }
+
+        response.setCode(ResponseCode.TOPIC_NOT_EXIST);
+        response.setRemark("No topic route info in name server for the topic: " + topic
+            + FAQUrl.suggestTodo(FAQUrl.APPLY_TOPIC_URL));
+        return response;
+    }
+
+    public RemotingCommand getRouteInfoByTopics(ChannelHandlerContext ctx,
+                                                RemotingCommand request) throws RemotingCommandException {
+
+        final RemotingCommand response = RemotingCommand.createResponseCommand(null);
+
+        final GetRouteInfoByTopicsRequestHeader requestHeader =
+            (GetRouteInfoByTopicsRequestHeader) request.decodeCommandCustomHeader(GetRouteInfoByTopicsRequestHeader.class);
+
+        boolean namesrvReady = needCheckNamesrvReady.get() && System.currentTimeMillis() - startupTimeMillis >= TimeUnit.SECONDS.toMillis(namesrvController.getNamesrvConfig().getWaitSecondsForService());
+
+        if (namesrvController.getNamesrvConfig().isNeedWaitForService() && !namesrvReady) {
+            log.warn("name server not ready. request code {} ", request.getCode());
+            response.setCode(ResponseCode.SYSTEM_ERROR);
+            response.setRemark("name server not ready");
+            return response;
+        }
+
+        if (request.getBody() == null) {
+            response.setCode(ResponseCode.SYSTEM_ERROR);
+            response.setRemark("the topics to query route are absent");
+            return response;
+        }
+        GetRouteInfoByTopicsRequestBody requestBody =
+            GetRouteInfoByTopicsRequestBody.decode(request.getBody(), GetRouteInfoByTopicsRequestBody.class);
+
+        RouteChangeNotifyService routeChangeNotifyService = this.namesrvController.getRouteChangeNotifyService();
+        GetRouteInfoByTopicsResponseBody responseBody = new GetRouteInfoByTopicsResponseBody();
+        Map<String, Long> topicVersionTable = new HashMap<>(requestBody.getTopics().size());
+        for (String topic : requestBody.getTopics()) {
+            VersionedRoute versionedRoute = routeChangeNotifyService.pickupVersionedRoute(topic);
+            if (versionedRoute == null) {
+                continue;
+            }
+            // topic route info register success ,so disable namesrvReady check
+            if (needCheckNamesrvReady.get()) {
+                needCheckNamesrvReady.set(false);
+            }
+            long version = versionedRoute.getVersion();
+            topicVersionTable.put(topic, version);
+            responseBody.getTopicVersionTable().put(topic, version);
+            Long knownVersion = requestBody.getTopicVersionTable().get(topic);
+            if (knownVersion == null || knownVersion != version) {
+                responseBody.getTopicRouteTable().put(topic, versionedRoute.getTopicRouteData());
+            }
+        }
+
+        if (Boolean.TRUE.equals(requestHeader.getSubscribeRouteChange())
+            && this.namesrvController.getNamesrvConfig().isEnableRouteChangeNotify()) {
+            routeChangeNotifyService.subscribe(ctx.channel(), requestBody.getTopics(), topicVersionTable);
+        }
+
+        byte[] content;
+        Boolean standardJsonOnly = Optional.ofNullable(requestHeader.getAcceptStandardJsonOnly()).orElse(false);
+        if (request.getVersion() >= MQVersion.Version.V4_9_4.ordinal() || standardJsonOnly) {
+            content = responseBody.encode(SerializerFeature.BrowserCompatible,
+                SerializerFeature.QuoteFieldNames, SerializerFeature.SkipTransientField,
+                SerializerFeature.MapSortField);
+        } else {
+            content = responseBody.encode();
+        }
+
+        response.setBody(content);
+        response.setCode(ResponseCode.SUCCESS);
+        response.setRemark(null);
+        return response;
+    }
+
     @Override
     public boolean rejectRequest() {
         return false;
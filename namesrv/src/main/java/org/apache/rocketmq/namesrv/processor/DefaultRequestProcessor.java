@@ -645,6 +645,8 @@ public class DefaultRequestProcessor implements NettyRequestProcessor {
             }
 
             this.namesrvController.getConfiguration().update(properties);
+            // the cached routes may depend on the updated configs, such as supportActingMaster
+            this.namesrvController.getRouteInfoManager().getTopicRouteCache().clear();
         }
 
         response.setCode(ResponseCode.SUCCESS);
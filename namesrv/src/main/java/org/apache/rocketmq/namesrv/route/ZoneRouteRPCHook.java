@@ -23,17 +23,33 @@ import java.util.Map;
 import java.util.Map.Entry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.namesrv.NamesrvConfig;
 import org.apache.rocketmq.remoting.RPCHook;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RemotingSerializable;
 import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsResponseBody;
 import org.apache.rocketmq.remoting.protocol.route.BrokerData;
 import org.apache.rocketmq.remoting.protocol.route.QueueData;
 import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
 
 public class ZoneRouteRPCHook implements RPCHook {
 
+    private final NamesrvConfig namesrvConfig;
+
+    public ZoneRouteRPCHook() {
+        this(null);
+    }
+
+    /**
+     * @param namesrvConfig the single topic routes are already filtered before cached once the topic route cache is
+     * enabled
+     */
+    public ZoneRouteRPCHook(NamesrvConfig namesrvConfig) {
+        this.namesrvConfig = namesrvConfig;
+    }
+
     @Override
     public void doBeforeRequest(String remoteAddr, RemotingCommand request) {
 
@@ -41,18 +57,26 @@ public class ZoneRouteRPCHook implements RPCHook {
 
     @Override
     public void doAfterResponse(String remoteAddr, RemotingCommand request, RemotingCommand response) {
-        if (RequestCode.GET_ROUTEINFO_BY_TOPIC != request.getCode()) {
+        if (RequestCode.GET_ROUTEINFO_BY_TOPIC != request.getCode()
+            && RequestCode.GET_ROUTEINFO_BY_TOPICS != request.getCode()) {
             return;
         }
         if (response == null || response.getBody() == null || ResponseCode.SUCCESS != response.getCode()) {
             return;
         }
-        boolean zoneMode = Boolean.parseBoolean(request.getExtFields().get(MixAll.ZONE_MODE));
-        if (!zoneMode) {
+        String zoneName = filterZoneName(request);
+        if (zoneName == null) {
             return;
         }
-        String zoneName = request.getExtFields().get(MixAll.ZONE_NAME);
-        if (StringUtils.isBlank(zoneName)) {
+        if (RequestCode.GET_ROUTEINFO_BY_TOPIC == request.getCode()
+            && namesrvConfig != null && namesrvConfig.isEnableTopicRouteCache()) {
+            return;
+        }
+        if (RequestCode.GET_ROUTEINFO_BY_TOPICS == request.getCode()) {
+            GetRouteInfoByTopicsResponseBody responseBody =
+                RemotingSerializable.decode(response.getBody(), GetRouteInfoByTopicsResponseBody.class);
+            responseBody.getTopicRouteTable().values().forEach(topicRouteData -> filterByZoneName(topicRouteData, zoneName));
+            response.setBody(responseBody.encode());
             return;
         }
         TopicRouteData topicRouteData = RemotingSerializable.decode(response.getBody(), TopicRouteData.class);
@@ -60,7 +84,25 @@ public class ZoneRouteRPCHook implements RPCHook {
         response.setBody(filterByZoneName(topicRouteData, zoneName).encode());
     }
 
-    private TopicRouteData filterByZoneName(TopicRouteData topicRouteData, String zoneName) {
+    /**
+     * @return the zone name to filter the routes by, null if the request is not in zone mode
+     */
+    public static String filterZoneName(RemotingCommand request) {
+        if (request.getExtFields() == null) {
+            return null;
+        }
+        boolean zoneMode = Boolean.parseBoolean(request.getExtFields().get(MixAll.ZONE_MODE));
+        if (!zoneMode) {
+            return null;
+        }
+        String zoneName = request.getExtFields().get(MixAll.ZONE_NAME);
+        if (StringUtils.isBlank(zoneName)) {
+            return null;
+        }
+        return zoneName;
+    }
+
+    public static TopicRouteData filterByZoneName(TopicRouteData topicRouteData, String zoneName) {
         List<BrokerData> brokerDataReserved = new ArrayList<>();
         Map<String, BrokerData> brokerDataRemoved = new HashMap<>();
         for (BrokerData brokerData : topicRouteData.getBrokerDatas()) {
@@ -35,16 +35,19 @@ public class BrokerHousekeepingService implements ChannelEventListener {
     @Override
     public void onChannelClose(String remoteAddr, Channel channel) {
         this.namesrvController.getRouteInfoManager().onChannelDestroy(channel);
+        this.namesrvController.getRouteChangeNotifyService().onChannelDestroy(channel);
     }
 
     @Override
     public void onChannelException(String remoteAddr, Channel channel) {
         this.namesrvController.getRouteInfoManager().onChannelDestroy(channel);
+        this.namesrvController.getRouteChangeNotifyService().onChannelDestroy(channel);
     }
 
     @Override
     public void onChannelIdle(String remoteAddr, Channel channel) {
         this.namesrvController.getRouteInfoManager().onChannelDestroy(channel);
+        this.namesrvController.getRouteChangeNotifyService().onChannelDestroy(channel);
     }
 
     @Override
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.namesrv.routeinfo;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.hash.Hashing;
+import io.netty.channel.Channel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.common.namesrv.NamesrvUtil;
+import org.apache.rocketmq.logging.org.slf4j.Logger;
+import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
+import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.namesrv.routeinfo.TopicRouteCache.VersionedRoute;
+import org.apache.rocketmq.remoting.common.RemotingHelper;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.body.TopicList;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
+
+/**
+ * Keep the topics each client channel subscribes by the batch route query, and notify the channel once the routes
+ * of its topics change, are created or are deleted. The routes are only checked again after the route epoch of
+ * {@link RouteInfoManager} moves, and only the topics invalidated in {@link TopicRouteCache} are picked up again.
+ */
+public class RouteChangeNotifyService {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.NAMESRV_LOGGER_NAME);
+    private static final long NOTIFY_TIMEOUT_MILLIS = 3000;
+    /**
+     * Version of the subscribed topics which do not exist
+     */
+    private static final long NO_ROUTE_VERSION = 0;
+
+    private final NamesrvController namesrvController;
+    private final ConcurrentMap<Channel, Set<String>> channelTopicTable = new ConcurrentHashMap<>(1024);
+    private final ConcurrentMap<String/* topic */, Set<Channel>> topicChannelTable = new ConcurrentHashMap<>(1024);
+    private final ConcurrentMap<String/* topic */, Long> topicVersionTable = new ConcurrentHashMap<>(1024);
+    private volatile long checkedRouteEpoch = -1;
+
+    public RouteChangeNotifyService(NamesrvController namesrvController) {
+        this.namesrvController = namesrvController;
+    }
+
+    /**
+     * @return the route of the topic as answered to the clients, null if the topic does not exist
+     */
+    public TopicRouteData pickupTopicRouteData(final String topic) {
+        TopicRouteData topicRouteData = this.namesrvController.getRouteInfoManager().pickupTopicRouteData(topic);
+        if (topicRouteData != null && this.namesrvController.getNamesrvConfig().isOrderMessageEnable()) {
+            String orderTopicConf = this.namesrvController.getKvConfigManager().getKVConfig(
+                NamesrvUtil.NAMESPACE_ORDER_TOPIC_CONFIG, topic);
+            topicRouteData.setOrderTopicConf(orderTopicConf);
+        }
+        return topicRouteData;
+    }
+
+    /**
+     * @return the route of the topic with its version, null if the topic does not exist. Both are cached until a route
+     * write invalidates the topic, and must never be modified.
+     */
+    public VersionedRoute pickupVersionedRoute(final String topic) {
+        TopicRouteCache topicRouteCache = this.namesrvController.getRouteInfoManager().getTopicRouteCache();
+        VersionedRoute versionedRoute = topicRouteCache.getVersionedRoute(topic);
+        if (versionedRoute == null) {
+            long invalidateEpoch = topicRouteCache.getInvalidateEpoch();
+            TopicRouteData topicRouteData = pickupTopicRouteData(topic);
+            if (topicRouteData == null) {
+                return null;
+            }
+            versionedRoute = new VersionedRoute(topicRouteData, routeVersion(topicRouteData));
+            topicRouteCache.putVersionedRoute(topic, versionedRoute, invalidateEpoch);
+        }
+        return versionedRoute;
+    }
+
+    /**
+     * The version is only meaningful to this name server, the clients just send it back as it is.
+     */
+    public static long routeVersion(TopicRouteData topicRouteData) {
+        return Hashing.murmur3_128().hashBytes(JSON.toJSONBytes(topicRouteData, SerializerFeature.MapSortField)).asLong();
+    }
+
+    /**
+     * Replace the topics subscribed by the channel.
+     *
+     * @param topicVersionTable the route versions just answered to the channel, absent for the topics not existing
+     */
+    public synchronized void subscribe(Channel channel, Set<String> topics, Map<String, Long> topicVersionTable) {
+        Set<String> oldTopics = channelTopicTable.put(channel, topics);
+        if (oldTopics != null) {
+            for (String topic : oldTopics) {
+                if (!topics.contains(topic)) {
+                    unsubscribe(channel, topic);
+                }
+            }
+        }
+        for (String topic : topics) {
+            topicChannelTable.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(channel);
+            this.topicVersionTable.putIfAbsent(topic, topicVersionTable.getOrDefault(topic, NO_ROUTE_VERSION));
+        }
+    }
+
+    public synchronized void onChannelDestroy(Channel channel) {
+        if (channel == null) {
+            return;
+        }
+        Set<String> topics = channelTopicTable.remove(channel);
+        if (topics != null) {
+            for (String topic : topics) {
+                unsubscribe(channel, topic);
+            }
+        }
+    }
+
+    private void unsubscribe(Channel channel, String topic) {
+        Set<Channel> channels = topicChannelTable.get(topic);
+        if (channels != null && channels.remove(channel) && channels.isEmpty()) {
+            topicChannelTable.remove(topic);
+            topicVersionTable.remove(topic);
+        }
+    }
+
+    public void checkRouteChange() {
+        try {
+            long routeEpoch = this.namesrvController.getRouteInfoManager().getRouteEpoch();
+            if (routeEpoch == checkedRouteEpoch) {
+                return;
+            }
+            checkedRouteEpoch = routeEpoch;
+
+            Map<Channel, Set<String>> notifyTable = new HashMap<>();
+            for (Map.Entry<String, Set<Channel>> entry : topicChannelTable.entrySet()) {
+                String topic = entry.getKey();
+                VersionedRoute versionedRoute = pickupVersionedRoute(topic);
+                long version = versionedRoute == null ? NO_ROUTE_VERSION : versionedRoute.getVersion();
+                Long oldVersion = topicVersionTable.put(topic, version);
+                // unknown only if the topic is just unsubscribed
+                if (oldVersion == null || oldVersion == version) {
+                    continue;
+                }
+                for (Channel channel : entry.getValue()) {
+                    notifyTable.computeIfAbsent(channel, k -> new HashSet<>()).add(topic);
+                }
+            }
+
+            for (Map.Entry<Channel, Set<String>> entry : notifyTable.entrySet()) {
+                notifyRouteChanged(entry.getKey(), entry.getValue());
+            }
+        } catch (Throwable e) {
+            log.error("checkRouteChange error", e);
+        }
+    }
+
+    private void notifyRouteChanged(Channel channel, Set<String> topics) {
+        if (!channel.isActive()) {
+            return;
+        }
+        TopicList topicList = new TopicList();
+        topicList.setTopicList(topics);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.NOTIFY_TOPIC_ROUTE_CHANGED, null);
+        request.setBody(topicList.encode());
+        try {
+            this.namesrvController.getRemotingServer().invokeOneway(channel, request, NOTIFY_TIMEOUT_MILLIS);
+        } catch (Exception e) {
+            log.warn("notify route changed of {} topics to {} failed", topics.size(),
+                RemotingHelper.parseChannelRemoteAddr(channel), e);
+        }
+    }
+
+    public int getSubscribedTopicNum() {
+        return topicChannelTable.size();
+    }
+}
@@ -27,9 +27,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.lang3.StringUtils;
@@ -77,6 +79,17 @@ public class RouteInfoManager {
     private final Map<BrokerAddrInfo/* brokerAddr */, List<String>/* Filter Server */> filterServerTable;
     private final Map<String/* topic */, Map<String/*brokerName*/, TopicQueueMappingInfo>> topicQueueMappingInfoTable;
 
+    /**
+     * Increased on each update of the route tables under the write lock, so that whether any route could have
+     * changed is told without picking up the routes
+     */
+    private final AtomicLong routeEpoch = new AtomicLong(0);
+
+    /**
+     * Invalidated under the write lock by the updates which change the routes of some topics
+     */
+    private final TopicRouteCache topicRouteCache = new TopicRouteCache();
+
     private final BatchUnregistrationService unRegisterService;
 
     private final NamesrvController namesrvController;
@@ -98,6 +111,14 @@ public class RouteInfoManager {
         this.unRegisterService.start();
     }
 
+    public long getRouteEpoch() {
+        return routeEpoch.get();
+    }
+
+    public TopicRouteCache getTopicRouteCache() {
+        return topicRouteCache;
+    }
+
     public void shutdown() {
         this.unRegisterService.shutdown(true);
     }
@@ -125,6 +146,7 @@ public class RouteInfoManager {
 
         try {
             this.lock.writeLock().lockInterruptibly();
+            this.routeEpoch.incrementAndGet();
             if (this.topicQueueTable.containsKey(topic)) {
                 Map<String, QueueData> queueDataMap  = this.topicQueueTable.get(topic);
                 for (QueueData queueData : queueDatas) {
@@ -133,6 +155,7 @@ public class RouteInfoManager {
                         return;
                     }
                     queueDataMap.put(queueData.getBrokerName(), queueData);
+                    this.topicRouteCache.invalidateTopic(topic);
                 }
                 log.info("Topic route already exist.{}, {}", topic, this.topicQueueTable.get(topic));
             } else {
@@ -159,7 +182,9 @@ public class RouteInfoManager {
     public void deleteTopic(final String topic) {
         try {
             this.lock.writeLock().lockInterruptibly();
+            this.routeEpoch.incrementAndGet();
             this.topicQueueTable.remove(topic);
+            this.topicRouteCache.invalidateTopic(topic);
         } catch (Exception e) {
             log.error("deleteTopic Exception", e);
         } finally {
@@ -170,6 +195,7 @@ public class RouteInfoManager {
     public void deleteTopic(final String topic, final String clusterName) {
         try {
             this.lock.writeLock().lockInterruptibly();
+            this.routeEpoch.incrementAndGet();
             //get all the brokerNames fot the specified cluster
             Set<String> brokerNames = this.clusterAddrTable.get(clusterName);
             if (brokerNames == null || brokerNames.isEmpty()) {
@@ -188,6 +214,7 @@ public class RouteInfoManager {
                     log.info("deleteTopic, remove the topic all queue {} {}", clusterName, topic);
                     this.topicQueueTable.remove(topic);
                 }
+                this.topicRouteCache.invalidateTopic(topic);
             }
         } catch (Exception e) {
             log.error("deleteTopic Exception", e);
@@ -237,16 +264,21 @@ public class RouteInfoManager {
         final List<String> filterServerList,
         final Channel channel) {
         RegisterBrokerResult result = new RegisterBrokerResult();
+        BrokerData prevBrokerData = null;
+        List<String> prevFilterServerList = null;
+        // heartbeats re-register unchanged brokers, only real changes of the routes bump the route epoch
+        boolean routeChanged = false;
         try {
             this.lock.writeLock().lockInterruptibly();
 
             //init or update the cluster info
             Set<String> brokerNames = ConcurrentHashMapUtils.computeIfAbsent((ConcurrentHashMap<String, Set<String>>) this.clusterAddrTable, clusterName, k -> new HashSet<>());
-            brokerNames.add(brokerName);
+            routeChanged = brokerNames.add(brokerName);
 
             boolean registerFirst = false;
 
             BrokerData brokerData = this.brokerAddrTable.get(brokerName);
+            prevBrokerData = brokerData == null ? null : new BrokerData(brokerData);
             if (null == brokerData) {
                 registerFirst = true;
                 brokerData = new BrokerData(clusterName, brokerName, new HashMap<>());
@@ -333,6 +365,8 @@ public class RouteInfoManager {
                                 log.info("deleteTopic, remove the topic all queue {}", toDeleteTopic);
                                 topicQueueTable.remove(toDeleteTopic);
                             }
+                            this.topicRouteCache.invalidateTopic(toDeleteTopic);
+                            routeChanged = true;
                         }
                     }
 
@@ -346,7 +380,10 @@ public class RouteInfoManager {
                                 // Wipe write perm for prime slave
                                 topicConfig.setPerm(topicConfig.getPerm() & (~PermName.PERM_WRITE));
                             }
-                            this.createAndUpdateQueueData(brokerName, topicConfig);
+                            if (this.createAndUpdateQueueData(brokerName, topicConfig)) {
+                                this.topicRouteCache.invalidateTopic(topicConfig.getTopicName());
+                                routeChanged = true;
+                            }
                         }
                     }
 
@@ -359,6 +396,8 @@ public class RouteInfoManager {
                             //Note asset brokerName equal entry.getValue().getBname()
                             //here use the mappingDetail.bname
                             topicQueueMappingInfoTable.get(entry.getKey()).put(entry.getValue().getBname(), entry.getValue());
+                            this.topicRouteCache.invalidateTopic(entry.getKey());
+                            routeChanged = true;
                         }
                     }
                 }
@@ -378,9 +417,13 @@ public class RouteInfoManager {
 
             if (filterServerList != null) {
                 if (filterServerList.isEmpty()) {
-                    this.filterServerTable.remove(brokerAddrInfo);
+                    prevFilterServerList = this.filterServerTable.remove(brokerAddrInfo);
                 } else {
-                    this.filterServerTable.put(brokerAddrInfo, filterServerList);
+                    prevFilterServerList = this.filterServerTable.put(brokerAddrInfo, filterServerList);
+                }
+                if (!Objects.equals(prevFilterServerList, filterServerList.isEmpty() ? null : filterServerList)) {
+                    this.topicRouteCache.invalidateBroker(brokerName);
+                    routeChanged = true;
                 }
             }
 
@@ -403,12 +446,30 @@ public class RouteInfoManager {
         } catch (Exception e) {
             log.error("registerBroker Exception", e);
         } finally {
+            // the broker data is changed in place, even by the registrations rejected halfway
+            if (!isSameBrokerData(prevBrokerData, this.brokerAddrTable.get(brokerName))) {
+                this.topicRouteCache.invalidateBroker(brokerName);
+                routeChanged = true;
+            }
+            if (routeChanged) {
+                this.routeEpoch.incrementAndGet();
+            }
             this.lock.writeLock().unlock();
         }
 
         return result;
     }
 
+    private static boolean isSameBrokerData(BrokerData prev, BrokerData current) {
+        if (prev == null || current == null) {
+            return prev == current;
+        }
+        return prev.equals(current)
+            && StringUtils.equals(prev.getCluster(), current.getCluster())
+            && StringUtils.equals(prev.getZoneName(), current.getZoneName())
+            && prev.isEnableActingMaster() == current.isEnableActingMaster();
+    }
+
     private Set<String> topicSetOfBrokerName(final String brokerName) {
         Set<String> topicOfBroker = new HashSet<>();
         for (final Entry<String, Map<String, QueueData>> entry : this.topicQueueTable.entrySet()) {
@@ -475,7 +536,10 @@ public class RouteInfoManager {
         }
     }
 
-    private void createAndUpdateQueueData(final String brokerName, final TopicConfig topicConfig) {
+    /**
+     * @return true if the queue data of the topic is changed
+     */
+    private boolean createAndUpdateQueueData(final String brokerName, final TopicConfig topicConfig) {
         QueueData queueData = new QueueData();
         queueData.setBrokerName(brokerName);
         queueData.setWriteQueueNums(topicConfig.getWriteQueueNums());
@@ -489,22 +553,28 @@ public class RouteInfoManager {
             queueDataMap.put(brokerName, queueData);
             this.topicQueueTable.put(topicConfig.getTopicName(), queueDataMap);
             log.info("new topic registered, {} {}", topicConfig.getTopicName(), queueData);
+            return true;
         } else {
             final QueueData existedQD = queueDataMap.get(brokerName);
             if (existedQD == null) {
                 queueDataMap.put(brokerName, queueData);
+                return true;
             } else if (!existedQD.equals(queueData)) {
                 log.info("topic changed, {} OLD: {} NEW: {}", topicConfig.getTopicName(), existedQD,
                     queueData);
                 queueDataMap.put(brokerName, queueData);
+                return true;
             }
         }
+        return false;
     }
 
     public int wipeWritePermOfBrokerByLock(final String brokerName) {
         try {
             try {
                 this.lock.writeLock().lockInterruptibly();
+                this.routeEpoch.incrementAndGet();
+                this.topicRouteCache.invalidateBroker(brokerName);
                 return operateWritePermOfBroker(brokerName, RequestCode.WIPE_WRITE_PERM_OF_BROKER);
             } finally {
                 this.lock.writeLock().unlock();
@@ -520,6 +590,8 @@ public class RouteInfoManager {
         try {
             try {
                 this.lock.writeLock().lockInterruptibly();
+                this.routeEpoch.incrementAndGet();
+                this.topicRouteCache.invalidateBroker(brokerName);
                 return operateWritePermOfBroker(brokerName, RequestCode.ADD_WRITE_PERM_OF_BROKER);
             } finally {
                 this.lock.writeLock().unlock();
@@ -576,6 +648,8 @@ public class RouteInfoManager {
             Map<String, BrokerStatusChangeInfo> needNotifyBrokerMap = new HashMap<>();
 
             this.lock.writeLock().lockInterruptibly();
+
+            this.routeEpoch.incrementAndGet();
             for (final UnRegisterBrokerRequestHeader unRegisterRequest : unRegisterRequests) {
                 final String brokerName = unRegisterRequest.getBrokerName();
                 final String clusterName = unRegisterRequest.getClusterName();
@@ -639,6 +713,8 @@ public class RouteInfoManager {
             }
 
             cleanTopicByUnRegisterRequests(removedBroker, reducedBroker);
+            removedBroker.forEach(this.topicRouteCache::invalidateBroker);
+            reducedBroker.forEach(this.topicRouteCache::invalidateBroker);
 
             if (!needNotifyBrokerMap.isEmpty() && namesrvConfig.isNotifyMinBrokerIdChanged()) {
                 notifyMinBrokerIdChanged(needNotifyBrokerMap);
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.namesrv.routeinfo;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.rocketmq.remoting.protocol.route.QueueData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
+
+/**
+ * Encoded route bodies answered to the clients, per topic and per encoding variant, and the route versions of the
+ * batch route query, so that the routes are not picked up, encoded or hashed again until a write of
+ * {@link RouteInfoManager} actually changes them.
+ * <p>
+ * The cached bodies and routes are shared by all the responses and must never be modified.
+ */
+public class TopicRouteCache {
+
+    private final ConcurrentMap<String/* topic */, CachedRoute> routeTable = new ConcurrentHashMap<>(1024);
+
+    /**
+     * Increased before each invalidation, a body encoded from a route picked up before is not cached
+     */
+    private final AtomicLong invalidateEpoch = new AtomicLong(0);
+
+    public byte[] get(final String topic, final String variant) {
+        CachedRoute cachedRoute = routeTable.get(topic);
+        return cachedRoute == null ? null : cachedRoute.bodyTable.get(variant);
+    }
+
+    public VersionedRoute getVersionedRoute(final String topic) {
+        CachedRoute cachedRoute = routeTable.get(topic);
+        return cachedRoute == null ? null : cachedRoute.versionedRoute;
+    }
+
+    /**
+     * Read it before picking up the route to cache.
+     */
+    public long getInvalidateEpoch() {
+        return invalidateEpoch.get();
+    }
+
+    /**
+     * @param invalidateEpoch the invalidate epoch read before the route is picked up, the body is dropped if the
+     * route may have been invalidated since then
+     */
+    public void put(final String topic, final String variant, final TopicRouteData topicRouteData, final byte[] body,
+        final long invalidateEpoch) {
+        if (this.invalidateEpoch.get() != invalidateEpoch) {
+            return;
+        }
+        CachedRoute cachedRoute = routeTable.computeIfAbsent(topic, k -> new CachedRoute(topicRouteData));
+        cachedRoute.bodyTable.put(variant, body);
+        // an invalidation may have run between the check and the put
+        if (this.invalidateEpoch.get() != invalidateEpoch) {
+            routeTable.remove(topic, cachedRoute);
+        }
+    }
+
+    /**
+     * @param invalidateEpoch the invalidate epoch read before the route is picked up, the route is dropped if it may
+     * have been invalidated since then
+     */
+    public void putVersionedRoute(final String topic, final VersionedRoute versionedRoute, final long invalidateEpoch) {
+        if (this.invalidateEpoch.get() != invalidateEpoch) {
+            return;
+        }
+        CachedRoute cachedRoute = routeTable.computeIfAbsent(topic,
+            k -> new CachedRoute(versionedRoute.getTopicRouteData()));
+        cachedRoute.versionedRoute = versionedRoute;
+        if (this.invalidateEpoch.get() != invalidateEpoch) {
+            routeTable.remove(topic, cachedRoute);
+        }
+    }
+
+    public void invalidateTopic(final String topic) {
+        invalidateEpoch.incrementAndGet();
+        routeTable.remove(topic);
+    }
+
+    /**
+     * Invalidate the routes of all the topics served by the broker.
+     */
+    public void invalidateBroker(final String brokerName) {
+        invalidateEpoch.incrementAndGet();
+        routeTable.values().removeIf(cachedRoute -> cachedRoute.brokerNames.contains(brokerName));
+    }
+
+    public void clear() {
+        invalidateEpoch.incrementAndGet();
+        routeTable.clear();
+    }
+
+    public int size() {
+        return routeTable.size();
+    }
+
+    private static class CachedRoute {
+        private final Set<String> brokerNames = new HashSet<>();
+        private final ConcurrentMap<String/* variant */, byte[]> bodyTable = new ConcurrentHashMap<>(4);
+        private volatile VersionedRoute versionedRoute;
+
+        CachedRoute(TopicRouteData topicRouteData) {
+            for (QueueData queueData : topicRouteData.getQueueDatas()) {
+                brokerNames.add(queueData.getBrokerName());
+            }
+        }
+    }
+
+    public static class VersionedRoute {
+        private final TopicRouteData topicRouteData;
+        private final long version;
+
+        public VersionedRoute(TopicRouteData topicRouteData, long version) {
+            this.topicRouteData = topicRouteData;
+            this.version = version;
+        }
+
+        public TopicRouteData getTopicRouteData() {
+            return topicRouteData;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.namesrv.processor;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.namesrv.NamesrvConfig;
+import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.namesrv.route.ZoneRouteRPCHook;
+import org.apache.rocketmq.namesrv.routeinfo.RouteChangeNotifyService;
+import org.apache.rocketmq.namesrv.routeinfo.TopicRouteCache.VersionedRoute;
+import org.apache.rocketmq.remoting.RemotingServer;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.GetRouteInfoByTopicsResponseBody;
+import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper;
+import org.apache.rocketmq.remoting.protocol.body.TopicList;
+import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoByTopicsRequestHeader;
+import org.apache.rocketmq.remoting.protocol.header.namesrv.GetRouteInfoRequestHeader;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
+import org.assertj.core.util.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClientRequestProcessorTest {
+    private NamesrvController namesrvController;
+
+    private ClientRequestProcessor clientRequestProcessor;
+
+    private RemotingServer remotingServer;
+
+    private Channel channel;
+
+    private ChannelHandlerContext ctx;
+
+    @Before
+    public void init() {
+        NamesrvConfig namesrvConfig = new NamesrvConfig();
+        namesrvConfig.setEnableRouteChangeNotify(true);
+        namesrvController = new NamesrvController(namesrvConfig, new NettyServerConfig());
+        remotingServer = mock(RemotingServer.class);
+        namesrvController.setRemotingServer(remotingServer);
+        clientRequestProcessor = new ClientRequestProcessor(namesrvController);
+
+        channel = mock(Channel.class);
+        when(channel.isActive()).thenReturn(true);
+        ctx = mock(ChannelHandlerContext.class);
+        when(ctx.channel()).thenReturn(channel);
+
+        registerBroker("default-broker", "127.0.0.1:10911", "unit-test0", "unit-test1");
+    }
+
+    @Test
+    public void testGetRouteInfoByTopics() throws Exception {
+        GetRouteInfoByTopicsRequestBody requestBody = new GetRouteInfoByTopicsRequestBody();
+        requestBody.setTopics(Sets.newLinkedHashSet("unit-test0", "unit-test1", "test"));
+        GetRouteInfoByTopicsResponseBody responseBody = getRouteInfoByTopics(requestBody);
+        assertThat(responseBody.getTopicRouteTable()).containsOnlyKeys("unit-test0", "unit-test1");
+        assertThat(responseBody.getTopicVersionTable()).containsOnlyKeys("unit-test0", "unit-test1");
+
+        // the known routes are not answered again, the versions tell which topics still exist
+        requestBody.setTopicVersionTable(responseBody.getTopicVersionTable());
+        responseBody = getRouteInfoByTopics(requestBody);
+        assertThat(responseBody.getTopicRouteTable()).isEmpty();
+        assertThat(responseBody.getTopicVersionTable()).isEqualTo(requestBody.getTopicVersionTable());
+    }
+
+    @Test
+    public void testRouteVersionCached() {
+        RouteChangeNotifyService routeChangeNotifyService = namesrvController.getRouteChangeNotifyService();
+        VersionedRoute versionedRoute = routeChangeNotifyService.pickupVersionedRoute("unit-test0");
+        assertThat(routeChangeNotifyService.pickupVersionedRoute("unit-test0")).isSameAs(versionedRoute);
+        assertThat(routeChangeNotifyService.pickupVersionedRoute("test")).isNull();
+
+        registerBroker("another-broker", "127.0.0.1:10921", "unit-test0", "unit-test2");
+        VersionedRoute changedRoute = routeChangeNotifyService.pickupVersionedRoute("unit-test0");
+        assertThat(changedRoute).isNotSameAs(versionedRoute);
+        assertThat(changedRoute.getVersion()).isNotEqualTo(versionedRoute.getVersion());
+    }
+
+    @Test
+    public void testNotifyRouteChanged() throws Exception {
+        GetRouteInfoByTopicsRequestBody requestBody = new GetRouteInfoByTopicsRequestBody();
+        requestBody.setTopics(Sets.newLinkedHashSet("unit-test0", "unit-test1", "test"));
+        getRouteInfoByTopics(requestBody);
+        RouteChangeNotifyService routeChangeNotifyService = namesrvController.getRouteChangeNotifyService();
+        assertThat(routeChangeNotifyService.getSubscribedTopicNum()).isEqualTo(3);
+
+        routeChangeNotifyService.checkRouteChange();
+        verify(remotingServer, never()).invokeOneway(any(Channel.class), any(RemotingCommand.class), anyLong());
+
+        // the route of unit-test0 changes once another broker serves it
+        registerBroker("another-broker", "127.0.0.1:10921", "unit-test0", "unit-test2");
+        routeChangeNotifyService.checkRouteChange();
+        ArgumentCaptor<RemotingCommand> captor = ArgumentCaptor.forClass(RemotingCommand.class);
+        verify(remotingServer).invokeOneway(eq(channel), captor.capture(), anyLong());
+        assertThat(captor.getValue().getCode()).isEqualTo(RequestCode.NOTIFY_TOPIC_ROUTE_CHANGED);
+        assertThat(TopicList.decode(captor.getValue().getBody(), TopicList.class).getTopicList())
+            .containsExactly("unit-test0");
+
+        routeChangeNotifyService.onChannelDestroy(channel);
+        assertThat(routeChangeNotifyService.getSubscribedTopicNum()).isZero();
+    }
+
+    @Test
+    public void testNotifyRouteCreatedAndDeleted() throws Exception {
+        GetRouteInfoByTopicsRequestBody requestBody = new GetRouteInfoByTopicsRequestBody();
+        requestBody.setTopics(Sets.newLinkedHashSet("unit-test0", "test"));
+        getRouteInfoByTopics(requestBody);
+        RouteChangeNotifyService routeChangeNotifyService = namesrvController.getRouteChangeNotifyService();
+        ArgumentCaptor<RemotingCommand> captor = ArgumentCaptor.forClass(RemotingCommand.class);
+
+        // the topic not existing when subscribed is created later
+        registerBroker("default-broker", "127.0.0.1:10911", "unit-test0", "unit-test1", "test");
+        routeChangeNotifyService.checkRouteChange();
+        verify(remotingServer).invokeOneway(eq(channel), captor.capture(), anyLong());
+        assertThat(TopicList.decode(captor.getValue().getBody(), TopicList.class).getTopicList())
+            .containsExactly("test");
+
+        namesrvController.getRouteInfoManager().deleteTopic("unit-test0");
+        routeChangeNotifyService.checkRouteChange();
+        verify(remotingServer, times(2)).invokeOneway(eq(channel), captor.capture(), anyLong());
+        assertThat(TopicList.decode(captor.getValue().getBody(), TopicList.class).getTopicList())
+            .containsExactly("unit-test0");
+    }
+
+    @Test
+    public void testGetRouteInfoByTopicFromCache() throws Exception {
+        namesrvController.getNamesrvConfig().setEnableTopicRouteCache(true);
+        RemotingCommand response0 = getRouteInfoByTopic("unit-test0", null);
+        RemotingCommand response1 = getRouteInfoByTopic("unit-test1", null);
+        assertThat(getRouteInfoByTopic("unit-test0", null).getBody()).isSameAs(response0.getBody());
+        assertThat(getRouteInfoByTopic("test", null).getCode()).isEqualTo(ResponseCode.TOPIC_NOT_EXIST);
+
+        // the registration not changing the routes keeps the cached bodies
+        registerBroker("default-broker", "127.0.0.1:10911", "unit-test0", "unit-test1");
+        assertThat(getRouteInfoByTopic("unit-test0", null).getBody()).isSameAs(response0.getBody());
+
+        // only the route of unit-test0 changes once another broker serves it
+        registerBroker("another-broker", "127.0.0.1:10921", "unit-test0", "unit-test2");
+        RemotingCommand response = getRouteInfoByTopic("unit-test0", null);
+        assertThat(response.getBody()).isNotEqualTo(response0.getBody());
+        assertThat(TopicRouteData.decode(response.getBody(), TopicRouteData.class).getBrokerDatas()).hasSize(2);
+        assertThat(getRouteInfoByTopic("unit-test1", null).getBody()).isSameAs(response1.getBody());
+
+        // the routes of all the topics of the broker change once it is unregistered
+        namesrvController.getRouteInfoManager().unregisterBroker("default-cluster", "127.0.0.1:10911", "default-broker", 0);
+        assertThat(getRouteInfoByTopic("unit-test1", null).getCode()).isEqualTo(ResponseCode.TOPIC_NOT_EXIST);
+        response = getRouteInfoByTopic("unit-test0", null);
+        assertThat(TopicRouteData.decode(response.getBody(), TopicRouteData.class).getBrokerDatas()).hasSize(1);
+    }
+
+    @Test
+    public void testGetRouteInfoByTopicOfZoneFromCache() throws Exception {
+        namesrvController.getNamesrvConfig().setEnableTopicRouteCache(true);
+        registerBroker("another-broker", "127.0.0.1:10921", "unit-test0", "unit-test2");
+        ZoneRouteRPCHook zoneRouteRPCHook = new ZoneRouteRPCHook(namesrvController.getNamesrvConfig());
+        Map<String, String> extFields = new HashMap<>();
+        extFields.put(MixAll.ZONE_MODE, "true");
+        extFields.put(MixAll.ZONE_NAME, "zone-a");
+
+        RemotingCommand request = createGetRouteInfoRequest("unit-test0", extFields);
+        RemotingCommand response = clientRequestProcessor.processRequest(ctx, request);
+        byte[] body = response.getBody();
+        zoneRouteRPCHook.doAfterResponse("127.0.0.1", request, response);
+        assertThat(response.getBody()).isSameAs(body);
+        // no master is in zone-a yet
+        assertThat(TopicRouteData.decode(body, TopicRouteData.class).getBrokerDatas()).isEmpty();
+        assertThat(getRouteInfoByTopic("unit-test0", extFields).getBody()).isSameAs(body);
+
+        registerBrokerInZone("default-broker", "127.0.0.1:10911", "zone-a", "unit-test0", "unit-test1");
+        response = getRouteInfoByTopic("unit-test0", extFields);
+        assertThat(TopicRouteData.decode(response.getBody(), TopicRouteData.class).getBrokerDatas())
+            .extracting(BrokerData::getBrokerName).containsExactly("default-broker");
+        response = getRouteInfoByTopic("unit-test0", null);
+        assertThat(TopicRouteData.decode(response.getBody(), TopicRouteData.class).getBrokerDatas()).hasSize(2);
+    }
+
+    private RemotingCommand getRouteInfoByTopic(String topic, Map<String, String> extFields) throws Exception {
+        return clientRequestProcessor.processRequest(ctx, createGetRouteInfoRequest(topic, extFields));
+    }
+
+    private RemotingCommand createGetRouteInfoRequest(String topic, Map<String, String> extFields) {
+        GetRouteInfoRequestHeader requestHeader = new GetRouteInfoRequestHeader();
+        requestHeader.setTopic(topic);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.GET_ROUTEINFO_BY_TOPIC, requestHeader);
+        request.makeCustomHeaderToNet();
+        if (extFields != null) {
+            extFields.forEach(request::addExtField);
+        }
+        return request;
+    }
+
+    private GetRouteInfoByTopicsResponseBody getRouteInfoByTopics(GetRouteInfoByTopicsRequestBody requestBody)
+        throws Exception {
+        GetRouteInfoByTopicsRequestHeader requestHeader = new GetRouteInfoByTopicsRequestHeader();
+        requestHeader.setSubscribeRouteChange(true);
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.GET_ROUTEINFO_BY_TOPICS, requestHeader);
+        request.setBody(requestBody.encode());
+        request.makeCustomHeaderToNet();
+        RemotingCommand response = clientRequestProcessor.processRequest(ctx, request);
+        assertThat(response.getCode()).isEqualTo(ResponseCode.SUCCESS);
+        return GetRouteInfoByTopicsResponseBody.decode(response.getBody(), GetRouteInfoByTopicsResponseBody.class);
+    }
+
+    private void registerBroker(String brokerName, String brokerAddr, String... topics) {
+        registerBrokerInZone(brokerName, brokerAddr, "", topics);
+    }
+
+    private void registerBrokerInZone(String brokerName, String brokerAddr, String zoneName, String... topics) {
+        TopicConfigSerializeWrapper topicConfigSerializeWrapper = new TopicConfigSerializeWrapper();
+        ConcurrentHashMap<String, TopicConfig> topicConfigTable = new ConcurrentHashMap<>();
+        for (String topic : topics) {
+            topicConfigTable.put(topic, new TopicConfig(topic, 8, 8, 6));
+        }
+        topicConfigSerializeWrapper.setTopicConfigTable(topicConfigTable);
+        namesrvController.getRouteInfoManager().registerBroker("default-cluster", brokerAddr, brokerName, 0,
+            "127.0.0.1:1001", zoneName, null, topicConfigSerializeWrapper, new ArrayList<>(), mock(Channel.class));
+    }
+}
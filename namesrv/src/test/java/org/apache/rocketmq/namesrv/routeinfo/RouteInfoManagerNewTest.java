@@ -151,6 +151,24 @@ public class RouteInfoManagerNewTest {
         assertThat(slaveResult.getMasterAddr()).isEqualTo(DEFAULT_ADDR);
     }
 
+    @Test
+    public void registerBrokerBumpsRouteEpochOnlyOnChange() {
+        registerBrokerWithNormalTopic(BrokerBasicInfo.defaultBroker(), "TestTopic");
+        long routeEpoch = routeInfoManager.getRouteEpoch();
+
+        // heartbeat with the same routes
+        registerBrokerWithNormalTopic(BrokerBasicInfo.defaultBroker(), "TestTopic");
+        assertThat(routeInfoManager.getRouteEpoch()).isEqualTo(routeEpoch);
+
+        registerBrokerWithNormalTopic(BrokerBasicInfo.defaultBroker(), "TestTopic", "TestTopic1");
+        assertThat(routeInfoManager.getRouteEpoch()).isGreaterThan(routeEpoch);
+        routeEpoch = routeInfoManager.getRouteEpoch();
+
+        registerBrokerWithNormalTopic(BrokerBasicInfo.defaultBroker()
+            .id(1).addr(DEFAULT_ADDR_PREFIX + 30911).haAddr(DEFAULT_ADDR_PREFIX + 40911), "TestTopic", "TestTopic1");
+        assertThat(routeInfoManager.getRouteEpoch()).isGreaterThan(routeEpoch);
+    }
+
     @Test
     public void unregisterBroker() {
         registerBrokerWithNormalTopic(BrokerBasicInfo.defaultBroker(), "TestTopic", "TestTopic1", "TestTopic2");
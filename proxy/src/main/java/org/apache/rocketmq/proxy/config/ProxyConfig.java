@@ -192,6 +192,12 @@ public class ProxyConfig implements ConfigFile {
     private long renewAheadTimeMillis = TimeUnit.SECONDS.toMillis(10);
     private long renewMaxTimeMillis = TimeUnit.HOURS.toMillis(3);
     private long renewSchedulePeriodMillis = TimeUnit.SECONDS.toMillis(5);
+    /**
+     * Index the receipt handles by the time they should be renewed and renew the due handles of the same queue in
+     * one request, instead of scanning all the handles in every schedule period
+     */
+    private boolean enableBatchRenew = false;
+    private int renewBatchSize = 32;
 
     private boolean enableACL = false;
 
@@ -1092,6 +1098,22 @@ public class ProxyConfig implements ConfigFile {
         this.renewSchedulePeriodMillis = renewSchedulePeriodMillis;
     }
 
+    public boolean isEnableBatchRenew() {
+        return enableBatchRenew;
+    }
+
+    public void setEnableBatchRenew(boolean enableBatchRenew) {
+        this.enableBatchRenew = enableBatchRenew;
+    }
+
+    public int getRenewBatchSize() {
+        return renewBatchSize;
+    }
+
+    public void setRenewBatchSize(int renewBatchSize) {
+        this.renewBatchSize = renewBatchSize;
+    }
+
     public String getMetricCollectorMode() {
         return metricCollectorMode;
     }
@@ -28,11 +28,10 @@ import apache.rocketmq.v2.MessageQueue;
 import apache.rocketmq.v2.MessageType;
 import apache.rocketmq.v2.Resource;
 import apache.rocketmq.v2.SystemProperties;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.google.protobuf.util.Timestamps;
 import java.net.SocketAddress;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
@@ -92,30 +91,24 @@ public class GrpcConverter {
         }
     }
 
+    /**
+     * The body of the message ext is wrapped instead of copied, it should not be modified afterwards.
+     */
     public Message buildMessage(MessageExt messageExt) {
-        Map<String, String> userProperties = buildUserAttributes(messageExt);
         SystemProperties systemProperties = buildSystemProperties(messageExt);
         Resource topic = buildResource(messageExt.getTopic());
 
-        return Message.newBuilder()
+        Message.Builder builder = Message.newBuilder()
             .setTopic(topic)
-            .putAllUserProperties(userProperties)
             .setSystemProperties(systemProperties)
-            .setBody(ByteString.copyFrom(messageExt.getBody()))
-            .build();
-    }
-
-    protected Map<String, String> buildUserAttributes(MessageExt messageExt) {
-        Map<String, String> userAttributes = new HashMap<>();
-        Map<String, String> properties = messageExt.getProperties();
-
-        for (Map.Entry<String, String> property : properties.entrySet()) {
+            // the body is decoded from the broker response for this message only and never written again
+            .setBody(UnsafeByteOperations.unsafeWrap(messageExt.getBody()));
+        for (Map.Entry<String, String> property : messageExt.getProperties().entrySet()) {
             if (!MessageConst.STRING_HASH_SET.contains(property.getKey())) {
-                userAttributes.put(property.getKey(), property.getValue());
+                builder.putUserProperties(property.getKey(), property.getValue());
             }
         }
-
-        return userAttributes;
+        return builder.build();
     }
 
     protected SystemProperties buildSystemProperties(MessageExt messageExt) {
@@ -18,6 +18,8 @@ package org.apache.rocketmq.proxy.metrics;
 
 public class ProxyMetricsConstant {
     public static final String GAUGE_PROXY_UP = "rocketmq_proxy_up";
+    public static final String HISTOGRAM_RENEW_LATENCY = "rocketmq_proxy_renew_latency";
+    public static final String HISTOGRAM_RENEW_BATCH_SIZE = "rocketmq_proxy_renew_batch_size";
 
     public static final String LABEL_PROXY_MODE = "proxy_mode";
     public static final String NODE_TYPE_PROXY = "proxy";
@@ -19,6 +19,7 @@ package org.apache.rocketmq.proxy.metrics;
 import com.google.common.base.Splitter;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
 import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingMetricExporter;
@@ -42,6 +43,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.broker.metrics.BrokerMetricsManager;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.metrics.MetricsExporterType;
+import org.apache.rocketmq.common.metrics.NopLongHistogram;
 import org.apache.rocketmq.common.utils.StartAndShutdown;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
@@ -55,6 +57,8 @@ import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_NOD
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.LABEL_NODE_TYPE;
 import static org.apache.rocketmq.broker.metrics.BrokerMetricsConstant.OPEN_TELEMETRY_METER_NAME;
 import static org.apache.rocketmq.proxy.metrics.ProxyMetricsConstant.GAUGE_PROXY_UP;
+import static org.apache.rocketmq.proxy.metrics.ProxyMetricsConstant.HISTOGRAM_RENEW_BATCH_SIZE;
+import static org.apache.rocketmq.proxy.metrics.ProxyMetricsConstant.HISTOGRAM_RENEW_LATENCY;
 import static org.apache.rocketmq.proxy.metrics.ProxyMetricsConstant.LABEL_PROXY_MODE;
 import static org.apache.rocketmq.proxy.metrics.ProxyMetricsConstant.NODE_TYPE_PROXY;
 
@@ -71,6 +75,8 @@ public class ProxyMetricsManager implements StartAndShutdown {
     private MetricExporter loggingMetricExporter;
 
     public static ObservableLongGauge proxyUp = null;
+    public static LongHistogram renewLatency = new NopLongHistogram();
+    public static LongHistogram renewBatchSize = new NopLongHistogram();
 
     public static void initLocalMode(BrokerMetricsManager brokerMetricsManager, ProxyConfig proxyConfig) {
         if (proxyConfig.getMetricsExporterType() == MetricsExporterType.DISABLE) {
@@ -108,6 +114,23 @@ public class ProxyMetricsManager implements StartAndShutdown {
             .setDescription("proxy status")
             .ofLongs()
             .buildWithCallback(measurement -> measurement.record(1, newAttributesBuilder().build()));
+        renewLatency = meter.histogramBuilder(HISTOGRAM_RENEW_LATENCY)
+            .setDescription("Latency of renewing the invisible time of received messages")
+            .setUnit("milliseconds")
+            .ofLongs()
+            .build();
+        renewBatchSize = meter.histogramBuilder(HISTOGRAM_RENEW_BATCH_SIZE)
+            .setDescription("Number of receipt handles renewed in one request")
+            .ofLongs()
+            .build();
+    }
+
+    public static void recordRenewLatency(long latencyMillis) {
+        renewLatency.record(latencyMillis, newAttributesBuilder().build());
+    }
+
+    public static void recordRenewBatchSize(int batchSize) {
+        renewBatchSize.record(batchSize, newAttributesBuilder().build());
     }
 
     public ProxyMetricsManager() {
@@ -45,11 +45,14 @@ import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.proxy.common.ProxyContext;
 import org.apache.rocketmq.proxy.common.ProxyException;
 import org.apache.rocketmq.proxy.common.ProxyExceptionCode;
+import org.apache.rocketmq.proxy.common.utils.ExceptionUtils;
 import org.apache.rocketmq.proxy.common.utils.FutureUtils;
 import org.apache.rocketmq.proxy.common.utils.ProxyUtils;
 import org.apache.rocketmq.proxy.service.ServiceManager;
 import org.apache.rocketmq.proxy.service.message.ReceiptHandleMessage;
 import org.apache.rocketmq.proxy.service.route.AddressableMessageQueue;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeEntry;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.body.UnlockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
@@ -344,6 +347,93 @@ public class ConsumerProcessor extends AbstractProcessor {
         return FutureUtils.addExecutor(future, this.executor);
     }
 
+    public CompletableFuture<List<BatchAckResult>> batchChangeInvisibleTime(ProxyContext ctx,
+        List<ReceiptHandleMessage> handleMessageList, String groupName, String topicName, long invisibleTime,
+        long timeoutMillis) {
+        CompletableFuture<List<BatchAckResult>> future = new CompletableFuture<>();
+        try {
+            List<BatchAckResult> batchResultList = new ArrayList<>(handleMessageList.size());
+            // handles of the same queue are changed in one request
+            Map<String, List<ReceiptHandleMessage>> queueHandleListMap = new HashMap<>();
+            for (ReceiptHandleMessage handleMessage : handleMessageList) {
+                ReceiptHandle handle = handleMessage.getReceiptHandle();
+                if (handle.isExpired()) {
+                    batchResultList.add(new BatchAckResult(handleMessage, EXPIRED_HANDLE_PROXY_EXCEPTION));
+                    continue;
+                }
+                String queueKey = handle.getBrokerName() + "@" + handle.getRealTopic(topicName, groupName) + "@" + handle.getQueueId();
+                queueHandleListMap.computeIfAbsent(queueKey, key -> new ArrayList<>()).add(handleMessage);
+            }
+
+            if (queueHandleListMap.isEmpty()) {
+                return FutureUtils.addExecutor(CompletableFuture.completedFuture(batchResultList), this.executor);
+            }
+            CompletableFuture<List<BatchAckResult>>[] futures = new CompletableFuture[queueHandleListMap.size()];
+            int futureIndex = 0;
+            for (List<ReceiptHandleMessage> queueHandleList : queueHandleListMap.values()) {
+                futures[futureIndex++] = processQueueHandle(ctx, groupName, topicName, queueHandleList, invisibleTime, timeoutMillis);
+            }
+            CompletableFuture.allOf(futures).whenComplete((val, throwable) -> {
+                for (CompletableFuture<List<BatchAckResult>> resultFuture : futures) {
+                    batchResultList.addAll(resultFuture.join());
+                }
+                future.complete(batchResultList);
+            });
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return FutureUtils.addExecutor(future, this.executor);
+    }
+
+    protected CompletableFuture<List<BatchAckResult>> processQueueHandle(ProxyContext ctx, String groupName,
+        String topicName, List<ReceiptHandleMessage> handleMessageList, long invisibleTime, long timeoutMillis) {
+        ReceiptHandle firstHandle = handleMessageList.get(0).getReceiptHandle();
+        BatchChangeInvisibleTimeRequestBody requestBody = new BatchChangeInvisibleTimeRequestBody();
+        requestBody.setConsumerGroup(groupName);
+        requestBody.setTopic(firstHandle.getRealTopic(topicName, groupName));
+        requestBody.setQueueId(firstHandle.getQueueId());
+        List<ReceiptHandle> handleList = new ArrayList<>(handleMessageList.size());
+        for (ReceiptHandleMessage handleMessage : handleMessageList) {
+            ReceiptHandle handle = handleMessage.getReceiptHandle();
+            handleList.add(handle);
+            requestBody.getEntries().add(new ChangeInvisibleTimeEntry(handle.getReceiptHandle(), handle.getOffset(), invisibleTime));
+        }
+
+        CompletableFuture<List<AckResult>> future;
+        try {
+            future = this.serviceManager.getMessageService().batchChangeInvisibleTime(ctx, handleList, requestBody, timeoutMillis);
+        } catch (Throwable t) {
+            future = FutureUtils.completeExceptionally(t);
+        }
+        return future
+            .thenApply(ackResultList -> {
+                List<BatchAckResult> results = new ArrayList<>(handleMessageList.size());
+                for (int i = 0; i < handleMessageList.size(); i++) {
+                    ReceiptHandleMessage handleMessage = handleMessageList.get(i);
+                    AckResult ackResult = ackResultList.get(i);
+                    if (StringUtils.isNotBlank(ackResult.getExtraInfo())) {
+                        AckResult result = new AckResult();
+                        result.setStatus(ackResult.getStatus());
+                        result.setPopTime(ackResult.getPopTime());
+                        result.setExtraInfo(createHandle(ackResult.getExtraInfo(), handleMessage.getReceiptHandle().getCommitLogOffset()));
+                        ackResult = result;
+                    }
+                    results.add(new BatchAckResult(handleMessage, ackResult));
+                }
+                return results;
+            })
+            .exceptionally(throwable -> {
+                Throwable t = ExceptionUtils.getRealException(throwable);
+                ProxyException proxyException = t instanceof ProxyException ? (ProxyException) t :
+                    new ProxyException(ProxyExceptionCode.INTERNAL_SERVER_ERROR, t.getMessage(), t);
+                List<BatchAckResult> results = new ArrayList<>(handleMessageList.size());
+                for (ReceiptHandleMessage handleMessage : handleMessageList) {
+                    results.add(new BatchAckResult(handleMessage, proxyException));
+                }
+                return results;
+            });
+    }
+
     protected String createHandle(String handleString, long commitLogOffset) {
         if (handleString == null) {
             return null;
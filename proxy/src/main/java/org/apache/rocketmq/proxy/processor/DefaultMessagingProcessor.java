@@ -196,6 +196,13 @@ public class DefaultMessagingProcessor extends AbstractStartAndShutdown implemen
         return this.consumerProcessor.changeInvisibleTime(ctx, handle, messageId, groupName, topicName, invisibleTime, timeoutMillis);
     }
 
+    @Override
+    public CompletableFuture<List<BatchAckResult>> batchChangeInvisibleTime(ProxyContext ctx,
+        List<ReceiptHandleMessage> handleMessageList, String groupName, String topicName, long invisibleTime,
+        long timeoutMillis) {
+        return this.consumerProcessor.batchChangeInvisibleTime(ctx, handleMessageList, groupName, topicName, invisibleTime, timeoutMillis);
+    }
+
     @Override
     public CompletableFuture<PullResult> pullMessage(ProxyContext ctx, MessageQueue messageQueue, String consumerGroup,
         long queueOffset, int maxMsgNums, int sysFlag, long commitOffset, long suspendTimeoutMillis,
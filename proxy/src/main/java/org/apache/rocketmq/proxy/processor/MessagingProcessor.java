@@ -194,6 +194,25 @@ public interface MessagingProcessor extends StartAndShutdown {
         long timeoutMillis
     );
 
+    default CompletableFuture<List<BatchAckResult>> batchChangeInvisibleTime(
+        ProxyContext ctx,
+        List<ReceiptHandleMessage> handleMessageList,
+        String groupName,
+        String topicName,
+        long invisibleTime
+    ) {
+        return batchChangeInvisibleTime(ctx, handleMessageList, groupName, topicName, invisibleTime, DEFAULT_TIMEOUT_MILLS);
+    }
+
+    CompletableFuture<List<BatchAckResult>> batchChangeInvisibleTime(
+        ProxyContext ctx,
+        List<ReceiptHandleMessage> handleMessageList,
+        String groupName,
+        String topicName,
+        long invisibleTime,
+        long timeoutMillis
+    );
+
     CompletableFuture<PullResult> pullMessage(
         ProxyContext ctx,
         MessageQueue messageQueue,
@@ -18,6 +18,10 @@
 package org.apache.rocketmq.proxy.processor;
 
 import io.netty.channel.Channel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.consumer.ReceiptHandle;
 import org.apache.rocketmq.common.state.StateEventListener;
@@ -25,8 +29,11 @@ import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.proxy.common.MessageReceiptHandle;
 import org.apache.rocketmq.proxy.common.ProxyContext;
+import org.apache.rocketmq.proxy.common.ProxyException;
+import org.apache.rocketmq.proxy.common.ProxyExceptionCode;
 import org.apache.rocketmq.proxy.common.RenewEvent;
 import org.apache.rocketmq.proxy.service.ServiceManager;
+import org.apache.rocketmq.proxy.service.message.ReceiptHandleMessage;
 import org.apache.rocketmq.proxy.service.receipt.DefaultReceiptHandleManager;
 
 public class ReceiptHandleProcessor extends AbstractProcessor {
@@ -50,7 +57,44 @@ public class ReceiptHandleProcessor extends AbstractProcessor {
                     event.getFuture().complete(v);
                 });
         };
-        this.receiptHandleManager = new DefaultReceiptHandleManager(serviceManager.getMetadataService(), serviceManager.getConsumerManager(), eventListener);
+        StateEventListener<List<RenewEvent>> batchEventListener = eventList -> {
+            RenewEvent firstEvent = eventList.get(0);
+            ProxyContext context = createContext(firstEvent.getEventType().name())
+                .setChannel(firstEvent.getKey().getChannel());
+            Map<ReceiptHandleMessage, RenewEvent> handleEventMap = new IdentityHashMap<>(eventList.size());
+            List<ReceiptHandleMessage> handleMessageList = new ArrayList<>(eventList.size());
+            for (RenewEvent event : eventList) {
+                MessageReceiptHandle messageReceiptHandle = event.getMessageReceiptHandle();
+                ReceiptHandleMessage handleMessage = new ReceiptHandleMessage(
+                    ReceiptHandle.decode(messageReceiptHandle.getReceiptHandleStr()), messageReceiptHandle.getMessageId());
+                handleEventMap.put(handleMessage, event);
+                handleMessageList.add(handleMessage);
+            }
+            MessageReceiptHandle firstHandle = firstEvent.getMessageReceiptHandle();
+            messagingProcessor.batchChangeInvisibleTime(context, handleMessageList, firstHandle.getGroup(),
+                    firstHandle.getTopic(), firstEvent.getRenewTime())
+                .whenComplete((resultList, t) -> {
+                    if (t != null) {
+                        eventList.forEach(event -> event.getFuture().completeExceptionally(t));
+                        return;
+                    }
+                    for (BatchAckResult result : resultList) {
+                        RenewEvent event = handleEventMap.remove(result.getReceiptHandleMessage());
+                        if (event == null) {
+                            continue;
+                        }
+                        if (result.getProxyException() != null) {
+                            event.getFuture().completeExceptionally(result.getProxyException());
+                        } else {
+                            event.getFuture().complete(result.getAckResult());
+                        }
+                    }
+                    handleEventMap.values().forEach(event -> event.getFuture().completeExceptionally(
+                        new ProxyException(ProxyExceptionCode.INTERNAL_SERVER_ERROR, "no renew result of the handle")));
+                });
+        };
+        this.receiptHandleManager = new DefaultReceiptHandleManager(serviceManager.getMetadataService(),
+            serviceManager.getConsumerManager(), eventListener, batchEventListener);
     }
 
     protected ProxyContext createContext(String actionName) {
@@ -77,6 +77,7 @@ public class MultiProtocolRemotingServer extends NettyRemotingServer {
 
     @Override
     protected ChannelPipeline configChannel(SocketChannel ch) {
+        configWriteHandlers(ch.pipeline());
         return ch.pipeline()
             .addLast(this.getDefaultEventExecutorGroup(), HANDSHAKE_HANDLER_NAME, new HandshakeHandler())
             .addLast(this.getDefaultEventExecutorGroup(),
@@ -38,6 +38,7 @@ import org.apache.rocketmq.proxy.service.route.TopicRouteService;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.body.UnlockBatchRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ConsumerSendMsgBackRequestHeader;
@@ -128,6 +129,18 @@ public class ClusterMessageService implements MessageService {
         );
     }
 
+    @Override
+    public CompletableFuture<List<AckResult>> batchChangeInvisibleTime(ProxyContext ctx, List<ReceiptHandle> handleList,
+        BatchChangeInvisibleTimeRequestBody requestBody, long timeoutMillis) {
+        ReceiptHandle handle = handleList.get(0);
+        return this.mqClientAPIFactory.getClient().batchChangeInvisibleTimeAsync(
+            this.resolveBrokerAddrInReceiptHandle(ctx, handle),
+            handle.getBrokerName(),
+            requestBody,
+            timeoutMillis
+        );
+    }
+
     @Override
     public CompletableFuture<AckResult> ackMessage(ProxyContext ctx, ReceiptHandle handle, String messageId,
         AckMessageRequestHeader requestHeader, long timeoutMillis) {
@@ -57,6 +57,9 @@ import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.apache.rocketmq.remoting.protocol.body.BatchAck;
 import org.apache.rocketmq.remoting.protocol.body.BatchAckMessageRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeResponseBody;
+import org.apache.rocketmq.remoting.protocol.body.ChangeInvisibleTimeResult;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.body.UnlockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
@@ -340,6 +343,53 @@ public class LocalMessageService implements MessageService {
         });
     }
 
+    @Override
+    public CompletableFuture<List<AckResult>> batchChangeInvisibleTime(ProxyContext ctx, List<ReceiptHandle> handleList,
+        BatchChangeInvisibleTimeRequestBody requestBody, long timeoutMillis) {
+        SimpleChannel channel = channelManager.createChannel(ctx);
+        CompletableFuture<RemotingCommand> future = new CompletableFuture<>();
+        try {
+            RemotingCommand response = brokerController.getChangeInvisibleTimeProcessor()
+                .batchChangeInvisibleTime(channel, requestBody);
+            future.complete(response);
+        } catch (Exception e) {
+            log.error("Fail to process batchChangeInvisibleTime command", e);
+            future.completeExceptionally(e);
+        }
+        return future.thenApply(r -> {
+            if (ResponseCode.SUCCESS != r.getCode()) {
+                throw new ProxyException(ProxyExceptionCode.INTERNAL_SERVER_ERROR, r.getRemark());
+            }
+            List<ChangeInvisibleTimeResult> resultList = BatchChangeInvisibleTimeResponseBody
+                .decode(r.getBody(), BatchChangeInvisibleTimeResponseBody.class).getResults();
+            List<AckResult> ackResultList = new ArrayList<>(resultList.size());
+            for (int i = 0; i < resultList.size(); i++) {
+                ChangeInvisibleTimeResult result = resultList.get(i);
+                ReceiptHandle handle = handleList.get(i);
+                AckResult ackResult = new AckResult();
+                if (ResponseCode.SUCCESS == result.getCode()) {
+                    ackResult.setStatus(AckStatus.OK);
+                } else {
+                    ackResult.setStatus(AckStatus.NO_EXIST);
+                }
+                ackResult.setPopTime(result.getPopTime());
+                ackResult.setExtraInfo(ReceiptHandle.builder()
+                    .startOffset(handle.getStartOffset())
+                    .retrieveTime(result.getPopTime())
+                    .invisibleTime(result.getInvisibleTime())
+                    .reviveQueueId(result.getReviveQid())
+                    .topicType(handle.getTopicType())
+                    .brokerName(handle.getBrokerName())
+                    .queueId(handle.getQueueId())
+                    .offset(handle.getOffset())
+                    .build()
+                    .encode());
+                ackResultList.add(ackResult);
+            }
+            return ackResultList;
+        });
+    }
+
     @Override
     public CompletableFuture<AckResult> ackMessage(ProxyContext ctx, ReceiptHandle handle, String messageId,
         AckMessageRequestHeader requestHeader, long timeoutMillis) {
@@ -370,8 +420,6 @@ public class LocalMessageService implements MessageService {
     public CompletableFuture<AckResult> batchAckMessage(ProxyContext ctx, List<ReceiptHandleMessage> handleList,
         String consumerGroup, String topic, long timeoutMillis) {
         SimpleChannel channel = channelManager.createChannel(ctx);
-        ChannelHandlerContext channelHandlerContext = channel.getChannelHandlerContext();
-        RemotingCommand command = LocalRemotingCommand.createRequestCommand(RequestCode.BATCH_ACK_MESSAGE, null);
 
         Map<String, BatchAck> batchAckMap = new HashMap<>();
         for (ReceiptHandleMessage receiptHandleMessage : handleList) {
@@ -400,11 +448,11 @@ public class LocalMessageService implements MessageService {
         requestBody.setBrokerName(brokerController.getBrokerConfig().getBrokerName());
         requestBody.setAcks(new ArrayList<>(batchAckMap.values()));
 
-        command.setBody(requestBody.encode());
         CompletableFuture<RemotingCommand> future = new CompletableFuture<>();
         try {
+            // hand the body over as it is, the acks are never encoded in the same process
             RemotingCommand response = brokerController.getAckMessageProcessor()
-                .processRequest(channelHandlerContext, command);
+                .batchAckMessage(channel, requestBody);
             future.complete(response);
         } catch (Exception e) {
             log.error("Fail to process batchAckMessage command", e);
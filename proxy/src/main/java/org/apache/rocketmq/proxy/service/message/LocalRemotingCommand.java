@@ -23,6 +23,10 @@ import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 
 import java.util.HashMap;
 
+/**
+ * Request handed to the broker processors in the same process. The custom header is passed as it is, it is never
+ * flattened into the ext fields, so the processors get back the very header object instead of a decoded copy.
+ */
 public class LocalRemotingCommand extends RemotingCommand {
 
     public static LocalRemotingCommand createRequestCommand(int code, CommandCustomHeader customHeader, String language) {
@@ -32,14 +36,22 @@ public class LocalRemotingCommand extends RemotingCommand {
         cmd.writeCustomHeader(customHeader);
         cmd.setExtFields(new HashMap<>());
         setCmdVersion(cmd);
-        cmd.makeCustomHeaderToNet();
         return cmd;
     }
 
     @Override
     public CommandCustomHeader decodeCommandCustomHeader(
         Class<? extends CommandCustomHeader> classHeader) throws RemotingCommandException {
-        return classHeader.cast(readCustomHeader());
+        return decodeCommandCustomHeader(classHeader, false);
+    }
+
+    @Override
+    public CommandCustomHeader decodeCommandCustomHeader(Class<? extends CommandCustomHeader> classHeader,
+        boolean isCached) throws RemotingCommandException {
+        try {
+            return classHeader.cast(readCustomHeader());
+        } catch (ClassCastException e) {
+            throw new RemotingCommandException("unexpected header type " + classHeader.getName(), e);
+        }
     }
-    
 }
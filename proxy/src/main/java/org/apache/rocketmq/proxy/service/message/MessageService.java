@@ -31,6 +31,7 @@ import org.apache.rocketmq.proxy.service.route.AddressableMessageQueue;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.body.LockBatchRequestBody;
 import org.apache.rocketmq.remoting.protocol.body.UnlockBatchRequestBody;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.ConsumerSendMsgBackRequestHeader;
@@ -83,6 +84,18 @@ public interface MessageService {
         long timeoutMillis
     );
 
+    /**
+     * Change the invisible time of the handles popped from the same queue.
+     *
+     * @return the ack results in the order of the handles
+     */
+    CompletableFuture<List<AckResult>> batchChangeInvisibleTime(
+        ProxyContext ctx,
+        List<ReceiptHandle> handleList,
+        BatchChangeInvisibleTimeRequestBody requestBody,
+        long timeoutMillis
+    );
+
     CompletableFuture<AckResult> ackMessage(
         ProxyContext ctx,
         ReceiptHandle handle,
@@ -19,6 +19,9 @@ package org.apache.rocketmq.proxy.service.receipt;
 
 import com.google.common.base.Stopwatch;
 import io.netty.channel.Channel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -56,6 +59,7 @@ import org.apache.rocketmq.proxy.common.channel.ChannelHelper;
 import org.apache.rocketmq.proxy.common.utils.ExceptionUtils;
 import org.apache.rocketmq.proxy.config.ConfigurationManager;
 import org.apache.rocketmq.proxy.config.ProxyConfig;
+import org.apache.rocketmq.proxy.metrics.ProxyMetricsManager;
 import org.apache.rocketmq.proxy.service.metadata.MetadataService;
 import org.apache.rocketmq.remoting.protocol.subscription.RetryPolicy;
 import org.apache.rocketmq.remoting.protocol.subscription.SubscriptionGroupConfig;
@@ -70,12 +74,27 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
     protected final ScheduledExecutorService scheduledExecutorService =
         ThreadUtils.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("RenewalScheduledThread_"));
     protected final ThreadPoolExecutor renewalWorkerService;
+    protected final StateEventListener<List<RenewEvent>> batchEventListener;
+    protected final boolean batchRenewEnabled;
+    protected final RenewalIndex renewalIndex;
 
     public DefaultReceiptHandleManager(MetadataService metadataService, ConsumerManager consumerManager, StateEventListener<RenewEvent> eventListener) {
+        this(metadataService, consumerManager, eventListener, null);
+    }
+
+    /**
+     * @param batchEventListener listener of the renew events of the same topic and renew time, used only if the batch
+     * renew is enabled
+     */
+    public DefaultReceiptHandleManager(MetadataService metadataService, ConsumerManager consumerManager,
+        StateEventListener<RenewEvent> eventListener, StateEventListener<List<RenewEvent>> batchEventListener) {
         this.metadataService = metadataService;
         this.consumerManager = consumerManager;
         this.eventListener = eventListener;
+        this.batchEventListener = batchEventListener;
         ProxyConfig proxyConfig = ConfigurationManager.getProxyConfig();
+        this.batchRenewEnabled = proxyConfig.isEnableBatchRenew() && batchEventListener != null;
+        this.renewalIndex = new RenewalIndex(proxyConfig.getRenewSchedulePeriodMillis());
         this.renewalWorkerService = ThreadPoolMonitor.createAndMonitor(
             proxyConfig.getRenewThreadPoolNums(),
             proxyConfig.getRenewMaxThreadPoolNums(),
@@ -120,13 +139,24 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
             public void shutdown() throws Exception {
                 scheduledExecutorService.shutdown();
                 clearAllHandle();
+                renewalIndex.clear();
             }
         });
     }
 
     public void addReceiptHandle(ProxyContext context, Channel channel, String group, String msgID, MessageReceiptHandle messageReceiptHandle) {
-        ConcurrentHashMapUtils.computeIfAbsent(this.receiptHandleGroupMap, new ReceiptHandleGroupKey(channel, group),
+        ReceiptHandleGroupKey key = new ReceiptHandleGroupKey(channel, group);
+        ConcurrentHashMapUtils.computeIfAbsent(this.receiptHandleGroupMap, key,
             k -> new ReceiptHandleGroup()).put(msgID, messageReceiptHandle);
+        if (batchRenewEnabled) {
+            addRenewalIndex(key, msgID, messageReceiptHandle);
+        }
+    }
+
+    protected void addRenewalIndex(ReceiptHandleGroupKey key, String msgID, MessageReceiptHandle messageReceiptHandle) {
+        String handleStr = messageReceiptHandle.getReceiptHandleStr();
+        long renewTime = ReceiptHandle.decode(handleStr).getNextVisibleTime() - ConfigurationManager.getProxyConfig().getRenewAheadTimeMillis();
+        renewalIndex.add(key, msgID, handleStr, renewTime);
     }
 
     public MessageReceiptHandle removeReceiptHandle(ProxyContext context, Channel channel, String group, String msgID, String receiptHandle) {
@@ -142,6 +172,10 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
     }
 
     protected void scheduleRenewTask() {
+        if (batchRenewEnabled) {
+            scheduleBatchRenewTask();
+            return;
+        }
         Stopwatch stopwatch = Stopwatch.createStarted();
         try {
             ProxyConfig proxyConfig = ConfigurationManager.getProxyConfig();
@@ -169,6 +203,95 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
         log.debug("scan for renewal done. cost:{}ms", stopwatch.elapsed().toMillis());
     }
 
+    /**
+     * Poll the due handles from the renewal index and renew the due handles of the same group in batch, the handles
+     * not indexed yet are never scanned.
+     */
+    protected void scheduleBatchRenewTask() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            ProxyConfig proxyConfig = ConfigurationManager.getProxyConfig();
+            for (ReceiptHandleGroupKey key : receiptHandleGroupMap.keySet()) {
+                if (clientIsOffline(key)) {
+                    clearGroup(key);
+                }
+            }
+
+            Map<ReceiptHandleGroupKey, Map<ReceiptHandleGroup.HandleKey, RenewalIndex.Entry>> groupEntryMap = new HashMap<>();
+            for (RenewalIndex.Entry entry : renewalIndex.pollDue(System.currentTimeMillis())) {
+                if (receiptHandleGroupMap.containsKey(entry.getKey())) {
+                    // a handle indexed more than once is renewed only once
+                    groupEntryMap.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .putIfAbsent(new ReceiptHandleGroup.HandleKey(entry.getHandle()), entry);
+                }
+            }
+            int batchSize = Math.max(1, proxyConfig.getRenewBatchSize());
+            for (Map.Entry<ReceiptHandleGroupKey, Map<ReceiptHandleGroup.HandleKey, RenewalIndex.Entry>> groupEntry : groupEntryMap.entrySet()) {
+                List<RenewalIndex.Entry> entryList = new ArrayList<>(groupEntry.getValue().values());
+                for (int i = 0; i < entryList.size(); i += batchSize) {
+                    List<RenewalIndex.Entry> batchEntryList = entryList.subList(i, Math.min(i + batchSize, entryList.size()));
+                    renewalWorkerService.submit(() -> renewMessages(groupEntry.getKey(), batchEntryList));
+                }
+            }
+        } catch (Exception e) {
+            log.error("unexpect error when schedule batch renew task", e);
+        }
+
+        log.debug("poll renewal index done. cost:{}ms", stopwatch.elapsed().toMillis());
+    }
+
+    protected void renewMessages(ReceiptHandleGroupKey key, List<RenewalIndex.Entry> entryList) {
+        ReceiptHandleGroup group = receiptHandleGroupMap.get(key);
+        if (group == null) {
+            return;
+        }
+        long renewAheadTimeMillis = ConfigurationManager.getProxyConfig().getRenewAheadTimeMillis();
+        List<RenewEvent> renewEventList = new ArrayList<>(entryList.size());
+        for (RenewalIndex.Entry entry : entryList) {
+            try {
+                group.computeIfPresent(entry.getMsgID(), entry.getHandle(), messageReceiptHandle -> {
+                    ReceiptHandle handle = ReceiptHandle.decode(messageReceiptHandle.getReceiptHandleStr());
+                    if (handle.getNextVisibleTime() - System.currentTimeMillis() > renewAheadTimeMillis) {
+                        // renewed already or added again, it has been indexed with the latest handle
+                        if (entry.getHandle().equals(messageReceiptHandle.getReceiptHandleStr())) {
+                            addRenewalIndex(key, entry.getMsgID(), messageReceiptHandle);
+                        }
+                        return CompletableFuture.completedFuture(messageReceiptHandle);
+                    }
+                    CompletableFuture<MessageReceiptHandle> future = startRenewMessage(key, messageReceiptHandle, renewEventList);
+                    future.thenAccept(renewedHandle -> {
+                        if (renewedHandle != null) {
+                            addRenewalIndex(key, entry.getMsgID(), renewedHandle);
+                        }
+                    });
+                    return future;
+                });
+            } catch (Exception e) {
+                log.error("error when renew message. msgID:{}, handleStr:{}", entry.getMsgID(), entry.getHandle(), e);
+            }
+        }
+        fireBatchRenewEvent(renewEventList);
+    }
+
+    protected void fireBatchRenewEvent(List<RenewEvent> renewEventList) {
+        // handles of the same topic with the same renew time are changed in one request
+        Map<String, List<RenewEvent>> batchEventMap = new HashMap<>();
+        for (RenewEvent renewEvent : renewEventList) {
+            String batchKey = renewEvent.getMessageReceiptHandle().getTopic() + "@" + renewEvent.getRenewTime();
+            batchEventMap.computeIfAbsent(batchKey, k -> new ArrayList<>()).add(renewEvent);
+        }
+        for (List<RenewEvent> batchEventList : batchEventMap.values()) {
+            ProxyMetricsManager.recordRenewBatchSize(batchEventList.size());
+            try {
+                batchEventListener.fireEvent(batchEventList);
+            } catch (Throwable t) {
+                for (RenewEvent renewEvent : batchEventList) {
+                    renewEvent.getFuture().completeExceptionally(t);
+                }
+            }
+        }
+    }
+
     protected void renewMessage(ReceiptHandleGroupKey key, ReceiptHandleGroup group, String msgID, String handleStr) {
         try {
             group.computeIfPresent(msgID, handleStr, messageReceiptHandle -> startRenewMessage(key, messageReceiptHandle));
@@ -178,6 +301,14 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
     }
 
     protected CompletableFuture<MessageReceiptHandle> startRenewMessage(ReceiptHandleGroupKey key, MessageReceiptHandle messageReceiptHandle) {
+        return startRenewMessage(key, messageReceiptHandle, null);
+    }
+
+    /**
+     * @param renewEventList collects the renew events to fire in batch, the events are fired one by one if it is null
+     */
+    protected CompletableFuture<MessageReceiptHandle> startRenewMessage(ReceiptHandleGroupKey key,
+        MessageReceiptHandle messageReceiptHandle, List<RenewEvent> renewEventList) {
         CompletableFuture<MessageReceiptHandle> resFuture = new CompletableFuture<>();
         ProxyConfig proxyConfig = ConfigurationManager.getProxyConfig();
         long current = System.currentTimeMillis();
@@ -188,8 +319,14 @@ public class DefaultReceiptHandleManager extends AbstractStartAndShutdown implem
             }
             if (current - messageReceiptHandle.getConsumeTimestamp() < proxyConfig.getRenewMaxTimeMillis()) {
                 CompletableFuture<AckResult> future = new CompletableFuture<>();
-                eventListener.fireEvent(new RenewEvent(key, messageReceiptHandle, RENEW_POLICY.nextDelayDuration(messageReceiptHandle.getRenewTimes()), RenewEvent.EventType.RENEW, future));
+                RenewEvent renewEvent = new RenewEvent(key, messageReceiptHandle, RENEW_POLICY.nextDelayDuration(messageReceiptHandle.getRenewTimes()), RenewEvent.EventType.RENEW, future);
+                if (renewEventList != null) {
+                    renewEventList.add(renewEvent);
+                } else {
+                    eventListener.fireEvent(renewEvent);
+                }
                 future.whenComplete((ackResult, throwable) -> {
+                    ProxyMetricsManager.recordRenewLatency(System.currentTimeMillis() - current);
                     if (throwable != null) {
                         log.error("error when renew. handle:{}", messageReceiptHandle, throwable);
                         if (renewExceptionNeedRetry(throwable)) {
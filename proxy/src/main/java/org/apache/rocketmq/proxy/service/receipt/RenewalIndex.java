@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.proxy.service.receipt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.apache.rocketmq.proxy.common.ReceiptHandleGroupKey;
+
+/**
+ * Receipt handles bucketed by the time they should be renewed, so that each schedule only touches the due handles.
+ * <p>
+ * An entry is only a hint, the handle is checked again before renewing it. Entries of the removed handles are dropped
+ * when they are polled, and the same handle could be indexed more than once.
+ */
+public class RenewalIndex {
+
+    private final ConcurrentSkipListMap<Long /* bucket */, Queue<Entry>> bucketMap = new ConcurrentSkipListMap<>();
+    private final long bucketMillis;
+
+    public RenewalIndex(long bucketMillis) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+    }
+
+    public void add(ReceiptHandleGroupKey key, String msgID, String handle, long renewTime) {
+        add(new Entry(key, msgID, handle, renewTime));
+    }
+
+    private void add(Entry entry) {
+        long bucket = entry.getRenewTime() / bucketMillis;
+        while (true) {
+            Queue<Entry> queue = bucketMap.computeIfAbsent(bucket, k -> new ConcurrentLinkedQueue<>());
+            queue.add(entry);
+            // the bucket may be polled before the entry is added, add it again to a new bucket
+            if (bucketMap.get(bucket) == queue) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the entries whose renew time is not later than now, the entries of the bucket of now which are not due
+     * yet are indexed again
+     */
+    public List<Entry> pollDue(long now) {
+        List<Entry> entryList = new ArrayList<>();
+        ConcurrentNavigableMap<Long, Queue<Entry>> dueMap = bucketMap.headMap(now / bucketMillis, true);
+        List<Entry> notDueList = new ArrayList<>();
+        Map.Entry<Long, Queue<Entry>> bucketEntry;
+        while ((bucketEntry = dueMap.pollFirstEntry()) != null) {
+            for (Entry entry : bucketEntry.getValue()) {
+                if (entry.getRenewTime() <= now) {
+                    entryList.add(entry);
+                } else {
+                    notDueList.add(entry);
+                }
+            }
+        }
+        for (Entry entry : notDueList) {
+            add(entry);
+        }
+        return entryList;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Queue<Entry> queue : bucketMap.values()) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        bucketMap.clear();
+    }
+
+    public static class Entry {
+        private final ReceiptHandleGroupKey key;
+        private final String msgID;
+        private final String handle;
+        private final long renewTime;
+
+        public Entry(ReceiptHandleGroupKey key, String msgID, String handle, long renewTime) {
+            this.key = key;
+            this.msgID = msgID;
+            this.handle = handle;
+            this.renewTime = renewTime;
+        }
+
+        public ReceiptHandleGroupKey getKey() {
+            return key;
+        }
+
+        public String getMsgID() {
+            return msgID;
+        }
+
+        public String getHandle() {
+            return handle;
+        }
+
+        public long getRenewTime() {
+            return renewTime;
+        }
+    }
+}
@@ -17,7 +17,11 @@
 
 package org.apache.rocketmq.proxy.grpc.v2.common;
 
+import apache.rocketmq.v2.Message;
 import apache.rocketmq.v2.MessageQueue;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import org.apache.rocketmq.common.message.MessageConst;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.junit.Test;
 
@@ -38,4 +42,23 @@ public class GrpcConverterTest {
         assertThat(messageQueue.getBroker().getName()).isEqualTo(brokerName);
         assertThat(messageQueue.getId()).isEqualTo(queueId);
     }
+
+    @Test
+    public void testBuildMessage() {
+        MessageExt messageExt = new MessageExt();
+        messageExt.setTopic("topic");
+        messageExt.setBody("body".getBytes(StandardCharsets.UTF_8));
+        messageExt.setBornHost(new InetSocketAddress("127.0.0.1", 80));
+        messageExt.setStoreHost(new InetSocketAddress("127.0.0.1", 10911));
+        messageExt.setTags("tag");
+        messageExt.putUserProperty("k", "v");
+        messageExt.getProperties().put(MessageConst.PROPERTY_POP_CK, "handle");
+
+        Message message = GrpcConverter.getInstance().buildMessage(messageExt);
+        assertThat(message.getTopic().getName()).isEqualTo("topic");
+        assertThat(message.getBody().toStringUtf8()).isEqualTo("body");
+        assertThat(message.getUserPropertiesMap()).containsOnlyKeys("k");
+        assertThat(message.getSystemProperties().getTag()).isEqualTo("tag");
+        assertThat(message.getSystemProperties().getReceiptHandle()).isEqualTo("handle");
+    }
 }
\ No newline at end of file
@@ -52,6 +52,7 @@ import org.apache.rocketmq.proxy.service.route.MessageQueueView;
 import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.filter.FilterAPI;
 import org.apache.rocketmq.remoting.protocol.header.AckMessageRequestHeader;
+import org.apache.rocketmq.remoting.protocol.body.BatchChangeInvisibleTimeRequestBody;
 import org.apache.rocketmq.remoting.protocol.header.ChangeInvisibleTimeRequestHeader;
 import org.apache.rocketmq.remoting.protocol.header.PopMessageRequestHeader;
 import org.junit.Before;
@@ -299,6 +300,51 @@ public class ConsumerProcessorTest extends BaseProcessorTest {
         assertEquals(handle.getReceiptHandle(), requestHeaderArgumentCaptor.getValue().getExtraInfo());
     }
 
+    @Test
+    public void testBatchChangeInvisibleTime() throws Throwable {
+        long now = System.currentTimeMillis();
+        MessageExt expireMessage = createMessageExt(TOPIC, "", 0, 3000, now - 10000, 0, 0, 0, 0, "brokerName1");
+        List<ReceiptHandleMessage> receiptHandleMessageList = new ArrayList<>();
+        receiptHandleMessageList.add(new ReceiptHandleMessage(create(expireMessage), expireMessage.getMsgId()));
+        for (int queueId = 0; queueId < 2; queueId++) {
+            for (int i = 0; i < 3; i++) {
+                MessageExt message = createMessageExt(TOPIC, "", 0, 3000, now, 0, 0, queueId, i, "brokerName1");
+                receiptHandleMessageList.add(new ReceiptHandleMessage(create(message), message.getMsgId()));
+            }
+        }
+
+        List<BatchChangeInvisibleTimeRequestBody> requestBodyList = new ArrayList<>();
+        doAnswer((Answer<CompletableFuture<List<AckResult>>>) invocation -> {
+            BatchChangeInvisibleTimeRequestBody requestBody = invocation.getArgument(2);
+            requestBodyList.add(requestBody);
+            List<AckResult> ackResultList = new ArrayList<>();
+            for (int i = 0; i < requestBody.getEntries().size(); i++) {
+                AckResult ackResult = new AckResult();
+                ackResult.setStatus(AckStatus.OK);
+                ackResultList.add(ackResult);
+            }
+            return CompletableFuture.completedFuture(ackResultList);
+        }).when(this.messageService).batchChangeInvisibleTime(any(), anyList(), any(), anyLong());
+
+        List<BatchAckResult> batchResultList = this.consumerProcessor.batchChangeInvisibleTime(createContext(), receiptHandleMessageList,
+            CONSUMER_GROUP, TOPIC, 1000, 3000).get();
+
+        assertEquals(receiptHandleMessageList.size(), batchResultList.size());
+        assertEquals(2, requestBodyList.size());
+        for (BatchChangeInvisibleTimeRequestBody requestBody : requestBodyList) {
+            assertEquals(3, requestBody.getEntries().size());
+            assertEquals(CONSUMER_GROUP, requestBody.getConsumerGroup());
+            assertEquals(1000, requestBody.getEntries().get(0).getInvisibleTime());
+        }
+        for (BatchAckResult batchResult : batchResultList) {
+            if (batchResult.getReceiptHandleMessage().getMessageId().equals(expireMessage.getMsgId())) {
+                assertNotNull(batchResult.getProxyException());
+            } else {
+                assertEquals(AckStatus.OK, batchResult.getAckResult().getStatus());
+            }
+        }
+    }
+
     @Test
     public void testLockBatch() throws Throwable {
         Set<MessageQueue> mqSet = new HashSet<>();
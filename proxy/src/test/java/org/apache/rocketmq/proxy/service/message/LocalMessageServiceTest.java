@@ -53,6 +53,7 @@ import org.apache.rocketmq.proxy.common.ProxyExceptionCode;
 import org.apache.rocketmq.proxy.config.ConfigurationManager;
 import org.apache.rocketmq.proxy.config.InitConfigTest;
 import org.apache.rocketmq.proxy.service.channel.ChannelManager;
+import org.apache.rocketmq.proxy.service.channel.SimpleChannel;
 import org.apache.rocketmq.proxy.service.channel.SimpleChannelHandlerContext;
 import org.apache.rocketmq.proxy.service.route.AddressableMessageQueue;
 import org.apache.rocketmq.remoting.exception.RemotingCommandException;
@@ -414,7 +415,9 @@ public class LocalMessageServiceTest extends InitConfigTest {
         Mockito.when(ackMessageProcessorMock.processRequest(Mockito.any(SimpleChannelHandlerContext.class), Mockito.argThat(argument -> {
             boolean first = argument.getCode() == RequestCode.ACK_MESSAGE;
             boolean second = argument.readCustomHeader() instanceof AckMessageRequestHeader;
-            return first && second;
+            // the header is handed over as it is, never flattened into the ext fields
+            boolean third = argument.getExtFields().isEmpty();
+            return first && second && third;
         }))).thenReturn(remotingCommand);
         AckMessageRequestHeader requestHeader = new AckMessageRequestHeader();
         CompletableFuture<AckResult> future = localMessageService.ackMessage(proxyContext, handle, messageId,
@@ -423,6 +426,33 @@ public class LocalMessageServiceTest extends InitConfigTest {
         assertThat(ackResult.getStatus()).isEqualTo(AckStatus.OK);
     }
 
+    @Test
+    public void testBatchAckMessage() throws Exception {
+        long popTime = System.currentTimeMillis();
+        List<ReceiptHandleMessage> handleList = new ArrayList<>();
+        for (long offset = 0; offset < 3; offset++) {
+            ReceiptHandle handle = ReceiptHandle.builder()
+                .startOffset(0L)
+                .retrieveTime(popTime)
+                .invisibleTime(3000L)
+                .reviveQueueId(1)
+                .topicType(ReceiptHandle.NORMAL_TOPIC)
+                .brokerName(brokerName)
+                .queueId(queueId)
+                .offset(offset)
+                .build();
+            handleList.add(new ReceiptHandleMessage(ReceiptHandle.decode(handle.encode()), "messageId" + offset));
+        }
+        RemotingCommand remotingCommand = RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+        Mockito.when(ackMessageProcessorMock.batchAckMessage(Mockito.any(SimpleChannel.class), Mockito.argThat(argument -> {
+            boolean first = argument.getAcks().size() == 1;
+            boolean second = argument.getAcks().get(0).getBitSet().cardinality() == 3;
+            return first && second;
+        }))).thenReturn(remotingCommand);
+        AckResult ackResult = localMessageService.batchAckMessage(proxyContext, handleList, "group", topic, 1000L).get();
+        assertThat(ackResult.getStatus()).isEqualTo(AckStatus.OK);
+    }
+
     private MessageExt buildMessageExt(String topic, int queueId, long queueOffset) {
         MessageExt message1 = new MessageExt();
         message1.setTopic(topic);
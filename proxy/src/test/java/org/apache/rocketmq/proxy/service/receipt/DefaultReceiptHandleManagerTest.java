@@ -44,9 +44,11 @@ import org.apache.rocketmq.proxy.common.ReceiptHandleGroup;
 import org.apache.rocketmq.proxy.common.RenewStrategyPolicy;
 import org.apache.rocketmq.proxy.config.ConfigurationManager;
 import org.apache.rocketmq.proxy.config.ProxyConfig;
+import org.apache.rocketmq.proxy.processor.BatchAckResult;
 import org.apache.rocketmq.proxy.processor.MessagingProcessor;
 import org.apache.rocketmq.proxy.common.ReceiptHandleGroupKey;
 import org.apache.rocketmq.proxy.service.BaseServiceTest;
+import org.apache.rocketmq.proxy.service.message.ReceiptHandleMessage;
 import org.apache.rocketmq.proxy.service.metadata.MetadataService;
 import org.apache.rocketmq.remoting.protocol.LanguageCode;
 import org.apache.rocketmq.remoting.protocol.subscription.RetryPolicy;
@@ -463,4 +465,92 @@ public class DefaultReceiptHandleManagerTest extends BaseServiceTest {
         listenerArgumentCaptor.getValue().handle(ConsumerGroupEvent.CLIENT_UNREGISTER, GROUP, new ClientChannelInfo(channel, "", LanguageCode.JAVA, 0));
         assertTrue(receiptHandleManager.receiptHandleGroupMap.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchRenewReceiptHandle() {
+        ProxyConfig config = ConfigurationManager.getProxyConfig();
+        config.setEnableBatchRenew(true);
+        try {
+            DefaultReceiptHandleManager batchReceiptHandleManager = new DefaultReceiptHandleManager(metadataService, consumerManager,
+                event -> {
+                }, eventList -> {
+                    List<ReceiptHandleMessage> handleMessageList = new ArrayList<>();
+                    for (RenewEvent event : eventList) {
+                        MessageReceiptHandle messageReceiptHandle = event.getMessageReceiptHandle();
+                        handleMessageList.add(new ReceiptHandleMessage(ReceiptHandle.decode(messageReceiptHandle.getReceiptHandleStr()),
+                            messageReceiptHandle.getMessageId()));
+                    }
+                    messagingProcessor.batchChangeInvisibleTime(PROXY_CONTEXT, handleMessageList, GROUP, TOPIC, eventList.get(0).getRenewTime())
+                        .whenComplete((resultList, t) -> {
+                            for (int i = 0; i < eventList.size(); i++) {
+                                eventList.get(i).getFuture().complete(resultList.get(i).getAckResult());
+                            }
+                        });
+                });
+            Channel channel = PROXY_CONTEXT.getVal(ContextVariable.CHANNEL);
+            Mockito.when(consumerManager.findChannel(Mockito.eq(GROUP), Mockito.eq(channel))).thenReturn(Mockito.mock(ClientChannelInfo.class));
+            String newReceiptHandle = ReceiptHandle.builder()
+                .startOffset(0L)
+                .retrieveTime(System.currentTimeMillis())
+                .invisibleTime(INVISIBLE_TIME)
+                .reviveQueueId(1)
+                .topicType(ReceiptHandle.NORMAL_TOPIC)
+                .brokerName(BROKER_NAME)
+                .queueId(QUEUE_ID)
+                .offset(OFFSET)
+                .commitLogOffset(0L)
+                .build().encode();
+            Mockito.when(messagingProcessor.batchChangeInvisibleTime(Mockito.any(ProxyContext.class), Mockito.anyList(), Mockito.eq(GROUP),
+                    Mockito.eq(TOPIC), Mockito.eq(new RenewStrategyPolicy().nextDelayDuration(0))))
+                .thenAnswer((Answer<CompletableFuture<List<BatchAckResult>>>) mock -> {
+                    List<ReceiptHandleMessage> handleMessageList = mock.getArgument(1);
+                    List<BatchAckResult> resultList = new ArrayList<>();
+                    for (ReceiptHandleMessage handleMessage : handleMessageList) {
+                        AckResult ackResult = new AckResult();
+                        ackResult.setStatus(AckStatus.OK);
+                        ackResult.setExtraInfo(newReceiptHandle);
+                        resultList.add(new BatchAckResult(handleMessage, ackResult));
+                    }
+                    return CompletableFuture.completedFuture(resultList);
+                });
+
+            batchReceiptHandleManager.addReceiptHandle(PROXY_CONTEXT, channel, GROUP, MSG_ID, messageReceiptHandle);
+            String otherReceiptHandle = ReceiptHandle.builder()
+                .startOffset(0L)
+                .retrieveTime(System.currentTimeMillis() - INVISIBLE_TIME + config.getRenewAheadTimeMillis() - 5)
+                .invisibleTime(INVISIBLE_TIME)
+                .reviveQueueId(1)
+                .topicType(ReceiptHandle.NORMAL_TOPIC)
+                .brokerName(BROKER_NAME)
+                .queueId(QUEUE_ID)
+                .offset(OFFSET + 1)
+                .commitLogOffset(0L)
+                .build().encode();
+            String otherMsgId = MessageClientIDSetter.createUniqID();
+            batchReceiptHandleManager.addReceiptHandle(PROXY_CONTEXT, channel, GROUP, otherMsgId,
+                new MessageReceiptHandle(GROUP, TOPIC, QUEUE_ID, otherReceiptHandle, otherMsgId, OFFSET + 1, RECONSUME_TIMES));
+
+            batchReceiptHandleManager.scheduleRenewTask();
+            ArgumentCaptor<List<ReceiptHandleMessage>> handleListCaptor = ArgumentCaptor.forClass(List.class);
+            Mockito.verify(messagingProcessor, Mockito.timeout(1000).times(1))
+                .batchChangeInvisibleTime(Mockito.any(ProxyContext.class), handleListCaptor.capture(), Mockito.eq(GROUP),
+                    Mockito.eq(TOPIC), Mockito.anyLong());
+            assertEquals(2, handleListCaptor.getValue().size());
+            await().atMost(Duration.ofSeconds(1)).until(() -> {
+                ReceiptHandleGroup receiptHandleGroup = batchReceiptHandleManager.receiptHandleGroupMap.values().stream().findFirst().get();
+                return newReceiptHandle.equals(receiptHandleGroup.get(MSG_ID, receiptHandle).getReceiptHandleStr());
+            });
+
+            // the renewed handles are not due until the next renew time
+            batchReceiptHandleManager.scheduleRenewTask();
+            Mockito.verify(messagingProcessor, Mockito.after(200).times(1))
+                .batchChangeInvisibleTime(Mockito.any(ProxyContext.class), Mockito.anyList(), Mockito.anyString(),
+                    Mockito.anyString(), Mockito.anyLong());
+            Mockito.verify(messagingProcessor, Mockito.never())
+                .changeInvisibleTime(Mockito.any(ProxyContext.class), Mockito.any(ReceiptHandle.class), Mockito.anyString(),
+                    Mockito.anyString(), Mockito.anyString(), Mockito.anyLong());
+        } finally {
+            config.setEnableBatchRenew(false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.proxy.service.receipt;
+
+import io.netty.channel.local.LocalChannel;
+import java.util.List;
+import org.apache.rocketmq.proxy.common.ReceiptHandleGroupKey;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RenewalIndexTest {
+    private static final long BUCKET_MILLIS = 1000L;
+    private final ReceiptHandleGroupKey key = new ReceiptHandleGroupKey(new LocalChannel(), "group");
+
+    @Test
+    public void testPollDue() {
+        RenewalIndex renewalIndex = new RenewalIndex(BUCKET_MILLIS);
+        renewalIndex.add(key, "msg1", "handle1", 9_500L);
+        renewalIndex.add(key, "msg2", "handle2", 10_100L);
+        renewalIndex.add(key, "msg3", "handle3", 11_000L);
+
+        List<RenewalIndex.Entry> entryList = renewalIndex.pollDue(10_100L);
+        assertEquals(2, entryList.size());
+        assertEquals("handle1", entryList.get(0).getHandle());
+        assertEquals("handle2", entryList.get(1).getHandle());
+        assertEquals(1, renewalIndex.size());
+    }
+
+    @Test
+    public void testPollDueKeepsLaterEntryOfCurrentBucket() {
+        RenewalIndex renewalIndex = new RenewalIndex(BUCKET_MILLIS);
+        renewalIndex.add(key, "msg1", "handle1", 10_500L);
+
+        // the renew time is in the bucket of now but later than now
+        assertTrue(renewalIndex.pollDue(10_100L).isEmpty());
+        assertEquals(1, renewalIndex.size());
+
+        List<RenewalIndex.Entry> entryList = renewalIndex.pollDue(10_500L);
+        assertEquals(1, entryList.size());
+        assertEquals("msg1", entryList.get(0).getMsgID());
+        assertEquals(0, renewalIndex.size());
+    }
+}
@@ -16,10 +16,15 @@
  */
 package org.apache.rocketmq.remoting.common;
 
+import java.util.Set;
+
 public class HeartbeatV2Result {
     private int version = 0;
     private boolean isSubChange = false;
     private boolean isSupportV2 = false;
+    private boolean isSupportDelta = false;
+    // the consumer groups to carry the subscriptions for, null means all of them
+    private Set<String> subChangeGroups;
 
     public HeartbeatV2Result(int version, boolean isSubChange, boolean isSupportV2) {
         this.version = version;
@@ -27,6 +32,11 @@ public class HeartbeatV2Result {
         this.isSupportV2 = isSupportV2;
     }
 
+    public HeartbeatV2Result(int version, boolean isSubChange, boolean isSupportV2, boolean isSupportDelta) {
+        this(version, isSubChange, isSupportV2);
+        this.isSupportDelta = isSupportDelta;
+    }
+
     public int getVersion() {
         return version;
     }
@@ -50,4 +60,20 @@ public class HeartbeatV2Result {
     public void setSupportV2(boolean supportV2) {
         isSupportV2 = supportV2;
     }
+
+    public boolean isSupportDelta() {
+        return isSupportDelta;
+    }
+
+    public void setSupportDelta(boolean supportDelta) {
+        isSupportDelta = supportDelta;
+    }
+
+    public Set<String> getSubChangeGroups() {
+        return subChangeGroups;
+    }
+
+    public void setSubChangeGroups(Set<String> subChangeGroups) {
+        this.subChangeGroups = subChangeGroups;
+    }
 }
@@ -18,14 +18,23 @@ package org.apache.rocketmq.remoting.metrics;
 
 public class RemotingMetricsConstant {
     public static final String HISTOGRAM_RPC_LATENCY = "rocketmq_rpc_latency";
+    public static final String COUNTER_CHANNEL_WRITE_TOTAL = "rocketmq_channel_write_total";
+    public static final String COUNTER_CHANNEL_FLUSH_TOTAL = "rocketmq_channel_flush_total";
+    public static final String GAUGE_RPC_LATENCY_PERCENTILE = "rocketmq_rpc_latency_percentile";
     public static final String LABEL_PROTOCOL_TYPE = "protocol_type";
     public static final String LABEL_REQUEST_CODE = "request_code";
     public static final String LABEL_RESPONSE_CODE = "response_code";
     public static final String LABEL_IS_LONG_POLLING = "is_long_polling";
     public static final String LABEL_RESULT = "result";
+    public static final String LABEL_PERCENTILE = "percentile";
 
     public static final String PROTOCOL_TYPE_REMOTING = "remoting";
 
+    public static final String PERCENTILE_P50 = "p50";
+    public static final String PERCENTILE_P99 = "p99";
+    public static final String PERCENTILE_P999 = "p999";
+    public static final String PERCENTILE_MAX = "max";
+
     public static final String RESULT_ONEWAY = "oneway";
     public static final String RESULT_SUCCESS = "success";
     public static final String RESULT_CANCELED = "cancelled";
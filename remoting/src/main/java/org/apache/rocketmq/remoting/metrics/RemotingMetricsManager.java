@@ -17,6 +17,7 @@
 package org.apache.rocketmq.remoting.metrics;
 
 import com.google.common.collect.Lists;
+import io.netty.channel.Channel;
 import io.netty.util.concurrent.Future;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
@@ -30,12 +31,31 @@ import io.opentelemetry.sdk.metrics.ViewBuilder;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import org.apache.rocketmq.common.Pair;
 import org.apache.rocketmq.common.metrics.NopLongHistogram;
+import org.apache.rocketmq.common.stats.LatencyHistogram;
+import org.apache.rocketmq.common.stats.LatencyHistogramSet;
+import org.apache.rocketmq.common.utils.ThreadUtils;
+import org.apache.rocketmq.remoting.common.RemotingHelper;
+import org.apache.rocketmq.remoting.netty.AttributeKeys;
+import org.apache.rocketmq.remoting.netty.FlushStatsHandler;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.COUNTER_CHANNEL_FLUSH_TOTAL;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.COUNTER_CHANNEL_WRITE_TOTAL;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.GAUGE_RPC_LATENCY_PERCENTILE;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.HISTOGRAM_RPC_LATENCY;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.LABEL_PERCENTILE;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.LABEL_PROTOCOL_TYPE;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.LABEL_REQUEST_CODE;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_MAX;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P50;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P99;
+import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PERCENTILE_P999;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.PROTOCOL_TYPE_REMOTING;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.RESULT_CANCELED;
 import static org.apache.rocketmq.remoting.metrics.RemotingMetricsConstant.RESULT_SUCCESS;
@@ -45,6 +65,24 @@ public class RemotingMetricsManager {
     public static LongHistogram rpcLatency = new NopLongHistogram();
     public static Supplier<AttributesBuilder> attributesBuilderSupplier;
 
+    /**
+     * Totals of all channels, the per-channel values are kept by {@link org.apache.rocketmq.remoting.netty.FlushStatsHandler}
+     */
+    public static final LongAdder CHANNEL_WRITE_COUNT = new LongAdder();
+    public static final LongAdder CHANNEL_FLUSH_COUNT = new LongAdder();
+
+    /**
+     * Rpc latency in microseconds per request code, long polling requests are left out as their latency is mostly
+     * the suspended time
+     */
+    public static final LatencyHistogramSet RPC_LATENCY_HISTOGRAMS =
+        new LatencyHistogramSet(HISTOGRAM_RPC_LATENCY, 512, TimeUnit.MINUTES.toMicros(1));
+
+    /**
+     * The only task rolling the interval of {@link #RPC_LATENCY_HISTOGRAMS}, started with the metrics
+     */
+    private static ScheduledExecutorService rpcLatencyRollExecutor;
+
     public static AttributesBuilder newAttributesBuilder() {
         if (attributesBuilderSupplier == null) {
             return Attributes.builder();
@@ -60,6 +98,51 @@ public class RemotingMetricsManager {
             .setUnit("milliseconds")
             .ofLongs()
             .build();
+        meter.counterBuilder(COUNTER_CHANNEL_WRITE_TOTAL)
+            .setDescription("Total number of messages written to channels")
+            .buildWithCallback(measurement -> measurement.record(CHANNEL_WRITE_COUNT.sum(), newAttributesBuilder().build()));
+        meter.counterBuilder(COUNTER_CHANNEL_FLUSH_TOTAL)
+            .setDescription("Total number of flushes reaching the transport, roughly the number of write syscalls")
+            .buildWithCallback(measurement -> measurement.record(CHANNEL_FLUSH_COUNT.sum(), newAttributesBuilder().build()));
+        meter.gaugeBuilder(GAUGE_RPC_LATENCY_PERCENTILE)
+            .setDescription("Rpc latency percentiles of the last minute")
+            .setUnit("microseconds")
+            .ofLongs()
+            .buildWithCallback(measurement -> RPC_LATENCY_HISTOGRAMS.forEach((requestCode, histogram) -> {
+                LatencyHistogram.Snapshot snapshot = histogram.getIntervalSnapshot();
+                if (snapshot.getTotalCount() == 0) {
+                    return;
+                }
+                AttributesBuilder attributesBuilder = newAttributesBuilder().put(LABEL_REQUEST_CODE, requestCode);
+                measurement.record(snapshot.getValueAtPercentile(50), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P50).build());
+                measurement.record(snapshot.getValueAtPercentile(99), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P99).build());
+                measurement.record(snapshot.getValueAtPercentile(99.9), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_P999).build());
+                measurement.record(snapshot.getMax(), attributesBuilder.put(LABEL_PERCENTILE, PERCENTILE_MAX).build());
+            }));
+        startRpcLatencyRoll();
+    }
+
+    private static synchronized void startRpcLatencyRoll() {
+        if (rpcLatencyRollExecutor != null) {
+            return;
+        }
+        rpcLatencyRollExecutor = ThreadUtils.newSingleThreadScheduledExecutor("RpcLatencyRollThread_", true);
+        rpcLatencyRollExecutor.scheduleAtFixedRate(RPC_LATENCY_HISTOGRAMS::rollInterval, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void shutdown() {
+        if (rpcLatencyRollExecutor != null) {
+            rpcLatencyRollExecutor.shutdown();
+            rpcLatencyRollExecutor = null;
+        }
+    }
+
+    public static void recordRpcLatency(RemotingCommand request, Attributes attributes) {
+        rpcLatency.record(request.getProcessTimer().elapsed(TimeUnit.MILLISECONDS), attributes);
+        if (!request.isSuspended()) {
+            RPC_LATENCY_HISTOGRAMS.record(RemotingHelper.getRequestCodeDesc(request.getCode()),
+                request.getProcessTimer().elapsed(TimeUnit.MICROSECONDS));
+        }
     }
 
     public static List<Pair<InstrumentSelector, ViewBuilder>> getMetricsView() {
@@ -83,6 +166,13 @@ public class RemotingMetricsManager {
         return Lists.newArrayList(new Pair<>(selector, viewBuilder));
     }
 
+    /**
+     * @return the write/flush counters of the channel, or null if flush statistics are not collected on it
+     */
+    public static FlushStatsHandler.ChannelWriteStats getChannelWriteStats(Channel channel) {
+        return channel.attr(AttributeKeys.WRITE_STATS_KEY).get();
+    }
+
     public static String getWriteAndFlushResult(Future<?> future) {
         String result = RESULT_SUCCESS;
         if (future.isCancelled()) {
@@ -46,6 +46,9 @@ public class AttributeKeys {
     public static final AttributeKey<String> PROXY_PROTOCOL_SERVER_PORT =
             AttributeKey.valueOf(HAProxyConstants.PROXY_PROTOCOL_SERVER_PORT);
 
+    public static final AttributeKey<FlushStatsHandler.ChannelWriteStats> WRITE_STATS_KEY =
+            AttributeKey.valueOf("WriteStats");
+
     private static final Map<String, AttributeKey<String>> ATTRIBUTE_KEY_MAP = new ConcurrentHashMap<>();
 
     public static AttributeKey<String> valueOf(String name) {
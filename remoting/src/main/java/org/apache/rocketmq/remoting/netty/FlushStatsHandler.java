@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Attribute;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.rocketmq.remoting.metrics.RemotingMetricsManager;
+
+/**
+ * Counts writes and the flushes that actually reach the transport. Placed at the head of the pipeline, every flush
+ * observed here results in at least one write syscall, so comparing the two counters shows how well writes are
+ * batched, e.g. when flush consolidation is enabled.
+ */
+@ChannelHandler.Sharable
+public class FlushStatsHandler extends ChannelOutboundHandlerAdapter {
+
+    public static final String FLUSH_STATS_HANDLER_NAME = "flushStatsHandler";
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        getOrCreateStats(ctx.channel()).writeCount.increment();
+        RemotingMetricsManager.CHANNEL_WRITE_COUNT.increment();
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        getOrCreateStats(ctx.channel()).flushCount.increment();
+        RemotingMetricsManager.CHANNEL_FLUSH_COUNT.increment();
+        ctx.flush();
+    }
+
+    private static ChannelWriteStats getOrCreateStats(Channel channel) {
+        Attribute<ChannelWriteStats> attribute = channel.attr(AttributeKeys.WRITE_STATS_KEY);
+        ChannelWriteStats stats = attribute.get();
+        if (stats == null) {
+            stats = new ChannelWriteStats();
+            ChannelWriteStats old = attribute.setIfAbsent(stats);
+            if (old != null) {
+                stats = old;
+            }
+        }
+        return stats;
+    }
+
+    public static class ChannelWriteStats {
+        private final LongAdder writeCount = new LongAdder();
+        private final LongAdder flushCount = new LongAdder();
+
+        public long getWriteCount() {
+            return writeCount.sum();
+        }
+
+        public long getFlushCount() {
+            return flushCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelWriteStats{" +
+                "writeCount=" + writeCount.sum() +
+                ", flushCount=" + flushCount.sum() +
+                '}';
+        }
+    }
+}
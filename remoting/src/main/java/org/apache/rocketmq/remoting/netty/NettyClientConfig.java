@@ -59,6 +59,12 @@ public class NettyClientConfig {
 
     private boolean enableTransparentRetry = true;
 
+    private boolean useEpollNativeSelector = false;
+
+    private boolean enableFlushConsolidation = false;
+    private int flushConsolidationExplicitFlushAfterFlushes = 256;
+    private boolean enableFlushStats = false;
+
     public boolean isClientCloseSocketIfTimeout() {
         return clientCloseSocketIfTimeout;
     }
@@ -218,4 +224,36 @@ public class NettyClientConfig {
     public void setSocksProxyConfig(String socksProxyConfig) {
         this.socksProxyConfig = socksProxyConfig;
     }
+
+    public boolean isUseEpollNativeSelector() {
+        return useEpollNativeSelector;
+    }
+
+    public void setUseEpollNativeSelector(boolean useEpollNativeSelector) {
+        this.useEpollNativeSelector = useEpollNativeSelector;
+    }
+
+    public boolean isEnableFlushConsolidation() {
+        return enableFlushConsolidation;
+    }
+
+    public void setEnableFlushConsolidation(boolean enableFlushConsolidation) {
+        this.enableFlushConsolidation = enableFlushConsolidation;
+    }
+
+    public int getFlushConsolidationExplicitFlushAfterFlushes() {
+        return flushConsolidationExplicitFlushAfterFlushes;
+    }
+
+    public void setFlushConsolidationExplicitFlushAfterFlushes(int flushConsolidationExplicitFlushAfterFlushes) {
+        this.flushConsolidationExplicitFlushAfterFlushes = flushConsolidationExplicitFlushAfterFlushes;
+    }
+
+    public boolean isEnableFlushStats() {
+        return enableFlushStats;
+    }
+
+    public void setEnableFlushStats(boolean enableFlushStats) {
+        this.enableFlushStats = enableFlushStats;
+    }
 }
@@ -221,7 +221,7 @@ public abstract class NettyRemotingAbstract {
             .put(LABEL_RESPONSE_CODE, RemotingHelper.getResponseCodeDesc(response.getCode()));
         if (request.isOnewayRPC()) {
             attributesBuilder.put(LABEL_RESULT, RESULT_ONEWAY);
-            RemotingMetricsManager.rpcLatency.record(request.getProcessTimer().elapsed(TimeUnit.MILLISECONDS), attributesBuilder.build());
+            RemotingMetricsManager.recordRpcLatency(request, attributesBuilder.build());
             return;
         }
         response.setOpaque(request.getOpaque());
@@ -236,7 +236,7 @@ public abstract class NettyRemotingAbstract {
                         request.getCode(), response.getCode(), response.getOpaque(), channel, future.cause());
                 }
                 attributesBuilder.put(LABEL_RESULT, RemotingMetricsManager.getWriteAndFlushResult(future));
-                RemotingMetricsManager.rpcLatency.record(request.getProcessTimer().elapsed(TimeUnit.MILLISECONDS), attributesBuilder.build());
+                RemotingMetricsManager.recordRpcLatency(request, attributesBuilder.build());
                 if (callback != null) {
                     callback.accept(future);
                 }
@@ -246,7 +246,7 @@ public abstract class NettyRemotingAbstract {
             log.error(request.toString());
             log.error(response.toString());
             attributesBuilder.put(LABEL_RESULT, RESULT_WRITE_CHANNEL_FAILED);
-            RemotingMetricsManager.rpcLatency.record(request.getProcessTimer().elapsed(TimeUnit.MILLISECONDS), attributesBuilder.build());
+            RemotingMetricsManager.recordRpcLatency(request, attributesBuilder.build());
         }
     }
 
@@ -311,7 +311,7 @@ public abstract class NettyRemotingAbstract {
             AttributesBuilder attributesBuilder = RemotingMetricsManager.newAttributesBuilder()
                 .put(LABEL_REQUEST_CODE, RemotingHelper.getRequestCodeDesc(cmd.getCode()))
                 .put(LABEL_RESULT, RESULT_PROCESS_REQUEST_FAILED);
-            RemotingMetricsManager.rpcLatency.record(cmd.getProcessTimer().elapsed(TimeUnit.MILLISECONDS), attributesBuilder.build());
+            RemotingMetricsManager.recordRpcLatency(cmd, attributesBuilder.build());
         }
     }
 
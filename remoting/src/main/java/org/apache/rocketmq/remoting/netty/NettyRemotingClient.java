@@ -32,9 +32,13 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.proxy.Socks5ProxyHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
@@ -74,6 +78,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.Pair;
 import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.common.utils.NetworkUtil;
 import org.apache.rocketmq.common.utils.ThreadUtils;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
@@ -98,6 +103,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     private final NettyClientConfig nettyClientConfig;
     private final Bootstrap bootstrap = new Bootstrap();
     private final EventLoopGroup eventLoopGroupWorker;
+    private final FlushStatsHandler flushStatsHandler = new FlushStatsHandler();
     private final Lock lockChannelTables = new ReentrantLock();
     private final Map<String /* cidr */, SocksProxyConfig /* proxy */> proxyMap = new HashMap<>();
     private final ConcurrentHashMap<String /* cidr */, Bootstrap> bootstrapMap = new ConcurrentHashMap<>();
@@ -154,7 +160,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         if (eventLoopGroup != null) {
             this.eventLoopGroupWorker = eventLoopGroup;
         } else {
-            this.eventLoopGroupWorker = new NioEventLoopGroup(1, new ThreadFactoryImpl("NettyClientSelector_"));
+            this.eventLoopGroupWorker = buildEventLoopGroupWorker();
         }
         this.defaultEventExecutorGroup = eventExecutorGroup;
 
@@ -171,6 +177,26 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         }
     }
 
+    private EventLoopGroup buildEventLoopGroupWorker() {
+        if (NetworkUtil.isLinuxPlatform() && nettyClientConfig.isUseEpollNativeSelector() && Epoll.isAvailable()) {
+            return new EpollEventLoopGroup(1, new ThreadFactoryImpl("NettyClientEPOLLSelector_"));
+        }
+        return new NioEventLoopGroup(1, new ThreadFactoryImpl("NettyClientSelector_"));
+    }
+
+    private Class<? extends SocketChannel> socketChannelClass() {
+        return this.eventLoopGroupWorker instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    private void configWriteHandlers(ChannelPipeline pipeline) {
+        if (nettyClientConfig.isEnableFlushConsolidation()) {
+            pipeline.addFirst(new FlushConsolidationHandler(nettyClientConfig.getFlushConsolidationExplicitFlushAfterFlushes(), true));
+        }
+        if (nettyClientConfig.isEnableFlushConsolidation() || nettyClientConfig.isEnableFlushStats()) {
+            pipeline.addFirst(FlushStatsHandler.FLUSH_STATS_HANDLER_NAME, flushStatsHandler);
+        }
+    }
+
     private static int initValueIndex() {
         Random r = new Random();
         return r.nextInt(999);
@@ -194,7 +220,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
                 new ThreadFactoryImpl("NettyClientWorkerThread_"));
         }
 
-        Bootstrap handler = this.bootstrap.group(this.eventLoopGroupWorker).channel(NioSocketChannel.class)
+        Bootstrap handler = this.bootstrap.group(this.eventLoopGroupWorker).channel(socketChannelClass())
             .option(ChannelOption.TCP_NODELAY, true)
             .option(ChannelOption.SO_KEEPALIVE, false)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, nettyClientConfig.getConnectTimeoutMillis())
@@ -210,6 +236,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
                             LOGGER.warn("Connections are insecure as SSLContext is null!");
                         }
                     }
+                    configWriteHandlers(pipeline);
                     ch.pipeline().addLast(
                         nettyClientConfig.isDisableNettyWorkerGroup() ? null : defaultEventExecutorGroup,
                         new NettyEncoder(),
@@ -311,7 +338,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
     private Bootstrap createBootstrap(final SocksProxyConfig proxy) {
         Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(this.eventLoopGroupWorker).channel(NioSocketChannel.class)
+        bootstrap.group(this.eventLoopGroupWorker).channel(socketChannelClass())
             .option(ChannelOption.TCP_NODELAY, true)
             .option(ChannelOption.SO_KEEPALIVE, false)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, nettyClientConfig.getConnectTimeoutMillis())
@@ -339,6 +366,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
                             proxy.getUsername(), proxy.getPassword()));
                     }
 
+                    configWriteHandlers(pipeline);
                     pipeline.addLast(
                         nettyClientConfig.isDisableNettyWorkerGroup() ? null : defaultEventExecutorGroup,
                         new NettyEncoder(),
@@ -811,6 +839,17 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         Stopwatch stopwatch = Stopwatch.createStarted();
         return super.invokeImpl(channel, request, timeoutMillis).thenCompose(responseFuture -> {
             RemotingCommand response = responseFuture.getResponseCommand();
+            if (response.getCode() == ResponseCode.ACL_SESSION_EXPIRED) {
+                // the rpc hook has dropped the expired session, so the retry is signed in full and asks for a new one
+                long duration = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+                stopwatch.stop();
+                RemotingCommand retryRequest = RemotingCommand.createRequestCommand(request.getCode(), request.readCustomHeader());
+                retryRequest.setBody(request.getBody());
+                if (request.getExtFields() != null) {
+                    retryRequest.setExtFields(new HashMap<>(request.getExtFields()));
+                }
+                return super.invokeImpl(channel, retryRequest, timeoutMillis - duration);
+            }
             if (response.getCode() == ResponseCode.GO_AWAY) {
                 if (nettyClientConfig.isEnableReconnectForGoAway()) {
                     ChannelWrapper channelWrapper = channelWrapperTables.computeIfPresent(channel, (channel0, channelWrapper0) -> {
@@ -45,6 +45,7 @@ import io.netty.handler.codec.haproxy.HAProxyMessage;
 import io.netty.handler.codec.haproxy.HAProxyMessageDecoder;
 import io.netty.handler.codec.haproxy.HAProxyProtocolVersion;
 import io.netty.handler.codec.haproxy.HAProxyTLV;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -118,6 +119,7 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
     public static final String TLS_MODE_HANDLER = "TlsModeHandler";
     public static final String TLS_HANDLER_NAME = "sslHandler";
     public static final String FILE_REGION_ENCODER_NAME = "fileRegionEncoder";
+    public static final String FLUSH_CONSOLIDATION_HANDLER_NAME = "flushConsolidationHandler";
 
     // sharable handlers
     private TlsModeHandler tlsModeHandler;
@@ -125,6 +127,7 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
     private NettyConnectManageHandler connectionManageHandler;
     private NettyServerHandler serverHandler;
     private RemotingCodeDistributionHandler distributionHandler;
+    private FlushStatsHandler flushStatsHandler;
 
     public NettyRemotingServer(final NettyServerConfig nettyServerConfig) {
         this(nettyServerConfig, null);
@@ -279,6 +282,7 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
      * @return the initialized ChannelPipeline, sub class can use it to extent in the future
      */
     protected ChannelPipeline configChannel(SocketChannel ch) {
+        configWriteHandlers(ch.pipeline());
         return ch.pipeline()
                 .addLast(defaultEventExecutorGroup, HANDSHAKE_HANDLER_NAME, new HandshakeHandler())
                 .addLast(defaultEventExecutorGroup,
@@ -292,6 +296,23 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
                 );
     }
 
+    /**
+     * Handlers at the head of the pipeline, running on the event loop so that flushes can be consolidated per
+     * event loop iteration and counted right before they reach the socket. Nothing is added unless flush
+     * consolidation or flush stats are enabled.
+     *
+     * @param pipeline the pipeline of the accepted channel
+     */
+    protected void configWriteHandlers(ChannelPipeline pipeline) {
+        if (nettyServerConfig.isEnableFlushConsolidation()) {
+            pipeline.addFirst(FLUSH_CONSOLIDATION_HANDLER_NAME,
+                new FlushConsolidationHandler(nettyServerConfig.getFlushConsolidationExplicitFlushAfterFlushes(), true));
+        }
+        if (nettyServerConfig.isEnableFlushConsolidation() || nettyServerConfig.isEnableFlushStats()) {
+            pipeline.addFirst(FlushStatsHandler.FLUSH_STATS_HANDLER_NAME, flushStatsHandler);
+        }
+    }
+
     private void addCustomConfig(ServerBootstrap childHandler) {
         if (nettyServerConfig.getServerSocketSndBufSize() > 0) {
             log.info("server set SO_SNDBUF to {}", nettyServerConfig.getServerSocketSndBufSize());
@@ -427,6 +448,7 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
         connectionManageHandler = new NettyConnectManageHandler();
         serverHandler = new NettyServerHandler();
         distributionHandler = new RemotingCodeDistributionHandler();
+        flushStatsHandler = new FlushStatsHandler();
     }
 
     private void printRemotingCodeDistribution() {
@@ -50,6 +50,18 @@ public class NettyServerConfig implements Cloneable {
      */
     private boolean useEpollNativeSelector = false;
 
+    /**
+     * Consolidate flushes issued within one event loop iteration into a single write syscall,
+     * flushing explicitly once {@link #flushConsolidationExplicitFlushAfterFlushes} flushes have been pended.
+     */
+    private boolean enableFlushConsolidation = false;
+    private int flushConsolidationExplicitFlushAfterFlushes = 256;
+
+    /**
+     * Count the writes and flushes of each channel. It is always on once flush consolidation is enabled.
+     */
+    private boolean enableFlushStats = false;
+
     public String getBindAddress() {
         return bindAddress;
     }
@@ -154,6 +166,30 @@ public class NettyServerConfig implements Cloneable {
         this.useEpollNativeSelector = useEpollNativeSelector;
     }
 
+    public boolean isEnableFlushConsolidation() {
+        return enableFlushConsolidation;
+    }
+
+    public void setEnableFlushConsolidation(boolean enableFlushConsolidation) {
+        this.enableFlushConsolidation = enableFlushConsolidation;
+    }
+
+    public int getFlushConsolidationExplicitFlushAfterFlushes() {
+        return flushConsolidationExplicitFlushAfterFlushes;
+    }
+
+    public void setFlushConsolidationExplicitFlushAfterFlushes(int flushConsolidationExplicitFlushAfterFlushes) {
+        this.flushConsolidationExplicitFlushAfterFlushes = flushConsolidationExplicitFlushAfterFlushes;
+    }
+
+    public boolean isEnableFlushStats() {
+        return enableFlushStats;
+    }
+
+    public void setEnableFlushStats(boolean enableFlushStats) {
+        this.enableFlushStats = enableFlushStats;
+    }
+
     @Override
     public Object clone() throws CloneNotSupportedException {
         return (NettyServerConfig) super.clone();
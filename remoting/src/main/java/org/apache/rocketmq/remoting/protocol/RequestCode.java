@@ -92,6 +92,7 @@ public class RequestCode {
     public static final int BATCH_ACK_MESSAGE = 200151;
     public static final int PEEK_MESSAGE = 200052;
     public static final int CHANGE_MESSAGE_INVISIBLETIME = 200053;
+    public static final int BATCH_CHANGE_MESSAGE_INVISIBLETIME = 200153;
     public static final int NOTIFICATION = 200054;
     public static final int POLLING_INFO = 200055;
 
@@ -107,6 +108,16 @@ public class RequestCode {
     public static final int GET_ROUTEINFO_BY_TOPIC = 105;
 
     public static final int GET_BROKER_CLUSTER_INFO = 106;
+
+    /**
+     * get the routes of many topics, only the ones changed from the versions known by the client are answered
+     */
+    public static final int GET_ROUTEINFO_BY_TOPICS = 107;
+
+    /**
+     * notify the client subscribing route changes of the topics whose routes are changed
+     */
+    public static final int NOTIFY_TOPIC_ROUTE_CHANGED = 108;
     public static final int UPDATE_AND_CREATE_SUBSCRIPTIONGROUP = 200;
     public static final int GET_ALL_SUBSCRIPTIONGROUP_CONFIG = 201;
     public static final int GET_TOPIC_STATS_INFO = 202;
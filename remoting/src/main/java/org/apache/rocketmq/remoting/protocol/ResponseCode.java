@@ -90,6 +90,11 @@ public class ResponseCode extends RemotingSysResponseCode {
 
     public static final int FLOW_CONTROL = 215;
 
+    /**
+     * The acl session of the request is unknown or expired, the client retries the request signed in full
+     */
+    public static final int ACL_SESSION_EXPIRED = 216;
+
     public static final int NOT_LEADER_FOR_QUEUE = 501;
 
     public static final int ILLEGAL_OPERATION = 604;
@@ -44,7 +44,7 @@ public class RocketMQSerializable {
         }
     }
 
-    private static String readStr(ByteBuf buf, boolean useShortLength, int limit) throws RemotingCommandException {
+    public static String readStr(ByteBuf buf, boolean useShortLength, int limit) throws RemotingCommandException {
         int len = useShortLength ? buf.readShort() : buf.readInt();
         if (len == 0) {
             return null;
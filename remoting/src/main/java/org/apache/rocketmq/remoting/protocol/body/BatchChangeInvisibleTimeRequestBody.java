@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.protocol.body;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.rocketmq.remoting.protocol.RemotingSerializable;
+
+/**
+ * Change the invisible time of the messages popped from the same queue in one request.
+ */
+public class BatchChangeInvisibleTimeRequestBody extends RemotingSerializable {
+    private String consumerGroup;
+    private String topic;
+    private int queueId;
+    private List<ChangeInvisibleTimeEntry> entries = new ArrayList<>();
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public void setConsumerGroup(String consumerGroup) {
+        this.consumerGroup = consumerGroup;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public int getQueueId() {
+        return queueId;
+    }
+
+    public void setQueueId(int queueId) {
+        this.queueId = queueId;
+    }
+
+    public List<ChangeInvisibleTimeEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<ChangeInvisibleTimeEntry> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.protocol.body;
+
+import com.google.common.base.MoreObjects;
+
+public class ChangeInvisibleTimeEntry {
+    /**
+     * extra info of the receipt handle, startOffset popTime invisibleTime queueId ...
+     */
+    private String extraInfo;
+    private long offset;
+    private long invisibleTime;
+
+    public ChangeInvisibleTimeEntry() {
+    }
+
+    public ChangeInvisibleTimeEntry(String extraInfo, long offset, long invisibleTime) {
+        this.extraInfo = extraInfo;
+        this.offset = offset;
+        this.invisibleTime = invisibleTime;
+    }
+
+    public String getExtraInfo() {
+        return extraInfo;
+    }
+
+    public void setExtraInfo(String extraInfo) {
+        this.extraInfo = extraInfo;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getInvisibleTime() {
+        return invisibleTime;
+    }
+
+    public void setInvisibleTime(long invisibleTime) {
+        this.invisibleTime = invisibleTime;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("extraInfo", extraInfo)
+            .add("offset", offset)
+            .add("invisibleTime", invisibleTime)
+            .toString();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.protocol.body;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.rocketmq.remoting.protocol.RemotingSerializable;
+
+public class GetRouteInfoByTopicsRequestBody extends RemotingSerializable {
+
+    private Set<String> topics = new HashSet<>();
+
+    /**
+     * Route versions already known by the client, the unchanged routes are not answered
+     */
+    private Map<String, Long> topicVersionTable = new HashMap<>();
+
+    public Set<String> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(Set<String> topics) {
+        this.topics = topics;
+    }
+
+    public Map<String, Long> getTopicVersionTable() {
+        return topicVersionTable;
+    }
+
+    public void setTopicVersionTable(Map<String, Long> topicVersionTable) {
+        this.topicVersionTable = topicVersionTable;
+    }
+}
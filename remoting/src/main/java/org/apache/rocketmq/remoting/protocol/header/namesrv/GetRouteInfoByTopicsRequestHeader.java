@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.protocol.header.namesrv;
+
+import org.apache.rocketmq.remoting.CommandCustomHeader;
+import org.apache.rocketmq.remoting.annotation.CFNullable;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+
+public class GetRouteInfoByTopicsRequestHeader implements CommandCustomHeader {
+
+    @CFNullable
+    private Boolean acceptStandardJsonOnly;
+
+    /**
+     * Replace the topics whose route changes are notified to this channel with the requested ones
+     */
+    @CFNullable
+    private Boolean subscribeRouteChange;
+
+    @Override
+    public void checkFields() throws RemotingCommandException {
+    }
+
+    public Boolean getAcceptStandardJsonOnly() {
+        return acceptStandardJsonOnly;
+    }
+
+    public void setAcceptStandardJsonOnly(Boolean acceptStandardJsonOnly) {
+        this.acceptStandardJsonOnly = acceptStandardJsonOnly;
+    }
+
+    public Boolean getSubscribeRouteChange() {
+        return subscribeRouteChange;
+    }
+
+    public void setSubscribeRouteChange(Boolean subscribeRouteChange) {
+        this.subscribeRouteChange = subscribeRouteChange;
+    }
+}
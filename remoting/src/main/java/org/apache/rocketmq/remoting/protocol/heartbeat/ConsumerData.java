@@ -20,18 +20,39 @@
  */
 package org.apache.rocketmq.remoting.protocol.heartbeat;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
 
 public class ConsumerData {
 
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<SubscriptionData> SUBSCRIPTION_ORDER =
+        Comparator.comparing(SubscriptionData::getTopic, NULLS_FIRST)
+            .thenComparing(SubscriptionData::getExpressionType, NULLS_FIRST)
+            .thenComparing(SubscriptionData::getSubString, NULLS_FIRST)
+            .thenComparingLong(SubscriptionData::getSubVersion);
+
     private String groupName;
     private ConsumeType consumeType;
     private MessageModel messageModel;
     private ConsumeFromWhere consumeFromWhere;
     private Set<SubscriptionData> subscriptionDataSet = new HashSet<>();
     private boolean unitMode;
+    /**
+     * Fingerprint of the subscriptions, 0 if not computed
+     */
+    private long subscriptionFingerprint;
+    /**
+     * The subscriptions are not carried since the broker knows them by the fingerprint
+     */
+    private boolean withoutSub;
 
     public String getGroupName() {
         return groupName;
@@ -81,6 +102,49 @@ public class ConsumerData {
         this.unitMode = isUnitMode;
     }
 
+    public long getSubscriptionFingerprint() {
+        return subscriptionFingerprint;
+    }
+
+    public void setSubscriptionFingerprint(long subscriptionFingerprint) {
+        this.subscriptionFingerprint = subscriptionFingerprint;
+    }
+
+    public boolean isWithoutSub() {
+        return withoutSub;
+    }
+
+    public void setWithoutSub(boolean withoutSub) {
+        this.withoutSub = withoutSub;
+    }
+
+    /**
+     * SHA-256 over the topic, expression type and sub string of the subscriptions in a stable order, so that the broker
+     * could tell a changed subscription by the fingerprint alone. The sub version is left out like in
+     * {@link SubscriptionData#hashCode()}, the clients of a group subscribing the same expressions share the
+     * fingerprint. It never returns 0.
+     */
+    public long computeSubscriptionFingerprint() {
+        List<SubscriptionData> subscriptionDataList = new ArrayList<>(subscriptionDataSet);
+        subscriptionDataList.sort(SUBSCRIPTION_ORDER);
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (SubscriptionData subscriptionData : subscriptionDataList) {
+            putString(hasher, subscriptionData.getTopic());
+            putString(hasher, subscriptionData.getExpressionType());
+            putString(hasher, subscriptionData.getSubString());
+        }
+        long fingerprint = hasher.hash().asLong();
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+
     @Override
     public String toString() {
         return "ConsumerData [groupName=" + groupName + ", consumeType=" + consumeType + ", messageModel="
@@ -23,9 +23,18 @@ package org.apache.rocketmq.remoting.protocol.heartbeat;
 import java.util.HashSet;
 import java.util.Set;
 import com.alibaba.fastjson.JSON;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
 import org.apache.rocketmq.remoting.protocol.RemotingSerializable;
+import org.apache.rocketmq.remoting.protocol.RocketMQSerializable;
 
 public class HeartbeatData extends RemotingSerializable {
+    private static final byte COMPACT_VERSION = 2;
+    private static final int STR_LIMIT = Short.MAX_VALUE;
 
     private String clientID;
     private Set<ProducerData> producerDataSet = new HashSet<>();
@@ -92,4 +101,132 @@ public class HeartbeatData extends RemotingSerializable {
         return JSON.toJSONString(heartbeatDataCopy).hashCode();
     }
 
+    /**
+     * Decode the heartbeat request, the body is either JSON or encoded by {@link #encodeCompact()}.
+     */
+    public static HeartbeatData decodeRequest(RemotingCommand request) throws RemotingCommandException {
+        if (request.getExtFields() != null && Boolean.parseBoolean(request.getExtFields().get(MixAll.HEART_BEAT_COMPACT))) {
+            return decodeCompact(request.getBody());
+        }
+        return decode(request.getBody(), HeartbeatData.class);
+    }
+
+    /**
+     * Binary encoding which costs much less than JSON to decode, the subscriptions of the consumer data
+     * without sub are not carried.
+     */
+    public byte[] encodeCompact() {
+        ByteBuf buf = Unpooled.buffer(256);
+        buf.writeByte(COMPACT_VERSION);
+        writeStr(buf, clientID);
+        buf.writeInt(heartbeatFingerprint);
+        buf.writeBoolean(isWithoutSub);
+        buf.writeShort(producerDataSet.size());
+        for (ProducerData producerData : producerDataSet) {
+            writeStr(buf, producerData.getGroupName());
+        }
+        buf.writeShort(consumerDataSet.size());
+        for (ConsumerData consumerData : consumerDataSet) {
+            writeStr(buf, consumerData.getGroupName());
+            buf.writeByte(consumerData.getConsumeType() != null ? consumerData.getConsumeType().ordinal() : -1);
+            buf.writeByte(consumerData.getMessageModel() != null ? consumerData.getMessageModel().ordinal() : -1);
+            buf.writeByte(consumerData.getConsumeFromWhere() != null ? consumerData.getConsumeFromWhere().ordinal() : -1);
+            buf.writeBoolean(consumerData.isUnitMode());
+            buf.writeLong(consumerData.getSubscriptionFingerprint());
+            buf.writeBoolean(consumerData.isWithoutSub());
+            if (consumerData.isWithoutSub()) {
+                continue;
+            }
+            buf.writeShort(consumerData.getSubscriptionDataSet().size());
+            for (SubscriptionData subscriptionData : consumerData.getSubscriptionDataSet()) {
+                writeStr(buf, subscriptionData.getTopic());
+                writeStr(buf, subscriptionData.getSubString());
+                writeStr(buf, subscriptionData.getExpressionType());
+                buf.writeLong(subscriptionData.getSubVersion());
+                buf.writeBoolean(subscriptionData.isClassFilterMode());
+                buf.writeShort(subscriptionData.getTagsSet().size());
+                for (String tag : subscriptionData.getTagsSet()) {
+                    writeStr(buf, tag);
+                }
+                buf.writeShort(subscriptionData.getCodeSet().size());
+                for (Integer code : subscriptionData.getCodeSet()) {
+                    buf.writeInt(code);
+                }
+            }
+        }
+        byte[] data = new byte[buf.readableBytes()];
+        buf.readBytes(data);
+        return data;
+    }
+
+    public static HeartbeatData decodeCompact(byte[] data) throws RemotingCommandException {
+        ByteBuf buf = Unpooled.wrappedBuffer(data);
+        try {
+            byte version = buf.readByte();
+            if (version != COMPACT_VERSION) {
+                throw new RemotingCommandException("unknown compact heartbeat version " + version);
+            }
+            HeartbeatData heartbeatData = new HeartbeatData();
+            heartbeatData.setClientID(readStr(buf));
+            heartbeatData.setHeartbeatFingerprint(buf.readInt());
+            heartbeatData.setWithoutSub(buf.readBoolean());
+            int producerNum = buf.readUnsignedShort();
+            for (int i = 0; i < producerNum; i++) {
+                ProducerData producerData = new ProducerData();
+                producerData.setGroupName(readStr(buf));
+                heartbeatData.getProducerDataSet().add(producerData);
+            }
+            int consumerNum = buf.readUnsignedShort();
+            for (int i = 0; i < consumerNum; i++) {
+                ConsumerData consumerData = new ConsumerData();
+                consumerData.setGroupName(readStr(buf));
+                byte consumeType = buf.readByte();
+                consumerData.setConsumeType(consumeType >= 0 ? ConsumeType.values()[consumeType] : null);
+                byte messageModel = buf.readByte();
+                consumerData.setMessageModel(messageModel >= 0 ? MessageModel.values()[messageModel] : null);
+                byte consumeFromWhere = buf.readByte();
+                consumerData.setConsumeFromWhere(consumeFromWhere >= 0 ? ConsumeFromWhere.values()[consumeFromWhere] : null);
+                consumerData.setUnitMode(buf.readBoolean());
+                consumerData.setSubscriptionFingerprint(buf.readLong());
+                consumerData.setWithoutSub(buf.readBoolean());
+                heartbeatData.getConsumerDataSet().add(consumerData);
+                if (consumerData.isWithoutSub()) {
+                    continue;
+                }
+                int subNum = buf.readUnsignedShort();
+                for (int j = 0; j < subNum; j++) {
+                    SubscriptionData subscriptionData = new SubscriptionData();
+                    subscriptionData.setTopic(readStr(buf));
+                    subscriptionData.setSubString(readStr(buf));
+                    subscriptionData.setExpressionType(readStr(buf));
+                    subscriptionData.setSubVersion(buf.readLong());
+                    subscriptionData.setClassFilterMode(buf.readBoolean());
+                    int tagNum = buf.readUnsignedShort();
+                    for (int k = 0; k < tagNum; k++) {
+                        subscriptionData.getTagsSet().add(readStr(buf));
+                    }
+                    int codeNum = buf.readUnsignedShort();
+                    for (int k = 0; k < codeNum; k++) {
+                        subscriptionData.getCodeSet().add(buf.readInt());
+                    }
+                    consumerData.getSubscriptionDataSet().add(subscriptionData);
+                }
+            }
+            return heartbeatData;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new RemotingCommandException("decode compact heartbeat failed", e);
+        }
+    }
+
+    private static void writeStr(ByteBuf buf, String str) {
+        if (str == null) {
+            buf.writeShort(0);
+            return;
+        }
+        RocketMQSerializable.writeStr(buf, true, str);
+    }
+
+    private static String readStr(ByteBuf buf) throws RemotingCommandException {
+        return RocketMQSerializable.readStr(buf, true, STR_LIMIT);
+    }
 }
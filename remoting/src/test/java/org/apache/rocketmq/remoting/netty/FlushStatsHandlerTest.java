@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.remoting.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.concurrent.Executors;
+import org.apache.rocketmq.remoting.metrics.RemotingMetricsManager;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlushStatsHandlerTest {
+    private NettyRemotingServer remotingServer;
+    private NettyRemotingClient remotingClient;
+    private volatile Channel serverChannel;
+
+    @Before
+    public void setUp() {
+        NettyServerConfig serverConfig = new NettyServerConfig();
+        serverConfig.setEnableFlushConsolidation(true);
+        remotingServer = new NettyRemotingServer(serverConfig);
+        remotingServer.registerProcessor(0, new NettyRequestProcessor() {
+            @Override
+            public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request) {
+                serverChannel = ctx.channel();
+                return RemotingCommand.createResponseCommand(0, null);
+            }
+
+            @Override
+            public boolean rejectRequest() {
+                return false;
+            }
+        }, Executors.newCachedThreadPool());
+        remotingServer.start();
+
+        NettyClientConfig clientConfig = new NettyClientConfig();
+        clientConfig.setEnableFlushConsolidation(true);
+        remotingClient = new NettyRemotingClient(clientConfig);
+        remotingClient.start();
+    }
+
+    @After
+    public void tearDown() {
+        remotingClient.shutdown();
+        remotingServer.shutdown();
+    }
+
+    @Test
+    public void testInvokeWithFlushConsolidation() throws Exception {
+        long writesBefore = RemotingMetricsManager.CHANNEL_WRITE_COUNT.sum();
+        long flushesBefore = RemotingMetricsManager.CHANNEL_FLUSH_COUNT.sum();
+        String addr = "127.0.0.1:" + remotingServer.localListenPort();
+        for (int i = 0; i < 10; i++) {
+            RemotingCommand response = remotingClient.invokeSync(addr, RemotingCommand.createRequestCommand(0, null), 3000);
+            assertThat(response.getCode()).isEqualTo(0);
+        }
+
+        long writes = RemotingMetricsManager.CHANNEL_WRITE_COUNT.sum() - writesBefore;
+        long flushes = RemotingMetricsManager.CHANNEL_FLUSH_COUNT.sum() - flushesBefore;
+        assertThat(writes).isGreaterThanOrEqualTo(20);
+        assertThat(flushes).isPositive().isLessThanOrEqualTo(writes);
+
+        FlushStatsHandler.ChannelWriteStats serverStats = RemotingMetricsManager.getChannelWriteStats(serverChannel);
+        assertThat(serverStats).isNotNull();
+        assertThat(serverStats.getWriteCount()).isGreaterThanOrEqualTo(9);
+        assertThat(serverStats.getFlushCount()).isLessThanOrEqualTo(serverStats.getWriteCount());
+    }
+
+    @Test
+    public void testNoStatsHandlerByDefault() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        new NettyRemotingServer(new NettyServerConfig()).configWriteHandlers(channel.pipeline());
+        assertThat(channel.pipeline().get(FlushStatsHandler.FLUSH_STATS_HANDLER_NAME)).isNull();
+
+        channel = new EmbeddedChannel();
+        remotingServer.configWriteHandlers(channel.pipeline());
+        assertThat(channel.pipeline().get(FlushStatsHandler.FLUSH_STATS_HANDLER_NAME)).isNotNull();
+    }
+}
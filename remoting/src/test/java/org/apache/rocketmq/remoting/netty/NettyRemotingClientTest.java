@@ -36,6 +36,7 @@ import org.apache.rocketmq.remoting.protocol.RequestCode;
 import org.apache.rocketmq.remoting.protocol.ResponseCode;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -290,4 +291,34 @@ public class NettyRemotingClientTest {
         verify(rpcHookMock).doBeforeRequest(anyString(), eq(request));
         verify(rpcHookMock, never()).doAfterResponse(anyString(), eq(request), any());
     }
+
+    @Test
+    public void testInvokeImplRetryOnAclSessionExpired() throws ExecutionException, InterruptedException {
+        remotingClient.registerRPCHook(rpcHookMock);
+        Channel channel = new LocalChannel();
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.PULL_MESSAGE, null);
+        request.addExtField("SessionId", "session");
+        RemotingCommand expiredResponse = RemotingCommand.createResponseCommand(ResponseCode.ACL_SESSION_EXPIRED, null);
+        RemotingCommand response = RemotingCommand.createResponseCommand(ResponseCode.SUCCESS, null);
+        ResponseFuture expiredFuture = new ResponseFuture(channel, request.getOpaque(), request, 1000, null, null);
+        expiredFuture.setResponseCommand(expiredResponse);
+        ResponseFuture responseFuture = new ResponseFuture(channel, request.getOpaque(), request, 1000, null, null);
+        responseFuture.setResponseCommand(response);
+
+        doReturn(CompletableFuture.completedFuture(expiredFuture), CompletableFuture.completedFuture(responseFuture))
+            .when(remotingClient).invoke0(any(Channel.class), any(RemotingCommand.class), anyLong());
+
+        CompletableFuture<ResponseFuture> future = remotingClient.invokeImpl(channel, request, 1000);
+        assertThat(future.get()).isEqualTo(responseFuture);
+
+        // the hooks see the expired response first, then sign the retried copy of the request again
+        ArgumentCaptor<RemotingCommand> captor = ArgumentCaptor.forClass(RemotingCommand.class);
+        verify(rpcHookMock).doAfterResponse(anyString(), eq(request), eq(expiredResponse));
+        verify(rpcHookMock, times(2)).doBeforeRequest(anyString(), captor.capture());
+        RemotingCommand retryRequest = captor.getAllValues().get(1);
+        assertThat(retryRequest).isNotSameAs(request);
+        assertThat(retryRequest.getCode()).isEqualTo(RequestCode.PULL_MESSAGE);
+        assertThat(retryRequest.getExtFields()).containsEntry("SessionId", "session");
+        verify(rpcHookMock).doAfterResponse(anyString(), eq(retryRequest), eq(response));
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.remoting.protocol.heartbeat;
+
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.common.filter.ExpressionType;
+import org.apache.rocketmq.remoting.exception.RemotingCommandException;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+import org.apache.rocketmq.remoting.protocol.RequestCode;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HeartbeatDataTest {
+
+    @Test
+    public void testCompactRoundTrip() throws RemotingCommandException {
+        HeartbeatData heartbeatData = new HeartbeatData();
+        heartbeatData.setClientID("127.0.0.1@1");
+        heartbeatData.setHeartbeatFingerprint(42);
+        ProducerData producerData = new ProducerData();
+        producerData.setGroupName("producerGroup");
+        heartbeatData.getProducerDataSet().add(producerData);
+
+        ConsumerData consumerData = new ConsumerData();
+        consumerData.setGroupName("consumerGroup");
+        consumerData.setConsumeType(ConsumeType.CONSUME_PASSIVELY);
+        consumerData.setMessageModel(MessageModel.CLUSTERING);
+        consumerData.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+        SubscriptionData subscriptionData = new SubscriptionData("topicA", "tagA || tagB");
+        subscriptionData.setExpressionType(ExpressionType.TAG);
+        subscriptionData.getTagsSet().add("tagA");
+        subscriptionData.getTagsSet().add("tagB");
+        subscriptionData.getCodeSet().add("tagA".hashCode());
+        subscriptionData.getCodeSet().add("tagB".hashCode());
+        consumerData.getSubscriptionDataSet().add(subscriptionData);
+        consumerData.setSubscriptionFingerprint(consumerData.computeSubscriptionFingerprint());
+        heartbeatData.getConsumerDataSet().add(consumerData);
+
+        ConsumerData withoutSub = new ConsumerData();
+        withoutSub.setGroupName("consumerGroupWithoutSub");
+        withoutSub.setSubscriptionFingerprint(7);
+        withoutSub.setWithoutSub(true);
+        heartbeatData.getConsumerDataSet().add(withoutSub);
+
+        HeartbeatData decoded = HeartbeatData.decodeCompact(heartbeatData.encodeCompact());
+        assertThat(decoded.getClientID()).isEqualTo(heartbeatData.getClientID());
+        assertThat(decoded.getHeartbeatFingerprint()).isEqualTo(42);
+        assertThat(decoded.getProducerDataSet()).hasSize(1);
+        assertThat(decoded.getProducerDataSet().iterator().next().getGroupName()).isEqualTo("producerGroup");
+        assertThat(decoded.getConsumerDataSet()).hasSize(2);
+        for (ConsumerData data : decoded.getConsumerDataSet()) {
+            if (data.isWithoutSub()) {
+                assertThat(data.getGroupName()).isEqualTo("consumerGroupWithoutSub");
+                assertThat(data.getSubscriptionFingerprint()).isEqualTo(7);
+                assertThat(data.getConsumeType()).isNull();
+                assertThat(data.getSubscriptionDataSet()).isEmpty();
+            } else {
+                assertThat(data.getGroupName()).isEqualTo("consumerGroup");
+                assertThat(data.getConsumeType()).isEqualTo(ConsumeType.CONSUME_PASSIVELY);
+                assertThat(data.getMessageModel()).isEqualTo(MessageModel.CLUSTERING);
+                assertThat(data.getConsumeFromWhere()).isEqualTo(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+                assertThat(data.getSubscriptionDataSet()).containsExactly(subscriptionData);
+                SubscriptionData decodedSub = data.getSubscriptionDataSet().iterator().next();
+                assertThat(decodedSub.getSubVersion()).isEqualTo(subscriptionData.getSubVersion());
+                assertThat(decodedSub.getCodeSet()).isEqualTo(subscriptionData.getCodeSet());
+                assertThat(data.getSubscriptionFingerprint()).isEqualTo(data.computeSubscriptionFingerprint());
+            }
+        }
+    }
+
+    @Test
+    public void testSubscriptionFingerprint() {
+        ConsumerData consumerData = new ConsumerData();
+        SubscriptionData subscriptionA = new SubscriptionData("topicA", "tagA");
+        SubscriptionData subscriptionB = new SubscriptionData("topicB", "tagB");
+        consumerData.getSubscriptionDataSet().add(subscriptionA);
+        consumerData.getSubscriptionDataSet().add(subscriptionB);
+        long fingerprint = consumerData.computeSubscriptionFingerprint();
+        assertThat(fingerprint).isNotEqualTo(0);
+
+        ConsumerData sameData = new ConsumerData();
+        sameData.getSubscriptionDataSet().add(subscriptionB);
+        sameData.getSubscriptionDataSet().add(subscriptionA);
+        assertThat(sameData.computeSubscriptionFingerprint()).isEqualTo(fingerprint);
+
+        // the expressions swapped between the topics
+        ConsumerData swappedData = new ConsumerData();
+        SubscriptionData swappedA = new SubscriptionData("topicA", "tagB");
+        SubscriptionData swappedB = new SubscriptionData("topicB", "tagA");
+        swappedData.getSubscriptionDataSet().add(swappedA);
+        swappedData.getSubscriptionDataSet().add(swappedB);
+        assertThat(swappedData.computeSubscriptionFingerprint()).isNotEqualTo(fingerprint);
+
+        // the clients of a group subscribe at different times
+        subscriptionA.setSubVersion(subscriptionA.getSubVersion() + 1);
+        assertThat(consumerData.computeSubscriptionFingerprint()).isEqualTo(fingerprint);
+    }
+
+    @Test
+    public void testDecodeRequest() throws RemotingCommandException {
+        HeartbeatData heartbeatData = new HeartbeatData();
+        heartbeatData.setClientID("127.0.0.1@1");
+
+        RemotingCommand request = RemotingCommand.createRequestCommand(RequestCode.HEART_BEAT, null);
+        request.setBody(heartbeatData.encode());
+        assertThat(HeartbeatData.decodeRequest(request).getClientID()).isEqualTo("127.0.0.1@1");
+
+        request = RemotingCommand.createRequestCommand(RequestCode.HEART_BEAT, null);
+        request.addExtField(MixAll.HEART_BEAT_COMPACT, Boolean.TRUE.toString());
+        request.setBody(heartbeatData.encodeCompact());
+        assertThat(HeartbeatData.decodeRequest(request).getClientID()).isEqualTo("127.0.0.1@1");
+    }
+
+    @Test
+    public void testDecodeCompactMalformed() {
+        assertThatThrownBy(() -> HeartbeatData.decodeCompact(new byte[] {2, 0, 100}))
+            .isInstanceOf(RemotingCommandException.class);
+    }
+}
@@ -29,6 +29,8 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
@@ -39,6 +41,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.ServiceThread;
 import org.apache.rocketmq.common.SystemClock;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.common.TopicConfig;
 import org.apache.rocketmq.common.UtilAll;
 import org.apache.rocketmq.common.attribute.CQType;
@@ -52,6 +55,7 @@ import org.apache.rocketmq.common.message.MessageVersion;
 import org.apache.rocketmq.common.sysflag.MessageSysFlag;
 import org.apache.rocketmq.common.topic.TopicValidator;
 import org.apache.rocketmq.common.utils.QueueTypeUtils;
+import org.apache.rocketmq.common.utils.ThreadUtils;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 import org.apache.rocketmq.store.MessageExtEncoder.PutMessageThreadLocal;
@@ -60,6 +64,7 @@ import org.apache.rocketmq.store.config.FlushDiskType;
 import org.apache.rocketmq.store.config.MessageStoreConfig;
 import org.apache.rocketmq.store.ha.HAService;
 import org.apache.rocketmq.store.ha.autoswitch.AutoSwitchHAService;
+import org.apache.rocketmq.store.logfile.DefaultMappedFile;
 import org.apache.rocketmq.store.logfile.MappedFile;
 import org.apache.rocketmq.store.util.LibC;
 import org.rocksdb.RocksDBException;
@@ -695,16 +700,26 @@ public class CommitLog implements Swappable {
         // recover by the minimum time stamp
         boolean checkCRCOnRecover = this.defaultMessageStore.getMessageStoreConfig().isCheckCRCOnRecover();
         boolean checkDupInfo = this.defaultMessageStore.getMessageStoreConfig().isDuplicationEnable();
+        boolean recoverConcurrently = this.defaultMessageStore.getMessageStoreConfig().isEnableRecoverCommitLogConcurrently();
         final List<MappedFile> mappedFiles = this.mappedFileQueue.getMappedFiles();
         if (!mappedFiles.isEmpty()) {
             // Looking beginning to recover from which file
             int index = mappedFiles.size() - 1;
+            int startPosition = 0;
             MappedFile mappedFile = null;
-            for (; index >= 0; index--) {
-                mappedFile = mappedFiles.get(index);
-                if (this.isMappedFileMatchedRecover(mappedFile)) {
-                    log.info("recover from this mapped file " + mappedFile.getFileName());
-                    break;
+            long checkpointOffset = recoverConcurrently ? this.getRecoverCheckpointOffset(mappedFiles) : -1;
+            if (checkpointOffset >= 0) {
+                mappedFile = this.mappedFileQueue.findMappedFileByOffset(checkpointOffset, false);
+                index = mappedFiles.indexOf(mappedFile);
+                startPosition = (int) (checkpointOffset - mappedFile.getFileFromOffset());
+                log.info("recover from checkpoint offset {} in mapped file {}", checkpointOffset, mappedFile.getFileName());
+            } else {
+                for (; index >= 0; index--) {
+                    mappedFile = mappedFiles.get(index);
+                    if (this.isMappedFileMatchedRecover(mappedFile)) {
+                        log.info("recover from this mapped file " + mappedFile.getFileName());
+                        break;
+                    }
                 }
             }
 
@@ -713,66 +728,72 @@ public class CommitLog implements Swappable {
                 mappedFile = mappedFiles.get(index);
             }
 
-            ByteBuffer byteBuffer = mappedFile.sliceByteBuffer();
-            long processOffset = mappedFile.getFileFromOffset();
-            long mappedFileOffset = 0;
-            long lastValidMsgPhyOffset = processOffset;
-            long lastConfirmValidMsgPhyOffset = processOffset;
-            // abnormal recover require dispatching
-            boolean doDispatch = true;
-            while (true) {
-                DispatchRequest dispatchRequest = this.checkMessageAndReturnSize(byteBuffer, checkCRCOnRecover, checkDupInfo);
-                int size = dispatchRequest.getMsgSize();
-
-                if (dispatchRequest.isSuccess()) {
-                    // Normal data
-                    if (size > 0) {
-                        lastValidMsgPhyOffset = processOffset + mappedFileOffset;
-                        mappedFileOffset += size;
-
-                        if (this.defaultMessageStore.getMessageStoreConfig().isDuplicationEnable() || this.defaultMessageStore.getBrokerConfig().isEnableControllerMode()) {
-                            if (dispatchRequest.getCommitLogOffset() + size <= this.defaultMessageStore.getCommitLog().getConfirmOffset()) {
-                                this.getMessageStore().onCommitLogDispatch(dispatchRequest, doDispatch, mappedFile, true, false);
+            long processOffset;
+            long lastValidMsgPhyOffset;
+            long lastConfirmValidMsgPhyOffset;
+            if (recoverConcurrently) {
+                long[] recoverResult = this.recoverAbnormallyConcurrently(mappedFiles, index, startPosition,
+                    checkCRCOnRecover, checkDupInfo);
+                processOffset = recoverResult[0];
+                lastValidMsgPhyOffset = recoverResult[1];
+                lastConfirmValidMsgPhyOffset = recoverResult[2];
+            } else {
+                ByteBuffer byteBuffer = mappedFile.sliceByteBuffer();
+                processOffset = mappedFile.getFileFromOffset();
+                long mappedFileOffset = 0;
+                lastValidMsgPhyOffset = processOffset;
+                lastConfirmValidMsgPhyOffset = processOffset;
+                // abnormal recover require dispatching
+                boolean doDispatch = true;
+                while (true) {
+                    DispatchRequest dispatchRequest = this.checkMessageAndReturnSize(byteBuffer, checkCRCOnRecover, checkDupInfo);
+                    int size = dispatchRequest.getMsgSize();
+
+                    if (dispatchRequest.isSuccess()) {
+                        // Normal data
+                        if (size > 0) {
+                            lastValidMsgPhyOffset = processOffset + mappedFileOffset;
+                            mappedFileOffset += size;
+
+                            if (this.dispatchOnRecoverAbnormally(dispatchRequest, mappedFile)) {
                                 lastConfirmValidMsgPhyOffset = dispatchRequest.getCommitLogOffset() + size;
                             }
-                        } else {
-                            this.getMessageStore().onCommitLogDispatch(dispatchRequest, doDispatch, mappedFile, true, false);
                         }
-                    }
-                    // Come the end of the file, switch to the next file
-                    // Since the return 0 representatives met last hole, this can
-                    // not be included in truncate offset
-                    else if (size == 0) {
-                        this.getMessageStore().onCommitLogDispatch(dispatchRequest, doDispatch, mappedFile, true, true);
-                        index++;
-                        if (index >= mappedFiles.size()) {
-                            // The current branch under normal circumstances should
-                            // not happen
-                            log.info("recover physics file over, last mapped file " + mappedFile.getFileName());
-                            break;
-                        } else {
-                            mappedFile = mappedFiles.get(index);
-                            byteBuffer = mappedFile.sliceByteBuffer();
-                            processOffset = mappedFile.getFileFromOffset();
-                            mappedFileOffset = 0;
-                            log.info("recover next physics file, " + mappedFile.getFileName());
+                        // Come the end of the file, switch to the next file
+                        // Since the return 0 representatives met last hole, this can
+                        // not be included in truncate offset
+                        else if (size == 0) {
+                            this.getMessageStore().onCommitLogDispatch(dispatchRequest, doDispatch, mappedFile, true, true);
+                            index++;
+                            if (index >= mappedFiles.size()) {
+                                // The current branch under normal circumstances should
+                                // not happen
+                                log.info("recover physics file over, last mapped file " + mappedFile.getFileName());
+                                break;
+                            } else {
+                                mappedFile = mappedFiles.get(index);
+                                byteBuffer = mappedFile.sliceByteBuffer();
+                                processOffset = mappedFile.getFileFromOffset();
+                                mappedFileOffset = 0;
+                                log.info("recover next physics file, " + mappedFile.getFileName());
+                            }
                         }
-                    }
-                } else {
+                    } else {
 
-                    if (size > 0) {
-                        log.warn("found a half message at {}, it will be truncated.", processOffset + mappedFileOffset);
-                    }
+                        if (size > 0) {
+                            log.warn("found a half message at {}, it will be truncated.", processOffset + mappedFileOffset);
+                        }
 
-                    log.info("recover physics file end, " + mappedFile.getFileName() + " pos=" + byteBuffer.position());
-                    break;
+                        log.info("recover physics file end, " + mappedFile.getFileName() + " pos=" + byteBuffer.position());
+                        break;
+                    }
                 }
+                processOffset += mappedFileOffset;
             }
 
             // only for rocksdb mode
             this.getMessageStore().finishCommitLogDispatch();
 
-            processOffset += mappedFileOffset;
             if (this.defaultMessageStore.getBrokerConfig().isEnableControllerMode()) {
                 if (this.defaultMessageStore.getConfirmOffset() < this.defaultMessageStore.getMinPhyOffset()) {
                     log.error("confirmOffset {} is less than minPhyOffset {}, correct confirmOffset to minPhyOffset", this.defaultMessageStore.getConfirmOffset(), this.defaultMessageStore.getMinPhyOffset());
@@ -794,6 +815,7 @@ public class CommitLog implements Swappable {
             this.mappedFileQueue.setFlushedWhere(processOffset);
             this.mappedFileQueue.setCommittedWhere(processOffset);
             this.mappedFileQueue.truncateDirtyFiles(processOffset);
+            this.defaultMessageStore.getStoreCheckpoint().truncatePhyOffset(processOffset);
         }
         // Commitlog case files are deleted
         else {
@@ -805,6 +827,173 @@ public class CommitLog implements Swappable {
         }
     }
 
+    /**
+     * @return true if the message is confirmed and has been dispatched
+     * @throws RocksDBException only in rocksdb mode
+     */
+    private boolean dispatchOnRecoverAbnormally(DispatchRequest dispatchRequest, MappedFile mappedFile) throws RocksDBException {
+        if (this.defaultMessageStore.getMessageStoreConfig().isDuplicationEnable() || this.defaultMessageStore.getBrokerConfig().isEnableControllerMode()) {
+            if (dispatchRequest.getCommitLogOffset() + dispatchRequest.getMsgSize() <= this.defaultMessageStore.getCommitLog().getConfirmOffset()) {
+                this.getMessageStore().onCommitLogDispatch(dispatchRequest, true, mappedFile, true, false);
+                return true;
+            }
+            return false;
+        }
+        this.getMessageStore().onCommitLogDispatch(dispatchRequest, true, mappedFile, true, false);
+        return false;
+    }
+
+    /**
+     * Find the offset recorded in the store checkpoint to start the abnormal recovery from, only if it still points at
+     * a message boundary of the current mapped files.
+     *
+     * @return the offset, or -1 if it is not usable and the recovery should fall back to matching the store timestamps
+     */
+    private long getRecoverCheckpointOffset(final List<MappedFile> mappedFiles) {
+        if (this.defaultMessageStore.getMessageStoreConfig().isEnableRocksDBStore()) {
+            return -1;
+        }
+        MessageStoreConfig messageStoreConfig = this.defaultMessageStore.getMessageStoreConfig();
+        boolean includeIndex = messageStoreConfig.isMessageIndexEnable() && messageStoreConfig.isMessageIndexSafe();
+        long checkpointOffset = this.defaultMessageStore.getStoreCheckpoint().getMinPhyOffset(includeIndex);
+        if (checkpointOffset < 0) {
+            return -1;
+        }
+
+        MappedFile firstMappedFile = mappedFiles.get(0);
+        if (checkpointOffset < firstMappedFile.getFileFromOffset()) {
+            log.info("checkpoint offset {} is less than the min offset of commitlog, recover from the first file", checkpointOffset);
+            return firstMappedFile.getFileFromOffset();
+        }
+
+        MappedFile mappedFile = this.mappedFileQueue.findMappedFileByOffset(checkpointOffset, false);
+        if (mappedFile == null) {
+            log.warn("checkpoint offset {} is out of the range of commitlog, ignore it", checkpointOffset);
+            return -1;
+        }
+        int position = (int) (checkpointOffset - mappedFile.getFileFromOffset());
+        if (position + 8 > mappedFile.getFileSize()) {
+            return -1;
+        }
+        int magicCode = mappedFile.sliceByteBuffer().getInt(position + 4);
+        if (magicCode != MessageDecoder.MESSAGE_MAGIC_CODE && magicCode != MessageDecoder.MESSAGE_MAGIC_CODE_V2
+            && magicCode != BLANK_MAGIC_CODE) {
+            log.warn("checkpoint offset {} is not at a message boundary, ignore it", checkpointOffset);
+            return -1;
+        }
+        return checkpointOffset;
+    }
+
+    /**
+     * Abnormal recovery in two overlapping phases. Every mapped file from {@code index} is validated (message
+     * boundaries, CRC, dup info) on its own by the recover thread pool, then the validated ranges are stitched together
+     * in commitlog order on the current thread, which dispatches them without checking them again. The dispatch of a
+     * file only waits for its own validation, so the check of later files runs behind it.
+     *
+     * @return processOffset, lastValidMsgPhyOffset and lastConfirmValidMsgPhyOffset
+     * @throws RocksDBException only in rocksdb mode
+     */
+    private long[] recoverAbnormallyConcurrently(final List<MappedFile> mappedFiles, final int index,
+        final int startPosition, final boolean checkCRC, final boolean checkDupInfo) throws RocksDBException {
+        long beginTime = System.currentTimeMillis();
+        int threadNum = Math.max(1, Math.min(this.defaultMessageStore.getMessageStoreConfig().getRecoverCommitLogThreadPoolNums(),
+            mappedFiles.size() - index));
+        ExecutorService recoverExecutor = ThreadUtils.newThreadPoolExecutor(threadNum,
+            new ThreadFactoryImpl("CommitLogRecoverThread_", this.defaultMessageStore.getBrokerIdentity()));
+        List<Future<Integer>> scanFutures = new ArrayList<>(mappedFiles.size() - index);
+        try {
+            for (int i = index; i < mappedFiles.size(); i++) {
+                final MappedFile mappedFile = mappedFiles.get(i);
+                final int position = i == index ? startPosition : 0;
+                scanFutures.add(recoverExecutor.submit(() -> this.scanMappedFileOnRecover(mappedFile, position, checkCRC, checkDupInfo)));
+            }
+
+            long processOffset = mappedFiles.get(index).getFileFromOffset() + startPosition;
+            long lastValidMsgPhyOffset = processOffset;
+            long lastConfirmValidMsgPhyOffset = processOffset;
+            for (int i = index; i < mappedFiles.size(); i++) {
+                MappedFile mappedFile = mappedFiles.get(i);
+                int validPosition = this.getScanResult(scanFutures.get(i - index), mappedFile);
+                boolean fileEnd = validPosition < 0;
+                if (fileEnd) {
+                    validPosition = -validPosition - 1;
+                }
+
+                ByteBuffer byteBuffer = mappedFile.sliceByteBuffer();
+                byteBuffer.position(i == index ? startPosition : 0);
+                while (byteBuffer.position() < validPosition) {
+                    long msgPhyOffset = mappedFile.getFileFromOffset() + byteBuffer.position();
+                    DispatchRequest dispatchRequest = this.checkMessageAndReturnSize(byteBuffer, false, false, false);
+                    if (!dispatchRequest.isSuccess() || dispatchRequest.getMsgSize() <= 0) {
+                        throw new IllegalStateException("validated message at " + msgPhyOffset + " can not be decoded again");
+                    }
+                    lastValidMsgPhyOffset = msgPhyOffset;
+                    if (this.dispatchOnRecoverAbnormally(dispatchRequest, mappedFile)) {
+                        lastConfirmValidMsgPhyOffset = dispatchRequest.getCommitLogOffset() + dispatchRequest.getMsgSize();
+                    }
+                }
+                processOffset = mappedFile.getFileFromOffset() + validPosition;
+
+                if (!fileEnd) {
+                    log.info("recover physics file end, " + mappedFile.getFileName() + " pos=" + validPosition);
+                    break;
+                }
+                this.getMessageStore().onCommitLogDispatch(new DispatchRequest(0, true), true, mappedFile, true, true);
+                if (i == mappedFiles.size() - 1) {
+                    log.info("recover physics file over, last mapped file " + mappedFile.getFileName());
+                }
+            }
+
+            log.info("recover commitlog concurrently from {} files with {} threads, cost {} ms", mappedFiles.size() - index,
+                threadNum, System.currentTimeMillis() - beginTime);
+            return new long[] {processOffset, lastValidMsgPhyOffset, lastConfirmValidMsgPhyOffset};
+        } finally {
+            for (Future<Integer> future : scanFutures) {
+                future.cancel(true);
+            }
+            recoverExecutor.shutdownNow();
+        }
+    }
+
+    private int getScanResult(Future<Integer> scanFuture, MappedFile mappedFile) {
+        try {
+            return scanFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while recovering " + mappedFile.getFileName(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to recover " + mappedFile.getFileName(), e.getCause());
+        }
+    }
+
+    /**
+     * Validate the messages of one mapped file from {@code position}.
+     *
+     * @return the position the valid messages end at, encoded as {@code -position - 1} if the file ends there with
+     * a blank, which means the recovery goes on with the next file
+     */
+    private int scanMappedFileOnRecover(final MappedFile mappedFile, final int position, final boolean checkCRC,
+        final boolean checkDupInfo) {
+        ByteBuffer byteBuffer = mappedFile.sliceByteBuffer();
+        byteBuffer.position(position);
+        int validPosition = position;
+        while (!Thread.currentThread().isInterrupted()) {
+            DispatchRequest dispatchRequest = this.checkMessageAndReturnSize(byteBuffer, checkCRC, checkDupInfo, checkCRC);
+            int size = dispatchRequest.getMsgSize();
+            if (dispatchRequest.isSuccess() && size > 0) {
+                validPosition += size;
+            } else if (dispatchRequest.isSuccess() && size == 0) {
+                return -validPosition - 1;
+            } else {
+                if (size > 0) {
+                    log.warn("found a half message at {}, it will be truncated.", mappedFile.getFileFromOffset() + validPosition);
+                }
+                break;
+            }
+        }
+        return validPosition;
+    }
+
     public void truncateDirtyFiles(long phyOffset) {
         if (phyOffset <= this.getFlushedWhere()) {
             this.mappedFileQueue.setFlushedWhere(phyOffset);
@@ -815,6 +1004,7 @@ public class CommitLog implements Swappable {
         }
 
         this.mappedFileQueue.truncateDirtyFiles(phyOffset);
+        this.defaultMessageStore.getStoreCheckpoint().truncatePhyOffset(phyOffset);
         if (this.confirmOffset > phyOffset) {
             this.setConfirmOffset(phyOffset);
         }
@@ -870,7 +1060,11 @@ public class CommitLog implements Swappable {
     }
 
     public boolean resetOffset(long offset) {
-        return this.mappedFileQueue.resetOffset(offset);
+        if (this.mappedFileQueue.resetOffset(offset)) {
+            this.defaultMessageStore.getStoreCheckpoint().truncatePhyOffset(offset);
+            return true;
+        }
+        return false;
     }
 
     public long getBeginTimeInLock() {
@@ -1358,6 +1552,22 @@ public class CommitLog implements Swappable {
         return null;
     }
 
+    /**
+     * Select the readable data of the commitlog file from the offset once, so that the messages of a pull could be
+     * sliced from it without holding the mapped file for each of them.
+     */
+    public SelectMappedBufferWindow getMessageWindow(final long offset) {
+        SelectMappedBufferResult result = getData(offset, offset == 0);
+        if (result == null) {
+            return null;
+        }
+        return new SelectMappedBufferWindow(result);
+    }
+
+    public boolean isDataInPageCache(final long offset) {
+        return coldDataCheckService.isDataInPageCache(offset);
+    }
+
     public long rollNextFile(final long offset) {
         int mappedFileSize = this.defaultMessageStore.getMessageStoreConfig().getMappedFileSizeCommitLog();
         return offset + mappedFileSize - offset % mappedFileSize;
@@ -1526,6 +1736,7 @@ public class CommitLog implements Swappable {
                     long storeTimestamp = CommitLog.this.mappedFileQueue.getStoreTimestamp();
                     if (storeTimestamp > 0) {
                         CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgTimestamp(storeTimestamp);
+                        CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgPhyOffset(CommitLog.this.mappedFileQueue.getFlushedWhere());
                     }
                     long past = System.currentTimeMillis() - begin;
                     CommitLog.this.getMessageStore().getPerfCounter().flowOnce("FLUSH_DATA_TIME_MS", (int) past);
@@ -1662,6 +1873,7 @@ public class CommitLog implements Swappable {
                 long storeTimestamp = CommitLog.this.mappedFileQueue.getStoreTimestamp();
                 if (storeTimestamp > 0) {
                     CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgTimestamp(storeTimestamp);
+                    CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgPhyOffset(CommitLog.this.mappedFileQueue.getFlushedWhere());
                 }
 
                 this.requestsRead = new LinkedList<>();
@@ -1774,6 +1986,7 @@ public class CommitLog implements Swappable {
                     long storeTimestamp = CommitLog.this.mappedFileQueue.getStoreTimestamp();
                     if (storeTimestamp > 0) {
                         CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgTimestamp(storeTimestamp);
+                        CommitLog.this.defaultMessageStore.getStoreCheckpoint().setPhysicMsgPhyOffset(CommitLog.this.mappedFileQueue.getFlushedWhere());
                     }
 
                     this.requestsRead.clear();
@@ -2444,6 +2657,43 @@ public class CommitLog implements Swappable {
         return madvise;
     }
 
+    /**
+     * Advise the os to read the commitlog range into page cache asynchronously, the range is truncated at the end of
+     * the mapped file it starts in.
+     *
+     * @return false if the advice is not given
+     */
+    public boolean adviseWillNeed(long offset, int size) {
+        if (MixAll.isWindows() || size <= 0) {
+            return false;
+        }
+        MappedFile mappedFile = mappedFileQueue.findMappedFileByOffset(offset, false);
+        if (null == mappedFile || !mappedFile.hold()) {
+            return false;
+        }
+        try {
+            int pos = (int) (offset - mappedFile.getFileFromOffset());
+            int alignedPos = pos - pos % DefaultMappedFile.OS_PAGE_SIZE;
+            int length = Math.min(pos + size, mappedFile.getFileSize()) - alignedPos;
+            if (length <= 0) {
+                return false;
+            }
+            final long address = ((DirectBuffer) mappedFile.getMappedByteBuffer()).address() + alignedPos;
+            int madvise = LibC.INSTANCE.madvise(new Pointer(address), new NativeLong(length), LibC.MADV_WILLNEED);
+            if (madvise != 0) {
+                log.warn("adviseWillNeed error fileName: {}, pos: {}, length: {}, madvise: {}",
+                    mappedFile.getFileName(), alignedPos, length, madvise);
+                return false;
+            }
+            return true;
+        } catch (Throwable e) {
+            log.warn("adviseWillNeed error, offset: {}, size: {}", offset, size, e);
+            return false;
+        } finally {
+            mappedFile.release();
+        }
+    }
+
     public ColdDataCheckService getColdDataCheckService() {
         return coldDataCheckService;
     }
@@ -21,9 +21,7 @@ import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.BoundaryType;
-import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.Pair;
 import org.apache.rocketmq.common.attribute.CQType;
 import org.apache.rocketmq.common.constant.LoggerName;
@@ -36,7 +34,9 @@ import org.apache.rocketmq.store.config.StorePathConfigHelper;
 import org.apache.rocketmq.store.logfile.MappedFile;
 import org.apache.rocketmq.store.queue.ConsumeQueueInterface;
 import org.apache.rocketmq.store.queue.CqUnit;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
 import org.apache.rocketmq.store.queue.FileQueueLifeCycle;
+import org.apache.rocketmq.store.queue.MultiDispatchTargets;
 import org.apache.rocketmq.store.queue.MultiDispatchUtils;
 import org.apache.rocketmq.store.queue.QueueOffsetOperator;
 import org.apache.rocketmq.store.queue.ReferredIterator;
@@ -76,6 +76,7 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
      */
     private volatile long minLogicOffset = 0;
     private ConsumeQueueExt consumeQueueExt = null;
+    private ConsumeQueueTimeIndex consumeQueueTimeIndex = null;
 
     public ConsumeQueue(
         final String topic,
@@ -107,6 +108,16 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
                 messageStore.getMessageStoreConfig().getBitMapLengthConsumeQueueExt()
             );
         }
+
+        if (messageStore.getMessageStoreConfig().isEnableConsumeQueueTimeIndex()) {
+            this.consumeQueueTimeIndex = new ConsumeQueueTimeIndex(
+                topic,
+                queueId,
+                StorePathConfigHelper.getStorePathConsumeQueueTimeIndex(messageStore.getMessageStoreConfig().getStorePathRootDir()),
+                mappedFileSize,
+                messageStore.getMessageStoreConfig().getConsumeQueueTimeIndexInterval()
+            );
+        }
     }
 
     @Override
@@ -116,6 +127,9 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             result &= this.consumeQueueExt.load();
         }
+        if (isTimeIndexEnable()) {
+            result &= this.consumeQueueTimeIndex.load();
+        }
         return result;
     }
 
@@ -186,6 +200,10 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
                 this.consumeQueueExt.truncateByMaxAddress(maxExtAddr);
             }
         }
+
+        if (isTimeIndexEnable()) {
+            this.consumeQueueTimeIndex.truncateByMaxCqOffset(getMaxOffsetInQueue());
+        }
     }
 
     @Override
@@ -194,6 +212,9 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             totalSize += this.consumeQueueExt.getTotalSize();
         }
+        if (isTimeIndexEnable()) {
+            totalSize += this.consumeQueueTimeIndex.getTotalSize();
+        }
         return totalSize;
     }
 
@@ -277,6 +298,21 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
                         }
                     }
 
+                    // Narrow the range by the sparse time index to save commit log reads
+                    if (isTimeIndexEnable()) {
+                        int[] bound = new int[2];
+                        this.consumeQueueTimeIndex.lookup(mappedFile.getFileFromOffset(), low / CQ_STORE_UNIT_SIZE,
+                            high / CQ_STORE_UNIT_SIZE, timestamp, bound);
+                        if (bound[0] >= 0) {
+                            leftOffset = bound[0] * CQ_STORE_UNIT_SIZE;
+                            low = leftOffset + CQ_STORE_UNIT_SIZE;
+                        }
+                        if (bound[1] >= 0) {
+                            rightOffset = bound[1] * CQ_STORE_UNIT_SIZE;
+                            high = rightOffset - CQ_STORE_UNIT_SIZE;
+                        }
+                    }
+
                     // Perform binary search
                     while (high >= low) {
                         midOffset = (low + high) / (2 * CQ_STORE_UNIT_SIZE) * CQ_STORE_UNIT_SIZE;
@@ -481,6 +517,10 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             this.consumeQueueExt.truncateByMaxAddress(maxExtAddr);
         }
+
+        if (isTimeIndexEnable()) {
+            this.consumeQueueTimeIndex.truncateByMaxCqOffset(getMaxOffsetInQueue());
+        }
     }
 
     @Override
@@ -520,6 +560,9 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             result = result & this.consumeQueueExt.flush(flushLeastPages);
         }
+        if (isTimeIndexEnable()) {
+            result = result & this.consumeQueueTimeIndex.flush(flushLeastPages);
+        }
 
         return result;
     }
@@ -528,6 +571,12 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
     public int deleteExpiredFile(long offset) {
         int cnt = this.mappedFileQueue.deleteExpiredFileByOffset(offset, CQ_STORE_UNIT_SIZE);
         this.correctMinOffset(offset);
+        if (isTimeIndexEnable()) {
+            MappedFile firstMappedFile = this.mappedFileQueue.getFirstMappedFile();
+            if (firstMappedFile != null) {
+                this.consumeQueueTimeIndex.truncateByMinCqFile(firstMappedFile.getFileFromOffset());
+            }
+        }
         return cnt;
     }
 
@@ -696,6 +745,9 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
             boolean result = this.putMessagePositionInfo(request.getCommitLogOffset(),
                 request.getMsgSize(), tagsCode, request.getConsumeQueueOffset());
             if (result) {
+                if (isTimeIndexEnable()) {
+                    this.consumeQueueTimeIndex.put(request.getConsumeQueueOffset(), request.getStoreTimestamp());
+                }
                 if (this.messageStore.getMessageStoreConfig().getBrokerRole() == BrokerRole.SLAVE ||
                     this.messageStore.getMessageStoreConfig().isEnableDLegerCommitLog()) {
                     this.messageStore.getStoreCheckpoint().setPhysicMsgTimestamp(request.getStoreTimestamp());
@@ -704,6 +756,8 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
                 if (MultiDispatchUtils.checkMultiDispatchQueue(this.messageStore.getMessageStoreConfig(), request)) {
                     multiDispatchLmqQueue(request, maxRetries);
                 }
+                // only after the lmq entries, so a flush never publishes an offset whose lmq entries are missing
+                this.messageStore.getStoreCheckpoint().setDispatchedLogicsMsgPhyOffset(request.getCommitLogOffset() + request.getMsgSize());
                 return;
             } else {
                 // XXX: warn and notify me
@@ -727,31 +781,30 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         Map<String, String> prop = request.getPropertiesMap();
         String multiDispatchQueue = prop.get(MessageConst.PROPERTY_INNER_MULTI_DISPATCH);
         String multiQueueOffset = prop.get(MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET);
-        String[] queues = multiDispatchQueue.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-        String[] queueOffsets = multiQueueOffset.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-        if (queues.length != queueOffsets.length) {
-            log.error("[bug] queues.length!=queueOffsets.length ", request.getTopic());
+        MultiDispatchTargets targets = MultiDispatchUtils.getDispatchTargets();
+        if (!targets.parse(multiDispatchQueue, this.messageStore.getMessageStoreConfig().isEnableLmq())
+            || !targets.parseOffsets(multiQueueOffset)) {
+            log.error("[bug] queues.length!=queueOffsets.length, topic={} queues={} queueOffsets={}",
+                request.getTopic(), multiDispatchQueue, multiQueueOffset);
+            return;
+        }
+        if (!this.messageStore.getRunningFlags().isCQWriteable()) {
             return;
         }
-        for (int i = 0; i < queues.length; i++) {
-            String queueName = queues[i];
-            if (StringUtils.contains(queueName, File.separator)) {
+        for (int i = 0; i < targets.size(); i++) {
+            long queueOffset = targets.getQueueOffset(i);
+            if (!targets.isValidQueue(i) || queueOffset < 0) {
                 continue;
             }
-            long queueOffset = Long.parseLong(queueOffsets[i]);
-            int queueId = request.getQueueId();
-            if (this.messageStore.getMessageStoreConfig().isEnableLmq() && MixAll.isLmq(queueName)) {
-                queueId = 0;
-            }
-            doDispatchLmqQueue(request, maxRetries, queueName, queueOffset, queueId);
+            doDispatchLmqQueue(request, maxRetries, targets.getQueueName(i), queueOffset,
+                targets.getQueueId(i, request.getQueueId()));
         }
     }
 
     private void doDispatchLmqQueue(DispatchRequest request, int maxRetries, String queueName, long queueOffset,
         int queueId) {
         ConsumeQueueInterface cq = this.messageStore.findConsumeQueue(queueName, queueId);
-        boolean canWrite = this.messageStore.getRunningFlags().isCQWriteable();
-        for (int i = 0; i < maxRetries && canWrite; i++) {
+        for (int i = 0; i < maxRetries; i++) {
             boolean result = ((ConsumeQueue) cq).putMessagePositionInfo(request.getCommitLogOffset(), request.getMsgSize(),
                 request.getTagsCode(),
                 queueOffset);
@@ -876,6 +929,46 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         return iterateFrom(startIndex);
     }
 
+    @Override
+    public boolean readUnits(long startIndex, int count, CqUnitBatch batch) {
+        batch.clear();
+        SelectMappedBufferResult sbr = getIndexBuffer(startIndex);
+        if (sbr == null) {
+            return false;
+        }
+        try {
+            ByteBuffer byteBuffer = sbr.getByteBuffer();
+            int start = byteBuffer.position();
+            int readable = byteBuffer.remaining() / CQ_STORE_UNIT_SIZE;
+            int num = Math.min(Math.max(count, 0), readable);
+            long queueOffset = sbr.getStartOffset() / CQ_STORE_UNIT_SIZE;
+            batch.ensureCapacity(num);
+            for (int i = 0; i < num; i++) {
+                int pos = start + i * CQ_STORE_UNIT_SIZE;
+                long offsetPy = byteBuffer.getLong(pos);
+                int sizePy = byteBuffer.getInt(pos + 8);
+                long tagsCode = byteBuffer.getLong(pos + 12);
+                ConsumeQueueExt.CqExtUnit cqExtUnit = null;
+                if (isExtAddr(tagsCode)) {
+                    ConsumeQueueExt.CqExtUnit extUnit = new ConsumeQueueExt.CqExtUnit();
+                    if (getExt(tagsCode, extUnit)) {
+                        tagsCode = extUnit.getTagsCode();
+                        cqExtUnit = extUnit;
+                    } else {
+                        // can't find ext content.Client will filter messages by tag also.
+                        log.error("[BUG] can't find consume queue extend file content! addr={}, offsetPy={}, sizePy={}, topic={}",
+                            tagsCode, offsetPy, sizePy, getTopic());
+                    }
+                }
+                batch.add(queueOffset + i, offsetPy, sizePy, tagsCode, (short) 1, cqExtUnit);
+            }
+            batch.setHasMore(readable > num);
+        } finally {
+            sbr.release();
+        }
+        return true;
+    }
+
     @Override
     public CqUnit get(long offset) {
         ReferredIterator<CqUnit> it = iterateFrom(offset);
@@ -1061,6 +1154,9 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             this.consumeQueueExt.destroy();
         }
+        if (isTimeIndexEnable()) {
+            this.consumeQueueTimeIndex.destroy();
+        }
     }
 
     @Override
@@ -1079,12 +1175,19 @@ public class ConsumeQueue implements ConsumeQueueInterface, FileQueueLifeCycle {
         if (isExtReadEnable()) {
             this.consumeQueueExt.checkSelf();
         }
+        if (isTimeIndexEnable()) {
+            this.consumeQueueTimeIndex.checkSelf();
+        }
     }
 
     protected boolean isExtReadEnable() {
         return this.consumeQueueExt != null;
     }
 
+    protected boolean isTimeIndexEnable() {
+        return this.consumeQueueTimeIndex != null;
+    }
+
     protected boolean isExtWriteEnable() {
         return this.consumeQueueExt != null
             && this.messageStore.getMessageStoreConfig().isEnableConsumeQueueExt();
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.store;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.logging.org.slf4j.Logger;
+import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
+import org.apache.rocketmq.store.logfile.MappedFile;
+
+/**
+ * Sparse store time index of a consume queue, to search offset by time without reading the commit log for every
+ * probe.
+ * <p/>
+ * <li>1. One 8 bytes store timestamp is kept for every {@code interval} units of the consume queue, the entry of
+ * unit {@code n * interval} of a consume queue file sits at {@code n * 8} of the index file of the same
+ * sequence.</li>
+ * <li>2. Like {@link ConsumeQueueExt}, it is used only by {@link ConsumeQueue} and is week reliable, an entry of 0
+ * means unknown and the search falls back to the commit log.</li>
+ */
+public class ConsumeQueueTimeIndex {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.STORE_LOGGER_NAME);
+
+    public static final int INDEX_UNIT_SIZE = 8;
+
+    private final MappedFileQueue mappedFileQueue;
+    private final String topic;
+    private final int queueId;
+
+    private final int interval;
+    private final long unitsPerConsumeQueueFile;
+    private final int mappedFileSize;
+
+    /**
+     * Constructor.
+     *
+     * @param topic topic
+     * @param queueId id of queue
+     * @param storePath root dir of files to store.
+     * @param mappedFileSizeConsumeQueue file size of the consume queue
+     * @param interval units of consume queue between two index entries
+     */
+    public ConsumeQueueTimeIndex(final String topic,
+        final int queueId,
+        final String storePath,
+        final int mappedFileSizeConsumeQueue,
+        final int interval) {
+        this.topic = topic;
+        this.queueId = queueId;
+        this.interval = Math.max(1, interval);
+        this.unitsPerConsumeQueueFile = mappedFileSizeConsumeQueue / ConsumeQueue.CQ_STORE_UNIT_SIZE;
+        this.mappedFileSize = (int) ((this.unitsPerConsumeQueueFile + this.interval - 1) / this.interval) * INDEX_UNIT_SIZE;
+
+        String queueDir = storePath
+            + File.separator + topic
+            + File.separator + queueId;
+
+        this.mappedFileQueue = new MappedFileQueue(queueDir, this.mappedFileSize, null);
+    }
+
+    public long getTotalSize() {
+        return this.mappedFileQueue.getTotalFileSize();
+    }
+
+    /**
+     * Load data from file when startup.
+     */
+    public boolean load() {
+        boolean result = this.mappedFileQueue.load();
+        log.info("load consume queue time index " + this.topic + "-" + this.queueId + " " + (result ? "OK" : "Failed"));
+        return result;
+    }
+
+    /**
+     * Check whether the step size in mapped file queue is correct.
+     */
+    public void checkSelf() {
+        this.mappedFileQueue.checkSelf();
+    }
+
+    /**
+     * Position of the entry of consume queue offset {@code cqOffset}, or the first entry after it if it is not
+     * indexed.
+     */
+    private long indexPosition(final long cqOffset) {
+        long fileSeq = cqOffset / this.unitsPerConsumeQueueFile;
+        long unitInFile = cqOffset % this.unitsPerConsumeQueueFile;
+        long entry = (unitInFile + this.interval - 1) / this.interval;
+        return fileSeq * this.mappedFileSize + entry * INDEX_UNIT_SIZE;
+    }
+
+    /**
+     * Record the store time of consume queue offset {@code cqOffset}, a no-op unless the offset is indexed.
+     */
+    public void put(final long cqOffset, final long storeTimestamp) {
+        if (cqOffset % this.unitsPerConsumeQueueFile % this.interval != 0) {
+            return;
+        }
+        final long position = this.indexPosition(cqOffset);
+        try {
+            for (int i = 0; i < 3; i++) {
+                MappedFile mappedFile = this.mappedFileQueue.getLastMappedFile(position);
+                if (mappedFile == null) {
+                    log.error("Create mapped file when save consume queue time index, {}-{} {}", topic, queueId, cqOffset);
+                    continue;
+                }
+                long wroteOffset = mappedFile.getFileFromOffset() + mappedFile.getWrotePosition();
+                if (position < wroteOffset) {
+                    // Build consume queue repeatedly
+                    return;
+                }
+                if (position >= mappedFile.getFileFromOffset() + this.mappedFileSize) {
+                    // Gap in consume queue, leave the rest of this file unknown
+                    mappedFile.setWrotePosition(this.mappedFileSize);
+                    continue;
+                }
+                if (position > wroteOffset) {
+                    mappedFile.appendMessage(new byte[(int) (position - wroteOffset)]);
+                }
+                ByteBuffer entry = ByteBuffer.allocate(INDEX_UNIT_SIZE);
+                entry.putLong(0, storeTimestamp);
+                mappedFile.appendMessage(entry.array());
+                return;
+            }
+        } catch (Throwable e) {
+            log.error("Save consume queue time index error, {}-{} {}", topic, queueId, cqOffset, e);
+        }
+    }
+
+    /**
+     * Find the indexed units enclosing {@code timestamp} inside units [{@code lowUnit}, {@code highUnit}] of the
+     * consume queue file starting at {@code fileFromOffset}, so the binary search only has to probe the commit log
+     * between them.
+     *
+     * @param result filled with the last indexed unit stored before {@code timestamp} and the first indexed unit
+     * stored after it, -1 if there is no such unit or part of the index is unknown
+     */
+    public void lookup(final long fileFromOffset, final int lowUnit, final int highUnit, final long timestamp,
+        final int[] result) {
+        result[0] = -1;
+        result[1] = -1;
+        long cqFileStart = fileFromOffset / ConsumeQueue.CQ_STORE_UNIT_SIZE;
+        long indexFileStart = this.indexPosition(cqFileStart);
+        MappedFile mappedFile = this.mappedFileQueue.findMappedFileByOffset(indexFileStart);
+        if (mappedFile == null || mappedFile.getFileFromOffset() != indexFileStart) {
+            return;
+        }
+        SelectMappedBufferResult sbr = mappedFile.selectMappedBuffer(0);
+        if (sbr == null) {
+            return;
+        }
+        try {
+            ByteBuffer byteBuffer = sbr.getByteBuffer();
+            int lowEntry = (lowUnit + this.interval - 1) / this.interval;
+            int highEntry = Math.min(highUnit / this.interval, sbr.getSize() / INDEX_UNIT_SIZE - 1);
+            if (lowEntry > highEntry) {
+                return;
+            }
+
+            // first entry stored at or after timestamp, and first entry stored after timestamp
+            int lower = lowEntry;
+            int upper = highEntry + 1;
+            while (lower < upper) {
+                int mid = (lower + upper) >>> 1;
+                long storeTime = byteBuffer.getLong(mid * INDEX_UNIT_SIZE);
+                if (storeTime <= 0) {
+                    return;
+                }
+                if (storeTime < timestamp) {
+                    lower = mid + 1;
+                } else {
+                    upper = mid;
+                }
+            }
+            int first = lower;
+            upper = highEntry + 1;
+            while (lower < upper) {
+                int mid = (lower + upper) >>> 1;
+                long storeTime = byteBuffer.getLong(mid * INDEX_UNIT_SIZE);
+                if (storeTime <= 0) {
+                    return;
+                }
+                if (storeTime <= timestamp) {
+                    lower = mid + 1;
+                } else {
+                    upper = mid;
+                }
+            }
+
+            if (first > lowEntry) {
+                result[0] = (first - 1) * this.interval;
+            }
+            if (lower <= highEntry) {
+                result[1] = lower * this.interval;
+            }
+        } finally {
+            sbr.release();
+        }
+    }
+
+    /**
+     * Delete entries of consume queue offset {@code maxCqOffset} and after.
+     */
+    public void truncateByMaxCqOffset(final long maxCqOffset) {
+        this.mappedFileQueue.truncateDirtyFiles(this.indexPosition(maxCqOffset));
+    }
+
+    /**
+     * Delete files of consume queue files before the one starting at {@code minCqFileFromOffset}.
+     */
+    public void truncateByMinCqFile(final long minCqFileFromOffset) {
+        long minPosition = this.indexPosition(minCqFileFromOffset / ConsumeQueue.CQ_STORE_UNIT_SIZE);
+        List<MappedFile> willRemoveFiles = new ArrayList<>();
+        for (MappedFile file : this.mappedFileQueue.getMappedFiles()) {
+            if (file.getFileFromOffset() + this.mappedFileSize <= minPosition) {
+                log.info("Destroy consume queue time index by min: file={}, minPosition={}", file.getFileName(), minPosition);
+                if (file.destroy(1000)) {
+                    willRemoveFiles.add(file);
+                }
+            }
+        }
+        this.mappedFileQueue.deleteExpiredFile(willRemoveFiles);
+    }
+
+    /**
+     * flush buffer to file.
+     */
+    public boolean flush(final int flushLeastPages) {
+        return this.mappedFileQueue.flush(flushLeastPages);
+    }
+
+    /**
+     * delete files and directory.
+     */
+    public void destroy() {
+        this.mappedFileQueue.destroy();
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+}
@@ -108,6 +108,9 @@ import org.apache.rocketmq.store.queue.ConsumeQueueInterface;
 import org.apache.rocketmq.store.queue.ConsumeQueueStore;
 import org.apache.rocketmq.store.queue.ConsumeQueueStoreInterface;
 import org.apache.rocketmq.store.queue.CqUnit;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
+import org.apache.rocketmq.store.queue.MultiDispatchTargets;
+import org.apache.rocketmq.store.queue.MultiDispatchUtils;
 import org.apache.rocketmq.store.queue.ReferredIterator;
 import org.apache.rocketmq.store.stats.BrokerStatsManager;
 import org.apache.rocketmq.store.timer.TimerMessageStore;
@@ -118,6 +121,11 @@ public class DefaultMessageStore implements MessageStore {
     protected static final Logger LOGGER = LoggerFactory.getLogger(LoggerName.STORE_LOGGER_NAME);
     protected static final Logger ERROR_LOG = LoggerFactory.getLogger(LoggerName.STORE_ERROR_LOGGER_NAME);
 
+    /**
+     * Units read from consume queue by getMessage, reused by the pulling thread to avoid one CqUnit per entry
+     */
+    private static final ThreadLocal<CqUnitBatch> CQ_UNIT_BATCH_THREAD_LOCAL = ThreadLocal.withInitial(CqUnitBatch::new);
+
     public final PerfCounter.Ticks perfs = new PerfCounter.Ticks(LOGGER);
 
     private final MessageStoreConfig messageStoreConfig;
@@ -589,6 +597,7 @@ public class DefaultMessageStore implements MessageStore {
         }
 
         long beginTime = this.getSystemClock().now();
+        long beginNanos = System.nanoTime();
         CompletableFuture<PutMessageResult> putResultFuture = this.commitLog.asyncPutMessage(msg);
 
         putResultFuture.thenAccept(result -> {
@@ -598,6 +607,7 @@ public class DefaultMessageStore implements MessageStore {
                     elapsedTime, msg.getTopic(), msg.getBody().length);
             }
             this.storeStatsService.setPutMessageEntireTimeMax(elapsedTime);
+            this.storeStatsService.recordPutMessageLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - beginNanos));
 
             if (null == result || !result.isOk()) {
                 this.storeStatsService.getPutMessageFailedTimes().add(1);
@@ -618,6 +628,7 @@ public class DefaultMessageStore implements MessageStore {
         }
 
         long beginTime = this.getSystemClock().now();
+        long beginNanos = System.nanoTime();
         CompletableFuture<PutMessageResult> putResultFuture = this.commitLog.asyncPutMessages(messageExtBatch);
 
         putResultFuture.thenAccept(result -> {
@@ -626,6 +637,7 @@ public class DefaultMessageStore implements MessageStore {
                 LOGGER.warn("not in lock eclipse time(ms)={}, bodyLength={}", eclipseTime, messageExtBatch.getBody().length);
             }
             this.storeStatsService.setPutMessageEntireTimeMax(eclipseTime);
+            this.storeStatsService.recordPutMessageLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - beginNanos));
 
             if (null == result || !result.isOk()) {
                 this.storeStatsService.getPutMessageFailedTimes().add(1);
@@ -839,16 +851,17 @@ public class DefaultMessageStore implements MessageStore {
                 status = GetMessageStatus.NO_MATCHED_MESSAGE;
                 long maxPhyOffsetPulling = 0;
                 int cqFileNum = 0;
+                boolean readWindowEnable = this.messageStoreConfig.isEnableGetMessageReadWindow()
+                    && !this.messageStoreConfig.isEnableDLegerCommitLog();
 
                 while (getResult.getBufferTotalSize() <= 0
                     && nextBeginOffset < maxOffset
                     && cqFileNum++ < this.messageStoreConfig.getTravelCqFileNumWhenGetMessage()) {
-                    ReferredIterator<CqUnit> bufferConsumeQueue = null;
+                    CqUnitBatch cqUnitBatch = CQ_UNIT_BATCH_THREAD_LOCAL.get();
+                    SelectMappedBufferWindow readWindow = null;
 
                     try {
-                        bufferConsumeQueue = consumeQueue.iterateFrom(nextBeginOffset, maxMsgNums);
-
-                        if (bufferConsumeQueue == null) {
+                        if (!consumeQueue.readUnits(nextBeginOffset, maxMsgNums, cqUnitBatch)) {
                             status = GetMessageStatus.OFFSET_FOUND_NULL;
                             nextBeginOffset = nextOffsetCorrection(nextBeginOffset, this.consumeQueueStore.rollNextFile(consumeQueue, nextBeginOffset));
                             LOGGER.warn("consumer request topic: " + topic + ", offset: " + offset + ", minOffset: " + minOffset + ", maxOffset: "
@@ -857,80 +870,107 @@ public class DefaultMessageStore implements MessageStore {
                         }
 
                         long nextPhyFileStartOffset = Long.MIN_VALUE;
-                        while (bufferConsumeQueue.hasNext()
-                            && nextBeginOffset < maxOffset) {
-                            CqUnit cqUnit = bufferConsumeQueue.next();
-                            long offsetPy = cqUnit.getPos();
-                            int sizePy = cqUnit.getSize();
+                        boolean batchBreak = false;
+                        while (!batchBreak) {
+                            for (int i = 0; i < cqUnitBatch.size() && nextBeginOffset < maxOffset; i++) {
+                                long offsetPy = cqUnitBatch.getPos(i);
+                                int sizePy = cqUnitBatch.getSize(i);
+                                long queueOffset = cqUnitBatch.getQueueOffset(i);
+                                short batchNum = cqUnitBatch.getBatchNum(i);
+
+                                boolean isInMem = estimateInMemByCommitOffset(offsetPy, maxOffsetPy);
+
+                                if ((queueOffset - offset) * consumeQueue.getUnitSize() > maxFilterMessageSize) {
+                                    batchBreak = true;
+                                    break;
+                                }
 
-                            boolean isInMem = estimateInMemByCommitOffset(offsetPy, maxOffsetPy);
+                                if (this.isTheBatchFull(sizePy, batchNum, maxMsgNums, maxPullSize, getResult.getBufferTotalSize(), getResult.getMessageCount(), isInMem)) {
+                                    batchBreak = true;
+                                    break;
+                                }
 
-                            if ((cqUnit.getQueueOffset() - offset) * consumeQueue.getUnitSize() > maxFilterMessageSize) {
-                                break;
-                            }
+                                if (getResult.getBufferTotalSize() >= maxPullSize) {
+                                    batchBreak = true;
+                                    break;
+                                }
 
-                            if (this.isTheBatchFull(sizePy, cqUnit.getBatchNum(), maxMsgNums, maxPullSize, getResult.getBufferTotalSize(), getResult.getMessageCount(), isInMem)) {
-                                break;
-                            }
+                                maxPhyOffsetPulling = offsetPy;
 
-                            if (getResult.getBufferTotalSize() >= maxPullSize) {
-                                break;
-                            }
+                                //Be careful, here should before the isTheBatchFull
+                                nextBeginOffset = queueOffset + batchNum;
 
-                            maxPhyOffsetPulling = offsetPy;
+                                if (nextPhyFileStartOffset != Long.MIN_VALUE) {
+                                    if (offsetPy < nextPhyFileStartOffset) {
+                                        continue;
+                                    }
+                                }
 
-                            //Be careful, here should before the isTheBatchFull
-                            nextBeginOffset = cqUnit.getQueueOffset() + cqUnit.getBatchNum();
+                                if (messageFilter != null
+                                    && !messageFilter.isMatchedByConsumeQueue(cqUnitBatch.getValidTagsCodeAsLong(i), cqUnitBatch.getCqExtUnit(i))) {
+                                    if (getResult.getBufferTotalSize() == 0) {
+                                        status = GetMessageStatus.NO_MATCHED_MESSAGE;
+                                    }
 
-                            if (nextPhyFileStartOffset != Long.MIN_VALUE) {
-                                if (offsetPy < nextPhyFileStartOffset) {
                                     continue;
                                 }
-                            }
 
-                            if (messageFilter != null
-                                && !messageFilter.isMatchedByConsumeQueue(cqUnit.getValidTagsCodeAsLong(), cqUnit.getCqExtUnit())) {
-                                if (getResult.getBufferTotalSize() == 0) {
-                                    status = GetMessageStatus.NO_MATCHED_MESSAGE;
+                                SelectMappedBufferResult selectResult;
+                                if (readWindowEnable) {
+                                    if (readWindow == null || !readWindow.contains(offsetPy, sizePy)) {
+                                        if (readWindow != null) {
+                                            readWindow.release();
+                                        }
+                                        readWindow = this.commitLog.getMessageWindow(offsetPy);
+                                    }
+                                    selectResult = readWindow != null ? readWindow.slice(offsetPy, sizePy) : null;
+                                    if (selectResult != null) {
+                                        selectResult.setInCache(this.commitLog.isDataInPageCache(offsetPy));
+                                    }
+                                } else {
+                                    selectResult = this.commitLog.getMessage(offsetPy, sizePy);
                                 }
+                                if (null == selectResult) {
+                                    if (getResult.getBufferTotalSize() == 0) {
+                                        status = GetMessageStatus.MESSAGE_WAS_REMOVING;
+                                    }
 
-                                continue;
-                            }
-
-                            SelectMappedBufferResult selectResult = this.commitLog.getMessage(offsetPy, sizePy);
-                            if (null == selectResult) {
-                                if (getResult.getBufferTotalSize() == 0) {
-                                    status = GetMessageStatus.MESSAGE_WAS_REMOVING;
+                                    nextPhyFileStartOffset = this.commitLog.rollNextFile(offsetPy);
+                                    continue;
                                 }
 
-                                nextPhyFileStartOffset = this.commitLog.rollNextFile(offsetPy);
-                                continue;
-                            }
+                                if (messageStoreConfig.isColdDataFlowControlEnable() && !MixAll.isSysConsumerGroupForNoColdReadLimit(group) && !selectResult.isInCache()) {
+                                    getResult.setColdDataSum(getResult.getColdDataSum() + sizePy);
+                                }
 
-                            if (messageStoreConfig.isColdDataFlowControlEnable() && !MixAll.isSysConsumerGroupForNoColdReadLimit(group) && !selectResult.isInCache()) {
-                                getResult.setColdDataSum(getResult.getColdDataSum() + sizePy);
+                                if (messageFilter != null
+                                    && !messageFilter.isMatchedByCommitLog(selectResult.getByteBuffer().slice(), null)) {
+                                    if (getResult.getBufferTotalSize() == 0) {
+                                        status = GetMessageStatus.NO_MATCHED_MESSAGE;
+                                    }
+                                    // release...
+                                    selectResult.release();
+                                    continue;
+                                }
+                                this.storeStatsService.getGetMessageTransferredMsgCount().add(batchNum);
+                                getResult.addMessage(selectResult, queueOffset, batchNum);
+                                status = GetMessageStatus.FOUND;
+                                nextPhyFileStartOffset = Long.MIN_VALUE;
                             }
 
-                            if (messageFilter != null
-                                && !messageFilter.isMatchedByCommitLog(selectResult.getByteBuffer().slice(), null)) {
-                                if (getResult.getBufferTotalSize() == 0) {
-                                    status = GetMessageStatus.NO_MATCHED_MESSAGE;
-                                }
-                                // release...
-                                selectResult.release();
-                                continue;
+                            // keep scanning the same logic file chunk by chunk, as the iterator used to do
+                            if (batchBreak || !cqUnitBatch.hasMore() || nextBeginOffset >= maxOffset
+                                || !consumeQueue.readUnits(nextBeginOffset, maxMsgNums, cqUnitBatch)) {
+                                break;
                             }
-                            this.storeStatsService.getGetMessageTransferredMsgCount().add(cqUnit.getBatchNum());
-                            getResult.addMessage(selectResult, cqUnit.getQueueOffset(), cqUnit.getBatchNum());
-                            status = GetMessageStatus.FOUND;
-                            nextPhyFileStartOffset = Long.MIN_VALUE;
                         }
                     } catch (RocksDBException e) {
                         ERROR_LOG.error("getMessage Failed. cid: {}, topic: {}, queueId: {}, offset: {}, minOffset: {}, maxOffset: {}, {}",
                             group, topic, queueId, offset, minOffset, maxOffset, e.getMessage());
                     } finally {
-                        if (bufferConsumeQueue != null) {
-                            bufferConsumeQueue.release();
+                        cqUnitBatch.clear();
+                        if (readWindow != null) {
+                            readWindow.release();
                         }
                     }
                 }
@@ -2630,6 +2670,7 @@ public class DefaultMessageStore implements MessageStore {
             }
 
             long logicsMsgTimestamp = 0;
+            long logicsMsgPhyOffset = 0;
 
             int flushConsumeQueueThoroughInterval = DefaultMessageStore.this.getMessageStoreConfig().getFlushConsumeQueueThoroughInterval();
             long currentTimeMillis = System.currentTimeMillis();
@@ -2638,6 +2679,10 @@ public class DefaultMessageStore implements MessageStore {
                 flushConsumeQueueLeastPages = 0;
                 logicsMsgTimestamp = DefaultMessageStore.this.getStoreCheckpoint().getLogicsMsgTimestamp();
             }
+            if (0 == flushConsumeQueueLeastPages) {
+                // captured before the flush, everything dispatched below it is flushed by the loop below
+                logicsMsgPhyOffset = DefaultMessageStore.this.getStoreCheckpoint().getDispatchedLogicsMsgPhyOffset();
+            }
 
             ConcurrentMap<String, ConcurrentMap<Integer, ConsumeQueueInterface>> tables = DefaultMessageStore.this.getConsumeQueueTable();
 
@@ -2658,6 +2703,9 @@ public class DefaultMessageStore implements MessageStore {
                 if (logicsMsgTimestamp > 0) {
                     DefaultMessageStore.this.getStoreCheckpoint().setLogicsMsgTimestamp(logicsMsgTimestamp);
                 }
+                if (logicsMsgPhyOffset > 0) {
+                    DefaultMessageStore.this.getStoreCheckpoint().setLogicsMsgPhyOffset(logicsMsgPhyOffset);
+                }
                 DefaultMessageStore.this.getStoreCheckpoint().flush();
             }
         }
@@ -2900,21 +2948,21 @@ public class DefaultMessageStore implements MessageStore {
             if (StringUtils.isBlank(multiDispatchQueue) || StringUtils.isBlank(multiQueueOffset)) {
                 return;
             }
-            String[] queues = multiDispatchQueue.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-            String[] queueOffsets = multiQueueOffset.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-            if (queues.length != queueOffsets.length) {
+            // parsed already when the consume queues were built on this thread
+            MultiDispatchTargets targets = MultiDispatchUtils.getDispatchTargets();
+            if (!targets.parse(multiDispatchQueue, DefaultMessageStore.this.getMessageStoreConfig().isEnableLmq())
+                || !targets.parseOffsets(multiQueueOffset)) {
                 return;
             }
-            for (int i = 0; i < queues.length; i++) {
-                String queueName = queues[i];
-                long queueOffset = Long.parseLong(queueOffsets[i]);
-                int queueId = dispatchRequest.getQueueId();
-                if (DefaultMessageStore.this.getMessageStoreConfig().isEnableLmq() && MixAll.isLmq(queueName)) {
-                    queueId = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                long queueOffset = targets.getQueueOffset(i);
+                if (queueOffset < 0) {
+                    continue;
                 }
                 DefaultMessageStore.this.messageArrivingListener.arriving(
-                    queueName, queueId, queueOffset + 1, dispatchRequest.getTagsCode(),
-                    dispatchRequest.getStoreTimestamp(), dispatchRequest.getBitMap(), dispatchRequest.getPropertiesMap());
+                    targets.getQueueName(i), targets.getQueueId(i, dispatchRequest.getQueueId()), queueOffset + 1,
+                    dispatchRequest.getTagsCode(), dispatchRequest.getStoreTimestamp(), dispatchRequest.getBitMap(),
+                    dispatchRequest.getPropertiesMap());
             }
         }
 
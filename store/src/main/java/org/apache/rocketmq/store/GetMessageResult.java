@@ -26,6 +26,13 @@ public class GetMessageResult {
     private final List<SelectMappedBufferResult> messageMapedList;
     private final List<ByteBuffer> messageBufferList;
     private final List<Long> messageQueueOffset;
+    /**
+     * Buffers to be transferred, physically adjacent messages sliced from the same window are merged into one
+     */
+    private final List<ByteBuffer> messageTransferBufferList;
+    private SelectMappedBufferWindow lastRunWindow;
+    private ByteBuffer lastRunBuffer;
+    private int lastRunEndPos;
 
     private GetMessageStatus status;
     private long nextBeginOffset;
@@ -45,22 +52,25 @@ public class GetMessageResult {
 
     public static final GetMessageResult NO_MATCH_LOGIC_QUEUE =
         new GetMessageResult(GetMessageStatus.NO_MATCHED_LOGIC_QUEUE, 0, 0, 0, Collections.emptyList(),
-            Collections.emptyList(), Collections.emptyList());
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
 
     public GetMessageResult() {
         messageMapedList = new ArrayList<>(100);
         messageBufferList = new ArrayList<>(100);
         messageQueueOffset = new ArrayList<>(100);
+        messageTransferBufferList = new ArrayList<>(100);
     }
 
     public GetMessageResult(int resultSize) {
         messageMapedList = new ArrayList<>(resultSize);
         messageBufferList = new ArrayList<>(resultSize);
         messageQueueOffset = new ArrayList<>(resultSize);
+        messageTransferBufferList = new ArrayList<>(resultSize);
     }
 
     private GetMessageResult(GetMessageStatus status, long nextBeginOffset, long minOffset, long maxOffset,
-        List<SelectMappedBufferResult> messageMapedList, List<ByteBuffer> messageBufferList, List<Long> messageQueueOffset) {
+        List<SelectMappedBufferResult> messageMapedList, List<ByteBuffer> messageBufferList, List<Long> messageQueueOffset,
+        List<ByteBuffer> messageTransferBufferList) {
         this.status = status;
         this.nextBeginOffset = nextBeginOffset;
         this.minOffset = minOffset;
@@ -68,6 +78,7 @@ public class GetMessageResult {
         this.messageMapedList = messageMapedList;
         this.messageBufferList = messageBufferList;
         this.messageQueueOffset = messageQueueOffset;
+        this.messageTransferBufferList = messageTransferBufferList;
     }
 
     public GetMessageStatus getStatus() {
@@ -110,9 +121,36 @@ public class GetMessageResult {
         return messageBufferList;
     }
 
+    /**
+     * @return the buffers of all messages in order, in which physically adjacent messages may share one buffer
+     */
+    public List<ByteBuffer> getMessageTransferBufferList() {
+        return messageTransferBufferList;
+    }
+
+    private void addTransferBuffer(final SelectMappedBufferResult mapedBuffer) {
+        if (mapedBuffer instanceof SelectMappedBufferWindow.Slice) {
+            SelectMappedBufferWindow.Slice slice = (SelectMappedBufferWindow.Slice) mapedBuffer;
+            if (slice.getWindow() == this.lastRunWindow && slice.getRelativePos() == this.lastRunEndPos) {
+                this.lastRunEndPos += slice.getSize();
+                this.lastRunBuffer.limit(this.lastRunBuffer.limit() + slice.getSize());
+                return;
+            }
+            this.lastRunWindow = slice.getWindow();
+            this.lastRunBuffer = this.lastRunWindow.runBuffer(slice.getRelativePos(), slice.getSize());
+            this.lastRunEndPos = slice.getRelativePos() + slice.getSize();
+            this.messageTransferBufferList.add(this.lastRunBuffer);
+            return;
+        }
+        this.lastRunWindow = null;
+        this.lastRunBuffer = null;
+        this.messageTransferBufferList.add(mapedBuffer.getByteBuffer());
+    }
+
     public void addMessage(final SelectMappedBufferResult mapedBuffer) {
         this.messageMapedList.add(mapedBuffer);
         this.messageBufferList.add(mapedBuffer.getByteBuffer());
+        this.addTransferBuffer(mapedBuffer);
         this.bufferTotalSize += mapedBuffer.getSize();
         this.msgCount4Commercial += (int) Math.ceil(
             mapedBuffer.getSize() /  (double)commercialSizePerMsg);
@@ -122,6 +160,7 @@ public class GetMessageResult {
     public void addMessage(final SelectMappedBufferResult mapedBuffer, final long queueOffset) {
         this.messageMapedList.add(mapedBuffer);
         this.messageBufferList.add(mapedBuffer.getByteBuffer());
+        this.addTransferBuffer(mapedBuffer);
         this.bufferTotalSize += mapedBuffer.getSize();
         this.msgCount4Commercial += (int) Math.ceil(
             mapedBuffer.getSize() /  (double)commercialSizePerMsg);
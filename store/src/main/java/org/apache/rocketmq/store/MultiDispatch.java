@@ -16,17 +16,20 @@
  */
 package org.apache.rocketmq.store;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.message.MessageAccessor;
 import org.apache.rocketmq.common.message.MessageConst;
 import org.apache.rocketmq.common.message.MessageExtBrokerInner;
+import org.apache.rocketmq.store.queue.ConsumeQueueStoreInterface;
+import org.apache.rocketmq.store.queue.MultiDispatchTargets;
 
 /**
  * MultiDispatch for lmq, not-thread-safe
  */
 public class MultiDispatch {
     private final StringBuilder keyBuilder = new StringBuilder();
+    private final StringBuilder offsetBuilder = new StringBuilder();
+    private final MultiDispatchTargets targets = new MultiDispatchTargets();
     private final DefaultMessageStore messageStore;
     private static final short VALUE_OF_EACH_INCREMENT = 1;
 
@@ -47,31 +50,31 @@ public class MultiDispatch {
     }
 
     public void wrapMultiDispatch(final MessageExtBrokerInner msg) {
-
         String multiDispatchQueue = msg.getProperty(MessageConst.PROPERTY_INNER_MULTI_DISPATCH);
-        String[] queues = multiDispatchQueue.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-        Long[] queueOffsets = new Long[queues.length];
-        if (messageStore.getMessageStoreConfig().isEnableLmq()) {
-            for (int i = 0; i < queues.length; i++) {
-                String key = queueKey(queues[i], msg);
-                if (MixAll.isLmq(key)) {
-                    queueOffsets[i] = messageStore.getQueueStore().getLmqQueueOffset(key);
-                }
+        targets.parse(multiDispatchQueue, messageStore.getMessageStoreConfig().isEnableLmq());
+        ConsumeQueueStoreInterface queueStore = messageStore.getQueueStore();
+        offsetBuilder.setLength(0);
+        for (int i = 0; i < targets.size(); i++) {
+            if (i > 0) {
+                offsetBuilder.append(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
+            }
+            if (targets.isLmq(i)) {
+                offsetBuilder.append(queueStore.getLmqQueueOffset(targets.getLmqQueueKey(i)));
             }
         }
-        MessageAccessor.putProperty(msg, MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET,
-                StringUtils.join(queueOffsets, MixAll.MULTI_DISPATCH_QUEUE_SPLITTER));
+        MessageAccessor.putProperty(msg, MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET, offsetBuilder.toString());
         msg.removeWaitStorePropertyString();
     }
 
     public void updateMultiQueueOffset(final MessageExtBrokerInner msgInner) {
+        // the queues of the message have been parsed when it was wrapped under the same put message lock
         String multiDispatchQueue = msgInner.getProperty(MessageConst.PROPERTY_INNER_MULTI_DISPATCH);
-        String[] queues = multiDispatchQueue.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
-        for (String queue : queues) {
-            String key = queueKey(queue, msgInner);
-            if (messageStore.getMessageStoreConfig().isEnableLmq() && MixAll.isLmq(key)) {
-                messageStore.getQueueStore().increaseLmqOffset(key, VALUE_OF_EACH_INCREMENT);
+        targets.parse(multiDispatchQueue, messageStore.getMessageStoreConfig().isEnableLmq());
+        ConsumeQueueStoreInterface queueStore = messageStore.getQueueStore();
+        for (int i = 0; i < targets.size(); i++) {
+            if (targets.isLmq(i)) {
+                queueStore.increaseLmqOffset(targets.getLmqQueueKey(i), VALUE_OF_EACH_INCREMENT);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.store;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.rocketmq.store.logfile.MappedFile;
+
+/**
+ * The readable data of one mapped file, selected once and shared by the messages sliced from it. Each slice keeps
+ * the window alive until it is released, so slices could be released one by one or moved between results just like
+ * the {@link SelectMappedBufferResult} of a single message, while the mapped file is held only once.
+ */
+public class SelectMappedBufferWindow {
+
+    private final SelectMappedBufferResult window;
+
+    /**
+     * One for the reader of the window plus one for each unreleased slice
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    public SelectMappedBufferWindow(SelectMappedBufferResult window) {
+        this.window = window;
+    }
+
+    public boolean contains(final long offset, final int size) {
+        return offset >= window.getStartOffset() && offset + size <= window.getStartOffset() + window.getSize();
+    }
+
+    /**
+     * @return a slice of the message at the offset, or null if it is out of the window
+     */
+    public SelectMappedBufferResult slice(final long offset, final int size) {
+        if (size <= 0 || !contains(offset, size)) {
+            return null;
+        }
+        int relativePos = (int) (offset - window.getStartOffset());
+        ByteBuffer byteBuffer = window.getByteBuffer().duplicate();
+        byteBuffer.position(relativePos);
+        byteBuffer.limit(relativePos + size);
+        refCount.incrementAndGet();
+        return new Slice(this, relativePos, offset, byteBuffer.slice(), size, window.getMappedFile());
+    }
+
+    /**
+     * @return a buffer starting at the relative position with the given limit, which could be raised to the end of
+     * the window to cover the adjacent messages
+     */
+    ByteBuffer runBuffer(final int relativePos, final int size) {
+        ByteBuffer byteBuffer = window.getByteBuffer().duplicate();
+        byteBuffer.position(relativePos);
+        byteBuffer.limit(window.getSize());
+        ByteBuffer runBuffer = byteBuffer.slice();
+        runBuffer.limit(size);
+        return runBuffer;
+    }
+
+    public void release() {
+        if (refCount.decrementAndGet() == 0) {
+            window.release();
+        }
+    }
+
+    public int getRefCount() {
+        return refCount.get();
+    }
+
+    static class Slice extends SelectMappedBufferResult {
+        private final SelectMappedBufferWindow window;
+        private final int relativePos;
+
+        Slice(SelectMappedBufferWindow window, int relativePos, long startOffset, ByteBuffer byteBuffer, int size,
+            MappedFile mappedFile) {
+            super(startOffset, byteBuffer, size, mappedFile);
+            this.window = window;
+            this.relativePos = relativePos;
+        }
+
+        SelectMappedBufferWindow getWindow() {
+            return window;
+        }
+
+        int getRelativePos() {
+            return relativePos;
+        }
+
+        @Override
+        public synchronized void release() {
+            if (this.mappedFile != null) {
+                this.mappedFile = null;
+                window.release();
+            }
+        }
+    }
+}
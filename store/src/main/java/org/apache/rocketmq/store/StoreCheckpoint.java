@@ -38,6 +38,18 @@ public class StoreCheckpoint {
     private volatile long indexMsgTimestamp = 0;
     private volatile long masterFlushedOffset = 0;
     private volatile long confirmPhyOffset = 0;
+    /**
+     * Commitlog offsets (always message boundaries) below which the commitlog, the consume queues and the index
+     * files are known to be durable. 0 means not recorded yet, e.g. a checkpoint written by an older version.
+     */
+    private volatile long physicMsgPhyOffset = 0;
+    private volatile long logicsMsgPhyOffset = 0;
+    private volatile long indexMsgPhyOffset = 0;
+    /**
+     * Commitlog offset the consume queues have been built up to, which may not be flushed yet. It is not persisted,
+     * the consume queue flush service publishes it as logicsMsgPhyOffset once the consume queues are flushed.
+     */
+    private volatile long dispatchedLogicsMsgPhyOffset = 0;
 
     public StoreCheckpoint(final String scpPath) throws IOException {
         File file = new File(scpPath);
@@ -55,6 +67,9 @@ public class StoreCheckpoint {
             this.indexMsgTimestamp = this.mappedByteBuffer.getLong(16);
             this.masterFlushedOffset = this.mappedByteBuffer.getLong(24);
             this.confirmPhyOffset = this.mappedByteBuffer.getLong(32);
+            this.physicMsgPhyOffset = this.mappedByteBuffer.getLong(40);
+            this.logicsMsgPhyOffset = this.mappedByteBuffer.getLong(48);
+            this.indexMsgPhyOffset = this.mappedByteBuffer.getLong(56);
 
             log.info("store checkpoint file physicMsgTimestamp " + this.physicMsgTimestamp + ", "
                 + UtilAll.timeMillisToHumanString(this.physicMsgTimestamp));
@@ -64,6 +79,8 @@ public class StoreCheckpoint {
                 + UtilAll.timeMillisToHumanString(this.indexMsgTimestamp));
             log.info("store checkpoint file masterFlushedOffset " + this.masterFlushedOffset);
             log.info("store checkpoint file confirmPhyOffset " + this.confirmPhyOffset);
+            log.info("store checkpoint file physicMsgPhyOffset " + this.physicMsgPhyOffset + ", logicsMsgPhyOffset "
+                + this.logicsMsgPhyOffset + ", indexMsgPhyOffset " + this.indexMsgPhyOffset);
         } else {
             log.info("store checkpoint file not exists, " + scpPath);
         }
@@ -88,6 +105,9 @@ public class StoreCheckpoint {
         this.mappedByteBuffer.putLong(16, this.indexMsgTimestamp);
         this.mappedByteBuffer.putLong(24, this.masterFlushedOffset);
         this.mappedByteBuffer.putLong(32, this.confirmPhyOffset);
+        this.mappedByteBuffer.putLong(40, this.physicMsgPhyOffset);
+        this.mappedByteBuffer.putLong(48, this.logicsMsgPhyOffset);
+        this.mappedByteBuffer.putLong(56, this.indexMsgPhyOffset);
         this.mappedByteBuffer.force();
     }
 
@@ -145,4 +165,78 @@ public class StoreCheckpoint {
     public void setMasterFlushedOffset(long masterFlushedOffset) {
         this.masterFlushedOffset = masterFlushedOffset;
     }
+
+    public long getPhysicMsgPhyOffset() {
+        return physicMsgPhyOffset;
+    }
+
+    public void setPhysicMsgPhyOffset(long physicMsgPhyOffset) {
+        this.physicMsgPhyOffset = physicMsgPhyOffset;
+    }
+
+    public long getLogicsMsgPhyOffset() {
+        return logicsMsgPhyOffset;
+    }
+
+    public void setLogicsMsgPhyOffset(long logicsMsgPhyOffset) {
+        this.logicsMsgPhyOffset = logicsMsgPhyOffset;
+    }
+
+    public long getDispatchedLogicsMsgPhyOffset() {
+        return dispatchedLogicsMsgPhyOffset;
+    }
+
+    public void setDispatchedLogicsMsgPhyOffset(long dispatchedLogicsMsgPhyOffset) {
+        this.dispatchedLogicsMsgPhyOffset = dispatchedLogicsMsgPhyOffset;
+    }
+
+    public long getIndexMsgPhyOffset() {
+        return indexMsgPhyOffset;
+    }
+
+    public void setIndexMsgPhyOffset(long indexMsgPhyOffset) {
+        this.indexMsgPhyOffset = indexMsgPhyOffset;
+    }
+
+    /**
+     * Pull the recorded commitlog offsets back to {@code phyOffset} after the commitlog has been truncated, so that a
+     * later recovery never starts scanning from an offset the new data no longer has a message boundary at.
+     */
+    public void truncatePhyOffset(final long phyOffset) {
+        boolean changed = false;
+        if (this.physicMsgPhyOffset > phyOffset) {
+            this.physicMsgPhyOffset = phyOffset;
+            changed = true;
+        }
+        if (this.logicsMsgPhyOffset > phyOffset) {
+            this.logicsMsgPhyOffset = phyOffset;
+            changed = true;
+        }
+        if (this.dispatchedLogicsMsgPhyOffset > phyOffset) {
+            this.dispatchedLogicsMsgPhyOffset = phyOffset;
+        }
+        if (this.indexMsgPhyOffset > phyOffset) {
+            this.indexMsgPhyOffset = phyOffset;
+            changed = true;
+        }
+        if (changed) {
+            this.flush();
+        }
+    }
+
+    /**
+     * The commitlog offset an abnormal recovery can start scanning and dispatching from, the counterpart of
+     * {@link #getMinTimestamp()} and {@link #getMinTimestampIndex()} at message granularity instead of file
+     * granularity.
+     *
+     * @param includeIndex whether the index files must be rebuilt from this offset too
+     * @return the offset, or -1 if any of the offsets involved has not been recorded
+     */
+    public long getMinPhyOffset(final boolean includeIndex) {
+        long min = Math.min(this.physicMsgPhyOffset, this.logicsMsgPhyOffset);
+        if (includeIndex) {
+            min = Math.min(min, this.indexMsgPhyOffset);
+        }
+        return min > 0 ? min : -1;
+    }
 }
@@ -25,12 +25,14 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.rocketmq.common.BrokerIdentity;
 import org.apache.rocketmq.common.ServiceThread;
 import org.apache.rocketmq.common.constant.LoggerName;
+import org.apache.rocketmq.common.stats.LatencyHistogram;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
 import org.apache.rocketmq.logging.org.slf4j.LoggerFactory;
 
@@ -68,6 +70,10 @@ public class StoreStatsService extends ServiceThread {
     private final LinkedList<CallSnapshot> getTimesMissList = new LinkedList<>();
     private final LinkedList<CallSnapshot> transferredMsgCountList = new LinkedList<>();
     private volatile LongAdder[] putMessageDistributeTime;
+    /**
+     * Put latency in microseconds, the interval is rolled by printTps only
+     */
+    private final LatencyHistogram putMessageLatencyHistogram = new LatencyHistogram(TimeUnit.MINUTES.toMicros(1));
     private volatile LongAdder[] lastPutMessageDistributeTime;
     private long messageStoreBootTimestamp = System.currentTimeMillis();
     private volatile long putMessageEntireTimeMax = 0;
@@ -221,6 +227,14 @@ public class StoreStatsService extends ServiceThread {
         }
     }
 
+    public void recordPutMessageLatency(long latencyMicros) {
+        this.putMessageLatencyHistogram.record(latencyMicros);
+    }
+
+    public LatencyHistogram getPutMessageLatencyHistogram() {
+        return putMessageLatencyHistogram;
+    }
+
     public long getGetMessageEntireTimeMax() {
         return getMessageEntireTimeMax;
     }
@@ -521,6 +535,10 @@ public class StoreStatsService extends ServiceThread {
         result.put("getTransferredTps", this.getGetTransferredTps());
         result.put("putLatency99", String.format("%.2f", this.findPutMessageEntireTimePX(0.99)));
         result.put("putLatency999", String.format("%.2f", this.findPutMessageEntireTimePX(0.999)));
+        LatencyHistogram.Snapshot putLatencySnapshot = this.putMessageLatencyHistogram.getIntervalSnapshot();
+        result.put("putLatencyP99Micros", String.valueOf(putLatencySnapshot.getValueAtPercentile(99)));
+        result.put("putLatencyP999Micros", String.valueOf(putLatencySnapshot.getValueAtPercentile(99.9)));
+        result.put("putLatencyMaxMicros", String.valueOf(putLatencySnapshot.getMax()));
 
         return result;
     }
@@ -609,6 +627,13 @@ public class StoreStatsService extends ServiceThread {
             this.findPutMessageEntireTimePX(0.99);
             this.findPutMessageEntireTimePX(0.999);
             log.info("[PAGECACHERT] TotalPut {}, PutMessageDistributeTime {}", totalPut, sb.toString());
+
+            LatencyHistogram.Snapshot putLatencySnapshot = this.putMessageLatencyHistogram.rollInterval();
+            log.info("[PAGECACHERT] PutLatency(us) p50 {}, p99 {}, p999 {}, max {}",
+                putLatencySnapshot.getValueAtPercentile(50),
+                putLatencySnapshot.getValueAtPercentile(99),
+                putLatencySnapshot.getValueAtPercentile(99.9),
+                putLatencySnapshot.getMax());
         }
     }
 
@@ -115,6 +115,10 @@ public class MessageStoreConfig {
     // Bit count of filter bit map.
     // this will be set by pipe of calculate filter bit map.
     private int bitMapLengthConsumeQueueExt = 64;
+    // enable sparse store time index of consume queue, to search offset by time with fewer commit log reads
+    private boolean enableConsumeQueueTimeIndex = false;
+    // units of consume queue between two entries of the time index
+    private int consumeQueueTimeIndexInterval = 32;
 
     // CommitLog flush interval
     // flush data to disk
@@ -279,6 +283,9 @@ public class MessageStoreConfig {
     private boolean enabledAppendPropCRC = false;
     private boolean forceVerifyPropCRC = false;
     private int travelCqFileNumWhenGetMessage = 1;
+    // Slice the messages of a pull from one selected window of the commitlog file instead of selecting each of them,
+    // physically adjacent messages are also transferred as one buffer
+    private boolean enableGetMessageReadWindow = true;
     // Sleep interval between to corrections
     private int correctLogicMinOffsetSleepInterval = 1;
     // Force correct min offset interval
@@ -404,12 +411,28 @@ public class MessageStoreConfig {
 
     private int batchDispatchRequestThreadPoolNums = 16;
 
+    /**
+     * Validate commitlog files concurrently with multi-thread during abnormal recovery, and start the scan from the
+     * commitlog offsets recorded in the store checkpoint rather than from the beginning of a whole file
+     */
+    private boolean enableRecoverCommitLogConcurrently = false;
+
+    private int recoverCommitLogThreadPoolNums = Runtime.getRuntime().availableProcessors();
+
     // rocksdb mode
     private long cleanRocksDBDirtyCQIntervalMin = 60;
     private long statRocksDBCQIntervalSec = 10;
     private long memTableFlushIntervalMs = 60 * 60 * 1000L;
     private boolean realTimePersistRocksDBConfig = true;
     private boolean enableRocksDBLog = false;
+    // write consume queue batches on a dedicated thread, so the reput thread does not wait for rocksdb
+    private boolean enableRocksDBCQAsyncWrite = false;
+    private int rocksDBCQWriteBatchSize = 16;
+    // batches the reput thread may build ahead of the writer before it waits
+    private int rocksDBCQWritePipelineDepth = 4;
+    // consume queue can be rebuilt from commitlog, so its WAL is disabled by default
+    private boolean rocksDBCQWriteWALEnable = false;
+    private boolean rocksDBCQWriteSync = false;
 
     private int topicQueueLockNum = 32;
 
@@ -562,6 +585,22 @@ public class MessageStoreConfig {
         this.bitMapLengthConsumeQueueExt = bitMapLengthConsumeQueueExt;
     }
 
+    public boolean isEnableConsumeQueueTimeIndex() {
+        return enableConsumeQueueTimeIndex;
+    }
+
+    public void setEnableConsumeQueueTimeIndex(boolean enableConsumeQueueTimeIndex) {
+        this.enableConsumeQueueTimeIndex = enableConsumeQueueTimeIndex;
+    }
+
+    public int getConsumeQueueTimeIndexInterval() {
+        return consumeQueueTimeIndexInterval;
+    }
+
+    public void setConsumeQueueTimeIndexInterval(int consumeQueueTimeIndexInterval) {
+        this.consumeQueueTimeIndexInterval = consumeQueueTimeIndexInterval;
+    }
+
     public int getFlushIntervalCommitLog() {
         return flushIntervalCommitLog;
     }
@@ -636,6 +675,14 @@ public class MessageStoreConfig {
         this.travelCqFileNumWhenGetMessage = travelCqFileNumWhenGetMessage;
     }
 
+    public boolean isEnableGetMessageReadWindow() {
+        return enableGetMessageReadWindow;
+    }
+
+    public void setEnableGetMessageReadWindow(boolean enableGetMessageReadWindow) {
+        this.enableGetMessageReadWindow = enableGetMessageReadWindow;
+    }
+
     public int getCorrectLogicMinOffsetSleepInterval() {
         return correctLogicMinOffsetSleepInterval;
     }
@@ -1764,6 +1811,22 @@ public class MessageStoreConfig {
         this.enableBuildConsumeQueueConcurrently = enableBuildConsumeQueueConcurrently;
     }
 
+    public boolean isEnableRecoverCommitLogConcurrently() {
+        return enableRecoverCommitLogConcurrently;
+    }
+
+    public void setEnableRecoverCommitLogConcurrently(boolean enableRecoverCommitLogConcurrently) {
+        this.enableRecoverCommitLogConcurrently = enableRecoverCommitLogConcurrently;
+    }
+
+    public int getRecoverCommitLogThreadPoolNums() {
+        return recoverCommitLogThreadPoolNums;
+    }
+
+    public void setRecoverCommitLogThreadPoolNums(int recoverCommitLogThreadPoolNums) {
+        this.recoverCommitLogThreadPoolNums = recoverCommitLogThreadPoolNums;
+    }
+
     public int getBatchDispatchRequestThreadPoolNums() {
         return batchDispatchRequestThreadPoolNums;
     }
@@ -1812,6 +1875,46 @@ public class MessageStoreConfig {
         this.enableRocksDBLog = enableRocksDBLog;
     }
 
+    public boolean isEnableRocksDBCQAsyncWrite() {
+        return enableRocksDBCQAsyncWrite;
+    }
+
+    public void setEnableRocksDBCQAsyncWrite(boolean enableRocksDBCQAsyncWrite) {
+        this.enableRocksDBCQAsyncWrite = enableRocksDBCQAsyncWrite;
+    }
+
+    public int getRocksDBCQWriteBatchSize() {
+        return rocksDBCQWriteBatchSize;
+    }
+
+    public void setRocksDBCQWriteBatchSize(int rocksDBCQWriteBatchSize) {
+        this.rocksDBCQWriteBatchSize = rocksDBCQWriteBatchSize;
+    }
+
+    public int getRocksDBCQWritePipelineDepth() {
+        return rocksDBCQWritePipelineDepth;
+    }
+
+    public void setRocksDBCQWritePipelineDepth(int rocksDBCQWritePipelineDepth) {
+        this.rocksDBCQWritePipelineDepth = rocksDBCQWritePipelineDepth;
+    }
+
+    public boolean isRocksDBCQWriteWALEnable() {
+        return rocksDBCQWriteWALEnable;
+    }
+
+    public void setRocksDBCQWriteWALEnable(boolean rocksDBCQWriteWALEnable) {
+        this.rocksDBCQWriteWALEnable = rocksDBCQWriteWALEnable;
+    }
+
+    public boolean isRocksDBCQWriteSync() {
+        return rocksDBCQWriteSync;
+    }
+
+    public void setRocksDBCQWriteSync(boolean rocksDBCQWriteSync) {
+        this.rocksDBCQWriteSync = rocksDBCQWriteSync;
+    }
+
     public int getTopicQueueLockNum() {
         return topicQueueLockNum;
     }
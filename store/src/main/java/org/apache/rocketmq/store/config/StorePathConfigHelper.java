@@ -27,6 +27,10 @@ public class StorePathConfigHelper {
     public static String getStorePathConsumeQueueExt(final String rootDir) {
         return rootDir + File.separator + "consumequeue_ext";
     }
+
+    public static String getStorePathConsumeQueueTimeIndex(final String rootDir) {
+        return rootDir + File.separator + "consumequeue_time";
+    }
     public static String getStorePathBatchConsumeQueue(final String rootDir) {
         return rootDir + File.separator + "batchconsumequeue";
     }
@@ -361,15 +361,18 @@ public class IndexService {
         }
 
         long indexMsgTimestamp = 0;
+        long indexMsgPhyOffset = 0;
 
         if (f.isWriteFull()) {
             indexMsgTimestamp = f.getEndTimestamp();
+            indexMsgPhyOffset = f.getEndPhyOffset();
         }
 
         f.flush();
 
         if (indexMsgTimestamp > 0) {
             this.defaultMessageStore.getStoreCheckpoint().setIndexMsgTimestamp(indexMsgTimestamp);
+            this.defaultMessageStore.getStoreCheckpoint().setIndexMsgPhyOffset(indexMsgPhyOffset);
             this.defaultMessageStore.getStoreCheckpoint().flush();
         }
     }
@@ -517,6 +517,7 @@ public class BatchConsumeQueue implements ConsumeQueueInterface {
                     this.messageStore.getStoreCheckpoint().setPhysicMsgTimestamp(request.getStoreTimestamp());
                 }
                 this.messageStore.getStoreCheckpoint().setLogicsMsgTimestamp(request.getStoreTimestamp());
+                this.messageStore.getStoreCheckpoint().setDispatchedLogicsMsgPhyOffset(request.getCommitLogOffset() + request.getMsgSize());
                 return;
             } else {
                 // XXX: warn and notify me
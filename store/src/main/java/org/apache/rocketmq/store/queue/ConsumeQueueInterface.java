@@ -56,6 +56,36 @@ public interface ConsumeQueueInterface extends FileQueueLifeCycle {
      */
     ReferredIterator<CqUnit> iterateFrom(long startIndex, int count) throws RocksDBException;
 
+    /**
+     * Decode at most count units from the start index into the given batch, the batch is cleared first.
+     *
+     * @param startIndex start index
+     * @param count max unit counts to be decoded
+     * @param batch reusable holder of the decoded units
+     * @return false if there is no readable unit at the start index
+     * @throws RocksDBException only in rocksdb mode
+     */
+    default boolean readUnits(long startIndex, int count, CqUnitBatch batch) throws RocksDBException {
+        batch.clear();
+        ReferredIterator<CqUnit> it = iterateFrom(startIndex, count);
+        if (it == null) {
+            return false;
+        }
+        try {
+            while (batch.size() < count && it.hasNext()) {
+                CqUnit cqUnit = it.next();
+                if (cqUnit == null) {
+                    break;
+                }
+                batch.add(cqUnit);
+            }
+            batch.setHasMore(it.hasNext());
+        } finally {
+            it.release();
+        }
+        return true;
+    }
+
     /**
      * Get cq unit at specified index
      * @param index index
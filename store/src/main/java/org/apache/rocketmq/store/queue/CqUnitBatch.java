@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.rocketmq.store.queue;
+
+import java.util.Arrays;
+import org.apache.rocketmq.store.ConsumeQueueExt;
+
+/**
+ * A reusable holder of consume queue units decoded into primitive arrays, so that scanning a range of the queue does
+ * not allocate one {@link CqUnit} per entry. Not thread safe, it is meant to be cached by the reading thread.
+ */
+public class CqUnitBatch {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private long[] queueOffsets;
+    private long[] positions;
+    private int[] sizes;
+    private long[] tagsCodes;
+    private short[] batchNums;
+    private ConsumeQueueExt.CqExtUnit[] cqExtUnits;
+    private int count;
+    private boolean hasMore;
+
+    public CqUnitBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CqUnitBatch(int capacity) {
+        int initCapacity = Math.max(1, capacity);
+        this.queueOffsets = new long[initCapacity];
+        this.positions = new long[initCapacity];
+        this.sizes = new int[initCapacity];
+        this.tagsCodes = new long[initCapacity];
+        this.batchNums = new short[initCapacity];
+        this.cqExtUnits = new ConsumeQueueExt.CqExtUnit[initCapacity];
+    }
+
+    public void clear() {
+        if (count > 0) {
+            Arrays.fill(cqExtUnits, 0, count, null);
+        }
+        count = 0;
+        hasMore = false;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= queueOffsets.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, queueOffsets.length << 1);
+        queueOffsets = Arrays.copyOf(queueOffsets, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+        tagsCodes = Arrays.copyOf(tagsCodes, newCapacity);
+        batchNums = Arrays.copyOf(batchNums, newCapacity);
+        cqExtUnits = Arrays.copyOf(cqExtUnits, newCapacity);
+    }
+
+    public void add(long queueOffset, long pos, int size, long tagsCode, short batchNum,
+        ConsumeQueueExt.CqExtUnit cqExtUnit) {
+        ensureCapacity(count + 1);
+        queueOffsets[count] = queueOffset;
+        positions[count] = pos;
+        sizes[count] = size;
+        tagsCodes[count] = tagsCode;
+        batchNums[count] = batchNum;
+        cqExtUnits[count] = cqExtUnit;
+        count++;
+    }
+
+    public void add(CqUnit cqUnit) {
+        add(cqUnit.getQueueOffset(), cqUnit.getPos(), cqUnit.getSize(), cqUnit.getTagsCode(), cqUnit.getBatchNum(),
+            cqUnit.getCqExtUnit());
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return true if the queue had more readable units after the last one copied into this batch
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public long getQueueOffset(int index) {
+        return queueOffsets[index];
+    }
+
+    public long getPos(int index) {
+        return positions[index];
+    }
+
+    public int getSize(int index) {
+        return sizes[index];
+    }
+
+    public long getTagsCode(int index) {
+        return tagsCodes[index];
+    }
+
+    public short getBatchNum(int index) {
+        return batchNums[index];
+    }
+
+    public ConsumeQueueExt.CqExtUnit getCqExtUnit(int index) {
+        return cqExtUnits[index];
+    }
+
+    /**
+     * Same as {@link CqUnit#getValidTagsCodeAsLong()}, boxing only when the tags code is valid.
+     */
+    public Long getValidTagsCodeAsLong(int index) {
+        long tagsCode = tagsCodes[index];
+        if (ConsumeQueueExt.isExtAddr(tagsCode)) {
+            return null;
+        }
+        return tagsCode;
+    }
+}
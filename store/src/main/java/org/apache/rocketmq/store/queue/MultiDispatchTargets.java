@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.store.queue;
+
+import java.io.File;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.common.MixAll;
+
+/**
+ * Queues of a multi dispatch message, parsed once from its dispatch property. Only the queues parsed last are kept, so
+ * the dispatch and the arrival notification of one message share them. Lmq messages are mostly fanned out to lists of
+ * queues that are never repeated, a cache of earlier lists would only churn. Not thread safe.
+ */
+public class MultiDispatchTargets {
+
+    private static final char SPLITTER = MixAll.MULTI_DISPATCH_QUEUE_SPLITTER.charAt(0);
+
+    private boolean enableLmq;
+    private String multiDispatchQueue;
+    private Queues queues;
+    private long[] queueOffsets = new long[16];
+
+    /**
+     * @param multiDispatchQueue value of the multi dispatch property
+     * @param enableLmq whether lmq queues are dispatched to queue 0 with their own offsets
+     * @return false if there is no queue to dispatch
+     */
+    public boolean parse(String multiDispatchQueue, boolean enableLmq) {
+        if (enableLmq != this.enableLmq) {
+            this.enableLmq = enableLmq;
+            this.multiDispatchQueue = null;
+        }
+        if (StringUtils.isBlank(multiDispatchQueue)) {
+            this.multiDispatchQueue = null;
+            this.queues = null;
+            return false;
+        }
+        // the same property of one message is parsed on append and on dispatch
+        if (!multiDispatchQueue.equals(this.multiDispatchQueue)) {
+            this.multiDispatchQueue = multiDispatchQueue;
+            this.queues = new Queues(multiDispatchQueue, enableLmq);
+        }
+        return true;
+    }
+
+    /**
+     * Parse the queue offsets of the queues parsed last, an empty offset is -1.
+     *
+     * @return false if the number of offsets does not match the number of queues
+     */
+    public boolean parseOffsets(String multiQueueOffset) {
+        if (queues == null || StringUtils.isBlank(multiQueueOffset)) {
+            return false;
+        }
+        if (queueOffsets.length < queues.size()) {
+            queueOffsets = new long[Math.max(queues.size(), queueOffsets.length * 2)];
+        }
+        int count = 0;
+        long value = 0;
+        boolean empty = true;
+        for (int i = 0, length = multiQueueOffset.length(); i <= length; i++) {
+            char c = i < length ? multiQueueOffset.charAt(i) : SPLITTER;
+            if (c == SPLITTER) {
+                if (count >= queues.size()) {
+                    return false;
+                }
+                queueOffsets[count++] = empty ? -1 : value;
+                value = 0;
+                empty = true;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                empty = false;
+            } else {
+                return false;
+            }
+        }
+        return count == queues.size();
+    }
+
+    public int size() {
+        return queues == null ? 0 : queues.size();
+    }
+
+    public String getQueueName(int i) {
+        return queues.queueNames[i];
+    }
+
+    /**
+     * @return the key of the lmq queue offset, null if the queue is not a lmq queue
+     */
+    public String getLmqQueueKey(int i) {
+        return queues.lmqQueueKeys[i];
+    }
+
+    public boolean isLmq(int i) {
+        return queues.lmqQueueKeys[i] != null;
+    }
+
+    /**
+     * @return false if the queue name could not be used as a file name
+     */
+    public boolean isValidQueue(int i) {
+        return queues.valid[i];
+    }
+
+    public int getQueueId(int i, int msgQueueId) {
+        return isLmq(i) ? 0 : msgQueueId;
+    }
+
+    public long getQueueOffset(int i) {
+        return queueOffsets[i];
+    }
+
+    private static class Queues {
+        private final String[] queueNames;
+        private final String[] lmqQueueKeys;
+        private final boolean[] valid;
+
+        Queues(String multiDispatchQueue, boolean enableLmq) {
+            // same as String#split, trailing empty names are dropped
+            this.queueNames = multiDispatchQueue.split(MixAll.MULTI_DISPATCH_QUEUE_SPLITTER);
+            this.lmqQueueKeys = new String[queueNames.length];
+            this.valid = new boolean[queueNames.length];
+            for (int i = 0; i < queueNames.length; i++) {
+                if (enableLmq && MixAll.isLmq(queueNames[i])) {
+                    lmqQueueKeys[i] = MultiDispatchUtils.lmqQueueKey(queueNames[i]);
+                }
+                valid[i] = !StringUtils.contains(queueNames[i], File.separator);
+            }
+        }
+
+        int size() {
+            return queueNames.length;
+        }
+    }
+}
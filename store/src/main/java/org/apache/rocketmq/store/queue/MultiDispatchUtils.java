@@ -27,6 +27,17 @@ import org.apache.rocketmq.store.config.MessageStoreConfig;
 
 public class MultiDispatchUtils {
 
+    private static final ThreadLocal<MultiDispatchTargets> DISPATCH_TARGETS_THREAD_LOCAL =
+        ThreadLocal.withInitial(MultiDispatchTargets::new);
+
+    /**
+     * @return the multi dispatch targets of the current thread, reused to build consume queues and to notify arriving
+     * of one message
+     */
+    public static MultiDispatchTargets getDispatchTargets() {
+        return DISPATCH_TARGETS_THREAD_LOCAL.get();
+    }
+
     public static String lmqQueueKey(String queueName) {
         StringBuilder keyBuilder = new StringBuilder();
         keyBuilder.append(queueName);
@@ -23,16 +23,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.BoundaryType;
 import org.apache.rocketmq.common.Pair;
+import org.apache.rocketmq.common.ServiceThread;
 import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.common.constant.LoggerName;
 import org.apache.rocketmq.common.message.MessageExtBrokerInner;
@@ -56,7 +60,6 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
     public static final byte CTRL_1 = '\u0001';
     public static final byte CTRL_2 = '\u0002';
 
-    private static final int BATCH_SIZE = 16;
     public static final int MAX_KEY_LEN = 300;
 
     private final ScheduledExecutorService scheduledExecutorService;
@@ -71,11 +74,13 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
     private final RocksDBConsumeQueueTable rocksDBConsumeQueueTable;
     private final RocksDBConsumeQueueOffsetTable rocksDBConsumeQueueOffsetTable;
 
-    private final WriteBatch writeBatch;
-    private final List<DispatchRequest> bufferDRList;
-    private final List<Pair<ByteBuffer, ByteBuffer>> cqBBPairList;
-    private final List<Pair<ByteBuffer, ByteBuffer>> offsetBBPairList;
-    private final Map<ByteBuffer, Pair<ByteBuffer, DispatchRequest>> tempTopicQueueMaxOffsetMap;
+    private final int batchSize;
+    /**
+     * Batch the reput thread is filling, written in place, or handed over to the writeService when async write is
+     * enabled.
+     */
+    private DispatchBatch dispatchBatch;
+    private final RocksDBConsumeQueueWriteService writeService;
     private volatile boolean isCQError = false;
 
     public RocksDBConsumeQueueStore(DefaultMessageStore messageStore) {
@@ -86,16 +91,11 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
         this.rocksDBConsumeQueueTable = new RocksDBConsumeQueueTable(rocksDBStorage, messageStore);
         this.rocksDBConsumeQueueOffsetTable = new RocksDBConsumeQueueOffsetTable(rocksDBConsumeQueueTable, rocksDBStorage, messageStore);
 
-        this.writeBatch = new WriteBatch();
-        this.bufferDRList = new ArrayList(BATCH_SIZE);
-        this.cqBBPairList = new ArrayList(BATCH_SIZE);
-        this.offsetBBPairList = new ArrayList(BATCH_SIZE);
-        for (int i = 0; i < BATCH_SIZE; i++) {
-            this.cqBBPairList.add(RocksDBConsumeQueueTable.getCQByteBufferPair());
-            this.offsetBBPairList.add(RocksDBConsumeQueueOffsetTable.getOffsetByteBufferPair());
-        }
+        this.batchSize = Math.max(1, messageStoreConfig.getRocksDBCQWriteBatchSize());
+        this.dispatchBatch = new DispatchBatch(this.batchSize);
+        this.writeService = messageStoreConfig.isEnableRocksDBCQAsyncWrite()
+            ? new RocksDBConsumeQueueWriteService(Math.max(1, messageStoreConfig.getRocksDBCQWritePipelineDepth())) : null;
 
-        this.tempTopicQueueMaxOffsetMap = new HashMap<>();
         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
             new ThreadFactoryImpl("RocksDBConsumeQueueStoreScheduledThread", messageStore.getBrokerIdentity()));
     }
@@ -103,6 +103,9 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
     @Override
     public void start() {
         log.info("RocksDB ConsumeQueueStore start!");
+        if (this.writeService != null) {
+            this.writeService.start();
+        }
         this.scheduledExecutorService.scheduleAtFixedRate(() -> {
             this.rocksDBStorage.statRocksdb(ROCKSDB_LOG);
         }, 10, this.messageStoreConfig.getStatRocksDBCQIntervalSec(), TimeUnit.SECONDS);
@@ -155,6 +158,9 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
     @Override
     public boolean shutdown() {
         this.scheduledExecutorService.shutdown();
+        if (this.writeService != null) {
+            this.writeService.shutdown();
+        }
         return shutdownInner();
     }
 
@@ -164,18 +170,25 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
 
     @Override
     public void putMessagePositionInfoWrapper(DispatchRequest request) throws RocksDBException {
-        if (request == null || this.bufferDRList.size() >= BATCH_SIZE) {
+        if (request == null || this.dispatchBatch.size() >= this.batchSize) {
             putMessagePosition();
         }
         if (request != null) {
-            this.bufferDRList.add(request);
+            this.dispatchBatch.add(request);
         }
     }
 
     public void putMessagePosition() throws RocksDBException {
+        if (this.writeService != null && this.writeService.isRunning()) {
+            if (this.dispatchBatch.size() > 0) {
+                this.dispatchBatch = this.writeService.submit(this.dispatchBatch);
+            }
+            return;
+        }
+
         final int maxRetries = 30;
         for (int i = 0; i < maxRetries; i++) {
-            if (putMessagePosition0()) {
+            if (putMessagePosition0(this.dispatchBatch)) {
                 if (this.isCQError) {
                     this.messageStore.getRunningFlags().clearLogicsQueueError();
                     this.isCQError = false;
@@ -197,21 +210,21 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
         throw new RocksDBException("put CQ Failed");
     }
 
-    private boolean putMessagePosition0() {
+    private boolean putMessagePosition0(final DispatchBatch dispatchBatch) {
         if (!this.rocksDBStorage.hold()) {
             return false;
         }
 
-        final Map<ByteBuffer, Pair<ByteBuffer, DispatchRequest>> tempTopicQueueMaxOffsetMap = this.tempTopicQueueMaxOffsetMap;
+        final Map<ByteBuffer, Pair<ByteBuffer, DispatchRequest>> tempTopicQueueMaxOffsetMap = dispatchBatch.tempTopicQueueMaxOffsetMap;
         try {
-            final List<DispatchRequest> bufferDRList = this.bufferDRList;
+            final List<DispatchRequest> bufferDRList = dispatchBatch.bufferDRList;
             final int size = bufferDRList.size();
             if (size == 0) {
                 return true;
             }
-            final List<Pair<ByteBuffer, ByteBuffer>> cqBBPairList = this.cqBBPairList;
-            final List<Pair<ByteBuffer, ByteBuffer>> offsetBBPairList = this.offsetBBPairList;
-            final WriteBatch writeBatch = this.writeBatch;
+            final List<Pair<ByteBuffer, ByteBuffer>> cqBBPairList = dispatchBatch.cqBBPairList;
+            final List<Pair<ByteBuffer, ByteBuffer>> offsetBBPairList = dispatchBatch.offsetBBPairList;
+            final WriteBatch writeBatch = dispatchBatch.writeBatch;
 
             long maxPhyOffset = 0;
             for (int i = size - 1; i >= 0; i--) {
@@ -234,6 +247,7 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
             // clear writeBatch in batchPut
             this.rocksDBStorage.batchPut(writeBatch);
 
+            // consumers see the new max offset only after the batch is written
             this.rocksDBConsumeQueueOffsetTable.putHeapMaxCqOffset(tempTopicQueueMaxOffsetMap);
 
             long storeTimeStamp = bufferDRList.get(size - 1).getStoreTimestamp();
@@ -243,7 +257,7 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
             }
             this.messageStore.getStoreCheckpoint().setLogicsMsgTimestamp(storeTimeStamp);
 
-            notifyMessageArriveAndClear();
+            notifyMessageArriveAndClear(bufferDRList);
             return true;
         } catch (Exception e) {
             ERROR_LOG.error("putMessagePosition0 Failed.", e);
@@ -254,8 +268,7 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
         }
     }
 
-    private void notifyMessageArriveAndClear() {
-        final List<DispatchRequest> bufferDRList = this.bufferDRList;
+    private void notifyMessageArriveAndClear(final List<DispatchRequest> bufferDRList) {
         try {
             for (DispatchRequest dp : bufferDRList) {
                 this.messageStore.notifyMessageArriveIfNecessary(dp);
@@ -267,6 +280,16 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
         }
     }
 
+    /**
+     * Wait until batches handed over to the writeService are written, so reads and truncation see all dispatched
+     * requests.
+     */
+    public void waitForPendingWrites() {
+        if (this.writeService != null) {
+            this.writeService.waitForPendingWrites();
+        }
+    }
+
     public Statistics getStatistics() {
         return rocksDBStorage.getStatistics();
     }
@@ -303,6 +326,7 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
 
     @Override
     public void destroy(ConsumeQueueInterface consumeQueue) throws RocksDBException {
+        waitForPendingWrites();
         String topic = consumeQueue.getTopic();
         int queueId = consumeQueue.getQueueId();
         if (StringUtils.isEmpty(topic) || queueId < 0 || !this.rocksDBStorage.hold()) {
@@ -354,6 +378,7 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
      */
     @Override
     public void truncateDirty(long offsetToTruncate) throws RocksDBException {
+        waitForPendingWrites();
         long maxPhyOffsetInRocksdb = getMaxPhyOffsetInConsumeQueue();
         if (offsetToTruncate >= maxPhyOffsetInRocksdb) {
             return;
@@ -442,4 +467,147 @@ public class RocksDBConsumeQueueStore extends AbstractConsumeQueueStore {
     public long getTotalSize() {
         return 0;
     }
+
+    /**
+     * Dispatch requests of one write batch, with the buffers to build its keys and values.
+     */
+    static class DispatchBatch {
+        private final WriteBatch writeBatch;
+        private final List<DispatchRequest> bufferDRList;
+        private final List<Pair<ByteBuffer, ByteBuffer>> cqBBPairList;
+        private final List<Pair<ByteBuffer, ByteBuffer>> offsetBBPairList;
+        private final Map<ByteBuffer, Pair<ByteBuffer, DispatchRequest>> tempTopicQueueMaxOffsetMap;
+
+        DispatchBatch(final int batchSize) {
+            this.writeBatch = new WriteBatch();
+            this.bufferDRList = new ArrayList(batchSize);
+            this.cqBBPairList = new ArrayList(batchSize);
+            this.offsetBBPairList = new ArrayList(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                this.cqBBPairList.add(RocksDBConsumeQueueTable.getCQByteBufferPair());
+                this.offsetBBPairList.add(RocksDBConsumeQueueOffsetTable.getOffsetByteBufferPair());
+            }
+            this.tempTopicQueueMaxOffsetMap = new HashMap<>();
+        }
+
+        int size() {
+            return this.bufferDRList.size();
+        }
+
+        void add(final DispatchRequest request) {
+            this.bufferDRList.add(request);
+        }
+    }
+
+    /**
+     * Writes batches built by the reput thread in order, so the reput thread goes on with the next batch while
+     * rocksdb writes or stalls. The reput thread waits only when {@code pipelineDepth} batches are pending.
+     */
+    class RocksDBConsumeQueueWriteService extends ServiceThread {
+        private final BlockingQueue<DispatchBatch> pendingBatches;
+        private final BlockingQueue<DispatchBatch> freeBatches;
+        private final AtomicLong submittedBatches = new AtomicLong(0);
+        private final AtomicLong writtenBatches = new AtomicLong(0);
+
+        RocksDBConsumeQueueWriteService(final int pipelineDepth) {
+            this.pendingBatches = new ArrayBlockingQueue<>(pipelineDepth);
+            this.freeBatches = new ArrayBlockingQueue<>(pipelineDepth);
+            for (int i = 0; i < pipelineDepth; i++) {
+                this.freeBatches.add(new DispatchBatch(batchSize));
+            }
+        }
+
+        boolean isRunning() {
+            return !isStopped() && this.thread != null;
+        }
+
+        /**
+         * Hand over a filled batch and take an empty one to fill next.
+         */
+        DispatchBatch submit(final DispatchBatch dispatchBatch) throws RocksDBException {
+            try {
+                DispatchBatch next = this.freeBatches.take();
+                this.submittedBatches.incrementAndGet();
+                this.pendingBatches.put(dispatchBatch);
+                return next;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RocksDBException("submit CQ batch interrupted");
+            }
+        }
+
+        void waitForPendingWrites() {
+            final long target = this.submittedBatches.get();
+            while (this.writtenBatches.get() < target && this.thread != null && this.thread.isAlive()) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public String getServiceName() {
+            if (messageStore.getBrokerConfig().isInBrokerContainer()) {
+                return messageStore.getBrokerIdentity().getIdentifier() + RocksDBConsumeQueueWriteService.class.getSimpleName();
+            }
+            return RocksDBConsumeQueueWriteService.class.getSimpleName();
+        }
+
+        @Override
+        public void run() {
+            log.info(this.getServiceName() + " service started");
+
+            while (!this.isStopped()) {
+                try {
+                    DispatchBatch dispatchBatch = this.pendingBatches.poll(10, TimeUnit.MILLISECONDS);
+                    if (dispatchBatch != null) {
+                        write(dispatchBatch);
+                    }
+                } catch (InterruptedException ignored) {
+                } catch (Throwable e) {
+                    log.warn(this.getServiceName() + " service has exception. ", e);
+                }
+            }
+
+            DispatchBatch dispatchBatch;
+            while ((dispatchBatch = this.pendingBatches.poll()) != null) {
+                write(dispatchBatch);
+            }
+
+            log.info(this.getServiceName() + " service end");
+        }
+
+        private void write(final DispatchBatch dispatchBatch) {
+            final int maxRetries = 30;
+            for (int i = 0; ; i++) {
+                if (putMessagePosition0(dispatchBatch)) {
+                    if (isCQError) {
+                        messageStore.getRunningFlags().clearLogicsQueueError();
+                        isCQError = false;
+                    }
+                    break;
+                }
+                ERROR_LOG.warn("{} put cq Failed. retryTime: {}", this.getServiceName(), i);
+                if (i + 1 >= maxRetries && !isCQError) {
+                    ERROR_LOG.error("[BUG] put CQ Failed.");
+                    messageStore.getRunningFlags().makeLogicsQueueError();
+                    isCQError = true;
+                }
+                if (this.isStopped() && i + 1 >= maxRetries) {
+                    ERROR_LOG.error("[BUG] drop CQ batch of {} requests on shutdown.", dispatchBatch.size());
+                    dispatchBatch.bufferDRList.clear();
+                    break;
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+            }
+            this.writtenBatches.incrementAndGet();
+            this.freeBatches.offer(dispatchBatch);
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.apache.rocketmq.store.queue;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.rocketmq.common.Pair;
@@ -30,6 +31,7 @@ import org.apache.rocketmq.store.queue.RocksDBConsumeQueueOffsetTable.PhyAndCQOf
 import org.apache.rocketmq.store.rocksdb.ConsumeQueueRocksDBStorage;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteBatch;
 
 import static org.apache.rocketmq.common.utils.DataConverter.CHARSET_UTF8;
@@ -122,43 +124,39 @@ public class RocksDBConsumeQueueTable {
         return (value != null) ? ByteBuffer.wrap(value) : null;
     }
 
+    /**
+     * Read {@code num} continuous cqUnits by a single seek. Units are copied into one buffer shared by the returned
+     * views, instead of a point lookup and a byte array per unit.
+     */
     public List<ByteBuffer> rangeQuery(final String topic, final int queueId, final long startIndex, final int num) throws RocksDBException {
         final byte[] topicBytes = topic.getBytes(CHARSET_UTF8);
-        final List<ColumnFamilyHandle> defaultCFHList = new ArrayList(num);
-        final ByteBuffer[] resultList = new ByteBuffer[num];
-        final List<Integer> kvIndexList = new ArrayList(num);
-        final List<byte[]> kvKeyList = new ArrayList(num);
-        for (int i = 0; i < num; i++) {
-            final ByteBuffer keyBB = buildCQKeyByteBuffer(topicBytes, queueId, startIndex + i);
-            kvIndexList.add(i);
-            kvKeyList.add(keyBB.array());
-            defaultCFHList.add(this.defaultCFH);
-        }
-        int keyNum = kvIndexList.size();
-        if (keyNum > 0) {
-            List<byte[]> kvValueList = this.rocksDBStorage.multiGet(defaultCFHList, kvKeyList);
-            final int valueNum = kvValueList.size();
-            if (keyNum != valueNum) {
-                throw new RocksDBException("rocksdb bug, multiGet");
-            }
-            for (int i = 0; i < valueNum; i++) {
-                byte[] value = kvValueList.get(i);
-                if (value == null) {
-                    continue;
+        final ByteBuffer expectedKey = buildCQKeyByteBuffer(topicBytes, queueId, startIndex);
+        final int keyLength = expectedKey.limit();
+        final ByteBuffer keyBB = ByteBuffer.allocate(keyLength);
+        final ByteBuffer valueBB = ByteBuffer.allocate(num * CQ_UNIT_SIZE);
+        final List<ByteBuffer> bbValueList = new ArrayList(num);
+
+        final RocksIterator iterator = this.rocksDBStorage.seekCQ();
+        try {
+            iterator.seek(expectedKey.array());
+            for (int i = 0; i < num && iterator.isValid(); i++) {
+                expectedKey.putLong(keyLength - 8, startIndex + i);
+                keyBB.clear();
+                if (iterator.key(keyBB) != keyLength || !Arrays.equals(keyBB.array(), expectedKey.array())) {
+                    break;
                 }
-                ByteBuffer byteBuffer = ByteBuffer.wrap(value);
-                resultList[kvIndexList.get(i)] = byteBuffer;
-            }
-        }
-
-        final int resultSize = resultList.length;
-        List<ByteBuffer> bbValueList = new ArrayList(resultSize);
-        for (int i = 0; i < resultSize; i++) {
-            ByteBuffer byteBuffer = resultList[i];
-            if (byteBuffer == null) {
-                break;
+                valueBB.limit((i + 1) * CQ_UNIT_SIZE).position(i * CQ_UNIT_SIZE);
+                if (iterator.value(valueBB) != CQ_UNIT_SIZE) {
+                    break;
+                }
+                ByteBuffer byteBuffer = valueBB.duplicate();
+                byteBuffer.position(i * CQ_UNIT_SIZE);
+                bbValueList.add(byteBuffer);
+                iterator.next();
             }
-            bbValueList.add(byteBuffer);
+            iterator.status();
+        } finally {
+            iterator.close();
         }
         return bbValueList;
     }
@@ -23,6 +23,7 @@ import org.apache.rocketmq.common.UtilAll;
 import org.apache.rocketmq.common.config.AbstractRocksDBStorage;
 import org.apache.rocketmq.common.utils.DataConverter;
 import org.apache.rocketmq.store.MessageStore;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -47,9 +48,12 @@ public class ConsumeQueueRocksDBStorage extends AbstractRocksDBStorage {
     private void initOptions() {
         this.options = RocksDBOptionsFactory.createDBOptions();
 
+        // Consume queue is rebuilt from commitlog after a crash, WAL is only for a faster restart. With manual WAL
+        // flush, an enabled WAL is buffered and flushed by flushWAL, unless writes are synced.
+        final MessageStoreConfig messageStoreConfig = this.messageStore.getMessageStoreConfig();
         this.writeOptions = new WriteOptions();
-        this.writeOptions.setSync(false);
-        this.writeOptions.setDisableWAL(true);
+        this.writeOptions.setSync(messageStoreConfig.isRocksDBCQWriteWALEnable() && messageStoreConfig.isRocksDBCQWriteSync());
+        this.writeOptions.setDisableWAL(!messageStoreConfig.isRocksDBCQWriteWALEnable());
         this.writeOptions.setNoSlowdown(true);
 
         this.totalOrderReadOptions = new ReadOptions();
@@ -123,6 +127,13 @@ public class ConsumeQueueRocksDBStorage extends AbstractRocksDBStorage {
         }
     }
 
+    public RocksIterator seekCQ() {
+        if (!hold()) {
+            throw new IllegalStateException("rocksDB:" + this + " is not ready");
+        }
+        return this.db.newIterator(this.defaultCFHandle, this.totalOrderReadOptions);
+    }
+
     public RocksIterator seekOffsetCF() {
         return this.db.newIterator(this.offsetCFHandle, this.totalOrderReadOptions);
     }
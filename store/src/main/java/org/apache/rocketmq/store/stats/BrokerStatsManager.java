@@ -18,6 +18,7 @@ package org.apache.rocketmq.store.stats;
 
 import java.util.HashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.rocketmq.common.BrokerConfig;
 import org.apache.rocketmq.common.ThreadFactoryImpl;
@@ -31,10 +32,13 @@ import org.apache.rocketmq.common.statistics.StatisticsItemScheduledPrinter;
 import org.apache.rocketmq.common.statistics.StatisticsItemStateGetter;
 import org.apache.rocketmq.common.statistics.StatisticsKindMeta;
 import org.apache.rocketmq.common.statistics.StatisticsManager;
+import org.apache.rocketmq.common.stats.LatencyHistogram;
+import org.apache.rocketmq.common.stats.LatencyHistogramSet;
 import org.apache.rocketmq.common.stats.MomentStatsItemSet;
 import org.apache.rocketmq.common.stats.Stats;
 import org.apache.rocketmq.common.stats.StatsItem;
 import org.apache.rocketmq.common.stats.StatsItemSet;
+import org.apache.rocketmq.common.stats.StatsItemSetSampler;
 import org.apache.rocketmq.common.topic.TopicValidator;
 import org.apache.rocketmq.common.utils.ThreadUtils;
 import org.apache.rocketmq.logging.org.slf4j.Logger;
@@ -122,6 +126,16 @@ public class BrokerStatsManager {
     public static final String CHANNEL_ACTIVITY_EXCEPTION = "EXCEPTION";
     public static final String CHANNEL_ACTIVITY_CLOSE = "CLOSE";
 
+    /**
+     * Stats keyed by topic, group or queue, whose cardinality follows the number of topics and groups and is bounded
+     * by the idle eviction and the max item num of the broker config
+     */
+    private static final String[] TOPIC_GROUP_KEYED_STATS = new String[] {
+        Stats.QUEUE_PUT_NUMS, Stats.QUEUE_PUT_SIZE, Stats.QUEUE_GET_NUMS, Stats.QUEUE_GET_SIZE,
+        Stats.TOPIC_PUT_NUMS, Stats.TOPIC_PUT_SIZE, Stats.GROUP_GET_NUMS, Stats.GROUP_GET_SIZE,
+        GROUP_ACK_NUMS, GROUP_CK_NUMS, Stats.GROUP_GET_LATENCY, TOPIC_PUT_LATENCY, Stats.SNDBCK_PUT_NUMS,
+        Stats.GROUP_GET_FROM_DISK_NUMS, Stats.GROUP_GET_FROM_DISK_SIZE};
+
     /**
      * read disk follow stats
      */
@@ -134,6 +148,8 @@ public class BrokerStatsManager {
     private ScheduledExecutorService scheduledExecutorService;
     private ScheduledExecutorService commercialExecutor;
     private ScheduledExecutorService accountExecutor;
+    private StatsItemSetSampler statsItemSetSampler;
+    private StatsItemSetSampler commercialStatsItemSetSampler;
 
     private final HashMap<String, StatsItemSet> statsTable = new HashMap<>();
     private final String clusterName;
@@ -141,6 +157,13 @@ public class BrokerStatsManager {
     private MomentStatsItemSet momentStatsItemSetFallSize;
     private MomentStatsItemSet momentStatsItemSetFallTime;
 
+    /**
+     * Put latency in milliseconds of the whole broker, and of every topic when the per-topic mode is enabled. The
+     * intervals are rolled every minute by the stats thread only.
+     */
+    private final LatencyHistogram brokerPutLatencyHistogram = new LatencyHistogram(TimeUnit.MINUTES.toMillis(1));
+    private LatencyHistogramSet topicPutLatencyHistograms;
+
     private final StatisticsManager accountStatManager = new StatisticsManager();
     private StateGetter produerStateGetter;
     private StateGetter consumerStateGetter;
@@ -163,6 +186,9 @@ public class BrokerStatsManager {
     }
 
     public void init() {
+        this.statsItemSetSampler = new StatsItemSetSampler(this.scheduledExecutorService);
+        this.commercialStatsItemSetSampler = new StatsItemSetSampler(this.commercialExecutor);
+
         momentStatsItemSetFallSize = new MomentStatsItemSet(GROUP_GET_FALL_SIZE,
             scheduledExecutorService, log);
 
@@ -170,62 +196,86 @@ public class BrokerStatsManager {
             scheduledExecutorService, log);
 
         if (enableQueueStat) {
-            this.statsTable.put(Stats.QUEUE_PUT_NUMS, new StatsItemSet(Stats.QUEUE_PUT_NUMS, this.scheduledExecutorService, log));
-            this.statsTable.put(Stats.QUEUE_PUT_SIZE, new StatsItemSet(Stats.QUEUE_PUT_SIZE, this.scheduledExecutorService, log));
-            this.statsTable.put(Stats.QUEUE_GET_NUMS, new StatsItemSet(Stats.QUEUE_GET_NUMS, this.scheduledExecutorService, log));
-            this.statsTable.put(Stats.QUEUE_GET_SIZE, new StatsItemSet(Stats.QUEUE_GET_SIZE, this.scheduledExecutorService, log));
+            this.statsTable.put(Stats.QUEUE_PUT_NUMS, createStatsItemSet(Stats.QUEUE_PUT_NUMS, this.scheduledExecutorService, log));
+            this.statsTable.put(Stats.QUEUE_PUT_SIZE, createStatsItemSet(Stats.QUEUE_PUT_SIZE, this.scheduledExecutorService, log));
+            this.statsTable.put(Stats.QUEUE_GET_NUMS, createStatsItemSet(Stats.QUEUE_GET_NUMS, this.scheduledExecutorService, log));
+            this.statsTable.put(Stats.QUEUE_GET_SIZE, createStatsItemSet(Stats.QUEUE_GET_SIZE, this.scheduledExecutorService, log));
         }
-        this.statsTable.put(Stats.TOPIC_PUT_NUMS, new StatsItemSet(Stats.TOPIC_PUT_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.TOPIC_PUT_SIZE, new StatsItemSet(Stats.TOPIC_PUT_SIZE, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.GROUP_GET_NUMS, new StatsItemSet(Stats.GROUP_GET_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.GROUP_GET_SIZE, new StatsItemSet(Stats.GROUP_GET_SIZE, this.scheduledExecutorService, log));
-        this.statsTable.put(GROUP_ACK_NUMS, new StatsItemSet(GROUP_ACK_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(GROUP_CK_NUMS, new StatsItemSet(GROUP_CK_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.GROUP_GET_LATENCY, new StatsItemSet(Stats.GROUP_GET_LATENCY, this.scheduledExecutorService, log));
-        this.statsTable.put(TOPIC_PUT_LATENCY, new StatsItemSet(TOPIC_PUT_LATENCY, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.SNDBCK_PUT_NUMS, new StatsItemSet(Stats.SNDBCK_PUT_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(DLQ_PUT_NUMS, new StatsItemSet(DLQ_PUT_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.BROKER_PUT_NUMS, new StatsItemSet(Stats.BROKER_PUT_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(Stats.BROKER_GET_NUMS, new StatsItemSet(Stats.BROKER_GET_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(BROKER_ACK_NUMS, new StatsItemSet(BROKER_ACK_NUMS, this.scheduledExecutorService, log));
-        this.statsTable.put(BROKER_CK_NUMS, new StatsItemSet(BROKER_CK_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.TOPIC_PUT_NUMS, createStatsItemSet(Stats.TOPIC_PUT_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.TOPIC_PUT_SIZE, createStatsItemSet(Stats.TOPIC_PUT_SIZE, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.GROUP_GET_NUMS, createStatsItemSet(Stats.GROUP_GET_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.GROUP_GET_SIZE, createStatsItemSet(Stats.GROUP_GET_SIZE, this.scheduledExecutorService, log));
+        this.statsTable.put(GROUP_ACK_NUMS, createStatsItemSet(GROUP_ACK_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(GROUP_CK_NUMS, createStatsItemSet(GROUP_CK_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.GROUP_GET_LATENCY, createStatsItemSet(Stats.GROUP_GET_LATENCY, this.scheduledExecutorService, log));
+        this.statsTable.put(TOPIC_PUT_LATENCY, createStatsItemSet(TOPIC_PUT_LATENCY, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.SNDBCK_PUT_NUMS, createStatsItemSet(Stats.SNDBCK_PUT_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(DLQ_PUT_NUMS, createStatsItemSet(DLQ_PUT_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.BROKER_PUT_NUMS, createStatsItemSet(Stats.BROKER_PUT_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(Stats.BROKER_GET_NUMS, createStatsItemSet(Stats.BROKER_GET_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(BROKER_ACK_NUMS, createStatsItemSet(BROKER_ACK_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(BROKER_CK_NUMS, createStatsItemSet(BROKER_CK_NUMS, this.scheduledExecutorService, log));
         this.statsTable.put(BROKER_GET_NUMS_WITHOUT_SYSTEM_TOPIC,
-            new StatsItemSet(BROKER_GET_NUMS_WITHOUT_SYSTEM_TOPIC, this.scheduledExecutorService, log));
+            createStatsItemSet(BROKER_GET_NUMS_WITHOUT_SYSTEM_TOPIC, this.scheduledExecutorService, log));
         this.statsTable.put(BROKER_PUT_NUMS_WITHOUT_SYSTEM_TOPIC,
-            new StatsItemSet(BROKER_PUT_NUMS_WITHOUT_SYSTEM_TOPIC, this.scheduledExecutorService, log));
+            createStatsItemSet(BROKER_PUT_NUMS_WITHOUT_SYSTEM_TOPIC, this.scheduledExecutorService, log));
         this.statsTable.put(Stats.GROUP_GET_FROM_DISK_NUMS,
-            new StatsItemSet(Stats.GROUP_GET_FROM_DISK_NUMS, this.scheduledExecutorService, log));
+            createStatsItemSet(Stats.GROUP_GET_FROM_DISK_NUMS, this.scheduledExecutorService, log));
         this.statsTable.put(Stats.GROUP_GET_FROM_DISK_SIZE,
-            new StatsItemSet(Stats.GROUP_GET_FROM_DISK_SIZE, this.scheduledExecutorService, log));
+            createStatsItemSet(Stats.GROUP_GET_FROM_DISK_SIZE, this.scheduledExecutorService, log));
         this.statsTable.put(Stats.BROKER_GET_FROM_DISK_NUMS,
-            new StatsItemSet(Stats.BROKER_GET_FROM_DISK_NUMS, this.scheduledExecutorService, log));
+            createStatsItemSet(Stats.BROKER_GET_FROM_DISK_NUMS, this.scheduledExecutorService, log));
         this.statsTable.put(Stats.BROKER_GET_FROM_DISK_SIZE,
-            new StatsItemSet(Stats.BROKER_GET_FROM_DISK_SIZE, this.scheduledExecutorService, log));
+            createStatsItemSet(Stats.BROKER_GET_FROM_DISK_SIZE, this.scheduledExecutorService, log));
 
         this.statsTable.put(SNDBCK2DLQ_TIMES,
-            new StatsItemSet(SNDBCK2DLQ_TIMES, this.scheduledExecutorService, DLQ_STAT_LOG));
+            createStatsItemSet(SNDBCK2DLQ_TIMES, this.scheduledExecutorService, DLQ_STAT_LOG));
 
         this.statsTable.put(Stats.COMMERCIAL_SEND_TIMES,
-            new StatsItemSet(Stats.COMMERCIAL_SEND_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_SEND_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_RCV_TIMES,
-            new StatsItemSet(Stats.COMMERCIAL_RCV_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_RCV_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_SEND_SIZE,
-            new StatsItemSet(Stats.COMMERCIAL_SEND_SIZE, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_SEND_SIZE, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_RCV_SIZE,
-            new StatsItemSet(Stats.COMMERCIAL_RCV_SIZE, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_RCV_SIZE, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_RCV_EPOLLS,
-            new StatsItemSet(Stats.COMMERCIAL_RCV_EPOLLS, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_RCV_EPOLLS, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_SNDBCK_TIMES,
-            new StatsItemSet(Stats.COMMERCIAL_SNDBCK_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_SNDBCK_TIMES, this.commercialExecutor, COMMERCIAL_LOG));
         this.statsTable.put(Stats.COMMERCIAL_PERM_FAILURES,
-            new StatsItemSet(Stats.COMMERCIAL_PERM_FAILURES, this.commercialExecutor, COMMERCIAL_LOG));
+            createStatsItemSet(Stats.COMMERCIAL_PERM_FAILURES, this.commercialExecutor, COMMERCIAL_LOG));
 
         this.statsTable.put(CONSUMER_REGISTER_TIME,
-            new StatsItemSet(CONSUMER_REGISTER_TIME, this.scheduledExecutorService, log));
+            createStatsItemSet(CONSUMER_REGISTER_TIME, this.scheduledExecutorService, log));
         this.statsTable.put(PRODUCER_REGISTER_TIME,
-            new StatsItemSet(PRODUCER_REGISTER_TIME, this.scheduledExecutorService, log));
+            createStatsItemSet(PRODUCER_REGISTER_TIME, this.scheduledExecutorService, log));
+
+        this.statsTable.put(CHANNEL_ACTIVITY, createStatsItemSet(CHANNEL_ACTIVITY, this.scheduledExecutorService, log));
+
+        this.statsItemSetSampler.start();
+        this.commercialStatsItemSetSampler.start();
+        if (brokerConfig != null) {
+            for (String statsName : TOPIC_GROUP_KEYED_STATS) {
+                StatsItemSet statsItemSet = this.statsTable.get(statsName);
+                if (statsItemSet != null) {
+                    statsItemSet.setItemIdleTimeoutMillis(brokerConfig.getStatsItemIdleTimeoutMillis());
+                    statsItemSet.setMaxItemNum(brokerConfig.getStatsItemMaxNumPerSet());
+                }
+            }
+        }
 
-        this.statsTable.put(CHANNEL_ACTIVITY, new StatsItemSet(CHANNEL_ACTIVITY, this.scheduledExecutorService, log));
+        if (brokerConfig != null && brokerConfig.isEnableTopicLatencyHistogram()) {
+            this.topicPutLatencyHistograms = new LatencyHistogramSet(TOPIC_PUT_LATENCY,
+                brokerConfig.getTopicLatencyHistogramMaxNum(), TimeUnit.MINUTES.toMillis(1));
+        }
+        this.scheduledExecutorService.scheduleAtFixedRate(() -> {
+            try {
+                rollPutLatencyInterval();
+            } catch (Throwable e) {
+                log.error("roll put latency interval error", e);
+            }
+        }, 1, 1, TimeUnit.MINUTES);
 
         StatisticsItemFormatter formatter = new StatisticsItemFormatter();
         accountStatManager.setBriefMeta(new Pair[] {
@@ -279,6 +329,26 @@ public class BrokerStatsManager {
         });
     }
 
+    /**
+     * The returned set is sampled together with the other sets of the same executor by one set of scheduled tasks
+     */
+    private StatsItemSet createStatsItemSet(String statsName, ScheduledExecutorService executor, Logger logger) {
+        StatsItemSet statsItemSet = new StatsItemSet(statsName, executor, logger, false);
+        if (executor == this.commercialExecutor) {
+            this.commercialStatsItemSetSampler.register(statsItemSet);
+        } else {
+            this.statsItemSetSampler.register(statsItemSet);
+        }
+        return statsItemSet;
+    }
+
+    private void rollPutLatencyInterval() {
+        this.brokerPutLatencyHistogram.rollInterval();
+        if (this.topicPutLatencyHistograms != null) {
+            this.topicPutLatencyHistograms.rollInterval();
+        }
+    }
+
     private void initScheduleService() {
         this.scheduledExecutorService =
             ThreadUtils.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("BrokerStatsThread", true, brokerConfig));
@@ -342,6 +412,9 @@ public class BrokerStatsManager {
         this.statsTable.get(Stats.QUEUE_GET_SIZE).delValueByPrefixKey(topic, "@");
         this.statsTable.get(Stats.SNDBCK_PUT_NUMS).delValueByPrefixKey(topic, "@");
         this.statsTable.get(Stats.GROUP_GET_LATENCY).delValueByInfixKey(topic, "@");
+        if (this.topicPutLatencyHistograms != null) {
+            this.topicPutLatencyHistograms.removeHistogram(topic);
+        }
         this.momentStatsItemSetFallSize.delValueByInfixKey(topic, "@");
         this.momentStatsItemSetFallTime.delValueByInfixKey(topic, "@");
     }
@@ -428,18 +501,15 @@ public class BrokerStatsManager {
     }
 
     public void incGroupGetNums(final String group, final String topic, final int incValue) {
-        final String statsKey = buildStatsKey(topic, group);
-        this.statsTable.get(Stats.GROUP_GET_NUMS).addValue(statsKey, incValue, 1);
+        this.statsTable.get(Stats.GROUP_GET_NUMS).addValue(topic, group, incValue, 1);
     }
 
     public void incGroupCkNums(final String group, final String topic, final int incValue) {
-        final String statsKey = buildStatsKey(topic, group);
-        this.statsTable.get(GROUP_CK_NUMS).addValue(statsKey, incValue, 1);
+        this.statsTable.get(GROUP_CK_NUMS).addValue(topic, group, incValue, 1);
     }
 
     public void incGroupAckNums(final String group, final String topic, final int incValue) {
-        final String statsKey = buildStatsKey(topic, group);
-        this.statsTable.get(GROUP_ACK_NUMS).addValue(statsKey, incValue, 1);
+        this.statsTable.get(GROUP_ACK_NUMS).addValue(topic, group, incValue, 1);
     }
 
     public String buildStatsKey(String topic, String group) {
@@ -487,29 +557,34 @@ public class BrokerStatsManager {
     }
 
     public void incGroupGetSize(final String group, final String topic, final int incValue) {
-        final String statsKey = buildStatsKey(topic, group);
-        this.statsTable.get(Stats.GROUP_GET_SIZE).addValue(statsKey, incValue, 1);
+        this.statsTable.get(Stats.GROUP_GET_SIZE).addValue(topic, group, incValue, 1);
     }
 
     public void incGroupGetLatency(final String group, final String topic, final int queueId, final int incValue) {
-        String statsKey;
         if (enableQueueStat) {
-            statsKey = buildStatsKey(queueId, topic, group);
+            this.statsTable.get(Stats.GROUP_GET_LATENCY).addRTValue(queueId, topic, group, incValue, 1);
         } else {
-            statsKey = buildStatsKey(topic, group);
+            this.statsTable.get(Stats.GROUP_GET_LATENCY).addRTValue(topic, group, incValue, 1);
         }
-        this.statsTable.get(Stats.GROUP_GET_LATENCY).addRTValue(statsKey, incValue, 1);
     }
 
     public void incTopicPutLatency(final String topic, final int queueId, final int incValue) {
-        StringBuilder statsKey;
-        if (topic != null) {
-            statsKey = new StringBuilder(topic.length() + 6);
-        } else {
-            statsKey = new StringBuilder(6);
+        this.statsTable.get(TOPIC_PUT_LATENCY).addValue(queueId, topic, incValue, 1);
+        this.brokerPutLatencyHistogram.record(incValue);
+        if (this.topicPutLatencyHistograms != null && topic != null) {
+            this.topicPutLatencyHistograms.record(topic, incValue);
         }
-        statsKey.append(queueId).append("@").append(topic);
-        this.statsTable.get(TOPIC_PUT_LATENCY).addValue(statsKey.toString(), incValue, 1);
+    }
+
+    public LatencyHistogram getBrokerPutLatencyHistogram() {
+        return brokerPutLatencyHistogram;
+    }
+
+    /**
+     * @return per-topic put latency histograms, or null if the per-topic mode is disabled
+     */
+    public LatencyHistogramSet getTopicPutLatencyHistograms() {
+        return topicPutLatencyHistograms;
     }
 
     public void incBrokerPutNums() {
@@ -573,8 +648,7 @@ public class BrokerStatsManager {
     }
 
     public void incSendBackNums(final String group, final String topic) {
-        final String statsKey = buildStatsKey(topic, group);
-        this.statsTable.get(Stats.SNDBCK_PUT_NUMS).addValue(statsKey, 1, 1);
+        this.statsTable.get(Stats.SNDBCK_PUT_NUMS).addValue(topic, group, 1, 1);
     }
 
     public double tpsGroupGetNums(final String group, final String topic) {
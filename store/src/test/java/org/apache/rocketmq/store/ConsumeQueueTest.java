@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.rocketmq.common.BoundaryType;
 import org.apache.rocketmq.common.BrokerConfig;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.UtilAll;
@@ -37,6 +38,7 @@ import org.apache.rocketmq.common.message.MessageExtBrokerInner;
 import org.apache.rocketmq.store.config.MessageStoreConfig;
 import org.apache.rocketmq.store.queue.ConsumeQueueInterface;
 import org.apache.rocketmq.store.queue.CqUnit;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
 import org.apache.rocketmq.store.queue.ReferredIterator;
 import org.apache.rocketmq.store.stats.BrokerStatsManager;
 import org.awaitility.Awaitility;
@@ -458,6 +460,48 @@ public class ConsumeQueueTest {
         }
     }
 
+    @Test
+    public void testDispatchedOffsetAfterLmqEntries() {
+        String topic = "T1";
+        int queueId = 0;
+        MessageStoreConfig storeConfig = new MessageStoreConfig();
+        File tmpDir = new File(System.getProperty("java.io.tmpdir"), "test_dispatched_offset_after_lmq");
+        tmpDir.deleteOnExit();
+        storeConfig.setStorePathRootDir(tmpDir.getAbsolutePath());
+        storeConfig.setEnableConsumeQueueExt(false);
+        storeConfig.setEnableMultiDispatch(true);
+        storeConfig.setEnableLmq(true);
+        DefaultMessageStore messageStore = Mockito.mock(DefaultMessageStore.class);
+        Mockito.when(messageStore.getMessageStoreConfig()).thenReturn(storeConfig);
+        Mockito.when(messageStore.getRunningFlags()).thenReturn(new RunningFlags());
+
+        ConsumeQueue consumeQueue = new ConsumeQueue(topic, queueId, storeConfig.getStorePathRootDir(),
+            storeConfig.getMappedFileSizeConsumeQueue(), messageStore);
+        ConsumeQueue lmqConsumeQueue = new ConsumeQueue("%LMQ%123", 0, storeConfig.getStorePathRootDir(),
+            storeConfig.getMappedFileSizeConsumeQueue(), messageStore);
+        Mockito.when(messageStore.findConsumeQueue("%LMQ%123", 0)).thenReturn(lmqConsumeQueue);
+
+        // the lmq entry has to be visible by the time the dispatched offset is published
+        StoreCheckpoint storeCheckpoint = Mockito.mock(StoreCheckpoint.class);
+        Mockito.when(messageStore.getStoreCheckpoint()).thenReturn(storeCheckpoint);
+        Mockito.doAnswer(invocation -> {
+            assertThat(lmqConsumeQueue.getMaxOffsetInQueue()).isEqualTo(1);
+            return null;
+        }).when(storeCheckpoint).setDispatchedLogicsMsgPhyOffset(Mockito.anyLong());
+
+        Map<String, String> properties = new ConcurrentHashMap<>();
+        properties.put(MessageConst.PROPERTY_INNER_MULTI_DISPATCH, "%LMQ%123");
+        properties.put(MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET, "0");
+        DispatchRequest dispatchRequest = new DispatchRequest(topic, queueId, 0, 100, 0, 0, 0, null, null, 0, 0, properties);
+        try {
+            consumeQueue.putMessagePositionInfoWrapper(dispatchRequest);
+            Mockito.verify(storeCheckpoint).setDispatchedLogicsMsgPhyOffset(100);
+        } finally {
+            consumeQueue.destroy();
+            lmqConsumeQueue.destroy();
+        }
+    }
+
     @Test
     public void testCorrectMinOffset() {
         String topic = "T1";
@@ -503,4 +547,120 @@ public class ConsumeQueueTest {
         Assert.assertEquals(max * ConsumeQueue.CQ_STORE_UNIT_SIZE, consumeQueue.getMinLogicOffset());
         consumeQueue.destroy();
     }
+
+    @Test
+    public void testOffsetInQueueByTimeWithTimeIndex() {
+        String topic = "T1";
+        int queueId = 0;
+        File tmpDir = new File(System.getProperty("java.io.tmpdir"), "test_cq_time_index");
+        MessageStoreConfig storeConfig = new MessageStoreConfig();
+        storeConfig.setStorePathRootDir(tmpDir.getAbsolutePath());
+        storeConfig.setMappedFileSizeConsumeQueue(1000 * ConsumeQueue.CQ_STORE_UNIT_SIZE);
+        storeConfig.setConsumeQueueTimeIndexInterval(16);
+
+        int messageSize = 100;
+        // three messages share every store timestamp
+        CommitLog commitLog = Mockito.mock(CommitLog.class);
+        Mockito.when(commitLog.pickupStoreTimestamp(Mockito.anyLong(), Mockito.anyInt()))
+            .thenAnswer(invocation -> 1000L + (long) invocation.getArgument(0) / messageSize / 3 * 10);
+
+        DefaultMessageStore messageStore = Mockito.mock(DefaultMessageStore.class);
+        Mockito.when(messageStore.getMessageStoreConfig()).thenReturn(storeConfig);
+        Mockito.when(messageStore.getRunningFlags()).thenReturn(new RunningFlags());
+        Mockito.when(messageStore.getStoreCheckpoint()).thenReturn(Mockito.mock(StoreCheckpoint.class));
+        Mockito.when(messageStore.getCommitLog()).thenReturn(commitLog);
+
+        ConsumeQueue plainQueue = new ConsumeQueue(topic, queueId, new File(tmpDir, "plain").getAbsolutePath(),
+            storeConfig.getMappedFileSizeConsumeQueue(), messageStore);
+        storeConfig.setEnableConsumeQueueTimeIndex(true);
+        ConsumeQueue indexedQueue = new ConsumeQueue(topic, queueId, new File(tmpDir, "indexed").getAbsolutePath(),
+            storeConfig.getMappedFileSizeConsumeQueue(), messageStore);
+        try {
+            int max = 3500;
+            for (int i = 0; i < max; ++i) {
+                long storeTimestamp = 1000L + i / 3 * 10;
+                DispatchRequest dispatchRequest = new DispatchRequest(topic, queueId, (long) messageSize * i, messageSize,
+                    0, storeTimestamp, i, null, null, 0, 0, null);
+                plainQueue.putMessagePositionInfoWrapper(dispatchRequest);
+                indexedQueue.putMessagePositionInfoWrapper(dispatchRequest);
+            }
+
+            for (long timestamp = 995L; timestamp <= 1000L + max / 3 * 10 + 5; timestamp += 5) {
+                for (BoundaryType boundaryType : BoundaryType.values()) {
+                    Assert.assertEquals("timestamp " + timestamp + " " + boundaryType,
+                        plainQueue.getOffsetInQueueByTime(timestamp, boundaryType),
+                        indexedQueue.getOffsetInQueueByTime(timestamp, boundaryType));
+                }
+            }
+
+            // the time index saves commit log reads of the binary search
+            long timestamp = 1000L + max / 3 * 5 + 5;
+            Mockito.clearInvocations(commitLog);
+            plainQueue.getOffsetInQueueByTime(timestamp, BoundaryType.LOWER);
+            int plainReads = Mockito.mockingDetails(commitLog).getInvocations().size();
+            Mockito.clearInvocations(commitLog);
+            indexedQueue.getOffsetInQueueByTime(timestamp, BoundaryType.LOWER);
+            int indexedReads = Mockito.mockingDetails(commitLog).getInvocations().size();
+            assertThat(indexedReads).isLessThan(plainReads);
+        } finally {
+            plainQueue.destroy();
+            indexedQueue.destroy();
+            UtilAll.deleteFile(tmpDir);
+        }
+    }
+
+    @Test
+    public void testReadUnitsMatchIterateFrom() {
+        String topic = "T1";
+        int queueId = 0;
+        File tmpDir = new File(System.getProperty("java.io.tmpdir"), "test_cq_read_units");
+        MessageStoreConfig storeConfig = new MessageStoreConfig();
+        storeConfig.setStorePathRootDir(tmpDir.getAbsolutePath());
+        storeConfig.setMappedFileSizeConsumeQueue(100 * ConsumeQueue.CQ_STORE_UNIT_SIZE);
+
+        DefaultMessageStore messageStore = Mockito.mock(DefaultMessageStore.class);
+        Mockito.when(messageStore.getMessageStoreConfig()).thenReturn(storeConfig);
+        Mockito.when(messageStore.getRunningFlags()).thenReturn(new RunningFlags());
+        Mockito.when(messageStore.getStoreCheckpoint()).thenReturn(Mockito.mock(StoreCheckpoint.class));
+
+        ConsumeQueue consumeQueue = new ConsumeQueue(topic, queueId, tmpDir.getAbsolutePath(),
+            storeConfig.getMappedFileSizeConsumeQueue(), messageStore);
+        try {
+            int max = 250;
+            for (int i = 0; i < max; ++i) {
+                DispatchRequest dispatchRequest = new DispatchRequest(topic, queueId, 100L * i, 100 + i,
+                    i * 7L, System.currentTimeMillis(), i, null, null, 0, 0, null);
+                consumeQueue.putMessagePositionInfoWrapper(dispatchRequest);
+            }
+
+            CqUnitBatch batch = new CqUnitBatch(4);
+            for (long start : new long[] {0, 42, 99, 100, 180, 249}) {
+                assertThat(consumeQueue.readUnits(start, 32, batch)).isTrue();
+                ReferredIterator<CqUnit> it = consumeQueue.iterateFrom(start);
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        CqUnit cqUnit = it.next();
+                        assertThat(batch.getQueueOffset(i)).isEqualTo(cqUnit.getQueueOffset());
+                        assertThat(batch.getPos(i)).isEqualTo(cqUnit.getPos());
+                        assertThat(batch.getSize(i)).isEqualTo(cqUnit.getSize());
+                        assertThat(batch.getTagsCode(i)).isEqualTo(cqUnit.getTagsCode());
+                        assertThat(batch.getBatchNum(i)).isEqualTo(cqUnit.getBatchNum());
+                    }
+                    // a batch never crosses the logic file, hasMore tells whether the file has more units
+                    assertThat(batch.hasMore()).isEqualTo(it.hasNext());
+                    assertThat(batch.size()).isEqualTo((int) Math.min(32, Math.min(100 - start % 100, max - start)));
+                } finally {
+                    it.release();
+                }
+            }
+
+            // nothing readable at the tail, the same as a null iterator
+            assertThat(consumeQueue.iterateFrom(max)).isNull();
+            assertThat(consumeQueue.readUnits(max, 32, batch)).isFalse();
+            assertThat(batch.isEmpty()).isTrue();
+        } finally {
+            consumeQueue.destroy();
+            UtilAll.deleteFile(tmpDir);
+        }
+    }
 }
@@ -176,6 +176,40 @@ public class DefaultMessageStoreTest {
         verifyThatMasterIsFunctional(totalMsgs, messageStore);
     }
 
+    @Test
+    public void testGetMessageSlicesAdjacentMessagesFromOneWindow() {
+        final int totalCount = 10;
+        int queueId = 0;
+        String topic = "FooBar";
+        putMessages(totalCount, topic, queueId);
+        StoreTestUtil.waitCommitLogReput((DefaultMessageStore) messageStore);
+
+        ReferenceResource mappedFile = (ReferenceResource) ((DefaultMessageStore) messageStore).getCommitLog().getMappedFileQueue().getFirstMappedFile();
+        long refCount = mappedFile.getRefCount();
+
+        GetMessageResult result = messageStore.getMessage("GROUP_A", topic, queueId, 0, 32, null);
+        assertThat(result.getStatus()).isEqualTo(GetMessageStatus.FOUND);
+        assertThat(result.getMessageBufferList()).hasSize(totalCount);
+        // the mapped file is held once for the whole pull
+        assertThat(mappedFile.getRefCount()).isEqualTo(refCount + 1);
+        // adjacent messages are transferred as one buffer
+        assertThat(result.getMessageTransferBufferList()).hasSize(1);
+        assertThat(result.getMessageTransferBufferList().get(0).remaining()).isEqualTo(result.getBufferTotalSize());
+        for (int i = 0; i < totalCount; i++) {
+            MessageExt messageExt = MessageDecoder.decode(result.getMessageBufferList().get(i));
+            assertThat(messageExt.getQueueOffset()).isEqualTo(i);
+        }
+
+        // releasing the messages one by one releases the window with the last of them
+        for (SelectMappedBufferResult selectResult : result.getMessageMapedList()) {
+            assertThat(mappedFile.getRefCount()).isEqualTo(refCount + 1);
+            selectResult.release();
+        }
+        assertThat(mappedFile.getRefCount()).isEqualTo(refCount);
+        result.release();
+        assertThat(mappedFile.getRefCount()).isEqualTo(refCount);
+    }
+
     @Test
     public void testLookMessageByOffset_OffsetIsFirst() {
         final int totalCount = 10;
@@ -721,6 +755,67 @@ public class DefaultMessageStoreTest {
         }
     }
 
+    @Test
+    public void testRecoverAbnormallyConcurrently() throws Exception {
+        String topic = "recoverConcurrentlyTopic";
+        messageBody = storeMessage.getBytes();
+        String storeRootDir = System.getProperty("java.io.tmpdir") + File.separator + "store-" + UUID.randomUUID();
+        messageStore.shutdown();
+        messageStore.destroy();
+        messageStore = buildMessageStore(storeRootDir, true);
+        assertTrue(messageStore.load());
+        messageStore.start();
+
+        for (int i = 0; i < 1000; i++) {
+            MessageExtBrokerInner messageExtBrokerInner = buildMessage();
+            messageExtBrokerInner.setTopic(topic);
+            messageExtBrokerInner.setQueueId(i % 4);
+            messageStore.putMessage(messageExtBrokerInner);
+        }
+        StoreTestUtil.waitCommitLogReput((DefaultMessageStore) messageStore);
+        long maxPhyOffset = messageStore.getMaxPhyOffset();
+        long[] maxCqOffsets = new long[4];
+        for (int i = 0; i < maxCqOffsets.length; i++) {
+            maxCqOffsets[i] = messageStore.getMaxOffsetInQueue(topic, i);
+        }
+        messageStore.shutdown();
+
+        StoreCheckpoint storeCheckpoint = new StoreCheckpoint(StorePathConfigHelper.getStoreCheckpoint(storeRootDir));
+        assertThat(storeCheckpoint.getMinPhyOffset(false)).isGreaterThan(0L).isLessThanOrEqualTo(maxPhyOffset);
+        storeCheckpoint.shutdown();
+
+        //add abort file
+        File file = new File(StorePathConfigHelper.getAbortFile(storeRootDir));
+        UtilAll.ensureDirOK(file.getParent());
+        file.createNewFile();
+
+        messageStore = buildMessageStore(storeRootDir, true);
+        assertTrue(messageStore.load());
+        messageStore.start();
+        assertEquals(maxPhyOffset, messageStore.getMaxPhyOffset());
+        for (int i = 0; i < maxCqOffsets.length; i++) {
+            assertEquals(maxCqOffsets[i], messageStore.getMaxOffsetInQueue(topic, i));
+        }
+    }
+
+    private MessageStore buildMessageStore(String storePathRootDir, boolean recoverConcurrently) throws Exception {
+        MessageStoreConfig messageStoreConfig = new MessageStoreConfig();
+        messageStoreConfig.setMappedFileSizeCommitLog(1024 * 16);
+        messageStoreConfig.setMappedFileSizeConsumeQueue(1024 * 1024);
+        messageStoreConfig.setMaxHashSlotNum(10000);
+        messageStoreConfig.setMaxIndexNum(100 * 100);
+        messageStoreConfig.setFlushDiskType(FlushDiskType.SYNC_FLUSH);
+        messageStoreConfig.setFlushIntervalConsumeQueue(1);
+        messageStoreConfig.setHaListenPort(0);
+        messageStoreConfig.setEnableRecoverCommitLogConcurrently(recoverConcurrently);
+        messageStoreConfig.setRecoverCommitLogThreadPoolNums(4);
+        messageStoreConfig.setStorePathRootDir(storePathRootDir);
+        return new DefaultMessageStore(messageStoreConfig,
+            new BrokerStatsManager("simpleTest", true),
+            new MyMessageArrivingListener(),
+            new BrokerConfig(), new ConcurrentHashMap<>());
+    }
+
     @Test
     public void testStorePathOK() {
         if (messageStore instanceof DefaultMessageStore) {
@@ -16,8 +16,11 @@
  */
 package org.apache.rocketmq.store;
 
+import java.nio.ByteBuffer;
+import org.apache.rocketmq.store.logfile.MappedFile;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 public class GetMessageResultTest {
 
@@ -40,4 +43,33 @@ public class GetMessageResultTest {
         Assert.assertEquals(getMessageResult.getMsgCount4Commercial(), 1 + 2 + 4);
         Assert.assertEquals(getMessageResult.getBufferTotalSize(), (1 + 2 + 4) * 4 * 1024);
     }
+
+    @Test
+    public void testAddMessageSlicedFromWindow() {
+        MappedFile mappedFile = Mockito.mock(MappedFile.class);
+        SelectMappedBufferWindow window = new SelectMappedBufferWindow(
+            new SelectMappedBufferResult(1000, ByteBuffer.allocate(100), 100, mappedFile));
+        Assert.assertNull(window.slice(990, 10));
+        Assert.assertNull(window.slice(1090, 20));
+
+        GetMessageResult getMessageResult = new GetMessageResult();
+        getMessageResult.addMessage(window.slice(1000, 10), 0);
+        getMessageResult.addMessage(window.slice(1010, 20), 1);
+        // a gap left by a filtered message starts a new run
+        getMessageResult.addMessage(window.slice(1040, 30), 3);
+        getMessageResult.addMessage(new SelectMappedBufferResult(2000, ByteBuffer.allocate(5), 5, null), 4);
+        window.release();
+
+        Assert.assertEquals(4, getMessageResult.getMessageBufferList().size());
+        Assert.assertEquals(3, getMessageResult.getMessageTransferBufferList().size());
+        Assert.assertEquals(30, getMessageResult.getMessageTransferBufferList().get(0).remaining());
+        Assert.assertEquals(30, getMessageResult.getMessageTransferBufferList().get(1).remaining());
+        Assert.assertEquals(5, getMessageResult.getMessageTransferBufferList().get(2).remaining());
+        Assert.assertEquals(10 + 20 + 30 + 5, getMessageResult.getBufferTotalSize());
+
+        Assert.assertEquals(3, window.getRefCount());
+        getMessageResult.release();
+        Assert.assertEquals(0, window.getRefCount());
+        Mockito.verify(mappedFile, Mockito.times(1)).release();
+    }
 }
@@ -28,6 +28,7 @@ import org.apache.rocketmq.common.message.MessageConst;
 import org.apache.rocketmq.common.message.MessageDecoder;
 import org.apache.rocketmq.common.message.MessageExtBrokerInner;
 import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.apache.rocketmq.store.queue.MultiDispatchTargets;
 import org.apache.rocketmq.store.queue.MultiDispatchUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -35,6 +36,8 @@ import org.junit.Test;
 import org.rocksdb.RocksDBException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -83,6 +86,43 @@ public class MultiDispatchTest {
         assertEquals(messageExtBrokerInner.getProperty(MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET), "0,0");
     }
 
+    @Test
+    public void updateMultiQueueOffset() {
+        MessageExtBrokerInner messageExtBrokerInner = buildMessageMultiQueue();
+        multiDispatch.wrapMultiDispatch(messageExtBrokerInner);
+        multiDispatch.updateMultiQueueOffset(messageExtBrokerInner);
+        assertEquals(1L, messageStore.getQueueStore().getLmqQueueOffset("%LMQ%123-0"));
+        assertEquals(1L, messageStore.getQueueStore().getLmqQueueOffset("%LMQ%456-0"));
+
+        MessageExtBrokerInner next = buildMessageMultiQueue();
+        multiDispatch.wrapMultiDispatch(next);
+        assertEquals("1,1", next.getProperty(MessageConst.PROPERTY_INNER_MULTI_QUEUE_OFFSET));
+    }
+
+    @Test
+    public void parseMultiDispatchTargets() {
+        MultiDispatchTargets targets = new MultiDispatchTargets();
+        assertFalse(targets.parse("", true));
+        assertTrue(targets.parse("%LMQ%123,test" + File.separator + "a,normal", true));
+        assertEquals(3, targets.size());
+        assertEquals("%LMQ%123-0", targets.getLmqQueueKey(0));
+        assertEquals(0, targets.getQueueId(0, 3));
+        assertFalse(targets.isValidQueue(1));
+        assertFalse(targets.isLmq(2));
+        assertEquals(3, targets.getQueueId(2, 3));
+
+        assertTrue(targets.parseOffsets("5,,7"));
+        assertEquals(5L, targets.getQueueOffset(0));
+        assertEquals(-1L, targets.getQueueOffset(1));
+        assertEquals(7L, targets.getQueueOffset(2));
+        assertFalse(targets.parseOffsets("5,7"));
+        assertFalse(targets.parseOffsets("5,6,7,8"));
+        assertFalse(targets.parseOffsets("5,a,7"));
+
+        assertTrue(targets.parse("%LMQ%123,normal", false));
+        assertFalse(targets.isLmq(0));
+    }
+
     private MessageExtBrokerInner buildMessageMultiQueue() {
         MessageExtBrokerInner msg = new MessageExtBrokerInner();
         msg.setTopic("test");
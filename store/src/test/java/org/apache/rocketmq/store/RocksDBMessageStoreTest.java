@@ -147,6 +147,10 @@ public class RocksDBMessageStoreTest {
     }
 
     private MessageStore buildMessageStore(String storePathRootDir, String topic) throws Exception {
+        return buildMessageStore(storePathRootDir, topic, false);
+    }
+
+    private MessageStore buildMessageStore(String storePathRootDir, String topic, boolean asyncCQWrite) throws Exception {
         MessageStoreConfig messageStoreConfig = new MessageStoreConfig();
         messageStoreConfig.setMappedFileSizeCommitLog(1024 * 1024 * 10);
         messageStoreConfig.setMappedFileSizeConsumeQueue(1024 * 1024 * 10);
@@ -156,6 +160,7 @@ public class RocksDBMessageStoreTest {
         messageStoreConfig.setFlushIntervalConsumeQueue(1);
         messageStoreConfig.setStoreType(storeType);
         messageStoreConfig.setHaListenPort(0);
+        messageStoreConfig.setEnableRocksDBCQAsyncWrite(asyncCQWrite);
         if (Strings.isNullOrEmpty(storePathRootDir)) {
             UUID uuid = UUID.randomUUID();
             storePathRootDir = System.getProperty("java.io.tmpdir") + File.separator + "store-" + uuid.toString();
@@ -602,6 +607,40 @@ public class RocksDBMessageStoreTest {
         verifyThatMasterIsFunctional(totalMessages, messageStore);
     }
 
+    @Test
+    public void testWriteAndReadWithAsyncCQWrite() throws Exception {
+        if (notExecuted()) {
+            return;
+        }
+        messageStore.shutdown();
+        messageStore.destroy();
+        messageStore = buildMessageStore(null, "", true);
+        assertTrue(messageStore.load());
+        messageStore.start();
+
+        long totalMessages = 100;
+        queueTotal = 1;
+        messageBody = storeMessage.getBytes();
+        for (long i = 0; i < totalMessages; i++) {
+            messageStore.putMessage(buildMessage());
+        }
+
+        Awaitility.await()
+            .atMost(3, TimeUnit.SECONDS)
+            .pollInterval(1, TimeUnit.MILLISECONDS)
+            .until(() -> messageStore.getMaxOffsetInQueue(messageTopic, 0) == totalMessages);
+
+        long offset = 0;
+        while (offset < totalMessages) {
+            GetMessageResult result = messageStore.getMessage("GROUP_A", messageTopic, 0, offset, 32, null);
+            assertThat(result.getStatus()).isEqualTo(GetMessageStatus.FOUND);
+            assertThat(result.getMessageCount()).isEqualTo((int) Math.min(32, totalMessages - offset));
+            offset = result.getNextBeginOffset();
+            result.release();
+        }
+        verifyThatMasterIsFunctional(totalMessages, messageStore);
+    }
+
     @Test
     public void testMaxOffset() {
         if (notExecuted()) {
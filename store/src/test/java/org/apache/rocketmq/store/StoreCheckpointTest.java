@@ -47,6 +47,35 @@ public class StoreCheckpointTest {
         assertThat(storeCheckpoint.getLogicsMsgTimestamp()).isEqualTo(logicsMsgTimestamp);
     }
 
+    @Test
+    public void testPhyOffsetWriteAndRead() throws IOException {
+        StoreCheckpoint storeCheckpoint = new StoreCheckpoint("target/checkpoint_test/0001");
+        assertThat(storeCheckpoint.getMinPhyOffset(false)).isEqualTo(-1);
+        storeCheckpoint.setPhysicMsgPhyOffset(4096);
+        storeCheckpoint.setDispatchedLogicsMsgPhyOffset(8192);
+        assertThat(storeCheckpoint.getMinPhyOffset(false)).isEqualTo(-1);
+        storeCheckpoint.setLogicsMsgPhyOffset(2048);
+        assertThat(storeCheckpoint.getMinPhyOffset(false)).isEqualTo(2048);
+        assertThat(storeCheckpoint.getMinPhyOffset(true)).isEqualTo(-1);
+        storeCheckpoint.setIndexMsgPhyOffset(1024);
+        assertThat(storeCheckpoint.getMinPhyOffset(true)).isEqualTo(1024);
+        storeCheckpoint.flush();
+        storeCheckpoint.shutdown();
+
+        storeCheckpoint = new StoreCheckpoint("target/checkpoint_test/0001");
+        assertThat(storeCheckpoint.getPhysicMsgPhyOffset()).isEqualTo(4096);
+        assertThat(storeCheckpoint.getLogicsMsgPhyOffset()).isEqualTo(2048);
+        assertThat(storeCheckpoint.getIndexMsgPhyOffset()).isEqualTo(1024);
+        // the dispatched offset is published by the consume queue flush only, never persisted on its own
+        assertThat(storeCheckpoint.getDispatchedLogicsMsgPhyOffset()).isEqualTo(0);
+
+        storeCheckpoint.truncatePhyOffset(1500);
+        assertThat(storeCheckpoint.getPhysicMsgPhyOffset()).isEqualTo(1500);
+        assertThat(storeCheckpoint.getLogicsMsgPhyOffset()).isEqualTo(1500);
+        assertThat(storeCheckpoint.getIndexMsgPhyOffset()).isEqualTo(1024);
+        storeCheckpoint.shutdown();
+    }
+
     @After
     public void destroy() {
         File file = new File("target/checkpoint_test");
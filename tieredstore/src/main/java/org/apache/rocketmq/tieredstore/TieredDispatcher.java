@@ -40,6 +40,7 @@ import org.apache.rocketmq.store.ConsumeQueue;
 import org.apache.rocketmq.store.DispatchRequest;
 import org.apache.rocketmq.store.MessageStore;
 import org.apache.rocketmq.store.SelectMappedBufferResult;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
 import org.apache.rocketmq.tieredstore.common.AppendResult;
 import org.apache.rocketmq.tieredstore.common.FileSegmentType;
 import org.apache.rocketmq.tieredstore.common.TieredMessageStoreConfig;
@@ -50,7 +51,6 @@ import org.apache.rocketmq.tieredstore.metrics.TieredStoreMetricsConstant;
 import org.apache.rocketmq.tieredstore.metrics.TieredStoreMetricsManager;
 import org.apache.rocketmq.tieredstore.provider.TieredStoreTopicBlackListFilter;
 import org.apache.rocketmq.tieredstore.provider.TieredStoreTopicFilter;
-import org.apache.rocketmq.tieredstore.util.CQItemBufferUtil;
 import org.apache.rocketmq.tieredstore.util.MessageBufferUtil;
 import org.apache.rocketmq.tieredstore.util.TieredStoreUtil;
 
@@ -297,19 +297,24 @@ public class TieredDispatcher extends ServiceThread implements CommitLogDispatch
             logger.debug("DispatchFlatFile race, topic={}, queueId={}, cq range={}-{}, dispatch offset={}-{}",
                 topic, queueId, minOffsetInQueue, maxOffsetInQueue, dispatchOffset, upperBound - 1);
 
+            // decode cq units of the whole dispatch range at once instead of mapping them one by one
+            CqUnitBatch cqUnitBatch = new CqUnitBatch((int) Math.max(0, upperBound - dispatchOffset));
             for (; dispatchOffset < upperBound; dispatchOffset++) {
                 // get consume queue
-                SelectMappedBufferResult cqItem = consumeQueue.getIndexBuffer(dispatchOffset);
-                if (cqItem == null) {
-                    logger.error("[Bug] TieredDispatcher#dispatchFlatFile: cq item is null, " +
-                            "topic: {}, queueId: {}, dispatch offset: {}, local cq offset range {}-{}",
-                        topic, queueId, dispatchOffset, minOffsetInQueue, maxOffsetInQueue);
-                    return;
+                int index = cqUnitBatch.isEmpty() ? -1 : (int) (dispatchOffset - cqUnitBatch.getQueueOffset(0));
+                if (index < 0 || index >= cqUnitBatch.size()) {
+                    if (!consumeQueue.readUnits(dispatchOffset, (int) (upperBound - dispatchOffset), cqUnitBatch)
+                        || cqUnitBatch.isEmpty()) {
+                        logger.error("[Bug] TieredDispatcher#dispatchFlatFile: cq item is null, " +
+                                "topic: {}, queueId: {}, dispatch offset: {}, local cq offset range {}-{}",
+                            topic, queueId, dispatchOffset, minOffsetInQueue, maxOffsetInQueue);
+                        return;
+                    }
+                    index = 0;
                 }
-                long commitLogOffset = CQItemBufferUtil.getCommitLogOffset(cqItem.getByteBuffer());
-                int size = CQItemBufferUtil.getSize(cqItem.getByteBuffer());
-                long tagCode = CQItemBufferUtil.getTagCode(cqItem.getByteBuffer());
-                cqItem.release();
+                long commitLogOffset = cqUnitBatch.getPos(index);
+                int size = cqUnitBatch.getSize(index);
+                long tagCode = cqUnitBatch.getTagsCode(index);
 
                 // get message
                 SelectMappedBufferResult message = defaultStore.selectOneMessageByOffset(commitLogOffset, size);
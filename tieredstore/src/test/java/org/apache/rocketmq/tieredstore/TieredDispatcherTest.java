@@ -24,6 +24,7 @@ import org.apache.rocketmq.store.ConsumeQueue;
 import org.apache.rocketmq.store.DefaultMessageStore;
 import org.apache.rocketmq.store.DispatchRequest;
 import org.apache.rocketmq.store.SelectMappedBufferResult;
+import org.apache.rocketmq.store.queue.CqUnitBatch;
 import org.apache.rocketmq.tieredstore.common.AppendResult;
 import org.apache.rocketmq.tieredstore.common.FileSegmentType;
 import org.apache.rocketmq.tieredstore.common.TieredMessageStoreConfig;
@@ -143,24 +144,20 @@ public class TieredDispatcherTest {
         Mockito.when(defaultStore.getMinOffsetInQueue(mq.getTopic(), mq.getQueueId())).thenReturn(0L);
         Mockito.when(defaultStore.getMaxOffsetInQueue(mq.getTopic(), mq.getQueueId())).thenReturn(9L);
 
-        // mock cq item, position = 7
-        ByteBuffer cqItem = ByteBuffer.allocate(ConsumeQueue.CQ_STORE_UNIT_SIZE);
-        cqItem.putLong(7);
-        cqItem.putInt(MessageBufferUtilTest.MSG_LEN);
-        cqItem.putLong(1);
-        cqItem.flip();
-        SelectMappedBufferResult mockResult = new SelectMappedBufferResult(0, cqItem, ConsumeQueue.CQ_STORE_UNIT_SIZE, null);
-        Mockito.when(((ConsumeQueue) defaultStore.getConsumeQueue(mq.getTopic(), mq.getQueueId())).getIndexBuffer(6)).thenReturn(mockResult);
-
-        // mock cq item, position = 8
-        cqItem = ByteBuffer.allocate(ConsumeQueue.CQ_STORE_UNIT_SIZE);
-        cqItem.putLong(8);
-        cqItem.putInt(MessageBufferUtilTest.MSG_LEN);
-        cqItem.putLong(1);
-        cqItem.flip();
-        mockResult = new SelectMappedBufferResult(0, cqItem, ConsumeQueue.CQ_STORE_UNIT_SIZE, null);
-        Mockito.when(((ConsumeQueue) defaultStore.getConsumeQueue(mq.getTopic(), mq.getQueueId())).getIndexBuffer(7)).thenReturn(mockResult);
-
+        // mock cq items, index 6 at position 7 and index 7 at position 8
+        Mockito.when(((ConsumeQueue) defaultStore.getConsumeQueue(mq.getTopic(), mq.getQueueId()))
+            .readUnits(Mockito.anyLong(), Mockito.anyInt(), Mockito.any(CqUnitBatch.class))).thenAnswer(invocation -> {
+                long startIndex = invocation.getArgument(0);
+                int count = invocation.getArgument(1);
+                CqUnitBatch batch = invocation.getArgument(2);
+                batch.clear();
+                for (long index = startIndex; index < startIndex + count && index >= 6 && index <= 7; index++) {
+                    batch.add(index, index + 1, MessageBufferUtilTest.MSG_LEN, 1, (short) 1, null);
+                }
+                return !batch.isEmpty();
+            });
+
+        SelectMappedBufferResult mockResult;
         mockResult = new SelectMappedBufferResult(0, MessageBufferUtilTest.buildMockedMessageBuffer(), MessageBufferUtilTest.MSG_LEN, null);
         Mockito.when(defaultStore.selectOneMessageByOffset(7, MessageBufferUtilTest.MSG_LEN)).thenReturn(mockResult);
 